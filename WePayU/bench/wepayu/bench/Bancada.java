@@ -0,0 +1,88 @@
+package wepayu.bench;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Bancada mínima de microbenchmarks (aquecimento, iterações medidas e sumidouro de resultados).
+ *
+ * <p>
+ * Cada operação devolve um {@code long} derivado do seu resultado, acumulado em um campo
+ * {@code volatile} para que o JIT não elimine o trabalho. A operação é repetida em lotes até
+ * completar o tempo de cada iteração; o relatório mostra a mediana, o mínimo e o máximo em
+ * nanossegundos por operação.
+ * </p>
+ *
+ * <p>Os parâmetros podem ser ajustados pelas propriedades de sistema {@code bancada.aquecimento},
+ * {@code bancada.iteracoes} e {@code bancada.ms} (duração de cada iteração).</p>
+ */
+public final class Bancada {
+
+    /**
+     * Operação medida; o retorno é consumido pela bancada.
+     */
+    @FunctionalInterface
+    public interface Operacao {
+        long executar() throws Exception;
+    }
+
+    private static final int AQUECIMENTO = Integer.getInteger("bancada.aquecimento", 3);
+    private static final int ITERACOES = Integer.getInteger("bancada.iteracoes", 5);
+    private static final long NANOS_POR_ITERACAO = Long.getLong("bancada.ms", 500L) * 1_000_000L;
+
+    private static volatile long sumidouro;
+
+    private Bancada() {
+    }
+
+    /**
+     * Mede uma operação e imprime uma linha de resultado.
+     *
+     * @param nome nome do benchmark (inclua os parâmetros, ex.: {@code "totalFolha n=1000"})
+     * @param operacao operação a medir
+     * @return mediana em nanossegundos por operação
+     * @throws Exception se a operação falhar
+     */
+    public static double medir(String nome, Operacao operacao) throws Exception {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            iteracao(operacao);
+        }
+        double[] amostras = new double[ITERACOES];
+        for (int i = 0; i < ITERACOES; i++) {
+            amostras[i] = iteracao(operacao);
+        }
+        Arrays.sort(amostras);
+        double mediana = amostras[amostras.length / 2];
+        System.out.println(String.format(Locale.ROOT, "%-55s %14.1f ns/op  (min %.1f, max %.1f)",
+                nome, mediana, amostras[0], amostras[amostras.length - 1]));
+        return mediana;
+    }
+
+    /**
+     * Imprime o cabeçalho de um grupo de benchmarks.
+     *
+     * @param titulo título do grupo
+     */
+    public static void grupo(String titulo) {
+        System.out.println();
+        System.out.println("== " + titulo);
+    }
+
+    private static double iteracao(Operacao operacao) throws Exception {
+        long lote = 1;
+        long ops = 0;
+        long acumulado = 0;
+        long inicio = System.nanoTime();
+        long decorrido;
+        do {
+            for (long k = 0; k < lote; k++) {
+                acumulado += operacao.executar();
+            }
+            ops += lote;
+            decorrido = System.nanoTime() - inicio;
+            if (lote < 1 << 20) lote <<= 1;
+        } while (decorrido < NANOS_POR_ITERACAO);
+        sumidouro += acumulado;
+        return (double) decorrido / ops;
+    }
+}
@@ -0,0 +1,107 @@
+package wepayu.bench;
+
+import wepayu.models.CartaoDePonto;
+import wepayu.models.Empregado;
+import wepayu.models.Horista;
+import wepayu.services.CartoesColunares;
+import wepayu.services.Sistema;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compara a memória e a soma de horas por período dos cartões de ponto em objetos
+ * ({@link CartaoDePonto} + {@link LocalDate} nas listas dos horistas) e em {@link CartoesColunares}.
+ *
+ * <p>O volume é ajustado por {@code -Dcartoes.n} (padrão 5.000.000, cerca de um ano de cartões por
+ * horista); a medição de memória usa o heap ocupado após coletas completas, então rode com
+ * {@code -Xmx} suficiente para as duas representações (ex.: {@code -Xmx3g}).</p>
+ */
+public final class CartoesColunaresBench {
+
+    private static final int CARTOES_POR_HORISTA = 250;
+
+    private CartoesColunaresBench() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int n = Integer.getInteger("cartoes.n", 5_000_000);
+        int horistas = Math.max(1, n / CARTOES_POR_HORISTA);
+        Random r = new Random(42);
+        Sistema sistema = new Sistema();
+        Path csv = Files.createTempFile("horistas", ".csv");
+        StringBuilder linhas = new StringBuilder();
+        for (int i = 0; i < horistas; i++) {
+            linhas.append("h").append(i).append(";rua;horista;10,00;;;;\n");
+        }
+        Files.writeString(csv, linhas);
+        sistema.importarEmpregados(csv, false);
+        sistema.limparHistorico();
+        Files.delete(csv);
+
+        long antes = heapOcupado();
+        long inicio = LocalDate.of(2024, 1, 1).toEpochDay();
+        for (Empregado e : sistema.getEmpregados()) {
+            Horista h = (Horista) e;
+            for (int k = 0; k < CARTOES_POR_HORISTA; k++) {
+                double horas = (400 + r.nextInt(800)) / 100.0;
+                h.getListaCartoes().add(new CartaoDePonto(LocalDate.ofEpochDay(inicio + k), horas));
+            }
+        }
+        long objetos = heapOcupado() - antes;
+
+        antes = heapOcupado();
+        CartoesColunares colunas = sistema.exportarCartoes();
+        long colunar = heapOcupado() - antes;
+
+        long cartoes = colunas.getCartoes();
+        Bancada.grupo("memoria, " + cartoes + " cartoes de " + horistas + " horistas");
+        System.out.println(String.format(Locale.ROOT, "%-55s %14.1f bytes/cartao", "objetos (lista de CartaoDePonto)",
+                (double) objetos / cartoes));
+        System.out.println(String.format(Locale.ROOT, "%-55s %14.1f bytes/cartao", "CartoesColunares",
+                (double) colunar / cartoes));
+        System.out.println(String.format(Locale.ROOT, "%-55s %14.1f x", "reducao", (double) objetos / colunar));
+
+        long semanaIni = inicio + 98, semanaFim = semanaIni + 7;
+        LocalDate ini = LocalDate.ofEpochDay(semanaIni), fim = LocalDate.ofEpochDay(semanaFim);
+        long[] normais = new long[colunas.getEmpregados()];
+        long[] extras = new long[colunas.getEmpregados()];
+        Bancada.grupo("horas normais e extras de uma semana, todos os horistas");
+        Bancada.medir("objetos (varredura das listas)", () -> {
+            double total = 0;
+            for (Empregado e : sistema.getEmpregados()) {
+                for (CartaoDePonto c : ((Horista) e).getListaCartoes()) {
+                    LocalDate d = c.getData();
+                    if (!d.isBefore(ini) && d.isBefore(fim)) {
+                        total += Math.min(8.0, c.getHoras()) + Math.max(0.0, c.getHoras() - 8.0);
+                    }
+                }
+            }
+            return (long) total;
+        });
+        Bancada.medir("CartoesColunares.somarHoras", () -> {
+            colunas.somarHoras(semanaIni, semanaFim, normais, extras);
+            return normais[0] + extras[extras.length - 1];
+        });
+
+        Bancada.grupo("horas de um ano, todos os horistas");
+        Bancada.medir("CartoesColunares.somarHoras", () -> {
+            colunas.somarHoras(inicio, inicio + 366, normais, extras);
+            return normais[0] + extras[extras.length - 1];
+        });
+    }
+
+    private static long heapOcupado() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        long ocupado = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+            ocupado = Math.min(ocupado, rt.totalMemory() - rt.freeMemory());
+        }
+        return ocupado;
+    }
+}
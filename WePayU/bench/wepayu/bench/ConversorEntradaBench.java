@@ -0,0 +1,65 @@
+package wepayu.bench;
+
+import wepayu.services.ConversorEntrada;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.Random;
+
+/**
+ * Compara a conversão de datas e números do {@link ConversorEntrada} com o caminho anterior
+ * ({@code DateTimeFormatter} criado a cada chamada e {@code replace} + {@code Double.parseDouble},
+ * com exceções para validação).
+ *
+ * <p>As entradas têm 5% de valores inválidos, como em uma importação com linhas sujas.</p>
+ */
+public final class ConversorEntradaBench {
+
+    private static final int N = 1024;
+    private static final int MASCARA = N - 1;
+
+    private ConversorEntradaBench() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Random r = new Random(42);
+        String[] datas = new String[N];
+        String[] numeros = new String[N];
+        for (int i = 0; i < N; i++) {
+            boolean invalido = r.nextInt(100) < 5;
+            datas[i] = invalido
+                    ? (1 + r.nextInt(31)) + "/13/2005"
+                    : (1 + r.nextInt(28)) + "/" + (1 + r.nextInt(12)) + "/" + (2000 + r.nextInt(30));
+            numeros[i] = invalido
+                    ? "12,x5"
+                    : r.nextInt(10_000) + "," + String.format("%02d", r.nextInt(100));
+        }
+
+        int[] i = {0};
+        Bancada.grupo("datas d/M/uuuu");
+        Bancada.medir("anterior (ofPattern + parse + excecao)", () -> {
+            String s = datas[i[0]++ & MASCARA];
+            try {
+                DateTimeFormatter fmt = DateTimeFormatter.ofPattern("d/M/uuuu")
+                        .withResolverStyle(ResolverStyle.STRICT);
+                return LocalDate.parse(s, fmt).toEpochDay();
+            } catch (Exception e) {
+                return -1;
+            }
+        });
+        Bancada.medir("ConversorEntrada.epochDay", () -> ConversorEntrada.epochDay(datas[i[0]++ & MASCARA]));
+
+        Bancada.grupo("numeros com virgula");
+        Bancada.medir("anterior (replace + parseDouble + excecao)", () -> {
+            String s = numeros[i[0]++ & MASCARA];
+            try {
+                return Double.doubleToRawLongBits(Double.parseDouble(s.replace(",", ".")));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        });
+        Bancada.medir("ConversorEntrada.decimal",
+                () -> Double.doubleToRawLongBits(ConversorEntrada.decimal(numeros[i[0]++ & MASCARA])));
+    }
+}
@@ -0,0 +1,190 @@
+package wepayu.bench;
+
+import wepayu.command.Facade;
+import wepayu.services.Lancamento;
+import wepayu.services.Sistema;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Mede as operações mais usadas da {@link Facade} em bases de tamanhos diferentes, para servir de
+ * referência a regressões e otimizações.
+ *
+ * <h3>Base</h3>
+ * <p>
+ * Para cada combinação de tamanho, {@code n} empregados (um terço de cada tipo, metade sindicalizada)
+ * são importados de um CSV e cada horista recebe {@code c} cartões de ponto em dias consecutivos,
+ * ingeridos de um arquivo; cada comissionado recebe {@code c} vendas. O histórico de undo/redo da
+ * montagem é descartado antes das medições.
+ * </p>
+ *
+ * <h3>Parâmetros (propriedades de sistema)</h3>
+ * <ul>
+ *   <li>{@code bench.empregados} — tamanhos da base (padrão {@code 1000,100000,1000000});</li>
+ *   <li>{@code bench.cartoes} — cartões por horista (padrão {@code 10,100,1000});</li>
+ *   <li>{@code bench.maxCartoes} — combinações com mais cartões no total são puladas
+ *       (padrão {@code 5000000}), pois cada operação que altera o sistema copia a base inteira para o
+ *       histórico;</li>
+ *   <li>{@code bench.operacoes} — operações a medir (padrão: todas; nomes como na saída, ex.:
+ *       {@code getEmpregado,lancaCartao}).</li>
+ * </ul>
+ * <p>
+ * As operações que alteram o sistema são medidas com o histórico descartado logo depois de cada uma
+ * (uma nova {@link Facade} e {@link Sistema#limparHistorico()}), para que a memória não cresça durante a
+ * medição; o custo de criar o snapshot de undo continua incluído. Bases grandes precisam de
+ * {@code -Xmx} proporcional (ex.: {@code -Xmx4g} para 1.000.000 de empregados).
+ * </p>
+ */
+public final class FacadeBench {
+
+    private static final LocalDate PRIMEIRO_DIA = LocalDate.of(2005, 1, 3);
+
+    private FacadeBench() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] tamanhos = inteiros(System.getProperty("bench.empregados", "1000,100000,1000000"));
+        int[] cartoes = inteiros(System.getProperty("bench.cartoes", "10,100,1000"));
+        long maxCartoes = Long.getLong("bench.maxCartoes", 5_000_000L);
+        String filtro = System.getProperty("bench.operacoes", "");
+        Set<String> operacoes = filtro.isBlank() ? null : Set.of(filtro.split(","));
+
+        for (int n : tamanhos) {
+            for (int c : cartoes) {
+                long total = (long) ((n + 2) / 3) * c;
+                if (total > maxCartoes) {
+                    Bancada.grupo("n=" + n + " cartoes=" + c + ": pulado (" + total + " cartoes > bench.maxCartoes)");
+                    continue;
+                }
+                Base base = new Base(n, c);
+                Bancada.grupo("n=" + n + " cartoes=" + c);
+                base.medir(operacoes);
+            }
+        }
+    }
+
+    private static int[] inteiros(String lista) {
+        return Arrays.stream(lista.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static String data(LocalDate d) {
+        return d.getDayOfMonth() + "/" + d.getMonthValue() + "/" + d.getYear();
+    }
+
+    /** Sistema montado para um tamanho e as operações medidas sobre ele. */
+    private static final class Base {
+        final int n;
+        final int cartoes;
+        final Sistema sistema = new Sistema();
+        final Random r = new Random(42);
+        final String[] datas;
+        final Path saida;
+        Facade facade;
+
+        Base(int n, int cartoes) throws Exception {
+            this.n = n;
+            this.cartoes = cartoes;
+            this.datas = new String[cartoes];
+            for (int k = 0; k < cartoes; k++) datas[k] = data(PRIMEIRO_DIA.plusDays(k));
+
+            Path csv = Files.createTempFile("wepayu-bench", ".csv");
+            try (var out = Files.newBufferedWriter(csv)) {
+                for (int i = 0; i < n; i++) {
+                    String tipo = switch (i % 3) {
+                        case 0 -> "horista;12,50;";
+                        case 1 -> "assalariado;2500,00;";
+                        default -> "comissionado;2000,00;0,05";
+                    };
+                    out.write("emp" + i + ";rua " + i + ";" + tipo + ";" + (i % 2 == 0 ? "s" + i + ":1,50" : "")
+                            + ";;\n");
+                }
+            }
+            sistema.importarEmpregados(csv, false);
+            Files.delete(csv);
+
+            Path horas = Files.createTempFile("wepayu-bench", ".csv");
+            Path vendas = Files.createTempFile("wepayu-bench", ".csv");
+            try (var h = Files.newBufferedWriter(horas); var v = Files.newBufferedWriter(vendas)) {
+                for (int i = 0; i < n; i++) {
+                    for (int k = 0; k < cartoes; k++) {
+                        if (i % 3 == 0) h.write((i + 1) + ";" + datas[k] + ";" + (4 + (i + k) % 7) + "\n");
+                        else if (i % 3 == 2) v.write((i + 1) + ";" + datas[k] + ";" + (100 + k) + ",00\n");
+                    }
+                }
+            }
+            sistema.ingerirLancamentos(horas, Lancamento.Tipo.CARTAO, false, null);
+            sistema.ingerirLancamentos(vendas, Lancamento.Tipo.VENDA, false, null);
+            Files.delete(horas);
+            Files.delete(vendas);
+
+            saida = Files.createTempFile("wepayu-bench-folha", ".txt");
+            descartarHistorico();
+        }
+
+        void descartarHistorico() {
+            sistema.limparHistorico();
+            facade = new Facade(sistema);
+        }
+
+        /** ID de um empregado aleatório do tipo indicado (0 horista, 1 assalariado, 2 comissionado). */
+        String id(int tipo) {
+            int grupos = (n - tipo + 2) / 3;
+            return String.valueOf(r.nextInt(grupos) * 3 + tipo + 1);
+        }
+
+        void medir(Set<String> operacoes) throws Exception {
+            String sexta = data(PRIMEIRO_DIA.plusDays(4 + 7 * ((cartoes - 1) / 7)));
+            for (Map.Entry<String, Bancada.Operacao> caso : operacoes(sexta).entrySet()) {
+                if (operacoes != null && !operacoes.contains(caso.getKey())) continue;
+                if (caso.getKey().equals("undo+redo")) facade.alteraEmpregado("1", "endereco", "rua 0");
+                Bancada.medir(caso.getKey() + " n=" + n + " c=" + cartoes, caso.getValue());
+            }
+            Files.deleteIfExists(saida);
+        }
+
+        private Map<String, Bancada.Operacao> operacoes(String sexta) {
+            Map<String, Bancada.Operacao> casos = new LinkedHashMap<>();
+            casos.put("getEmpregado", () -> facade.getAtributoEmpregado(id(r.nextInt(3)), "nome").length());
+            casos.put("getEmpregadoPorNome", () -> facade.getEmpregadoPorNome("emp" + r.nextInt(n), 1).length());
+            casos.put("lancaCartao", () -> {
+                facade.lancaCartao(id(0), datas[r.nextInt(cartoes)], "8");
+                descartarHistorico();
+                return 1;
+            });
+            casos.put("lancaVenda", () -> {
+                facade.lancaVenda(id(2), datas[r.nextInt(cartoes)], "10,00");
+                descartarHistorico();
+                return 1;
+            });
+            casos.put("lancaTaxaServico", () -> {
+                facade.lancaTaxaServico("s" + r.nextInt((n + 1) / 2) * 2, datas[r.nextInt(cartoes)], "2,00");
+                descartarHistorico();
+                return 1;
+            });
+            casos.put("alteraEmpregado", () -> {
+                facade.alteraEmpregado(id(r.nextInt(3)), "endereco", "rua " + r.nextInt(1000));
+                descartarHistorico();
+                return 1;
+            });
+            casos.put("undo+redo", () -> {
+                facade.undo();
+                facade.redo();
+                return 1;
+            });
+            casos.put("totalFolha", () -> facade.totalFolha(sexta).length());
+            casos.put("rodaFolha", () -> {
+                facade.rodaFolha(sexta, saida.toString());
+                descartarHistorico();
+                return Files.size(saida);
+            });
+            return casos;
+        }
+    }
+}
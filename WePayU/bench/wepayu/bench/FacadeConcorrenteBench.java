@@ -0,0 +1,258 @@
+package wepayu.bench;
+
+import wepayu.command.FacadeConcorrente;
+import wepayu.command.VersaoFixada;
+import wepayu.services.Lancamento;
+import wepayu.services.Sistema;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Teste de carga da {@link FacadeConcorrente}: um escritor e um número crescente de leitores sobre a
+ * mesma instância, conferindo invariantes do estado durante e depois de cada rodada.
+ *
+ * <h3>Cenário</h3>
+ * <p>
+ * A base tem {@code n} horistas com salário 20,00 e um cartão de 8 horas na semana de 7/1/2005, de
+ * modo que a folha do dia é sempre 160,00 por horista com cartão. O escritor cria horistas iguais e
+ * lança um cartão de 8 horas para cada um; a cada dez, desfaz e refaz o cartão. Os leitores alternam
+ * {@code getNumeroDeEmpregados}, {@code totalFolha}, {@code getAtributoEmpregado} e, de tempos em
+ * tempos, uma {@link VersaoFixada}.
+ * </p>
+ *
+ * <h3>Invariantes</h3>
+ * <ul>
+ *   <li>O número de empregados visto por um leitor nunca diminui (o escritor não remove nem desfaz
+ *       criações);</li>
+ *   <li>{@code totalFolha} é múltiplo de 160,00, nunca menor que o da base e nunca maior que 160,00 vezes
+ *       o número de empregados lido logo depois;</li>
+ *   <li>O salário de um empregado da base é sempre 20,00;</li>
+ *   <li>Em uma versão fixada, o total é 160,00 vezes o número de empregados, ou uma vez menos (o último
+ *       criado ainda sem cartão);</li>
+ *   <li>Ao fim da rodada, há {@code n} empregados mais os criados, e todos têm cartão.</li>
+ * </ul>
+ * <p>
+ * Cada rodada imprime as leituras e escritas por segundo e as violações encontradas; se houver alguma,
+ * o processo termina com código 1. A vazão de leitura só escala com os leitores se houver núcleos
+ * livres para eles.
+ * </p>
+ *
+ * <h3>Parâmetros (propriedades de sistema)</h3>
+ * <ul>
+ *   <li>{@code concorrencia.leitores} — leitores de cada rodada (padrão {@code 1,2,4,8});</li>
+ *   <li>{@code concorrencia.empregados} — horistas da base (padrão 200);</li>
+ *   <li>{@code concorrencia.ms} — duração de cada rodada (padrão 2000);</li>
+ *   <li>{@code concorrencia.escritas} — limite de comandos do escritor por segundo (padrão 500; 0 sem
+ *       limite). Cada comando guarda duas cópias do estado para o undo, então o limite também segura a
+ *       memória da rodada.</li>
+ * </ul>
+ */
+public final class FacadeConcorrenteBench {
+
+    private static final String DATA_FOLHA = "7/1/2005";
+    private static final BigDecimal POR_HORISTA = new BigDecimal("160.00");
+    private static final int MAX_VIOLACOES_IMPRESSAS = 10;
+
+    private FacadeConcorrenteBench() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] leitores = Arrays.stream(System.getProperty("concorrencia.leitores", "1,2,4,8").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        int n = Integer.getInteger("concorrencia.empregados", 200);
+        long ms = Long.getLong("concorrencia.ms", 2000L);
+        int escritas = Integer.getInteger("concorrencia.escritas", 500);
+
+        long violacoes = 0;
+        for (int l : leitores) {
+            violacoes += new Rodada(n, l, ms, escritas).executar();
+        }
+        if (violacoes > 0) {
+            System.out.println("FALHOU: " + violacoes + " violacoes");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static BigDecimal valor(String s) {
+        return new BigDecimal(s.replace(',', '.'));
+    }
+
+    /** Uma rodada: base nova, um escritor e {@code leitores} leitores durante {@code ms} milissegundos. */
+    private static final class Rodada {
+        final int n;
+        final int leitores;
+        final long ms;
+        final long nanosPorEscrita;
+        final FacadeConcorrente facade;
+        final BigDecimal totalBase;
+        final LongAdder leituras = new LongAdder();
+        final LongAdder violacoes = new LongAdder();
+        final List<String> mensagens = new ArrayList<>();
+        volatile boolean parar;
+        Throwable falhaEscritor;
+        long escritas;
+        long criados;
+
+        Rodada(int n, int leitores, long ms, int escritasPorSegundo) throws Exception {
+            this.n = n;
+            this.leitores = leitores;
+            this.ms = ms;
+            this.nanosPorEscrita = escritasPorSegundo > 0 ? 1_000_000_000L / escritasPorSegundo : 0;
+            this.facade = new FacadeConcorrente(base(n));
+            this.totalBase = POR_HORISTA.multiply(BigDecimal.valueOf(n));
+        }
+
+        private static Sistema base(int n) throws Exception {
+            Sistema sistema = new Sistema();
+            Path csv = Files.createTempFile("wepayu-concorrencia", ".csv");
+            Path cartoes = Files.createTempFile("wepayu-concorrencia", ".csv");
+            try {
+                try (var out = Files.newBufferedWriter(csv); var h = Files.newBufferedWriter(cartoes)) {
+                    for (int i = 0; i < n; i++) {
+                        out.write("base" + i + ";rua " + i + ";horista;20,00;;;;\n");
+                        h.write((i + 1) + ";3/1/2005;8\n");
+                    }
+                }
+                sistema.importarEmpregados(csv, false);
+                sistema.ingerirLancamentos(cartoes, Lancamento.Tipo.CARTAO, false, null);
+            } finally {
+                Files.deleteIfExists(csv);
+                Files.deleteIfExists(cartoes);
+            }
+            sistema.limparHistorico();
+            return sistema;
+        }
+
+        long executar() throws Exception {
+            CountDownLatch inicio = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            threads.add(new Thread(() -> {
+                try {
+                    inicio.await();
+                    escrever();
+                } catch (Throwable e) {
+                    falhaEscritor = e;
+                }
+            }, "escritor"));
+            for (int i = 0; i < leitores; i++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        inicio.await();
+                        ler();
+                    } catch (Throwable e) {
+                        violacao("leitor falhou: " + e);
+                    }
+                }, "leitor-" + i));
+            }
+            for (Thread t : threads) t.start();
+            long t0 = System.nanoTime();
+            inicio.countDown();
+            Thread.sleep(ms);
+            parar = true;
+            for (Thread t : threads) t.join();
+            double segundos = (System.nanoTime() - t0) / 1e9;
+
+            if (falhaEscritor != null) violacao("escritor falhou: " + falhaEscritor);
+            conferirFinal();
+            System.out.println(String.format(Locale.ROOT,
+                    "leitores=%-3d n=%d leituras=%.0f/s escritas=%.0f/s criados=%d violacoes=%d",
+                    leitores, n, leituras.sum() / segundos, escritas / segundos, criados, violacoes.sum()));
+            synchronized (mensagens) {
+                for (String m : mensagens) System.out.println("  " + m);
+            }
+            return violacoes.sum();
+        }
+
+        private void escrever() throws Exception {
+            long proxima = System.nanoTime();
+            while (!parar) {
+                String id = facade.criarEmpregado("novo" + criados, "rua", "horista", "20,00");
+                facade.lancaCartao(id, "4/1/2005", "8");
+                escritas += 2;
+                if (++criados % 10 == 0) {
+                    facade.undo();
+                    facade.redo();
+                    escritas += 2;
+                }
+                if (nanosPorEscrita > 0) {
+                    proxima += 2 * nanosPorEscrita;
+                    LockSupport.parkNanos(proxima - System.nanoTime());
+                }
+            }
+        }
+
+        private void ler() throws Exception {
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            int ultimoNumero = n;
+            long k = 0;
+            while (!parar) {
+                switch ((int) (k++ % 4)) {
+                    case 0 -> {
+                        int numero = Integer.parseInt(facade.getNumeroDeEmpregados());
+                        if (numero < ultimoNumero) {
+                            violacao("numero de empregados diminuiu: " + ultimoNumero + " -> " + numero);
+                        }
+                        ultimoNumero = numero;
+                    }
+                    case 1 -> {
+                        BigDecimal total = valor(facade.totalFolha(DATA_FOLHA));
+                        int numero = Integer.parseInt(facade.getNumeroDeEmpregados());
+                        if (total.remainder(POR_HORISTA).signum() != 0 || total.compareTo(totalBase) < 0
+                                || total.compareTo(POR_HORISTA.multiply(BigDecimal.valueOf(numero))) > 0) {
+                            violacao("totalFolha " + total + " com " + numero + " empregados");
+                        }
+                    }
+                    case 2 -> {
+                        String salario = facade.getAtributoEmpregado(String.valueOf(1 + r.nextInt(n)), "salario");
+                        if (!salario.equals("20,00")) violacao("salario da base " + salario);
+                    }
+                    default -> {
+                        if (k % 256 == 3) conferirVersao();
+                    }
+                }
+                leituras.increment();
+            }
+        }
+
+        private void conferirVersao() throws Exception {
+            try (VersaoFixada versao = facade.fixarVersao()) {
+                int numero = Integer.parseInt(versao.getNumeroDeEmpregados());
+                BigDecimal total = valor(versao.totalFolha(DATA_FOLHA));
+                BigDecimal completo = POR_HORISTA.multiply(BigDecimal.valueOf(numero));
+                if (total.compareTo(completo) != 0 && total.compareTo(completo.subtract(POR_HORISTA)) != 0) {
+                    violacao("versao " + versao.getNumero() + ": totalFolha " + total + " com " + numero
+                            + " empregados");
+                }
+            }
+        }
+
+        private void conferirFinal() throws Exception {
+            int numero = Integer.parseInt(facade.getNumeroDeEmpregados());
+            BigDecimal total = valor(facade.totalFolha(DATA_FOLHA));
+            if (numero != n + criados) {
+                violacao("fim: " + numero + " empregados, esperados " + (n + criados));
+            }
+            if (total.compareTo(POR_HORISTA.multiply(BigDecimal.valueOf(numero))) != 0) {
+                violacao("fim: totalFolha " + total + " com " + numero + " empregados");
+            }
+        }
+
+        private void violacao(String mensagem) {
+            violacoes.increment();
+            synchronized (mensagens) {
+                if (mensagens.size() < MAX_VIOLACOES_IMPRESSAS) mensagens.add(mensagem);
+            }
+        }
+    }
+}
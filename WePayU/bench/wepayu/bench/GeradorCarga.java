@@ -0,0 +1,467 @@
+package wepayu.bench;
+
+import wepayu.models.Empregado;
+import wepayu.models.MembroSindicato;
+import wepayu.models.TaxaServico;
+import wepayu.services.ConversorEntrada;
+import wepayu.services.Lancamento;
+import wepayu.services.Sistema;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Gerador determinístico de carga sintética: empregados e anos de cartões de ponto, vendas e taxas de
+ * serviço, para testes de carga da folha.
+ *
+ * <h3>Saída</h3>
+ * <p>
+ * {@link #gravar(Path)} escreve, no diretório indicado, arquivos nos formatos de importação em massa,
+ * sem cabeçalho:
+ * </p>
+ * <ul>
+ *   <li>{@code agendas.txt} — uma agenda personalizada por linha, a cadastrar antes da importação;</li>
+ *   <li>{@code empregados.csv} — para {@link Sistema#importarEmpregados(Path, boolean)};</li>
+ *   <li>{@code cartoes.csv} e {@code vendas.csv} — para
+ *       {@link Sistema#ingerirLancamentos(Path, Lancamento.Tipo, boolean, wepayu.services.RelatorioIngestao.Progresso)};</li>
+ *   <li>{@code taxas.csv} — {@code idMembro;data;valor}, como os arquivos {@code taxas*} da
+ *       {@link wepayu.command.CaixaDeEntrada}.</li>
+ * </ul>
+ * <p>
+ * Os lançamentos referenciam os IDs que a importação atribui a um sistema vazio (1, 2, ...) e os IDs
+ * sindicais {@code s<id>}. Cada arquivo de lançamentos está em ordem cronológica: os cartões ocupam dias
+ * úteis consecutivos a partir de {@link #inicio(LocalDate)}, e vendas e taxas se espalham pelo mesmo
+ * período. {@link #construir()} grava os arquivos em um diretório temporário e monta um {@link Sistema}
+ * em memória pelas mesmas rotas de importação, com o histórico descartado; o modelo em objetos usa
+ * cerca de 100 bytes por lançamento, então volumes maiores devem ser gerados em disco.
+ * </p>
+ *
+ * <h3>Reprodutibilidade</h3>
+ * <p>
+ * Cada atributo de cada empregado e lançamento é derivado de um hash da semente, do ID e do índice do
+ * lançamento, e não de um gerador sequencial: a mesma configuração produz sempre os mesmos bytes,
+ * independentemente da ordem de escrita. Os números e datas são formatados direto em bytes, com
+ * buffers de 1 MiB, para que 1.000.000 de empregados e cerca de 100.000.000 de lançamentos (a
+ * configuração padrão de {@link #main(String[])} com {@code carga.empregados=1000000}) sejam escritos em
+ * poucos minutos.
+ * </p>
+ */
+public final class GeradorCarga {
+
+    private static final String[] AGENDAS = {
+            "semanal 1", "semanal 3", "semanal 4 5", "semanal 2 3", "mensal 1", "mensal 10", "mensal 15", "mensal 28"
+    };
+    private static final String[] NOMES = {
+            "Ana", "Bruno", "Carla", "Daniel", "Eduarda", "Felipe", "Gabriela", "Hugo", "Isabela", "Joao",
+            "Larissa", "Marcos", "Natalia", "Otavio", "Paula", "Rafael", "Sofia", "Tiago", "Vanessa", "Yuri"
+    };
+    private static final String[] SOBRENOMES = {
+            "Silva", "Santos", "Oliveira", "Souza", "Lima", "Pereira", "Ferreira", "Costa", "Rodrigues", "Almeida",
+            "Nascimento", "Carvalho", "Araujo", "Ribeiro", "Barbosa", "Cavalcanti", "Monteiro", "Moura"
+    };
+    private static final String[] RUAS = {
+            "Rua das Flores", "Avenida Brasil", "Rua do Sol", "Travessa Sete", "Rua Nova", "Avenida Central"
+    };
+    private static final String[] BANCOS = {"Banco do Brasil", "Caixa", "Banco Nordeste", "Banco Azul"};
+
+    private static final int HORISTA = 0, ASSALARIADO = 1, COMISSIONADO = 2;
+    private static final long ATRIBUTOS = 0, CARTAO = 1, VENDA = 2, TAXA = 3;
+    private static final int TAMANHO_BUFFER = 1 << 20;
+
+    private final long semente;
+    private int empregados = 1000;
+    private double horistas = 1, assalariados = 1, comissionados = 1;
+    private double sindicalizados = 0.3;
+    private double emMaos = 0.2, correios = 0.2, banco = 0.6;
+    private double agendasPersonalizadas = 0.1;
+    private int cartoesPorHorista = 250;
+    private int vendasPorComissionado = 50;
+    private int taxasPorMembro = 12;
+    private LocalDate inicio = LocalDate.of(2024, 1, 1);
+
+    /**
+     * Resumo de uma geração.
+     *
+     * @param empregados empregados gerados
+     * @param cartoes cartões de ponto gerados
+     * @param vendas vendas geradas
+     * @param taxas taxas de serviço geradas
+     * @param bytes bytes escritos em disco
+     */
+    public record Resumo(long empregados, long cartoes, long vendas, long taxas, long bytes) {
+        /** @return total de lançamentos */
+        public long lancamentos() {
+            return cartoes + vendas + taxas;
+        }
+    }
+
+    /**
+     * @param semente semente da geração; a mesma semente e configuração produzem os mesmos dados
+     */
+    public GeradorCarga(long semente) {
+        this.semente = semente;
+    }
+
+    /** @param n quantidade de empregados (padrão 1000) */
+    public GeradorCarga empregados(int n) {
+        if (n < 0) throw new IllegalArgumentException("Quantidade de empregados negativa: " + n);
+        this.empregados = n;
+        return this;
+    }
+
+    /** Pesos relativos de cada tipo de empregado (padrão 1:1:1). */
+    public GeradorCarga tipos(double horistas, double assalariados, double comissionados) {
+        if (horistas < 0 || assalariados < 0 || comissionados < 0 || horistas + assalariados + comissionados <= 0) {
+            throw new IllegalArgumentException("Pesos de tipos invalidos");
+        }
+        this.horistas = horistas;
+        this.assalariados = assalariados;
+        this.comissionados = comissionados;
+        return this;
+    }
+
+    /** @param fracao fração de empregados sindicalizados, entre 0 e 1 (padrão 0,3) */
+    public GeradorCarga sindicalizados(double fracao) {
+        this.sindicalizados = fracao(fracao);
+        return this;
+    }
+
+    /** Pesos relativos dos métodos de pagamento (padrão 0,2 em mãos, 0,2 correios, 0,6 banco). */
+    public GeradorCarga metodos(double emMaos, double correios, double banco) {
+        if (emMaos < 0 || correios < 0 || banco < 0 || emMaos + correios + banco <= 0) {
+            throw new IllegalArgumentException("Pesos de metodos invalidos");
+        }
+        this.emMaos = emMaos;
+        this.correios = correios;
+        this.banco = banco;
+        return this;
+    }
+
+    /** @param fracao fração de empregados com uma agenda personalizada, entre 0 e 1 (padrão 0,1) */
+    public GeradorCarga agendasPersonalizadas(double fracao) {
+        this.agendasPersonalizadas = fracao(fracao);
+        return this;
+    }
+
+    /** @param n cartões por horista, em dias úteis consecutivos (padrão 250, cerca de um ano) */
+    public GeradorCarga cartoesPorHorista(int n) {
+        this.cartoesPorHorista = quantidade(n);
+        return this;
+    }
+
+    /** @param n vendas por comissionado (padrão 50) */
+    public GeradorCarga vendasPorComissionado(int n) {
+        this.vendasPorComissionado = quantidade(n);
+        return this;
+    }
+
+    /** @param n taxas de serviço por membro do sindicato (padrão 12) */
+    public GeradorCarga taxasPorMembro(int n) {
+        this.taxasPorMembro = quantidade(n);
+        return this;
+    }
+
+    /** @param data primeiro dia do período dos lançamentos (padrão 1/1/2024) */
+    public GeradorCarga inicio(LocalDate data) {
+        this.inicio = data;
+        return this;
+    }
+
+    private static double fracao(double f) {
+        if (!(f >= 0 && f <= 1)) throw new IllegalArgumentException("Fracao fora de [0, 1]: " + f);
+        return f;
+    }
+
+    private static int quantidade(int n) {
+        if (n < 0) throw new IllegalArgumentException("Quantidade negativa: " + n);
+        return n;
+    }
+
+    /**
+     * Grava os arquivos da carga no diretório, criando-o se necessário.
+     *
+     * @param diretorio diretório de saída
+     * @return quantidades geradas
+     * @throws IOException se a escrita falhar
+     */
+    public Resumo gravar(Path diretorio) throws IOException {
+        Files.createDirectories(diretorio);
+        Files.write(diretorio.resolve("agendas.txt"), List.of(AGENDAS), StandardCharsets.UTF_8);
+
+        byte[] tipos = new byte[empregados + 1];
+        boolean[] membros = new boolean[empregados + 1];
+        long bytes = gravarEmpregados(diretorio.resolve("empregados.csv"), tipos, membros);
+
+        int diasUteis = Math.max(1, cartoesPorHorista);
+        byte[][] datasUteis = new byte[diasUteis][];
+        LocalDate d = inicio;
+        for (int k = 0; k < diasUteis; k++, d = d.plusDays(1)) {
+            while (d.getDayOfWeek() == DayOfWeek.SATURDAY || d.getDayOfWeek() == DayOfWeek.SUNDAY) d = d.plusDays(1);
+            datasUteis[k] = data(d);
+        }
+        int dias = (int) (d.toEpochDay() - inicio.toEpochDay());
+        byte[][] datas = new byte[dias][];
+        for (int k = 0; k < dias; k++) datas[k] = data(inicio.plusDays(k));
+
+        long cartoes = 0, vendas = 0, taxas = 0;
+        try (Saida s = new Saida(diretorio.resolve("cartoes.csv"))) {
+            for (int k = 0; k < cartoesPorHorista; k++) {
+                for (int id = 1; id <= empregados; id++) {
+                    if (tipos[id] != HORISTA) continue;
+                    s.inteiro(id).texto(';').bytes(datasUteis[k]).texto(';').centesimos(horas(hash(CARTAO, id, k)))
+                            .texto('\n');
+                    cartoes++;
+                }
+            }
+            bytes += s.escritos();
+        }
+        try (Saida s = new Saida(diretorio.resolve("vendas.csv"))) {
+            for (int k = 0; k < vendasPorComissionado; k++) {
+                for (int id = 1; id <= empregados; id++) {
+                    if (tipos[id] != COMISSIONADO) continue;
+                    long h = hash(VENDA, id, k);
+                    s.inteiro(id).texto(';').bytes(datas[dia(h, k, vendasPorComissionado, dias)]).texto(';')
+                            .centesimos(5_000 + (h >>> 40) % 500_000).texto('\n');
+                    vendas++;
+                }
+            }
+            bytes += s.escritos();
+        }
+        try (Saida s = new Saida(diretorio.resolve("taxas.csv"))) {
+            for (int k = 0; k < taxasPorMembro; k++) {
+                for (int id = 1; id <= empregados; id++) {
+                    if (!membros[id]) continue;
+                    long h = hash(TAXA, id, k);
+                    s.texto('s').inteiro(id).texto(';').bytes(datas[dia(h, k, taxasPorMembro, dias)]).texto(';')
+                            .centesimos(500 + (h >>> 40) % 4_500).texto('\n');
+                    taxas++;
+                }
+            }
+            bytes += s.escritos();
+        }
+        return new Resumo(empregados, cartoes, vendas, taxas, bytes);
+    }
+
+    /**
+     * Gera a carga e monta um sistema em memória com ela: cadastra as agendas, importa os empregados,
+     * ingere cartões e vendas e adiciona as taxas aos membros. O histórico de undo/redo é descartado.
+     *
+     * @return sistema com a carga aplicada
+     * @throws Exception se a geração ou a importação falhar
+     */
+    public Sistema construir() throws Exception {
+        Path diretorio = Files.createTempDirectory("wepayu-carga");
+        try {
+            gravar(diretorio);
+            Sistema sistema = new Sistema();
+            for (String agenda : AGENDAS) sistema.criarAgendaDePagamentos(agenda);
+            sistema.importarEmpregados(diretorio.resolve("empregados.csv"), false);
+            sistema.ingerirLancamentos(diretorio.resolve("cartoes.csv"), Lancamento.Tipo.CARTAO, false, null);
+            sistema.ingerirLancamentos(diretorio.resolve("vendas.csv"), Lancamento.Tipo.VENDA, false, null);
+
+            Map<String, MembroSindicato> membros = new HashMap<>();
+            for (Empregado e : sistema.getEmpregados()) {
+                if (e.isSindicalizado()) membros.put(e.getSindicato().getIdMembro(), e.getSindicato());
+            }
+            try (BufferedReader in = Files.newBufferedReader(diretorio.resolve("taxas.csv"))) {
+                for (String linha; (linha = in.readLine()) != null; ) {
+                    String[] c = linha.split(";");
+                    LocalDate data = ConversorEntrada.data(c[1]);
+                    membros.get(c[0]).addTaxa(new TaxaServico(data, ConversorEntrada.decimal(c[2])));
+                }
+            }
+            sistema.limparHistorico();
+            return sistema;
+        } finally {
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                for (Path p : arquivos.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private long gravarEmpregados(Path arquivo, byte[] tipos, boolean[] membros) throws IOException {
+        double totalTipos = horistas + assalariados + comissionados;
+        double totalMetodos = emMaos + correios + banco;
+        try (Saida s = new Saida(arquivo)) {
+            for (int id = 1; id <= empregados; id++) {
+                long h = hash(ATRIBUTOS, id, 0);
+                double t = uniforme(h) * totalTipos;
+                int tipo = t < horistas ? HORISTA : t < horistas + assalariados ? ASSALARIADO : COMISSIONADO;
+                tipos[id] = (byte) tipo;
+                long h2 = hash(ATRIBUTOS, id, 1);
+                membros[id] = uniforme(h2) < sindicalizados;
+
+                s.texto(NOMES[(int) ((h >>> 8) % NOMES.length)]).texto(' ')
+                        .texto(SOBRENOMES[(int) ((h >>> 16) % SOBRENOMES.length)]).texto(';')
+                        .texto(RUAS[(int) ((h >>> 24) % RUAS.length)]).texto(", ").inteiro((int) ((h >>> 32) % 2000) + 1)
+                        .texto(';');
+                switch (tipo) {
+                    case HORISTA -> s.texto("horista;").centesimos(1_000 + (h2 >>> 40) % 5_000).texto(';');
+                    case ASSALARIADO -> s.texto("assalariado;").centesimos(150_000 + (h2 >>> 40) % 1_350_000).texto(';');
+                    default -> s.texto("comissionado;").centesimos(100_000 + (h2 >>> 40) % 700_000).texto(';')
+                            .centesimos(1 + (h2 >>> 20) % 15);
+                }
+                s.texto(';');
+                if (membros[id]) s.texto('s').inteiro(id).texto(':').centesimos(50 + (h2 >>> 8) % 250);
+                s.texto(';');
+
+                long h3 = hash(ATRIBUTOS, id, 2);
+                double m = uniforme(h3) * totalMetodos;
+                if (m < emMaos) {
+                    s.texto("emMaos");
+                } else if (m < emMaos + correios) {
+                    s.texto("correios");
+                } else {
+                    s.texto("banco:").texto(BANCOS[(int) ((h3 >>> 8) % BANCOS.length)]).texto(':')
+                            .inteiro((int) ((h3 >>> 16) % 9000) + 1000).texto(':').inteiro((int) ((h3 >>> 32) % 900_000) + 100_000);
+                }
+                s.texto(';');
+                long h4 = hash(ATRIBUTOS, id, 3);
+                if (uniforme(h4) < agendasPersonalizadas) s.texto(AGENDAS[(int) ((h4 >>> 8) % AGENDAS.length)]);
+                s.texto('\n');
+            }
+            return s.escritos();
+        }
+    }
+
+    /** Horas de um cartão, em centésimos: em geral 8h, às vezes meio período ou horas extras. */
+    private static long horas(long h) {
+        int faixa = (int) ((h >>> 8) % 10);
+        if (faixa < 7) return 800;
+        if (faixa < 9) return 400 + 25 * ((h >>> 16) % 16);
+        return 825 + 25 * ((h >>> 16) % 16);
+    }
+
+    /** Dia (índice no período) do {@code k}-ésimo de {@code n} lançamentos, em ordem cronológica. */
+    private static int dia(long h, int k, int n, int dias) {
+        return (int) ((k + uniforme(h)) * dias / n);
+    }
+
+    private long hash(long tipo, long id, long k) {
+        long z = semente + tipo * 0x9E3779B97F4A7C15L + id * 0xC2B2AE3D27D4EB4FL + k * 0x165667B19E3779F9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double uniforme(long h) {
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+    private static byte[] data(LocalDate d) {
+        return (d.getDayOfMonth() + "/" + d.getMonthValue() + "/" + d.getYear()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Escrita em bytes com buffer próprio, sem {@code String} por campo. */
+    private static final class Saida implements AutoCloseable {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+        private final byte[] digitos = new byte[20];
+        private long escritos;
+
+        Saida(Path arquivo) throws IOException {
+            canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        Saida texto(char c) throws IOException {
+            garantir(1);
+            buffer.put((byte) c);
+            return this;
+        }
+
+        Saida texto(String s) throws IOException {
+            return bytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Saida bytes(byte[] b) throws IOException {
+            garantir(b.length);
+            buffer.put(b);
+            return this;
+        }
+
+        Saida inteiro(long v) throws IOException {
+            int i = digitos.length;
+            do {
+                digitos[--i] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v > 0);
+            garantir(digitos.length - i);
+            buffer.put(digitos, i, digitos.length - i);
+            return this;
+        }
+
+        /** Escreve um valor não negativo em centésimos como {@code inteiro,cc}. */
+        Saida centesimos(long v) throws IOException {
+            inteiro(v / 100).texto(',');
+            garantir(2);
+            buffer.put((byte) ('0' + v % 100 / 10)).put((byte) ('0' + v % 10));
+            return this;
+        }
+
+        long escritos() throws IOException {
+            return escritos + buffer.position();
+        }
+
+        private void garantir(int n) throws IOException {
+            if (buffer.remaining() < n) descarregar();
+        }
+
+        private void descarregar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) escritos += canal.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                descarregar();
+            } finally {
+                canal.close();
+            }
+        }
+    }
+
+    /**
+     * Gera a carga no diretório indicado. Propriedades (padrões entre parênteses): {@code carga.semente}
+     * (42), {@code carga.empregados} (1000), {@code carga.sindicalizados} (0.3),
+     * {@code carga.agendasPersonalizadas} (0.1), {@code carga.cartoes} (250 por horista),
+     * {@code carga.vendas} (50 por comissionado) e {@code carga.taxas} (12 por membro).
+     *
+     * @param args diretório de saída
+     * @throws Exception se a geração falhar
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("uso: java wepayu.bench.GeradorCarga <diretorio>");
+            System.exit(2);
+        }
+        GeradorCarga gerador = new GeradorCarga(Long.getLong("carga.semente", 42L))
+                .empregados(Integer.getInteger("carga.empregados", 1000))
+                .sindicalizados(Double.parseDouble(System.getProperty("carga.sindicalizados", "0.3")))
+                .agendasPersonalizadas(Double.parseDouble(System.getProperty("carga.agendasPersonalizadas", "0.1")))
+                .cartoesPorHorista(Integer.getInteger("carga.cartoes", 250))
+                .vendasPorComissionado(Integer.getInteger("carga.vendas", 50))
+                .taxasPorMembro(Integer.getInteger("carga.taxas", 12));
+        long inicio = System.nanoTime();
+        Resumo r = gerador.gravar(Path.of(args[0]));
+        double s = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf(java.util.Locale.ROOT,
+                "%d empregados, %d cartoes, %d vendas, %d taxas (%d lancamentos, %.1f MiB) em %.1f s%n",
+                r.empregados(), r.cartoes(), r.vendas(), r.taxas(), r.lancamentos(), r.bytes() / 1048576.0, s);
+    }
+}
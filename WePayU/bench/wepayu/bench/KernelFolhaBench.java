@@ -0,0 +1,90 @@
+package wepayu.bench;
+
+import wepayu.services.CartoesColunares;
+import wepayu.services.KernelFolha;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Compara o cálculo de horas normais, extras e salário bruto de todos os horistas em um mês:
+ * soma em {@code BigDecimal} por cartão (como em {@code calcularBrutoHorista}), {@link KernelFolha}
+ * escalar e {@link KernelFolha#padrao()}. O segundo cenário usa salários múltiplos de 0,50, em que
+ * quase todo valor diário é exato em {@code 10^-5} e só a aritmética vetorial é medida.
+ *
+ * <p>Para medir a implementação vetorial, compile {@code vector/} e execute com
+ * {@code --add-modules jdk.incubator.vector}; sem o módulo o padrão é o escalar. O volume é ajustado
+ * por {@code -Dcartoes.n} (padrão 2.000.000).</p>
+ */
+public final class KernelFolhaBench {
+
+    private static final int CARTOES_POR_HORISTA = 250;
+    private static final long PRIMEIRO_DIA = 19_723;
+
+    private KernelFolhaBench() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int n = Integer.getInteger("cartoes.n", 2_000_000);
+        int horistas = Math.max(1, n / CARTOES_POR_HORISTA);
+        Random r = new Random(42);
+        CartoesColunares.Construtor construtor = new CartoesColunares.Construtor();
+        double[] salarios = new double[horistas];
+        double[][] horas = new double[horistas][CARTOES_POR_HORISTA];
+        for (int h = 0; h < horistas; h++) {
+            int e = construtor.empregado(h + 1);
+            salarios[e] = (1000 + r.nextInt(4000)) / 100.0;
+            for (int k = 0; k < CARTOES_POR_HORISTA; k++) {
+                horas[e][k] = (200 + 25 * r.nextInt(40)) / 100.0;
+                construtor.adicionar(e, PRIMEIRO_DIA + k, horas[e][k]);
+            }
+        }
+        CartoesColunares cartoes = construtor.construir();
+        medir("salarios quaisquer em centavos", cartoes, horas, salarios);
+        for (int e = 0; e < horistas; e++) salarios[e] = (20 + r.nextInt(80)) / 2.0;
+        medir("salarios multiplos de 0,50", cartoes, horas, salarios);
+    }
+
+    private static void medir(String cenario, CartoesColunares cartoes, double[][] horas, double[] salarios)
+            throws Exception {
+        int horistas = salarios.length;
+        long ini = PRIMEIRO_DIA + 31, fim = ini + 30;
+
+        KernelFolha escalar = KernelFolha.escalar();
+        KernelFolha padrao = KernelFolha.padrao();
+        KernelFolha.Totais totais = new KernelFolha.Totais();
+        BigDecimal referencia = bigDecimalPorCartao(horas, salarios, ini, fim);
+        for (KernelFolha k : new KernelFolha[]{escalar, padrao}) {
+            totais.limpar();
+            for (int e = 0; e < horistas; e++) cartoes.acumularFolha(e, ini, fim, salarios[e], k, totais);
+            if (totais.getBruto().compareTo(referencia) != 0) {
+                throw new IllegalStateException(k.getNome() + " diverge: " + totais.getBruto() + " != " + referencia);
+            }
+        }
+
+        Bancada.grupo("bruto de um mes, " + horistas + " horistas, " + cenario);
+        Bancada.medir("BigDecimal por cartao (folha atual)",
+                () -> bigDecimalPorCartao(horas, salarios, ini, fim).unscaledValue().longValue());
+        for (KernelFolha k : new KernelFolha[]{escalar, padrao}) {
+            Bancada.medir("KernelFolha " + k.getNome(), () -> {
+                totais.limpar();
+                for (int e = 0; e < horistas; e++) cartoes.acumularFolha(e, ini, fim, salarios[e], k, totais);
+                return totais.getBruto().unscaledValue().longValue();
+            });
+        }
+    }
+
+    /** Mesma aritmética de {@code calcularBrutoHorista}, sobre os cartões do período de cada horista. */
+    private static BigDecimal bigDecimalPorCartao(double[][] horas, double[] salarios, long ini, long fim) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int e = 0; e < salarios.length; e++) {
+            for (int k = (int) (ini - PRIMEIRO_DIA); k < fim - PRIMEIRO_DIA; k++) {
+                double normais = Math.min(8.0, horas[e][k]);
+                double extras = Math.max(0.0, horas[e][k] - 8.0);
+                double valorDia = (normais * salarios[e]) + (extras * salarios[e] * 1.5);
+                total = total.add(BigDecimal.valueOf(valorDia));
+            }
+        }
+        return total;
+    }
+}
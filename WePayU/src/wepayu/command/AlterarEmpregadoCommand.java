@@ -11,6 +11,8 @@ import wepayu.services.Sistema;
  */
 public class AlterarEmpregadoCommand extends SnapshotCommand {
 
+    private static final long serialVersionUID = 1L;
+
     private final String id;
     private final String atributo;
     private final String valor1;
@@ -15,6 +15,8 @@ import wepayu.services.Sistema;
  */
 public class AlterarMetodoPagamentoBancoCommand extends SnapshotCommand {
 
+    private static final long serialVersionUID = 1L;
+
     private final String id;
     private final String banco;
     private final String agencia;
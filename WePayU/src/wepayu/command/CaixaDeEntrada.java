@@ -0,0 +1,510 @@
+package wepayu.command;
+
+import wepayu.exceptions.NaoPodeComandosAposEncerrarSistemaException;
+import wepayu.services.Lancamento;
+import wepayu.services.RelatorioLote;
+import wepayu.services.Sistema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caixa de entrada: um diretório vigiado por {@link WatchService} cujos arquivos de cartões de ponto,
+ * vendas e taxas de serviço são lançados no {@link Sistema} assim que chegam.
+ *
+ * <h3>Arquivos</h3>
+ * <ul>
+ *   <li>O tipo vem do prefixo do nome: {@code cartoes*} ({@code id;data;horas}), {@code vendas*}
+ *       ({@code id;data;valor}) e {@code taxas*} ({@code membro;data;valor}); os demais arquivos, os
+ *       ocultos e os terminados em {@code .tmp} ou {@code .part} são ignorados;</li>
+ *   <li>Os arquivos devem ser gravados fora da caixa e movidos para dentro dela já completos;</li>
+ *   <li>Linhas em branco são ignoradas e a primeira linha é tratada como cabeçalho se começar com uma
+ *       letra, como em {@link Facade#ingereLancamentos};</li>
+ *   <li>Terminado o arquivo, ele é movido para {@value #ARQUIVADOS}; se houve linhas rejeitadas, elas são
+ *       descritas em {@code <arquivo>.erros} no mesmo diretório. Se já houver ali um arquivo arquivado
+ *       com o mesmo nome, o novo recebe o sufixo {@code .1}, {@code .2} etc.; nada é sobrescrito.</li>
+ * </ul>
+ *
+ * <h3>Processamento</h3>
+ * <ul>
+ *   <li>Uma thread vigia o diretório e lê os arquivos em lotes de {@code tamanhoLote} linhas; outra
+ *       aplica cada lote, de qualquer tipo, com {@link Sistema#lancaLoteSemCheckpoint}, com as mesmas
+ *       regras de {@link Facade#lancaLoteParcial(java.util.Collection)}, mas sem copiar o estado para o
+ *       histórico de undo/redo;</li>
+ *   <li>As threads se comunicam por uma fila limitada: se a aplicação atrasa, a leitura espera;</li>
+ *   <li>O {@link Sistema} e a posição já aplicada de cada arquivo são gravados juntos em {@value #ESTADO},
+ *       com troca atômica do arquivo, no máximo a cada {@code wepayu.caixa.checkpoint} milissegundos
+ *       (padrão 1000), quando a fila esvazia, ao fim de cada arquivo e no {@link #close()}. Ao reabrir a
+ *       caixa sobre o mesmo diretório, o estado é recarregado e cada arquivo continua da posição gravada:
+ *       os lotes aplicados depois do último checkpoint são lidos e aplicados de novo, e nenhum lote que
+ *       já estava no checkpoint se repete. A posição é de um arquivo específico (nome, chave no sistema de
+ *       arquivos, tamanho e data de modificação), e as posições de arquivos que não estão mais na caixa
+ *       são descartadas ao abri-la: um arquivo novo com o nome de outro já processado começa do início.</li>
+ *   <li>O histórico de undo/redo é descartado a cada lote: desfazer um comando anterior restauraria um
+ *       estado sem as linhas de lotes cuja posição já foi gravada, que nunca mais seriam lançadas. Isso
+ *       também mantém o checkpoint proporcional ao estado atual, e não ao histórico.</li>
+ * </ul>
+ *
+ * @see Facade#lancaLoteParcial(java.util.Collection)
+ * @see RegistroDeEmpresas
+ */
+public class CaixaDeEntrada implements AutoCloseable {
+
+    /** Subdiretório para onde os arquivos processados são movidos. */
+    public static final String ARQUIVADOS = "arquivados";
+
+    /** Arquivo de checkpoint, dentro da caixa. */
+    public static final String ESTADO = ".caixa-de-entrada";
+
+    private static final int LOTES_EM_VOO = 2;
+    private static final long INTERVALO_MS = 100;
+    private static final long CHECKPOINT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("wepayu.caixa.checkpoint", 1000L));
+
+    /** Parte de um arquivo já aplicada ao sistema. */
+    private static final class Posicao implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+        long bytes;
+        long linhas;
+        final ArrayList<String> falhas = new ArrayList<>();
+    }
+
+    /** Linhas lidas de um arquivo, da posição anterior até {@code bytes}. */
+    private record Lote(Path arquivo, String chave, List<Lancamento> lancamentos, long[] numeros,
+                        long bytes, long linhas, boolean fim) {
+    }
+
+    private final Path diretorio;
+    private final Path arquivados;
+    private final Path estado;
+    private final int tamanhoLote;
+    private final Facade facade;
+    private final LinkedHashMap<String, Posicao> posicoes;
+    private final BlockingQueue<Lote> fila = new ArrayBlockingQueue<>(LOTES_EM_VOO);
+    private final Set<String> conhecidos = ConcurrentHashMap.newKeySet();
+    private final Thread leitor = new Thread(this::vigiar, "wepayu-caixa-leitor");
+    private final Thread aplicador = new Thread(this::aplicar, "wepayu-caixa-aplicador");
+    private volatile boolean ativo;
+    private volatile Exception erro;
+    private volatile long arquivosProcessados;
+    private volatile long lancamentosAplicados;
+    private boolean pendente;
+    private long ultimoCheckpoint = System.nanoTime();
+
+    /**
+     * Abre uma caixa de entrada com lotes de 8192 linhas, começando de um {@link Sistema} vazio se o
+     * diretório ainda não tiver checkpoint.
+     *
+     * @param diretorio diretório vigiado (criado se não existir)
+     * @throws IOException se o diretório não puder ser criado ou o checkpoint não puder ser lido
+     */
+    public CaixaDeEntrada(Path diretorio) throws IOException {
+        this(diretorio, new Sistema(), 8192);
+    }
+
+    /**
+     * Abre uma caixa de entrada.
+     *
+     * @param diretorio diretório vigiado (criado se não existir)
+     * @param inicial sistema usado se o diretório ainda não tiver checkpoint; ignorado caso contrário
+     * @param tamanhoLote linhas por lote (e por checkpoint)
+     * @throws IOException se o diretório não puder ser criado ou o checkpoint não puder ser lido
+     */
+    @SuppressWarnings("unchecked")
+    public CaixaDeEntrada(Path diretorio, Sistema inicial, int tamanhoLote) throws IOException {
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("tamanhoLote deve ser positivo.");
+        }
+        this.diretorio = Files.createDirectories(diretorio);
+        this.arquivados = Files.createDirectories(diretorio.resolve(ARQUIVADOS));
+        this.estado = diretorio.resolve(ESTADO);
+        this.tamanhoLote = tamanhoLote;
+        if (Files.exists(estado)) {
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(Files.newInputStream(estado)))) {
+                facade = new Facade((Sistema) in.readObject());
+                facade.setSistemaEncerrado(in.readBoolean());
+                posicoes = (LinkedHashMap<String, Posicao>) in.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Checkpoint invalido: " + estado, e);
+            }
+        } else {
+            facade = new Facade(inicial);
+            posicoes = new LinkedHashMap<>();
+        }
+        descartarAusentes();
+    }
+
+    /**
+     * Descarta as posições de arquivos que não estão mais na caixa: os arquivados pouco antes de uma
+     * parada, cuja posição final não chegou ao checkpoint, e os substituídos por outro arquivo.
+     */
+    private void descartarAusentes() throws IOException {
+        Set<String> presentes = new HashSet<>();
+        try (DirectoryStream<Path> conteudo = Files.newDirectoryStream(diretorio)) {
+            for (Path p : conteudo) {
+                if (tipoDe(p.getFileName().toString()) == null || !Files.isRegularFile(p)) continue;
+                try {
+                    presentes.add(identidade(p));
+                } catch (NoSuchFileException e) {
+                    // removido durante a listagem
+                }
+            }
+        }
+        posicoes.keySet().retainAll(presentes);
+    }
+
+    /** Chave da posição de um arquivo: o nome e os atributos que mudam quando outro arquivo toma o seu lugar. */
+    private static String identidade(Path arquivo) throws IOException {
+        BasicFileAttributes a = Files.readAttributes(arquivo, BasicFileAttributes.class);
+        return arquivo.getFileName() + ";" + a.fileKey() + ";" + a.size() + ";" + a.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Começa a vigiar o diretório. Os arquivos já presentes (inclusive os interrompidos por uma parada
+     * anterior) são processados primeiro, em ordem de nome.
+     */
+    public void iniciar() {
+        ativo = true;
+        leitor.start();
+        aplicador.start();
+    }
+
+    /**
+     * Executa uma operação sobre a {@link Facade} da caixa, entre dois lotes, e grava o checkpoint
+     * em seguida se ela terminar sem erro. Alterações feitas aqui também não podem ser desfeitas
+     * depois do checkpoint.
+     *
+     * @param operacao operação a executar
+     * @param <T> tipo do resultado
+     * @return o resultado da operação
+     * @throws Exception o erro lançado pela operação, ou falha ao gravar o checkpoint
+     */
+    public <T> T executar(RegistroDeEmpresas.Operacao<T> operacao) throws Exception {
+        synchronized (this) {
+            T resultado = operacao.executar(facade);
+            gravarEstado();
+            return resultado;
+        }
+    }
+
+    /**
+     * Retorna o número de arquivos já processados e arquivados desde {@link #iniciar()}.
+     *
+     * @return arquivos processados
+     */
+    public long getArquivosProcessados() {
+        return arquivosProcessados;
+    }
+
+    /**
+     * Retorna o número de lançamentos aplicados desde {@link #iniciar()}.
+     *
+     * @return lançamentos aplicados
+     */
+    public long getLancamentosAplicados() {
+        return lancamentosAplicados;
+    }
+
+    /**
+     * Retorna o erro que interrompeu a caixa, se houver (ex.: sistema encerrado ou falha de disco).
+     * Os lotes ainda não gravados no checkpoint serão lidos de novo na próxima abertura.
+     *
+     * @return o erro, ou {@code null}
+     */
+    public Exception getErro() {
+        return erro;
+    }
+
+    /**
+     * Para de vigiar o diretório, aplica os lotes já lidos e grava o checkpoint.
+     *
+     * @throws IOException se o checkpoint final não puder ser gravado
+     * @throws InterruptedIOException se a espera pelas threads for interrompida; a interrupção é
+     *                                mantida, e o aplicador grava o checkpoint ao esvaziar a fila
+     */
+    @Override
+    public void close() throws IOException {
+        if (leitor.getState() != Thread.State.NEW) {
+            ativo = false;
+            try {
+                leitor.join();
+                aplicador.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompido ao fechar a caixa de entrada " + diretorio);
+            }
+        }
+        synchronized (this) {
+            gravarEstado();
+        }
+    }
+
+    // --- Leitura ---
+
+    private void vigiar() {
+        ArrayDeque<Path> pendentes = new ArrayDeque<>();
+        try (WatchService vigia = diretorio.getFileSystem().newWatchService()) {
+            diretorio.register(vigia, StandardWatchEventKinds.ENTRY_CREATE);
+            varrer(pendentes);
+            while (ativo) {
+                Path arquivo = pendentes.poll();
+                if (arquivo != null) {
+                    ler(arquivo);
+                    continue;
+                }
+                WatchKey chave = vigia.poll(INTERVALO_MS, TimeUnit.MILLISECONDS);
+                if (chave == null) continue;
+                for (WatchEvent<?> evento : chave.pollEvents()) {
+                    if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        varrer(pendentes);
+                    } else {
+                        considerar((Path) evento.context(), pendentes);
+                    }
+                }
+                chave.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // encerramento
+        } catch (IOException e) {
+            falhar(e);
+        }
+    }
+
+    private void varrer(ArrayDeque<Path> pendentes) throws IOException {
+        TreeSet<Path> nomes = new TreeSet<>();
+        try (DirectoryStream<Path> conteudo = Files.newDirectoryStream(diretorio)) {
+            for (Path p : conteudo) nomes.add(p.getFileName());
+        }
+        for (Path nome : nomes) considerar(nome, pendentes);
+    }
+
+    private void considerar(Path nome, ArrayDeque<Path> pendentes) {
+        if (tipoDe(nome.toString()) != null && conhecidos.add(nome.toString())) {
+            pendentes.add(diretorio.resolve(nome));
+        }
+    }
+
+    private static Lancamento.Tipo tipoDe(String nome) {
+        String n = nome.toLowerCase(Locale.ROOT);
+        if (n.endsWith(".tmp") || n.endsWith(".part") || n.endsWith(".erros")) return null;
+        if (n.startsWith("cartoes")) return Lancamento.Tipo.CARTAO;
+        if (n.startsWith("vendas")) return Lancamento.Tipo.VENDA;
+        if (n.startsWith("taxas")) return Lancamento.Tipo.TAXA_SERVICO;
+        return null;
+    }
+
+    /**
+     * Lê um arquivo a partir da posição já aplicada e entrega seus lotes ao aplicador. Só o aplicador
+     * altera as posições, e um arquivo só volta a ser lido depois de arquivado. Se a caixa for fechada
+     * no meio do arquivo, a leitura para no lote em curso, e o restante fica para a próxima abertura.
+     */
+    private void ler(Path arquivo) throws IOException, InterruptedException {
+        String nome = arquivo.getFileName().toString();
+        Lancamento.Tipo tipo = tipoDe(nome);
+        String chave;
+        try {
+            chave = identidade(arquivo);
+        } catch (NoSuchFileException e) {
+            conhecidos.remove(nome);
+            return;
+        }
+        long bytes, linhas;
+        synchronized (this) {
+            Posicao p = posicoes.get(chave);
+            bytes = p == null ? 0 : p.bytes;
+            linhas = p == null ? 0 : p.linhas;
+        }
+        List<Lancamento> lancamentos = new ArrayList<>();
+        long[] numeros = new long[tamanhoLote];
+        byte[] linha = new byte[256];
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            canal.position(bytes);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(canal), 1 << 16);
+            int n = 0;
+            for (int b = in.read(); b >= 0 || n > 0; b = in.read()) {
+                if (b >= 0 && b != '\n') {
+                    if (n == linha.length) linha = Arrays.copyOf(linha, n * 2);
+                    linha[n++] = (byte) b;
+                    continue;
+                }
+                bytes += n + (b >= 0 ? 1 : 0);
+                linhas++;
+                if (n > 0 && linha[n - 1] == '\r') n--;
+                String texto = new String(linha, 0, n, StandardCharsets.UTF_8);
+                n = 0;
+                if (texto.isBlank() || (linhas == 1 && Character.isLetter(texto.charAt(0)))) {
+                    if (b < 0) break;
+                    continue;
+                }
+                numeros[lancamentos.size()] = linhas;
+                lancamentos.add(lancamento(tipo, texto));
+                if (lancamentos.size() == tamanhoLote) {
+                    if (!entregar(new Lote(arquivo, chave, lancamentos, numeros, bytes, linhas, false))) return;
+                    lancamentos = new ArrayList<>();
+                    numeros = new long[tamanhoLote];
+                }
+                if (b < 0) break;
+            }
+        } catch (NoSuchFileException e) {
+            conhecidos.remove(nome);
+            return;
+        }
+        entregar(new Lote(arquivo, chave, lancamentos, numeros, bytes, linhas, true));
+    }
+
+    /**
+     * Põe um lote na fila, esperando enquanto a caixa estiver ativa; o fechamento não interrompe o
+     * leitor, cujo canal de arquivo seria fechado pela interrupção.
+     *
+     * @return {@code false} se a caixa foi fechada antes de haver lugar na fila
+     */
+    private boolean entregar(Lote lote) throws InterruptedException {
+        while (ativo) {
+            if (fila.offer(lote, INTERVALO_MS, TimeUnit.MILLISECONDS)) return true;
+        }
+        return false;
+    }
+
+    private static Lancamento lancamento(Lancamento.Tipo tipo, String texto) {
+        String[] campos = Arrays.copyOf(texto.split(";", 3), 3);
+        for (int i = 0; i < campos.length; i++) {
+            if (campos[i] == null) campos[i] = "";
+        }
+        return switch (tipo) {
+            case CARTAO -> Lancamento.cartao(campos[0], campos[1], campos[2]);
+            case VENDA -> Lancamento.venda(campos[0], campos[1], campos[2]);
+            case TAXA_SERVICO -> Lancamento.taxaServico(campos[0], campos[1], campos[2]);
+        };
+    }
+
+    // --- Aplicação ---
+
+    private void aplicar() {
+        try {
+            while (true) {
+                Lote lote = fila.poll(INTERVALO_MS, TimeUnit.MILLISECONDS);
+                if (lote == null) {
+                    synchronized (this) {
+                        if (pendente) gravarEstado();
+                    }
+                    if (!leitor.isAlive() && fila.isEmpty()) return;
+                    continue;
+                }
+                synchronized (this) {
+                    aplicar(lote);
+                }
+            }
+        } catch (Exception e) {
+            falhar(e);
+        }
+    }
+
+    private void aplicar(Lote lote) throws Exception {
+        String nome = lote.arquivo().getFileName().toString();
+        Posicao p = posicoes.computeIfAbsent(lote.chave(), k -> new Posicao());
+        if (!lote.lancamentos().isEmpty()) {
+            if (facade.isSistemaEncerrado()) throw new NaoPodeComandosAposEncerrarSistemaException();
+            facade.getInvoker().clearHistory();
+            facade.getSistema().limparHistorico();
+            RelatorioLote relatorio = facade.getSistema().lancaLoteSemCheckpoint(lote.lancamentos(), true);
+            for (RelatorioLote.Falha f : relatorio.getFalhas()) {
+                Lancamento l = f.getLancamento();
+                p.falhas.add("linha " + lote.numeros()[f.getLinha() - 1] + ": " + f.getMensagem()
+                        + " <" + l.getAlvo() + ";" + l.getData() + ";" + l.getValor() + ">");
+            }
+            lancamentosAplicados += relatorio.getAplicados();
+        }
+        p.bytes = lote.bytes();
+        p.linhas = lote.linhas();
+        pendente = true;
+        if (lote.fim()) {
+            gravarEstado();
+            arquivar(lote.arquivo(), p);
+            posicoes.remove(lote.chave());
+            gravarEstado();
+            conhecidos.remove(nome);
+            arquivosProcessados++;
+        } else if (System.nanoTime() - ultimoCheckpoint >= CHECKPOINT_NANOS) {
+            gravarEstado();
+        }
+    }
+
+    /** Move o arquivo para {@link #ARQUIVADOS}, com um sufixo se o nome já estiver ocupado lá. */
+    private void arquivar(Path arquivo, Posicao p) throws IOException {
+        String nome = arquivo.getFileName().toString();
+        Path destino = arquivados.resolve(nome);
+        for (int i = 1; Files.exists(destino)
+                || Files.exists(destino.resolveSibling(destino.getFileName() + ".erros")); i++) {
+            destino = arquivados.resolve(nome + "." + i);
+        }
+        if (!p.falhas.isEmpty()) {
+            Path erros = destino.resolveSibling(destino.getFileName() + ".erros");
+            Path temporario = erros.resolveSibling(erros.getFileName() + ".tmp");
+            Files.write(temporario, p.falhas, StandardCharsets.UTF_8);
+            Files.move(temporario, erros, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(arquivo, destino);
+    }
+
+    /**
+     * Descarta o histórico, grava o sistema e as posições em um arquivo temporário, força-o para o
+     * disco e o troca atomicamente pelo checkpoint anterior.
+     */
+    private void gravarEstado() throws IOException {
+        facade.getInvoker().clearHistory();
+        facade.getSistema().limparHistorico();
+        Path temporario = estado.resolveSibling(ESTADO + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(canal)));
+            out.writeObject(facade.getSistema());
+            out.writeBoolean(facade.isSistemaEncerrado());
+            out.writeObject(posicoes);
+            out.flush();
+            canal.force(true);
+        }
+        Files.move(temporario, estado, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pendente = false;
+        ultimoCheckpoint = System.nanoTime();
+    }
+
+    private void falhar(Exception e) {
+        if (erro == null) erro = e;
+        ativo = false;
+    }
+}
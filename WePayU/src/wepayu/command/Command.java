@@ -9,7 +9,7 @@ package wepayu.command;
  *
  * @see Invoker
  */
-public interface Command {
+public interface Command extends java.io.Serializable {
     /**
      * Executa a ação encapsulada pelo comando.
      *
@@ -44,4 +44,18 @@ public interface Command {
     {
         execute();
     }
+
+    /**
+     * Estima a memória retida por este comando enquanto ele estiver no histórico do {@link Invoker}.
+     * <p>
+     * Implementação padrão: {@code 0}, para comandos que só guardam seus parâmetros. Comandos que
+     * guardam snapshots devem informar o tamanho deles (ver {@link SnapshotCommand}).
+     * </p>
+     *
+     * @return bytes estimados
+     */
+    default long getBytesEstimados()
+    {
+        return 0;
+    }
 }
\ No newline at end of file
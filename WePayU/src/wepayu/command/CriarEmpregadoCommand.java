@@ -8,6 +8,8 @@ import wepayu.services.Sistema;
  */
 public class CriarEmpregadoCommand extends SnapshotCommand {
 
+    private static final long serialVersionUID = 1L;
+
     private final String name;
     private final String endereco;
     private final String tipo;
@@ -0,0 +1,318 @@
+package wepayu.command;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Diário de comandos: arquivo de texto em que o primário anexa, na ordem de execução, cada comando
+ * que alterou o estado ({@link FacadeComDiario}), e que as réplicas leem e reaplicam
+ * ({@link ReplicaLeitura}).
+ *
+ * <h3>Formato</h3>
+ * <p>
+ * Uma entrada por linha, UTF-8, terminada por {@code '\n'}; campos separados por tabulação:
+ * {@code seq instante crc comando arg...}. {@code seq} começa em 1 e cresce de um em um,
+ * {@code instante} é o horário de gravação em milissegundos e {@code crc} é o CRC-32 (hexadecimal) da
+ * linha sem esse campo. Nos argumentos, {@code \}, tabulação, {@code '\n'} e {@code '\r'} são escapados
+ * ({@code \\ \t \n \r}) e {@code null} é gravado como {@code \0}. Uma linha sem {@code '\n'} no fim do
+ * arquivo ainda está sendo gravada (ou foi cortada por uma queda) e não é lida.
+ * </p>
+ *
+ * <h3>Um escritor por arquivo</h3>
+ * <p>
+ * {@link #abrir(Path)} toma um lock exclusivo do arquivo, mantido até {@link #close()} ou o fim do
+ * processo; outra tentativa de abrir o mesmo diário para escrita, no mesmo ou em outro processo,
+ * falha. É isso que impede uma réplica de ser promovida enquanto o primário está vivo. Ao abrir, a
+ * última entrada válida é localizada e o que vier depois dela (uma linha cortada por uma queda) é
+ * descartado.
+ * </p>
+ *
+ * <p>Com {@code -Dwepayu.diario.sync=true}, cada entrada é forçada para o disco antes de o comando
+ * retornar; sem isso, uma queda do processo não perde entradas, mas uma queda da máquina pode.</p>
+ */
+public final class DiarioDeComandos implements AutoCloseable {
+
+    private static final boolean SYNC = Boolean.getBoolean("wepayu.diario.sync");
+
+    /**
+     * Uma entrada do diário.
+     *
+     * @param seq número de sequência (1, 2, ...)
+     * @param instante horário de gravação, em milissegundos desde a época
+     * @param comando nome do comando (o método da {@link Facade})
+     * @param argumentos argumentos do comando (podem ser {@code null})
+     */
+    public record Entrada(long seq, long instante, String comando, List<String> argumentos) {
+
+        /** @return a linha da entrada, sem o {@code '\n'} final */
+        public String formatar() {
+            String corpo = corpo(seq, instante, comando, argumentos);
+            int tab = corpo.indexOf('\t', corpo.indexOf('\t') + 1);
+            return corpo.substring(0, tab) + '\t' + crc(corpo) + corpo.substring(tab);
+        }
+
+        /**
+         * Lê uma linha do diário.
+         *
+         * @param linha linha sem o {@code '\n'} final
+         * @return a entrada, ou {@code null} se a linha estiver malformada ou o CRC não conferir
+         */
+        public static Entrada ler(String linha) {
+            String[] campos = linha.split("\t", -1);
+            if (campos.length < 4) return null;
+            try {
+                long seq = Long.parseLong(campos[0]);
+                long instante = Long.parseLong(campos[1]);
+                List<String> args = new ArrayList<>(campos.length - 4);
+                for (int i = 4; i < campos.length; i++) args.add(desescapar(campos[i]));
+                String comando = desescapar(campos[3]);
+                if (!campos[2].equals(crc(corpo(seq, instante, comando, args)))) return null;
+                return new Entrada(seq, instante, comando, Collections.unmodifiableList(args));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /** Recebe as entradas de {@link #percorrer(Leitor)}. */
+    @FunctionalInterface
+    interface Leitor {
+        void ler(Entrada entrada) throws Exception;
+    }
+
+    private final Path arquivo;
+    private final FileChannel canal;
+    private final FileLock lock;
+    private long seq;
+
+    private DiarioDeComandos(Path arquivo, FileChannel canal, FileLock lock, long seq) {
+        this.arquivo = arquivo;
+        this.canal = canal;
+        this.lock = lock;
+        this.seq = seq;
+    }
+
+    /**
+     * Abre (ou cria) um diário para escrita, continuando a sequência da última entrada válida.
+     *
+     * @param arquivo caminho do diário
+     * @return o diário aberto
+     * @throws IOException se o arquivo não puder ser aberto, se outro processo já o tiver aberto para
+     *                     escrita ou se houver uma entrada corrompida antes da última
+     */
+    public static DiarioDeComandos abrir(Path arquivo) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = canal.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) throw new IOException("Diario " + arquivo + " ja esta aberto para escrita.");
+            long[] fim = ultimaEntrada(canal);
+            if (fim[1] < canal.size()) {
+                canal.truncate(fim[1]);
+                canal.force(true);
+            }
+            canal.position(fim[1]);
+            return new DiarioDeComandos(arquivo, canal, lock, fim[0]);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Percorre o diário e devolve a sequência da última entrada válida e a posição logo depois dela.
+     * Só a cauda do arquivo pode ser inválida; uma entrada inválida seguida de outras completas indica
+     * corrupção.
+     */
+    private static long[] ultimaEntrada(FileChannel canal) throws IOException {
+        LeitorDiario leitor = new LeitorDiario(canal, 0);
+        long seq = 0;
+        long posicao = 0;
+        boolean invalida = false;
+        for (String linha; (linha = leitor.proximaLinha()) != null; ) {
+            Entrada e = Entrada.ler(linha);
+            if (invalida || e == null || e.seq() != seq + 1) {
+                if (invalida) throw new IOException("Diario corrompido antes da entrada " + (seq + 1) + ".");
+                invalida = true;
+                continue;
+            }
+            seq = e.seq();
+            posicao = leitor.getPosicao();
+        }
+        return new long[]{seq, posicao};
+    }
+
+    /** @return caminho do diário */
+    public Path getArquivo() {
+        return arquivo;
+    }
+
+    /** @return sequência da última entrada gravada (0 se vazio) */
+    public synchronized long getSequencia() {
+        return seq;
+    }
+
+    /**
+     * Entrega as entradas já gravadas, da primeira à última.
+     *
+     * @param leitor recebe cada entrada
+     * @throws Exception a exceção do leitor, ou {@link IOException} se a leitura falhar
+     */
+    synchronized void percorrer(Leitor leitor) throws Exception {
+        LeitorDiario l = new LeitorDiario(canal, 0);
+        for (long i = 1; i <= seq; i++) {
+            String linha = l.proximaLinha();
+            Entrada e = linha == null ? null : Entrada.ler(linha);
+            if (e == null || e.seq() != i) throw new IOException("Diario " + arquivo + " ilegivel na entrada " + i + ".");
+            leitor.ler(e);
+        }
+    }
+
+    /**
+     * Entrega as entradas posteriores a um ponto de recuperação.
+     *
+     * @param ponto ponto de recuperação deste diário
+     * @param leitor recebe cada entrada posterior ao ponto
+     * @return {@code false}, sem entregar nada, se a entrada do ponto não for a deste diário
+     * @throws Exception a exceção do leitor, ou {@link IOException} se a leitura falhar
+     */
+    synchronized boolean percorrer(PontoDoDiario ponto, Leitor leitor) throws Exception {
+        if (ponto.getSeq() > seq) return false;
+        LeitorDiario l = new LeitorDiario(canal, 0);
+        for (long i = 1; i <= ponto.getSeq(); i++) {
+            String linha = l.proximaLinha();
+            if (linha == null) throw new IOException("Diario " + arquivo + " ilegivel na entrada " + i + ".");
+            if (i == ponto.getSeq() && !linha.equals(ponto.getLinha())) return false;
+        }
+        for (long i = ponto.getSeq() + 1; i <= seq; i++) {
+            String linha = l.proximaLinha();
+            Entrada e = linha == null ? null : Entrada.ler(linha);
+            if (e == null || e.seq() != i) throw new IOException("Diario " + arquivo + " ilegivel na entrada " + i + ".");
+            leitor.ler(e);
+        }
+        return true;
+    }
+
+    /**
+     * Anexa um comando ao diário.
+     *
+     * @param comando nome do comando
+     * @param argumentos argumentos do comando
+     * @return a entrada gravada
+     * @throws IOException se a gravação falhar (a entrada não é considerada gravada)
+     */
+    public synchronized Entrada registrar(String comando, String... argumentos) throws IOException {
+        Entrada e = new Entrada(seq + 1, System.currentTimeMillis(), comando,
+                Collections.unmodifiableList(Arrays.asList(argumentos.clone())));
+        anexar(e.formatar());
+        return e;
+    }
+
+    /**
+     * Anexa uma entrada recebida de outro diário (cópia local de uma réplica).
+     *
+     * @param entrada entrada com a próxima sequência
+     * @throws IOException se a entrada estiver fora de ordem ou a gravação falhar
+     */
+    synchronized void anexar(Entrada entrada) throws IOException {
+        if (entrada.seq() != seq + 1) {
+            throw new IOException("Entrada " + entrada.seq() + " fora de ordem: esperada " + (seq + 1) + ".");
+        }
+        anexar(entrada.formatar());
+    }
+
+    private void anexar(String linha) throws IOException {
+        long posicao = canal.position();
+        ByteBuffer buffer = ByteBuffer.wrap((linha + '\n').getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) canal.write(buffer);
+            if (SYNC) canal.force(false);
+        } catch (IOException e) {
+            try {
+                canal.truncate(posicao);
+                canal.position(posicao);
+            } catch (IOException ignorada) {
+                e.addSuppressed(ignorada);
+            }
+            throw e;
+        }
+        seq++;
+    }
+
+    /** Libera o lock e fecha o arquivo. */
+    @Override
+    public synchronized void close() throws IOException {
+        try (canal) {
+            if (lock.isValid()) lock.release();
+        }
+    }
+
+    // --- Formato ---
+
+    private static String corpo(long seq, long instante, String comando, List<String> argumentos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(seq).append('\t').append(instante).append('\t').append(escapar(comando));
+        for (String a : argumentos) sb.append('\t').append(escapar(a));
+        return sb.toString();
+    }
+
+    private static String crc(String corpo) {
+        CRC32 crc = new CRC32();
+        crc.update(corpo.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String escapar(String s) {
+        if (s == null) return "\\0";
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String desescapar(String s) {
+        if (s.equals("\\0")) return null;
+        if (s.indexOf('\\') < 0) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char n = s.charAt(++i);
+            switch (n) {
+                case '\\' -> sb.append('\\');
+                case 't' -> sb.append('\t');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                default -> throw new IllegalArgumentException("Escape invalido: \\" + n);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,8 +1,21 @@
 package wepayu.command;
 
 import wepayu.exceptions.NaoPodeComandosAposEncerrarSistemaException;
+import wepayu.metricas.Metricas;
+import wepayu.metricas.MetricasOperacao;
+import wepayu.services.Lancamento;
+import wepayu.services.PegadaMemoria;
+import wepayu.services.RelatorioImportacao;
+import wepayu.services.RelatorioIngestao;
+import wepayu.services.RelatorioLote;
 import wepayu.services.Sistema;
 
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * Facade do subsistema de folha de pagamento (WePayU).
  *
@@ -21,6 +34,9 @@ import wepayu.services.Sistema;
  *   <li>Expor operações de consulta que delegam diretamente ao {@link Sistema};</li>
  *   <li>Controlar undo/redo via {@link Invoker}.</li>
  * </ul>
+ * <p>
+ * As consultas registram sua latência em {@link Metricas}, como o {@link Invoker} faz com os comandos.
+ * </p>
  *
  * <h3>Ciclo de vida e estado</h3>
  * <ul>
@@ -28,8 +44,10 @@ import wepayu.services.Sistema;
  *       ({@code sistemaGlobal}) para persistir entre execuções de teste;</li>
  *   <li>Cada instância da {@code Facade} cria seu próprio {@link Invoker}
  *       (histórico de comandos por instância);</li>
- *   <li>O “encerramento” do sistema é controlado por um flag estático
- *       ({@code sistemaEncerrado}), bloqueando novas ações até ser reativado.</li>
+ *   <li>O “encerramento” do sistema é controlado por um flag da instância
+ *       ({@code sistemaEncerrado}), bloqueando novas ações até ser reativado;</li>
+ *   <li>Para vários sistemas independentes na mesma JVM (uma empresa por sistema), use
+ *       {@link #Facade(Sistema)} ou o {@link RegistroDeEmpresas}.</li>
  * </ul>
  *
  * <h3>Erros e exceções</h3>
@@ -47,7 +65,23 @@ public class Facade {
     private Sistema sistema;
     private Invoker invoker;
     private static Sistema sistemaGlobal;
-    private static boolean sistemaEncerrado = false;
+    private boolean sistemaEncerrado = false;
+    private Path diretorioSaida;
+
+    private static final MetricasOperacao GET_ATRIBUTO_EMPREGADO = Metricas.operacao("getAtributoEmpregado");
+    private static final MetricasOperacao GET_EMPREGADO_POR_NOME = Metricas.operacao("getEmpregadoPorNome");
+    private static final MetricasOperacao GET_HORAS_TRABALHADAS = Metricas.operacao("getHorasTrabalhadas");
+    private static final MetricasOperacao GET_HORAS_NORMAIS = Metricas.operacao("getHorasNormaisTrabalhadas");
+    private static final MetricasOperacao GET_HORAS_EXTRAS = Metricas.operacao("getHorasExtrasTrabalhadas");
+    private static final MetricasOperacao GET_VENDAS_REALIZADAS = Metricas.operacao("getVendasRealizadas");
+    private static final MetricasOperacao GET_TAXAS_SERVICO = Metricas.operacao("getTaxasServico");
+    private static final MetricasOperacao TOTAL_FOLHA = Metricas.operacao("totalFolha");
+    private static final MetricasOperacao GET_NUMERO_DE_EMPREGADOS = Metricas.operacao("getNumeroDeEmpregados");
+
+    @FunctionalInterface
+    private interface Consulta<T> {
+        T executar() throws Exception;
+    }
 
     /**
      * Constrói uma nova instância da Facade.
@@ -62,7 +96,61 @@ public class Facade {
         }
         this.sistema = sistemaGlobal;
         this.invoker = new Invoker();
-        sistemaEncerrado = false;
+    }
+
+    /**
+     * Constrói uma Facade sobre um {@link Sistema} informado, em vez do {@code sistemaGlobal}.
+     * <p>
+     * A instância tem seu próprio {@link Invoker} (histórico de undo/redo) e opera apenas sobre
+     * o sistema recebido, o que permite manter vários sistemas independentes na mesma JVM.
+     *
+     * @param sistema sistema de negócio a ser operado (não {@code null})
+     */
+    public Facade(Sistema sistema) {
+        this(sistema, new Invoker());
+    }
+
+    /**
+     * Constrói uma Facade sobre um {@link Sistema} e um histórico de comandos já existentes.
+     * Usado pelo {@link RegistroDeEmpresas} ao recarregar uma empresa despejada para disco.
+     *
+     * @param sistema sistema de negócio a ser operado (não {@code null})
+     * @param invoker histórico de undo/redo associado ao {@code sistema} (não {@code null})
+     */
+    Facade(Sistema sistema, Invoker invoker) {
+        this.sistema = sistema;
+        this.invoker = invoker;
+    }
+
+    Sistema getSistema() {
+        return sistema;
+    }
+
+    Invoker getInvoker() {
+        return invoker;
+    }
+
+    boolean isSistemaEncerrado() {
+        return sistemaEncerrado;
+    }
+
+    /**
+     * Define o diretório onde {@link #rodaFolha(String, String)} grava arquivos de saída com
+     * caminho relativo. Por padrão ({@code null}), o caminho é relativo ao diretório de trabalho.
+     *
+     * @param diretorio diretório base das saídas, ou {@code null} para o diretório de trabalho
+     */
+    public void setDiretorioSaida(Path diretorio) {
+        this.diretorioSaida = diretorio;
+    }
+
+    private String resolverSaida(String saida) {
+        try {
+            Path caminho = Path.of(saida);
+            return caminho.isAbsolute() ? saida : diretorioSaida.resolve(caminho).toString();
+        } catch (InvalidPathException e) {
+            return saida;
+        }
     }
 
     /**
@@ -72,7 +160,7 @@ public class Facade {
      * @param estado {@code true} para encerrar, {@code false} para reabrir.
      */
     public void setSistemaEncerrado(boolean estado) {
-        Facade.sistemaEncerrado = estado;
+        this.sistemaEncerrado = estado;
     }
 
     /**
@@ -89,7 +177,7 @@ public class Facade {
      * "Encerra" o sistema, bloqueando a execução de novos comandos de ação.
      */
     public void encerrarSistema() {
-        Facade.sistemaEncerrado = true;
+        this.sistemaEncerrado = true;
     }
 
     /**
@@ -98,7 +186,7 @@ public class Facade {
      * @throws Exception se o sistema estiver no estado "encerrado".
      */
     private void checkSistemaEncerrado() throws Exception {
-        if (Facade.sistemaEncerrado) {
+        if (this.sistemaEncerrado) {
             throw new NaoPodeComandosAposEncerrarSistemaException();
         }
     }
@@ -192,6 +280,144 @@ public class Facade {
         this.invoker.executeCommand(comando);
     }
 
+    /**
+     * Lança um lote de cartões de ponto, vendas e taxas de serviço de forma atômica.
+     * <p>
+     * Todas as linhas são validadas antes de qualquer alteração; se alguma for inválida, nada é
+     * aplicado e a exceção é a mesma que a chamada individual correspondente lançaria.
+     * O lote ocupa uma única entrada no histórico de undo/redo.
+     *
+     * @param lancamentos lançamentos do lote (ver {@link Lancamento#cartao}, {@link Lancamento#venda},
+     *                    {@link Lancamento#taxaServico})
+     * @throws Exception se o sistema estiver encerrado ou alguma linha for inválida.
+     */
+    public void lancaLote(Collection<Lancamento> lancamentos) throws Exception {
+        checkSistemaEncerrado();
+        Command comando = new LancarLoteCommand(this.sistema, lancamentos, false);
+        this.invoker.executeCommand(comando);
+    }
+
+    /**
+     * Variante de {@link #lancaLote(Collection)} que consome um {@link Stream} de lançamentos.
+     *
+     * @param lancamentos fluxo de lançamentos, consumido por completo antes da validação
+     * @throws Exception se o sistema estiver encerrado ou alguma linha for inválida.
+     */
+    public void lancaLote(Stream<Lancamento> lancamentos) throws Exception {
+        lancaLote(lancamentos.collect(Collectors.toList()));
+    }
+
+    /**
+     * Lança um lote aplicando apenas as linhas válidas.
+     * <p>
+     * As linhas inválidas são descritas no {@link RelatorioLote} retornado (número da linha e motivo);
+     * as demais são aplicadas sob uma única entrada no histórico de undo/redo.
+     *
+     * @param lancamentos lançamentos do lote
+     * @return relatório com os lançamentos aplicados e as falhas por linha
+     * @throws Exception se o sistema estiver encerrado.
+     */
+    public RelatorioLote lancaLoteParcial(Collection<Lancamento> lancamentos) throws Exception {
+        checkSistemaEncerrado();
+        LancarLoteCommand comando = new LancarLoteCommand(this.sistema, lancamentos, true);
+        this.invoker.executeCommand(comando);
+        return comando.getRelatorio();
+    }
+
+    /**
+     * Variante de {@link #lancaLoteParcial(Collection)} que consome um {@link Stream} de lançamentos.
+     *
+     * @param lancamentos fluxo de lançamentos
+     * @return relatório com os lançamentos aplicados e as falhas por linha
+     * @throws Exception se o sistema estiver encerrado.
+     */
+    public RelatorioLote lancaLoteParcial(Stream<Lancamento> lancamentos) throws Exception {
+        return lancaLoteParcial(lancamentos.collect(Collectors.toList()));
+    }
+
+    /**
+     * Importa empregados de um arquivo CSV de forma atômica.
+     * <p>
+     * O formato das colunas é descrito em {@link Sistema#importarEmpregados(Path, boolean)}. Se alguma
+     * linha for inválida, nada é importado e a exceção é a mesma que {@code criarEmpregado} ou
+     * {@code alteraEmpregado} lançaria. A importação ocupa uma única entrada no histórico de undo/redo.
+     *
+     * @param arquivo caminho do CSV
+     * @return relatório com a quantidade importada e a faixa de IDs atribuída
+     * @throws Exception se o sistema estiver encerrado, o arquivo não puder ser lido ou alguma linha for inválida.
+     */
+    public RelatorioImportacao importaEmpregados(String arquivo) throws Exception {
+        checkSistemaEncerrado();
+        ImportarEmpregadosCommand comando = new ImportarEmpregadosCommand(this.sistema, Path.of(arquivo), false);
+        this.invoker.executeCommand(comando);
+        return comando.getRelatorio();
+    }
+
+    /**
+     * Importa empregados de um arquivo CSV aplicando apenas as linhas válidas.
+     * <p>
+     * As linhas inválidas são descritas no {@link RelatorioImportacao} retornado (número da linha no
+     * arquivo e motivo); as demais são importadas sob uma única entrada no histórico de undo/redo.
+     *
+     * @param arquivo caminho do CSV
+     * @return relatório com a quantidade importada, a faixa de IDs e as falhas por linha
+     * @throws Exception se o sistema estiver encerrado ou o arquivo não puder ser lido.
+     */
+    public RelatorioImportacao importaEmpregadosParcial(String arquivo) throws Exception {
+        checkSistemaEncerrado();
+        ImportarEmpregadosCommand comando = new ImportarEmpregadosCommand(this.sistema, Path.of(arquivo), true);
+        this.invoker.executeCommand(comando);
+        return comando.getRelatorio();
+    }
+
+    /**
+     * Lança os cartões de ponto de um arquivo {@code id;data;horas}, aplicando apenas as linhas válidas.
+     *
+     * @param arquivo caminho do arquivo
+     * @return relatório com os lançamentos aplicados e as linhas rejeitadas
+     * @throws Exception se o sistema estiver encerrado ou o arquivo não puder ser lido.
+     * @see #ingereLancamentos(Path, Lancamento.Tipo, boolean, RelatorioIngestao.Progresso)
+     */
+    public RelatorioIngestao ingereCartoes(String arquivo) throws Exception {
+        return ingereLancamentos(Path.of(arquivo), Lancamento.Tipo.CARTAO, true, null);
+    }
+
+    /**
+     * Lança as vendas de um arquivo {@code id;data;valor}, aplicando apenas as linhas válidas.
+     *
+     * @param arquivo caminho do arquivo
+     * @return relatório com os lançamentos aplicados e as linhas rejeitadas
+     * @throws Exception se o sistema estiver encerrado ou o arquivo não puder ser lido.
+     * @see #ingereLancamentos(Path, Lancamento.Tipo, boolean, RelatorioIngestao.Progresso)
+     */
+    public RelatorioIngestao ingereVendas(String arquivo) throws Exception {
+        return ingereLancamentos(Path.of(arquivo), Lancamento.Tipo.VENDA, true, null);
+    }
+
+    /**
+     * Ingere um arquivo de cartões de ponto ou de vendas.
+     * <p>
+     * O arquivo é lido e validado em uma thread própria enquanto os blocos anteriores são aplicados; a
+     * ingestão ocupa uma única entrada no histórico de undo/redo. As regras e mensagens são as de
+     * {@link #lancaCartao} e {@link #lancaVenda}.
+     *
+     * @param arquivo caminho do arquivo
+     * @param tipo {@link Lancamento.Tipo#CARTAO} ou {@link Lancamento.Tipo#VENDA}
+     * @param parcial se {@code true}, aplica as linhas válidas e reporta as inválidas; se {@code false},
+     *                a primeira linha inválida cancela a ingestão inteira
+     * @param progresso notificado após cada bloco aplicado (pode ser {@code null})
+     * @return relatório com as linhas lidas, os lançamentos aplicados e as falhas
+     * @throws Exception se o sistema estiver encerrado, o arquivo não puder ser lido ou, no modo atômico,
+     *                   alguma linha for inválida.
+     */
+    public RelatorioIngestao ingereLancamentos(Path arquivo, Lancamento.Tipo tipo, boolean parcial,
+                                              RelatorioIngestao.Progresso progresso) throws Exception {
+        checkSistemaEncerrado();
+        IngerirLancamentosCommand comando = new IngerirLancamentosCommand(this.sistema, arquivo, tipo, parcial, progresso);
+        this.invoker.executeCommand(comando);
+        return comando.getRelatorio();
+    }
+
     /**
      * Altera um atributo de um empregado (versão para 3 parâmetros).
      * Usado para alterações simples como nome, endereço, ou remover do sindicato.
@@ -277,14 +503,31 @@ public class Facade {
      * Roda a folha de pagamento para uma data específica e gera um arquivo de saída.
      *
      * @param data A data para a qual a folha deve ser rodada.
-     * @param saida O caminho do arquivo de saída a ser gerado.
+     * @param saida O caminho do arquivo de saída a ser gerado (relativo ao diretório de saída, se definido).
      * @throws Exception se os dados forem inválidos ou ocorrer um erro de arquivo.
      */
     public void rodaFolha(String data, String saida) throws Exception {
         checkSistemaEncerrado();
+        if (diretorioSaida != null && saida != null && !saida.isBlank()) {
+            saida = resolverSaida(saida);
+        }
         Command comando = new RodaFolhaCommand(this.sistema, data, saida);
         this.invoker.executeCommand(comando);
     }
+
+    /**
+     * Registra o pagamento da folha de uma data sem gravar o arquivo ({@link PagarFolhaCommand}): o
+     * efeito de {@link #rodaFolha(String, String)} no estado, para quem monta ou já montou o arquivo em
+     * outro lugar (partições, réplicas).
+     *
+     * @param data A data da folha.
+     * @throws Exception se a data for inválida ou o sistema estiver encerrado.
+     */
+    void pagarFolha(String data) throws Exception {
+        checkSistemaEncerrado();
+        this.invoker.executeCommand(new PagarFolhaCommand(this.sistema, data));
+    }
+
     /**
      * Cria uma nova agenda de pagamentos disponível para uso nas operações do sistema.
      * <p>
@@ -322,7 +565,7 @@ public class Facade {
      *                   ou pré-condições (ex.: receber em banco / ser sindicalizado) não forem atendidas.
      */
     public String getAtributoEmpregado(String id, String atributo) throws Exception {
-        return this.sistema.getAtributoEmpregado(id, atributo);
+        return consultar(GET_ATRIBUTO_EMPREGADO, () -> this.sistema.getAtributoEmpregado(id, atributo));
     }
 
     /**
@@ -334,7 +577,7 @@ public class Facade {
      * @throws Exception se o sistema estiver encerrado ou não houver resultados suficientes.
      */
     public String getEmpregadoPorNome(String nome, int indice) throws Exception {
-        return this.sistema.getEmpregadoPorNome(nome, indice);
+        return consultar(GET_EMPREGADO_POR_NOME, () -> this.sistema.getEmpregadoPorNome(nome, indice));
     }
 
     /**
@@ -348,7 +591,7 @@ public class Facade {
      *                   datas forem inválidas ou {@code dataInicial} > {@code dataFinal}.
      */
     public String getHorasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
-        return this.sistema.getHorasTrabalhadas(id, dataInicial, dataFinal);
+        return consultar(GET_HORAS_TRABALHADAS, () -> this.sistema.getHorasTrabalhadas(id, dataInicial, dataFinal));
     }
 
     /**
@@ -362,7 +605,7 @@ public class Facade {
      *                   datas forem inválidas ou {@code dataInicial} > {@code dataFinal}.
      */
     public String getHorasNormaisTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
-        return this.sistema.getHorasNormaisTrabalhadas(id, dataInicial, dataFinal);
+        return consultar(GET_HORAS_NORMAIS, () -> this.sistema.getHorasNormaisTrabalhadas(id, dataInicial, dataFinal));
     }
 
     /**
@@ -376,7 +619,7 @@ public class Facade {
      *                   datas forem inválidas ou {@code dataInicial} > {@code dataFinal}.
      */
     public String getHorasExtrasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
-        return this.sistema.getHorasExtrasTrabalhadas(id, dataInicial, dataFinal);
+        return consultar(GET_HORAS_EXTRAS, () -> this.sistema.getHorasExtrasTrabalhadas(id, dataInicial, dataFinal));
     }
 
     /**
@@ -390,7 +633,7 @@ public class Facade {
      *                   datas forem inválidas ou {@code dataInicial} > {@code dataFinal}.
      */
     public String getVendasRealizadas(String id, String dataInicial, String dataFinal) throws Exception {
-        return this.sistema.getVendasRealizadas(id, dataInicial, dataFinal);
+        return consultar(GET_VENDAS_REALIZADAS, () -> this.sistema.getVendasRealizadas(id, dataInicial, dataFinal));
     }
 
     /**
@@ -404,7 +647,7 @@ public class Facade {
      *                   datas forem inválidas ou {@code dataInicial} > {@code dataFinal}.
      */
     public String getTaxasServico(String emp, String dataInicial, String dataFinal) throws Exception {
-        return this.sistema.getTaxasServico(emp, dataInicial, dataFinal);
+        return consultar(GET_TAXAS_SERVICO, () -> this.sistema.getTaxasServico(emp, dataInicial, dataFinal));
     }
 
     /**
@@ -418,7 +661,7 @@ public class Facade {
      * @throws Exception se o sistema estiver encerrado ou a data for inválida.
      */
     public String totalFolha(String data) throws Exception {
-        return this.sistema.totalFolha(data);
+        return consultar(TOTAL_FOLHA, () -> this.sistema.totalFolha(data));
     }
 
     /**
@@ -427,6 +670,36 @@ public class Facade {
      * @return número de empregados como {@code String} (compatível com a suíte de testes).
      */
     public String getNumeroDeEmpregados() {
-        return String.valueOf(this.sistema.getNumeroDeEmpregados());
+        long inicio = System.nanoTime();
+        String numero = String.valueOf(this.sistema.getNumeroDeEmpregados());
+        GET_NUMERO_DE_EMPREGADOS.registrar(System.nanoTime() - inicio);
+        return numero;
+    }
+
+    /**
+     * Estima a memória ocupada pelo estado do sistema, pelos snapshots de undo/redo do {@link Sistema} e
+     * pelos comandos do histórico desta fachada, sem percorrer os objetos.
+     *
+     * @return estimativa em bytes, por componente
+     * @see Sistema#getPegadaMemoria()
+     */
+    public PegadaMemoria getPegadaMemoria() {
+        return this.sistema.getPegadaMemoria().comHistoricoDeComandos(this.invoker.getBytesEstimados());
+    }
+
+    /**
+     * Executa uma consulta registrando sua latência (e a exceção, se houver) em {@link Metricas}.
+     */
+    private static <T> T consultar(MetricasOperacao metricas, Consulta<T> consulta) throws Exception {
+        long inicio = System.nanoTime();
+        T resultado;
+        try {
+            resultado = consulta.executar();
+        } catch (Exception | Error e) {
+            metricas.registrarErro(System.nanoTime() - inicio, e);
+            throw e;
+        }
+        metricas.registrar(System.nanoTime() - inicio);
+        return resultado;
     }
 }
\ No newline at end of file
@@ -0,0 +1,421 @@
+package wepayu.command;
+
+import wepayu.services.Sistema;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * {@link Facade} primária que registra cada comando bem-sucedido em um {@link DiarioDeComandos}, de
+ * onde as {@link ReplicaLeitura réplicas} o reaplicam.
+ *
+ * <p>
+ * O comando é executado primeiro e só é registrado se tiver sucesso; erros de validação e
+ * {@code undo}/{@code redo} sem o que desfazer/refazer não entram no diário. O diário é também a
+ * recuperação do próprio primário: {@link #abrir(Path)} reconstrói o estado (e o histórico de
+ * undo/redo) reaplicando as entradas gravadas, a partir do último {@link PontoDoDiario ponto de
+ * recuperação}, registrado a cada {@code wepayu.diario.ponto} entradas; um ponto limpa o histórico de
+ * undo/redo, que entre dois pontos é limitado a {@code wepayu.diario.historico} comandos, como nas
+ * réplicas; os snapshots internos do {@link Sistema} são descartados a cada comando, pois o undo/redo
+ * da {@link Facade} não depende deles. {@code rodaFolha} é registrada como {@code pagarFolha}: as
+ * réplicas aplicam o pagamento sem gravar o arquivo.
+ * </p>
+ *
+ * <p>
+ * Se a gravação de uma entrada falhar, o comando já está aplicado na memória mas não no diário; a
+ * exceção é propagada e a instância passa a recusar comandos (as consultas continuam), para que o
+ * estado não se afaste ainda mais do diário. Reabrir o diário descarta o comando não registrado.
+ * Lotes, importações e ingestões de arquivos não são expostos por esta classe.
+ * </p>
+ *
+ * <p>Não é segura para uso por várias threads, como a {@link Facade}.</p>
+ */
+public class FacadeComDiario implements AutoCloseable {
+
+    /** Diário do construtor sem argumentos: {@code wepayu.diario} ou {@code <tmpdir>/wepayu-diario-<usuario>.log}. */
+    public static final Path DIARIO_PADRAO = Path.of(System.getProperty("wepayu.diario",
+            Path.of(System.getProperty("java.io.tmpdir"), "wepayu-diario-" + System.getProperty("user.name") + ".log")
+                    .toString()));
+
+    private static final System.Logger LOG = System.getLogger("wepayu.diario");
+
+    private static Sistema sistemaGlobal;
+    private static DiarioDeComandos diarioGlobal;
+
+    private final Facade facade;
+    private final DiarioDeComandos diario;
+    private final boolean global;
+    private IOException falha;
+
+    /**
+     * Constrói uma instância sobre o sistema e o diário globais ({@link #DIARIO_PADRAO}), recuperados
+     * do diário na primeira instância e mantidos entre instâncias, como o {@code sistemaGlobal} da
+     * {@link Facade}. Cada instância tem seu próprio histórico de undo/redo.
+     *
+     * @throws Exception se o diário não puder ser aberto ou reaplicado
+     */
+    public FacadeComDiario() throws Exception {
+        synchronized (FacadeComDiario.class) {
+            if (diarioGlobal == null) {
+                FacadeComDiario recuperada = abrir(DIARIO_PADRAO);
+                sistemaGlobal = recuperada.facade.getSistema();
+                diarioGlobal = recuperada.diario;
+            }
+        }
+        this.facade = new Facade(sistemaGlobal, PontoDoDiario.novoHistorico());
+        this.diario = diarioGlobal;
+        this.global = true;
+    }
+
+    /**
+     * Constrói uma instância sobre uma {@link Facade} e um diário cuja última entrada já está aplicada
+     * nela. Usado na promoção de uma réplica.
+     */
+    FacadeComDiario(Facade facade, DiarioDeComandos diario) {
+        this.facade = facade;
+        this.diario = diario;
+        this.global = false;
+    }
+
+    /**
+     * Abre um diário e reconstrói o estado a partir dele.
+     *
+     * @param arquivo caminho do diário (criado se não existir)
+     * @return a instância primária, dona do diário até {@link #close()}
+     * @throws Exception se o diário não puder ser aberto, estiver corrompido ou uma entrada falhar ao
+     *                   ser reaplicada
+     */
+    public static FacadeComDiario abrir(Path arquivo) throws Exception {
+        DiarioDeComandos diario = DiarioDeComandos.abrir(arquivo);
+        try {
+            return new FacadeComDiario(recuperar(diario), diario);
+        } catch (Exception e) {
+            diario.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reconstrói o estado e o histórico de um diário, a partir do seu ponto de recuperação se houver
+     * um que confira com o diário.
+     *
+     * @param diario diário aberto
+     * @return a facade com todas as entradas aplicadas
+     * @throws Exception se uma entrada falhar ao ser reaplicada ou o diário não puder ser lido
+     */
+    static Facade recuperar(DiarioDeComandos diario) throws Exception {
+        PontoDoDiario ponto = PontoDoDiario.ler(diario.getArquivo());
+        if (ponto != null) {
+            Facade facade = ponto.getFacade();
+            if (diario.percorrer(ponto, e -> aplicar(facade, e))) return facade;
+        }
+        Facade facade = PontoDoDiario.novaFacade();
+        diario.percorrer(e -> aplicar(facade, e));
+        return facade;
+    }
+
+    /**
+     * Reaplica uma entrada do diário.
+     *
+     * @param facade facade da réplica (ou do primário em recuperação)
+     * @param entrada entrada do diário
+     * @throws Exception a exceção do comando: o estado divergiu do primário
+     */
+    static void aplicar(Facade facade, DiarioDeComandos.Entrada entrada) throws Exception {
+        List<String> a = entrada.argumentos();
+        switch (entrada.comando()) {
+            case "zerarSistema" -> facade.zerarSistema();
+            case "criarEmpregado" -> {
+                if (a.size() == 4) facade.criarEmpregado(a.get(0), a.get(1), a.get(2), a.get(3));
+                else facade.criarEmpregado(a.get(0), a.get(1), a.get(2), a.get(3), a.get(4));
+            }
+            case "removerEmpregado" -> facade.removerEmpregado(a.get(0));
+            case "lancaCartao" -> facade.lancaCartao(a.get(0), a.get(1), a.get(2));
+            case "lancaVenda" -> facade.lancaVenda(a.get(0), a.get(1), a.get(2));
+            case "lancaTaxaServico" -> facade.lancaTaxaServico(a.get(0), a.get(1), a.get(2));
+            case "alteraEmpregado" -> {
+                switch (a.size()) {
+                    case 3 -> facade.alteraEmpregado(a.get(0), a.get(1), a.get(2));
+                    case 4 -> facade.alteraEmpregado(a.get(0), a.get(1), a.get(2), a.get(3));
+                    case 5 -> facade.alteraEmpregado(a.get(0), a.get(1), a.get(2), a.get(3), a.get(4));
+                    case 6 -> facade.alteraEmpregado(a.get(0), a.get(1), a.get(2), a.get(3), a.get(4), a.get(5));
+                    default -> throw new IllegalArgumentException("alteraEmpregado com " + a.size() + " argumentos.");
+                }
+            }
+            case "pagarFolha" -> facade.pagarFolha(a.get(0));
+            case "criarAgendaDePagamentos" -> facade.criarAgendaDePagamentos(a.get(0));
+            case "ponto" -> facade.getInvoker().clearHistory();
+            case "undo" -> facade.undo();
+            case "redo" -> facade.redo();
+            default -> throw new IllegalArgumentException("Comando desconhecido no diario: " + entrada.comando());
+        }
+        facade.getSistema().limparHistorico();
+    }
+
+    /** Falha se uma gravação anterior no diário falhou. */
+    private void verificarDiario() throws IOException {
+        if (falha != null) throw new IOException("Diario indisponivel apos falha de gravacao.", falha);
+    }
+
+    private void registrar(String comando, String... argumentos) throws IOException {
+        DiarioDeComandos.Entrada entrada;
+        try {
+            entrada = diario.registrar(comando, argumentos);
+        } catch (IOException e) {
+            falha = e;
+            throw e;
+        }
+        facade.getSistema().limparHistorico();
+        if (PontoDoDiario.devePersistir(entrada.seq())) registrarPonto();
+    }
+
+    /**
+     * Registra um ponto de recuperação. Se a entrada não puder ser gravada, o ponto fica para o
+     * próximo intervalo: o histórico só é limpo depois que a entrada está no diário.
+     */
+    private void registrarPonto() {
+        DiarioDeComandos.Entrada ponto;
+        try {
+            ponto = diario.registrar("ponto");
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.WARNING, "Falha ao registrar o ponto de recuperacao em " + diario.getArquivo(), e);
+            return;
+        }
+        facade.getInvoker().clearHistory();
+        PontoDoDiario.gravar(diario.getArquivo(), ponto, facade);
+    }
+
+    /** @return sequência da última entrada registrada */
+    public long getSequencia() {
+        return diario.getSequencia();
+    }
+
+    /** @return caminho do diário */
+    public Path getDiario() {
+        return diario.getArquivo();
+    }
+
+    /** @see Facade#setDiretorioSaida(Path) */
+    public void setDiretorioSaida(Path diretorio) {
+        facade.setDiretorioSaida(diretorio);
+    }
+
+    // --- Comandos (registrados) ---
+
+    /**
+     * Reseta o estado do sistema e o histórico de comandos, e registra {@code zerarSistema} no diário.
+     * @throws Exception se o sistema estiver encerrado ou o diário não puder ser gravado.
+     * @see Facade#zerarSistema()
+     */
+    public void zerarSistema() throws Exception {
+        verificarDiario();
+        facade.zerarSistema();
+        registrar("zerarSistema");
+    }
+
+    /**
+     * Encerra esta instância para novos comandos. Não é registrado: o encerramento vale só para a
+     * instância, e as réplicas continuam aplicando o diário.
+     *
+     * @see Facade#encerrarSistema()
+     */
+    public void encerrarSistema() {
+        facade.encerrarSistema();
+    }
+
+    /**
+     * Cria um novo empregado Horista ou Assalariado e registra o comando no diário.
+     *
+     * @return O ID do empregado recém-criado.
+     * @throws Exception se os dados forem inválidos, o sistema estiver encerrado ou o diário não puder
+     *                   ser gravado.
+     * @see Facade#criarEmpregado(String, String, String, String)
+     */
+    public String criarEmpregado(String nome, String endereco, String tipo, String salario) throws Exception {
+        verificarDiario();
+        String id = facade.criarEmpregado(nome, endereco, tipo, salario);
+        registrar("criarEmpregado", nome, endereco, tipo, salario);
+        return id;
+    }
+
+    /**
+     * Cria um novo empregado Comissionado e registra o comando no diário.
+     *
+     * @return O ID do empregado recém-criado.
+     * @throws Exception se os dados forem inválidos, o sistema estiver encerrado ou o diário não puder
+     *                   ser gravado.
+     * @see Facade#criarEmpregado(String, String, String, String, String)
+     */
+    public String criarEmpregado(String nome, String endereco, String tipo, String salario, String comissao)
+            throws Exception {
+        verificarDiario();
+        String id = facade.criarEmpregado(nome, endereco, tipo, salario, comissao);
+        registrar("criarEmpregado", nome, endereco, tipo, salario, comissao);
+        return id;
+    }
+
+    /** @see Facade#removerEmpregado(String) */
+    public void removerEmpregado(String id) throws Exception {
+        verificarDiario();
+        facade.removerEmpregado(id);
+        registrar("removerEmpregado", id);
+    }
+
+    /** @see Facade#lancaCartao(String, String, String) */
+    public void lancaCartao(String id, String data, String horas) throws Exception {
+        verificarDiario();
+        facade.lancaCartao(id, data, horas);
+        registrar("lancaCartao", id, data, horas);
+    }
+
+    /** @see Facade#lancaVenda(String, String, String) */
+    public void lancaVenda(String id, String data, String valor) throws Exception {
+        verificarDiario();
+        facade.lancaVenda(id, data, valor);
+        registrar("lancaVenda", id, data, valor);
+    }
+
+    /** @see Facade#lancaTaxaServico(String, String, String) */
+    public void lancaTaxaServico(String membro, String data, String valor) throws Exception {
+        verificarDiario();
+        facade.lancaTaxaServico(membro, data, valor);
+        registrar("lancaTaxaServico", membro, data, valor);
+    }
+
+    /** @see Facade#alteraEmpregado(String, String, String) */
+    public void alteraEmpregado(String emp, String atributo, String valor) throws Exception {
+        verificarDiario();
+        facade.alteraEmpregado(emp, atributo, valor);
+        registrar("alteraEmpregado", emp, atributo, valor);
+    }
+
+    /** @see Facade#alteraEmpregado(String, String, String, String) */
+    public void alteraEmpregado(String emp, String atributo, String valor, String extra) throws Exception {
+        verificarDiario();
+        facade.alteraEmpregado(emp, atributo, valor, extra);
+        registrar("alteraEmpregado", emp, atributo, valor, extra);
+    }
+
+    /** @see Facade#alteraEmpregado(String, String, String, String, String) */
+    public void alteraEmpregado(String emp, String atributo, String valor, String idSindicato, String taxaSindical)
+            throws Exception {
+        verificarDiario();
+        facade.alteraEmpregado(emp, atributo, valor, idSindicato, taxaSindical);
+        registrar("alteraEmpregado", emp, atributo, valor, idSindicato, taxaSindical);
+    }
+
+    /** @see Facade#alteraEmpregado(String, String, String, String, String, String) */
+    public void alteraEmpregado(String emp, String atributo, String valor1, String banco, String agencia,
+                                String contaCorrente) throws Exception {
+        verificarDiario();
+        facade.alteraEmpregado(emp, atributo, valor1, banco, agencia, contaCorrente);
+        registrar("alteraEmpregado", emp, atributo, valor1, banco, agencia, contaCorrente);
+    }
+
+    /**
+     * Roda a folha e registra no diário só o pagamento ({@code pagarFolha}): as réplicas e a
+     * recuperação não regravam o arquivo de saída.
+     *
+     * @throws Exception se os dados forem inválidos, ocorrer um erro de arquivo ou o diário não puder
+     *                   ser gravado.
+     * @see Facade#rodaFolha(String, String)
+     */
+    public void rodaFolha(String data, String saida) throws Exception {
+        verificarDiario();
+        facade.rodaFolha(data, saida);
+        registrar("pagarFolha", data);
+    }
+
+    /**
+     * Cria uma agenda de pagamentos e a registra no diário. Como na {@link Facade}, não entra no
+     * histórico de undo/redo.
+     *
+     * @see Facade#criarAgendaDePagamentos(String)
+     */
+    public void criarAgendaDePagamentos(String descricao) throws Exception {
+        verificarDiario();
+        facade.criarAgendaDePagamentos(descricao);
+        registrar("criarAgendaDePagamentos", descricao);
+    }
+
+    /**
+     * Desfaz a última ação executada e registra {@code undo} no diário.
+     * @throws Exception se não houver comando para desfazer, o sistema estiver encerrado ou o diário não
+     *                   puder ser gravado.
+     */
+    public void undo() throws Exception {
+        verificarDiario();
+        facade.undo();
+        registrar("undo");
+    }
+
+    /**
+     * Refaz a última ação desfeita e registra {@code redo} no diário.
+     * @throws Exception se não houver comando para refazer, o sistema estiver encerrado ou o diário não
+     *                   puder ser gravado.
+     */
+    public void redo() throws Exception {
+        verificarDiario();
+        facade.redo();
+        registrar("redo");
+    }
+
+    // --- Consultas ---
+
+    /** @see Facade#getAtributoEmpregado(String, String) */
+    public String getAtributoEmpregado(String id, String atributo) throws Exception {
+        return facade.getAtributoEmpregado(id, atributo);
+    }
+
+    /** @see Facade#getEmpregadoPorNome(String, int) */
+    public String getEmpregadoPorNome(String nome, int indice) throws Exception {
+        return facade.getEmpregadoPorNome(nome, indice);
+    }
+
+    /** @see Facade#getHorasTrabalhadas(String, String, String) */
+    public String getHorasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return facade.getHorasTrabalhadas(id, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#getHorasNormaisTrabalhadas(String, String, String) */
+    public String getHorasNormaisTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return facade.getHorasNormaisTrabalhadas(id, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#getHorasExtrasTrabalhadas(String, String, String) */
+    public String getHorasExtrasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return facade.getHorasExtrasTrabalhadas(id, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#getVendasRealizadas(String, String, String) */
+    public String getVendasRealizadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return facade.getVendasRealizadas(id, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#getTaxasServico(String, String, String) */
+    public String getTaxasServico(String emp, String dataInicial, String dataFinal) throws Exception {
+        return facade.getTaxasServico(emp, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#totalFolha(String) */
+    public String totalFolha(String data) throws Exception {
+        return facade.totalFolha(data);
+    }
+
+    /** @see Facade#getNumeroDeEmpregados() */
+    public String getNumeroDeEmpregados() {
+        return facade.getNumeroDeEmpregados();
+    }
+
+    /**
+     * Fecha o diário, liberando-o para outro primário. O diário global do construtor sem argumentos
+     * fica aberto até o fim do processo.
+     *
+     * @throws IOException se o diário não puder ser fechado
+     */
+    @Override
+    public void close() throws IOException {
+        if (!global) diario.close();
+    }
+}
@@ -0,0 +1,440 @@
+package wepayu.command;
+
+import wepayu.exceptions.ArquivoDeSaidaInvalidoException;
+import wepayu.exceptions.DataInvalidaException;
+import wepayu.exceptions.ErroAoEscreverArquivoDeSaidaException;
+import wepayu.exceptions.NaoPodeComandosAposEncerrarSistemaException;
+import wepayu.metricas.Metricas;
+import wepayu.metricas.MetricasOperacao;
+import wepayu.services.ConversorEntrada;
+import wepayu.services.Lancamento;
+import wepayu.services.RelatorioImportacao;
+import wepayu.services.RelatorioIngestao;
+import wepayu.services.RelatorioLote;
+import wepayu.services.Sistema;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link Facade} segura para uso por várias threads, protegida por um {@link StampedLock}.
+ *
+ * <p>
+ * Alternativa mais leve ao {@link FacadePipeline}: não há thread dedicada nem cópia do estado.
+ * Os comandos (e {@code undo}/{@code redo}) executam sob o lock de escrita, o que mantém o
+ * {@link Invoker} e o histórico do {@link Sistema} consistentes entre threads. As consultas
+ * tentam primeiro uma leitura otimista, que não bloqueia nem é bloqueada, e só recorrem ao lock
+ * de leitura quando uma escrita concorrente invalida o carimbo.
+ * </p>
+ *
+ * <h3>Leituras otimistas</h3>
+ * <ul>
+ *   <li>O resultado de uma leitura otimista só é devolvido se {@link StampedLock#validate(long)}
+ *       confirmar que nenhuma escrita ocorreu durante a consulta;</li>
+ *   <li>Exceções de negócio observadas em um carimbo válido são propagadas; qualquer exceção ou
+ *       {@link Error} observado em um carimbo inválido (inclusive erros de runtime causados pelo estado em
+ *       transição, como um {@link StackOverflowError} ao percorrer uma estrutura no meio de uma escrita)
+ *       é descartado e a consulta é refeita sob o lock de leitura;</li>
+ *   <li>{@code getEmpregadoPorNome} usa sempre o lock de leitura, pois consulta estruturas de hash
+ *       do índice de nomes que não toleram leitura durante uma escrita;</li>
+ *   <li>As consultas são registradas em {@link Metricas} uma vez, com as mesmas operações da
+ *       {@link Facade} e a latência total: uma leitura otimista invalidada e refeita não conta como
+ *       erro nem como uma segunda consulta.</li>
+ * </ul>
+ *
+ * <h3>Versões</h3>
+ * <p>
+ * Cada comando executado com sucesso cria uma nova versão do estado; um que falha não muda o estado.
+ * Leituras longas não usam o lock de leitura, que seguraria os lançamentos até o fim:
+ * {@link #fixarVersao()} dá uma cópia do estado em uma versão ({@link VersaoFixada}), compartilhada por
+ * quem fixar a mesma versão e descartada quando a última fixação é liberada e a versão deixa de ser a
+ * atual. Quando a leitura otimista de {@code totalFolha} é invalidada, a consulta usa a versão atual se ela já
+ * estiver fixada, e o lock de leitura se não estiver. {@code rodaFolha} calcula a folha sobre uma
+ * versão fixada e a grava em um arquivo temporário ao lado da saída, e só toma o lock de escrita para
+ * conferir a versão, mover o temporário para a saída e registrar o pagamento; se, enquanto isso, foi
+ * executado um comando que muda a folha do dia (um lançamento com data até o dia, ou qualquer outro
+ * comando), o temporário é descartado sem tocar a saída e a folha é recalculada sobre uma versão nova
+ * e, depois de {@value #TENTATIVAS_FOLHA} tentativas, inteira sob o lock de escrita. A cópia é feita
+ * sob o lock de leitura, uma vez por versão fixada, e custa o mesmo que o snapshot que cada comando já
+ * tira para o undo.
+ * </p>
+ *
+ * @see Facade
+ * @see FacadePipeline
+ */
+public class FacadeConcorrente {
+
+    @FunctionalInterface
+    private interface Operacao<T> {
+        T executar() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ConsultaVersao<T> {
+        T executar(Facade facade) throws Exception;
+    }
+
+    private static final int TENTATIVAS_FOLHA = 3;
+
+    private static final MetricasOperacao GET_ATRIBUTO_EMPREGADO = Metricas.operacao("getAtributoEmpregado");
+    private static final MetricasOperacao GET_EMPREGADO_POR_NOME = Metricas.operacao("getEmpregadoPorNome");
+    private static final MetricasOperacao GET_HORAS_TRABALHADAS = Metricas.operacao("getHorasTrabalhadas");
+    private static final MetricasOperacao GET_HORAS_NORMAIS = Metricas.operacao("getHorasNormaisTrabalhadas");
+    private static final MetricasOperacao GET_HORAS_EXTRAS = Metricas.operacao("getHorasExtrasTrabalhadas");
+    private static final MetricasOperacao GET_VENDAS_REALIZADAS = Metricas.operacao("getVendasRealizadas");
+    private static final MetricasOperacao GET_TAXAS_SERVICO = Metricas.operacao("getTaxasServico");
+    private static final MetricasOperacao TOTAL_FOLHA = Metricas.operacao("totalFolha");
+    private static final MetricasOperacao GET_NUMERO_DE_EMPREGADOS = Metricas.operacao("getNumeroDeEmpregados");
+
+    private final Facade facade;
+    private final StampedLock lock = new StampedLock();
+    private final Versoes versoes = new Versoes();
+
+    /**
+     * Cria uma Facade concorrente sobre um sistema vazio.
+     */
+    public FacadeConcorrente() {
+        this(new Sistema());
+    }
+
+    /**
+     * Cria uma Facade concorrente sobre o sistema informado.
+     * <p>
+     * Após esta chamada, o {@code sistema} só deve ser acessado por meio desta instância.
+     *
+     * @param sistema sistema de negócio (não {@code null})
+     */
+    public FacadeConcorrente(Sistema sistema) {
+        this.facade = new Facade(sistema);
+    }
+
+    /**
+     * Executa uma consulta com leitura otimista, recorrendo ao lock de leitura se necessário.
+     */
+    private <T> T ler(Operacao<T> consulta) throws Exception {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                T resultado = consulta.executar();
+                if (lock.validate(stamp)) {
+                    return resultado;
+                }
+            } catch (Exception | Error e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        return lerComLock(consulta);
+    }
+
+    /**
+     * Executa uma consulta com leitura otimista. Se o carimbo for invalidado, usa a versão atual se ela
+     * já estiver fixada (e copiada) por outro leitor, e o lock de leitura caso contrário: copiar o estado
+     * só para esta consulta seguraria os lançamentos por mais tempo que a própria consulta.
+     */
+    private <T> T lerVersao(ConsultaVersao<T> consulta) throws Exception {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                T resultado = consulta.executar(facade);
+                if (lock.validate(stamp)) {
+                    return resultado;
+                }
+            } catch (Exception | Error e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        VersaoFixada versao = versoes.fixarExistente();
+        if (versao == null) return lerComLock(() -> consulta.executar(facade));
+        try (versao) {
+            return consulta.executar(versao.facade());
+        }
+    }
+
+    /**
+     * Registra a latência total de uma consulta, com as tentativas otimistas, e a exceção que ela lançar.
+     * As consultas usam o {@link Sistema} diretamente, sem as métricas da {@link Facade}, que contariam
+     * cada tentativa.
+     */
+    private static <T> T medir(MetricasOperacao metricas, Operacao<T> consulta) throws Exception {
+        long inicio = System.nanoTime();
+        T resultado;
+        try {
+            resultado = consulta.executar();
+        } catch (Exception | Error e) {
+            metricas.registrarErro(System.nanoTime() - inicio, e);
+            throw e;
+        }
+        metricas.registrar(System.nanoTime() - inicio);
+        return resultado;
+    }
+
+    /**
+     * Executa uma consulta sob o lock de leitura.
+     */
+    private <T> T lerComLock(Operacao<T> consulta) throws Exception {
+        long stamp = lock.readLock();
+        try {
+            return consulta.executar();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Executa um comando sob o lock de escrita.
+     */
+    private <T> T escrever(Operacao<T> comando) throws Exception {
+        return escrever(comando, null);
+    }
+
+    /**
+     * Executa um lançamento sob o lock de escrita.
+     *
+     * @param data data do lançamento, ou {@code null} se não for um lançamento (ou a data for inválida)
+     */
+    private <T> T escrever(Operacao<T> comando, LocalDate data) throws Exception {
+        long stamp = lock.writeLock();
+        try {
+            T resultado = comando.executar();
+            versoes.registrar(data);
+            return resultado;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // --- Versões ---
+
+    /**
+     * Fixa a versão atual do estado para leitura.
+     *
+     * @return a versão, que deve ser fechada ao fim da leitura
+     */
+    public VersaoFixada fixarVersao() {
+        return fixarVersao(false);
+    }
+
+    private VersaoFixada fixarVersao(boolean folha) {
+        long stamp = lock.readLock();
+        try {
+            return versoes.fixar(facade.getSistema(), folha);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** @return número da versão atual: quantos comandos foram executados */
+    public long getVersao() {
+        return versoes.getAtual();
+    }
+
+    /** @return quantas cópias do estado estão retidas por versões fixadas (incluindo a da versão atual) */
+    public int getVersoesRetidas() {
+        return versoes.getRetidas();
+    }
+
+    // --- Comandos (lock de escrita) ---
+
+    public void zerarSistema() throws Exception {
+        escrever(() -> { facade.zerarSistema(); return null; });
+    }
+
+    public void encerrarSistema() throws Exception {
+        escrever(() -> { facade.encerrarSistema(); return null; });
+    }
+
+    public String criarEmpregado(String nome, String endereco, String tipo, String salario) throws Exception {
+        return escrever(() -> facade.criarEmpregado(nome, endereco, tipo, salario));
+    }
+
+    public String criarEmpregado(String nome, String endereco, String tipo, String salario, String comissao)
+            throws Exception {
+        return escrever(() -> facade.criarEmpregado(nome, endereco, tipo, salario, comissao));
+    }
+
+    public void removerEmpregado(String id) throws Exception {
+        escrever(() -> { facade.removerEmpregado(id); return null; });
+    }
+
+    public void lancaCartao(String id, String data, String horas) throws Exception {
+        escrever(() -> { facade.lancaCartao(id, data, horas); return null; }, ConversorEntrada.data(data));
+    }
+
+    public void lancaVenda(String id, String data, String valor) throws Exception {
+        escrever(() -> { facade.lancaVenda(id, data, valor); return null; }, ConversorEntrada.data(data));
+    }
+
+    public void lancaTaxaServico(String membro, String data, String valor) throws Exception {
+        escrever(() -> { facade.lancaTaxaServico(membro, data, valor); return null; }, ConversorEntrada.data(data));
+    }
+
+    public void lancaLote(Collection<Lancamento> lancamentos) throws Exception {
+        escrever(() -> { facade.lancaLote(lancamentos); return null; });
+    }
+
+    public RelatorioLote lancaLoteParcial(Collection<Lancamento> lancamentos) throws Exception {
+        return escrever(() -> facade.lancaLoteParcial(lancamentos));
+    }
+
+    public RelatorioImportacao importaEmpregados(String arquivo) throws Exception {
+        return escrever(() -> facade.importaEmpregados(arquivo));
+    }
+
+    public RelatorioImportacao importaEmpregadosParcial(String arquivo) throws Exception {
+        return escrever(() -> facade.importaEmpregadosParcial(arquivo));
+    }
+
+    public RelatorioIngestao ingereLancamentos(Path arquivo, Lancamento.Tipo tipo, boolean parcial,
+                                              RelatorioIngestao.Progresso progresso) throws Exception {
+        return escrever(() -> facade.ingereLancamentos(arquivo, tipo, parcial, progresso));
+    }
+
+    public void alteraEmpregado(String emp, String atributo, String valor) throws Exception {
+        escrever(() -> { facade.alteraEmpregado(emp, atributo, valor); return null; });
+    }
+
+    public void alteraEmpregado(String emp, String atributo, String valor, String extra) throws Exception {
+        escrever(() -> { facade.alteraEmpregado(emp, atributo, valor, extra); return null; });
+    }
+
+    public void alteraEmpregado(String emp, String atributo, String valor, String idSindicato, String taxaSindical)
+            throws Exception {
+        escrever(() -> { facade.alteraEmpregado(emp, atributo, valor, idSindicato, taxaSindical); return null; });
+    }
+
+    public void alteraEmpregado(String emp, String atributo, String valor1, String banco, String agencia,
+                                String contaCorrente) throws Exception {
+        escrever(() -> { facade.alteraEmpregado(emp, atributo, valor1, banco, agencia, contaCorrente); return null; });
+    }
+
+    /**
+     * Roda a folha sobre uma versão fixada do estado, sem segurar os lançamentos (ver "Versões").
+     *
+     * @param data data de referência no formato {@code d/M/uuuu}
+     * @param saida caminho do arquivo de saída
+     * @throws Exception as mesmas exceções de {@link Facade#rodaFolha(String, String)}
+     */
+    public void rodaFolha(String data, String saida) throws Exception {
+        if (ler(facade::isSistemaEncerrado)) throw new NaoPodeComandosAposEncerrarSistemaException();
+        if (saida == null || saida.trim().isEmpty()) throw new ArquivoDeSaidaInvalidoException();
+        LocalDate dia = ConversorEntrada.data(data);
+        if (dia == null) throw new DataInvalidaException();
+
+        for (int tentativa = 0; tentativa < TENTATIVAS_FOLHA; tentativa++) {
+            try (VersaoFixada versao = fixarVersao(true)) {
+                Path temporario = temporario(saida);
+                try {
+                    Sistema.gravarFolha(versao.calcularFolha(data), data, temporario.toString());
+                    long stamp = lock.writeLock();
+                    try {
+                        if (!versoes.conflita(versao.getNumero(), dia)) {
+                            publicar(temporario, saida);
+                            try {
+                                facade.pagarFolha(data);
+                            } finally {
+                                versoes.registrar(null);
+                            }
+                            return;
+                        }
+                    } finally {
+                        lock.unlockWrite(stamp);
+                    }
+                } finally {
+                    descartar(temporario);
+                    versoes.encerrarFolha(versao.getNumero());
+                }
+            }
+        }
+        escrever(() -> { facade.rodaFolha(data, saida); return null; });
+    }
+
+    /** Arquivo temporário no diretório da saída, para que a publicação seja uma troca de nome. */
+    private static Path temporario(String saida) {
+        Path destino = Path.of(saida);
+        String nome = destino.getFileName() == null ? "folha" : destino.getFileName().toString();
+        return destino.resolveSibling("." + nome + "." + UUID.randomUUID() + ".tmp");
+    }
+
+    private static void publicar(Path temporario, String saida) throws ErroAoEscreverArquivoDeSaidaException {
+        try {
+            Files.move(temporario, Path.of(saida), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ErroAoEscreverArquivoDeSaidaException(e);
+        }
+    }
+
+    private static void descartar(Path temporario) {
+        try {
+            Files.deleteIfExists(temporario);
+        } catch (IOException e) {
+            // o temporário fica para trás; a saída não é afetada
+        }
+    }
+
+    public void criarAgendaDePagamentos(String descricao) throws Exception {
+        escrever(() -> { facade.criarAgendaDePagamentos(descricao); return null; });
+    }
+
+    public void undo() throws Exception {
+        escrever(() -> { facade.undo(); return null; });
+    }
+
+    public void redo() throws Exception {
+        escrever(() -> { facade.redo(); return null; });
+    }
+
+    // --- Consultas (leitura otimista) ---
+
+    public String getAtributoEmpregado(String id, String atributo) throws Exception {
+        return medir(GET_ATRIBUTO_EMPREGADO, () -> ler(() -> facade.getSistema().getAtributoEmpregado(id, atributo)));
+    }
+
+    public String getEmpregadoPorNome(String nome, int indice) throws Exception {
+        return medir(GET_EMPREGADO_POR_NOME,
+                () -> lerComLock(() -> facade.getSistema().getEmpregadoPorNome(nome, indice)));
+    }
+
+    public String getHorasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return medir(GET_HORAS_TRABALHADAS,
+                () -> ler(() -> facade.getSistema().getHorasTrabalhadas(id, dataInicial, dataFinal)));
+    }
+
+    public String getHorasNormaisTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return medir(GET_HORAS_NORMAIS,
+                () -> ler(() -> facade.getSistema().getHorasNormaisTrabalhadas(id, dataInicial, dataFinal)));
+    }
+
+    public String getHorasExtrasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return medir(GET_HORAS_EXTRAS,
+                () -> ler(() -> facade.getSistema().getHorasExtrasTrabalhadas(id, dataInicial, dataFinal)));
+    }
+
+    public String getVendasRealizadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return medir(GET_VENDAS_REALIZADAS,
+                () -> ler(() -> facade.getSistema().getVendasRealizadas(id, dataInicial, dataFinal)));
+    }
+
+    public String getTaxasServico(String emp, String dataInicial, String dataFinal) throws Exception {
+        return medir(GET_TAXAS_SERVICO,
+                () -> ler(() -> facade.getSistema().getTaxasServico(emp, dataInicial, dataFinal)));
+    }
+
+    public String totalFolha(String data) throws Exception {
+        return medir(TOTAL_FOLHA, () -> lerVersao(f -> f.getSistema().totalFolha(data)));
+    }
+
+    public String getNumeroDeEmpregados() throws Exception {
+        return medir(GET_NUMERO_DE_EMPREGADOS,
+                () -> ler(() -> String.valueOf(facade.getSistema().getNumeroDeEmpregados())));
+    }
+}
@@ -0,0 +1,612 @@
+package wepayu.command;
+
+import wepayu.exceptions.ArquivoDeSaidaInvalidoException;
+import wepayu.exceptions.ErroAoEscreverArquivoDeSaidaException;
+import wepayu.exceptions.NaoHaEmpregadoComEsseNomeException;
+import wepayu.exceptions.NaoPodeComandosAposEncerrarSistemaException;
+import wepayu.services.FolhaCalculada;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Facade com os empregados distribuídos entre várias {@link Particao partições}, cada uma com seu
+ * próprio {@code Sistema}, no mesmo processo ({@link ParticaoLocal}) ou em JVMs de trabalho
+ * ({@code wepayu.server.ParticaoRemota}).
+ *
+ * <p>
+ * Oferece os mesmos métodos, retornos e exceções da {@link Facade}, e por isso roda os mesmos scripts
+ * de aceitação. O coordenador atribui os IDs (um contador global, como o do {@code Sistema}) e guarda
+ * cada empregado na partição {@code hash(id) mod N}:
+ * </p>
+ * <ul>
+ *   <li>comandos e consultas de um empregado vão só para a partição dele; IDs que não são números
+ *       (vazios, nulos, inválidos) vão para a partição 0, que responde com o mesmo erro;</li>
+ *   <li>{@code lancaTaxaServico} chega à partição pelo índice global de IDs de membro do sindicato, e
+ *       sindicalizar um empregado com um ID de membro usado em outra partição falha como no sistema
+ *       único. O índice é montado na construção e depois atualizado pelo ID de membro antes e depois
+ *       que a partição devolve a cada remoção ou alteração de tipo ou sindicalização;</li>
+ *   <li>{@code getEmpregadoPorNome} junta os primeiros resultados de cada partição por ordem de ID;</li>
+ *   <li>{@code totalFolha} e {@code rodaFolha} são calculados em todas as partições em paralelo
+ *       (dispersão e coleta): os totais brutos são somados e as seções já ordenadas por nome de cada
+ *       partição são intercaladas ({@link FolhaCalculada#juntar(List)}), gerando o mesmo arquivo do
+ *       sistema único.</li>
+ * </ul>
+ *
+ * <h3>Undo/redo</h3>
+ * <p>
+ * Cada partição guarda no seu histórico os comandos que executou; o coordenador guarda, por comando,
+ * as partições envolvidas, o contador de IDs e os IDs de membro antes e depois, e desfaz/refaz em todas
+ * elas. Um comando de todas as partições ({@code zerarSistema}, o pagamento de {@code rodaFolha}) que
+ * falha em alguma delas é desfeito nas que o executaram, e não entra no histórico. Como na {@link Facade}, o histórico é da
+ * instância: a construção descarta o das partições.
+ * </p>
+ *
+ * <h3>Ciclo de vida</h3>
+ * <p>
+ * O construtor sem argumentos usa partições locais estáticas, mantidas entre instâncias como o
+ * {@code sistemaGlobal} da {@link Facade}, em número dado pela propriedade {@code wepayu.particoes}
+ * (padrão 4). Importação, ingestão e lotes de lançamentos não são oferecidos.
+ * </p>
+ */
+public class FacadeParticionada implements AutoCloseable {
+
+    private static List<Particao> particoesGlobais;
+    private static final ExecutorService DISPERSAO = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Um comando do histórico: as partições que o executaram, o contador de IDs antes e depois e os IDs
+     * de membro do sindicato que ele tirou e pôs no índice global (com a partição de cada um).
+     */
+    private record Entrada(int[] particoes, int idAntes, int idDepois,
+                           Map<String, Integer> membrosAntes, Map<String, Integer> membrosDepois) {
+    }
+
+    @FunctionalInterface
+    private interface Operacao<T> {
+        T executar(Particao particao) throws Exception;
+    }
+
+    private final List<Particao> particoes;
+    private final int[] todas;
+    private final boolean compartilhadas;
+    private final Map<String, Integer> membros = new HashMap<>();
+    private final Deque<Entrada> desfazer = new ArrayDeque<>();
+    private final Deque<Entrada> refazer = new ArrayDeque<>();
+    private int ultimoId;
+    private boolean sistemaEncerrado = false;
+    private Path diretorioSaida;
+
+    /**
+     * Constrói uma fachada sobre as partições locais estáticas, criadas na primeira instância.
+     *
+     * @throws Exception se o estado das partições não puder ser lido
+     */
+    public FacadeParticionada() throws Exception {
+        this(particoesGlobais(), true);
+    }
+
+    /**
+     * Constrói uma fachada sobre as partições informadas, que passam a pertencer a ela
+     * ({@link #close()} as fecha). Partições com empregados são aceitas, desde que cada empregado esteja
+     * na partição {@code hash(id) mod N}.
+     *
+     * @param particoes partições (ao menos uma), na ordem do particionamento
+     * @throws Exception se o estado das partições não puder ser lido
+     */
+    public FacadeParticionada(List<Particao> particoes) throws Exception {
+        this(particoes, false);
+    }
+
+    /**
+     * @param particoes partições (ao menos uma)
+     * @param compartilhadas se as partições são mantidas entre instâncias (e não são fechadas por
+     *                       {@link #close()})
+     * @throws Exception se o estado das partições não puder ser lido
+     */
+    protected FacadeParticionada(List<Particao> particoes, boolean compartilhadas) throws Exception {
+        if (particoes.isEmpty()) throw new IllegalArgumentException("Ao menos uma particao e necessaria.");
+        this.particoes = List.copyOf(particoes);
+        this.compartilhadas = compartilhadas;
+        this.todas = new int[particoes.size()];
+        for (int i = 0; i < todas.length; i++) todas[i] = i;
+        for (int u : dispersar(todas, p -> {
+            p.limparHistorico();
+            return p.getUltimoId();
+        })) {
+            ultimoId = Math.max(ultimoId, u);
+        }
+        indexarMembros();
+    }
+
+    private static synchronized List<Particao> particoesGlobais() {
+        if (particoesGlobais == null) {
+            List<Particao> l = new ArrayList<>();
+            for (int i = Integer.getInteger("wepayu.particoes", 4); i > 0; i--) l.add(new ParticaoLocal());
+            particoesGlobais = List.copyOf(l);
+        }
+        return particoesGlobais;
+    }
+
+    /** @return quantidade de partições */
+    public int getNumeroDeParticoes() {
+        return particoes.size();
+    }
+
+    /**
+     * Define o diretório onde {@link #rodaFolha(String, String)} grava arquivos de saída com
+     * caminho relativo, como {@link Facade#setDiretorioSaida(Path)}.
+     *
+     * @param diretorio diretório base das saídas, ou {@code null} para o diretório de trabalho
+     */
+    public void setDiretorioSaida(Path diretorio) {
+        this.diretorioSaida = diretorio;
+    }
+
+    /**
+     * Define o estado de encerramento do sistema.
+     *
+     * @param estado {@code true} para encerrar, {@code false} para reabrir.
+     */
+    public void setSistemaEncerrado(boolean estado) {
+        this.sistemaEncerrado = estado;
+    }
+
+    /** "Encerra" o sistema, bloqueando a execução de novos comandos de ação. */
+    public void encerrarSistema() {
+        this.sistemaEncerrado = true;
+    }
+
+    private void checkSistemaEncerrado() throws Exception {
+        if (this.sistemaEncerrado) {
+            throw new NaoPodeComandosAposEncerrarSistemaException();
+        }
+    }
+
+    /**
+     * Reseta o estado de todas as partições e o contador de IDs.
+     * @throws Exception se o sistema estiver encerrado.
+     */
+    public void zerarSistema() throws Exception {
+        checkSistemaEncerrado();
+        int idAntes = ultimoId;
+        dispersarComando(todas, p -> p.executar("zerarSistema"));
+        Map<String, Integer> membrosAntes = Map.copyOf(membros);
+        ultimoId = 0;
+        membros.clear();
+        registrar(todas, idAntes, membrosAntes, Map.of());
+    }
+
+    /**
+     * Cria um novo empregado Horista ou Assalariado na partição do próximo ID.
+     *
+     * @return O ID do empregado recém-criado.
+     * @throws Exception se os dados forem inválidos ou o sistema estiver encerrado.
+     * @see Facade#criarEmpregado(String, String, String, String)
+     */
+    public String criarEmpregado(String nome, String endereco, String tipo, String salario) throws Exception {
+        return criar(nome, endereco, tipo, salario);
+    }
+
+    /**
+     * Cria um novo empregado Comissionado na partição do próximo ID.
+     *
+     * @return O ID do empregado recém-criado.
+     * @throws Exception se os dados forem inválidos ou o sistema estiver encerrado.
+     * @see Facade#criarEmpregado(String, String, String, String, String)
+     */
+    public String criarEmpregado(String nome, String endereco, String tipo, String salario, String comissao) throws Exception {
+        return criar(nome, endereco, tipo, salario, comissao);
+    }
+
+    private String criar(String... args) throws Exception {
+        checkSistemaEncerrado();
+        int id = ultimoId + 1;
+        int p = particaoDoId(id);
+        String criado = particoes.get(p).criarEmpregado(id, args);
+        ultimoId = id;
+        registrar(new int[]{p}, id - 1);
+        return criado;
+    }
+
+    /** @see Facade#removerEmpregado(String) */
+    public void removerEmpregado(String id) throws Exception {
+        checkSistemaEncerrado();
+        int p = particaoDoEmpregado(id);
+        trocarMembro(p, particoes.get(p).executarNoMembro("removerEmpregado", new String[]{id}, false));
+    }
+
+    /** @see Facade#lancaCartao(String, String, String) */
+    public void lancaCartao(String id, String data, String horas) throws Exception {
+        executarNoEmpregado("lancaCartao", id, data, horas);
+    }
+
+    /** @see Facade#lancaVenda(String, String, String) */
+    public void lancaVenda(String id, String data, String valor) throws Exception {
+        executarNoEmpregado("lancaVenda", id, data, valor);
+    }
+
+    /**
+     * Lança uma taxa de serviço na partição do membro, pelo índice global de IDs de membro.
+     *
+     * @see Facade#lancaTaxaServico(String, String, String)
+     */
+    public void lancaTaxaServico(String membro, String data, String valor) throws Exception {
+        checkSistemaEncerrado();
+        int p = membros.getOrDefault(membro, 0);
+        particoes.get(p).executar("lancaTaxaServico", membro, data, valor);
+        registrar(new int[]{p}, ultimoId);
+    }
+
+    /** @see Facade#alteraEmpregado(String, String, String) */
+    public void alteraEmpregado(String emp, String atributo, String valor) throws Exception {
+        alterar(emp, atributo, valor);
+    }
+
+    /** @see Facade#alteraEmpregado(String, String, String, String) */
+    public void alteraEmpregado(String emp, String atributo, String valor, String extra) throws Exception {
+        alterar(emp, atributo, valor, extra);
+    }
+
+    /**
+     * Altera um empregado; ao sindicalizá-lo, o ID de membro é conferido em todas as partições.
+     *
+     * @see Facade#alteraEmpregado(String, String, String, String, String)
+     */
+    public void alteraEmpregado(String emp, String atributo, String valor, String idSindicato, String taxaSindical) throws Exception {
+        alterar(emp, atributo, valor, idSindicato, taxaSindical);
+    }
+
+    /** @see Facade#alteraEmpregado(String, String, String, String, String, String) */
+    public void alteraEmpregado(String emp, String atributo, String valor1, String banco, String agencia, String contaCorrente) throws Exception {
+        alterar(emp, atributo, valor1, banco, agencia, contaCorrente);
+    }
+
+    private void alterar(String... args) throws Exception {
+        checkSistemaEncerrado();
+        int p = particaoDoEmpregado(args[0]);
+        boolean sindicato = "sindicalizado".equalsIgnoreCase(args[1]);
+        if (sindicato || "tipo".equalsIgnoreCase(args[1])) {
+            Integer dono = sindicato && args.length == 5 && args[3] != null ? membros.get(args[3]) : null;
+            trocarMembro(p, particoes.get(p).executarNoMembro("alteraEmpregado", args, dono != null && dono != p));
+        } else {
+            particoes.get(p).executar("alteraEmpregado", args);
+            registrar(new int[]{p}, ultimoId);
+        }
+    }
+
+    /**
+     * Desfaz o último comando em todas as partições que o executaram.
+     * @throws Exception se não houver comando para desfazer ou o sistema estiver encerrado.
+     */
+    public void undo() throws Exception {
+        checkSistemaEncerrado();
+        if (desfazer.isEmpty()) {
+            throw new Exception("Nao ha comando a desfazer.");
+        }
+        Entrada e = desfazer.pop();
+        dispersar(e.particoes(), p -> {
+            p.undo();
+            return null;
+        });
+        ultimoId = e.idAntes();
+        trocarMembros(e.membrosDepois(), e.membrosAntes());
+        refazer.push(e);
+    }
+
+    /**
+     * Refaz o último comando desfeito em todas as partições que o executaram.
+     * @throws Exception se não houver comando para refazer ou o sistema estiver encerrado.
+     */
+    public void redo() throws Exception {
+        checkSistemaEncerrado();
+        if (refazer.isEmpty()) {
+            throw new Exception("Nao ha comando a refazer.");
+        }
+        Entrada e = refazer.pop();
+        dispersar(e.particoes(), p -> {
+            p.redo();
+            return null;
+        });
+        ultimoId = e.idDepois();
+        trocarMembros(e.membrosAntes(), e.membrosDepois());
+        desfazer.push(e);
+    }
+
+    /**
+     * Roda a folha de pagamento: calcula a folha de cada partição em paralelo, intercala as seções, grava
+     * o arquivo e registra o pagamento em todas as partições.
+     *
+     * @param data A data para a qual a folha deve ser rodada.
+     * @param saida O caminho do arquivo de saída a ser gerado (relativo ao diretório de saída, se definido).
+     * @throws Exception se os dados forem inválidos ou ocorrer um erro de arquivo.
+     * @see Facade#rodaFolha(String, String)
+     */
+    public void rodaFolha(String data, String saida) throws Exception {
+        checkSistemaEncerrado();
+        if (saida == null || saida.trim().isEmpty()) throw new ArquivoDeSaidaInvalidoException();
+        if (diretorioSaida != null) saida = resolverSaida(saida);
+
+        FolhaCalculada folha = FolhaCalculada.juntar(dispersar(todas, p -> p.calcularFolha(data)));
+        byte[] conteudo = folha.formatar().getBytes(StandardCharsets.UTF_8);
+        try {
+            Files.write(Paths.get(saida), conteudo);
+        } catch (IOException e) {
+            throw new ErroAoEscreverArquivoDeSaidaException(e);
+        }
+        dispersarComando(todas, p -> {
+            p.pagarFolha(data);
+            return null;
+        });
+        registrar(todas, ultimoId);
+    }
+
+    private String resolverSaida(String saida) {
+        try {
+            Path caminho = Path.of(saida);
+            return caminho.isAbsolute() ? saida : diretorioSaida.resolve(caminho).toString();
+        } catch (InvalidPathException e) {
+            return saida;
+        }
+    }
+
+    /**
+     * Cria uma agenda de pagamentos em todas as partições (a partição 0 valida a descrição primeiro).
+     * Como na {@link Facade}, não entra no histórico.
+     *
+     * @see Facade#criarAgendaDePagamentos(String)
+     */
+    public void criarAgendaDePagamentos(String descricao) throws Exception {
+        checkSistemaEncerrado();
+        particoes.get(0).executar("criarAgendaDePagamentos", descricao);
+        int[] demais = new int[todas.length - 1];
+        System.arraycopy(todas, 1, demais, 0, demais.length);
+        dispersar(demais, p -> p.executar("criarAgendaDePagamentos", descricao));
+    }
+
+    // --- Métodos de Consulta (Getters) ---
+
+    /** @see Facade#getAtributoEmpregado(String, String) */
+    public String getAtributoEmpregado(String id, String atributo) throws Exception {
+        return consultar("getAtributoEmpregado", id, atributo);
+    }
+
+    /**
+     * Junta os primeiros {@code indice} resultados de cada partição e devolve o da posição pedida na
+     * ordem de cadastro (ID crescente), a mesma do sistema único.
+     *
+     * @see Facade#getEmpregadoPorNome(String, int)
+     */
+    public String getEmpregadoPorNome(String nome, int indice) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (List<String> l : dispersar(todas, p -> p.getEmpregadosPorNome(nome, indice))) {
+            for (String id : l) ids.add(Integer.parseInt(id));
+        }
+        if (indice < 1 || ids.size() < indice) throw new NaoHaEmpregadoComEsseNomeException();
+        Collections.sort(ids);
+        return String.valueOf(ids.get(indice - 1));
+    }
+
+    /** @see Facade#getHorasTrabalhadas(String, String, String) */
+    public String getHorasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return consultar("getHorasTrabalhadas", id, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#getHorasNormaisTrabalhadas(String, String, String) */
+    public String getHorasNormaisTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return consultar("getHorasNormaisTrabalhadas", id, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#getHorasExtrasTrabalhadas(String, String, String) */
+    public String getHorasExtrasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return consultar("getHorasExtrasTrabalhadas", id, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#getVendasRealizadas(String, String, String) */
+    public String getVendasRealizadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return consultar("getVendasRealizadas", id, dataInicial, dataFinal);
+    }
+
+    /** @see Facade#getTaxasServico(String, String, String) */
+    public String getTaxasServico(String emp, String dataInicial, String dataFinal) throws Exception {
+        return consultar("getTaxasServico", emp, dataInicial, dataFinal);
+    }
+
+    /**
+     * Soma os totais brutos das partições, calculados em paralelo. Como no sistema único, o cálculo é
+     * pelas agendas de cada empregado se algum deles, em qualquer partição, tiver agenda personalizada.
+     *
+     * @see Facade#totalFolha(String)
+     */
+    public String totalFolha(String data) throws Exception {
+        boolean porAgenda = dispersar(todas, Particao::haAgendaCustomizada).contains(true);
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal parte : dispersar(todas, p -> p.calcularTotalFolha(data, porAgenda))) total = total.add(parte);
+        if (porAgenda) {
+            return total.setScale(2, RoundingMode.HALF_UP).toPlainString().replace('.', ',');
+        }
+        return String.format(Locale.FRANCE, "%.2f", total);
+    }
+
+    /**
+     * @return número de empregados de todas as partições, como {@code String}
+     * @throws Exception se o estado de uma partição não puder ser lido
+     */
+    public String getNumeroDeEmpregados() throws Exception {
+        int n = 0;
+        for (int parte : dispersar(todas, Particao::getNumeroDeEmpregados)) n += parte;
+        return String.valueOf(n);
+    }
+
+    /**
+     * Fecha as partições recebidas no construtor; as partições estáticas do construtor sem argumentos
+     * continuam abertas.
+     *
+     * @throws IOException se alguma partição falhar ao fechar
+     */
+    @Override
+    public void close() throws IOException {
+        if (compartilhadas) return;
+        IOException erro = null;
+        for (Particao p : particoes) {
+            try {
+                p.close();
+            } catch (IOException e) {
+                if (erro == null) erro = e; else erro.addSuppressed(e);
+            }
+        }
+        if (erro != null) throw erro;
+    }
+
+    // --- Roteamento ---
+
+    private int particaoDoId(int id) {
+        return Math.floorMod(Integer.hashCode(id), particoes.size());
+    }
+
+    /** Partição de um ID em texto; IDs que não são números vão para a partição 0, que lança o erro. */
+    private int particaoDoEmpregado(String id) {
+        try {
+            return particaoDoId(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void executarNoEmpregado(String comando, String id, String... resto) throws Exception {
+        checkSistemaEncerrado();
+        int p = particaoDoEmpregado(id);
+        String[] args = new String[resto.length + 1];
+        args[0] = id;
+        System.arraycopy(resto, 0, args, 1, resto.length);
+        particoes.get(p).executar(comando, args);
+        registrar(new int[]{p}, ultimoId);
+    }
+
+    private String consultar(String consulta, String id, String... resto) throws Exception {
+        String[] args = new String[resto.length + 1];
+        args[0] = id;
+        System.arraycopy(resto, 0, args, 1, resto.length);
+        return particoes.get(particaoDoEmpregado(id)).executar(consulta, args);
+    }
+
+    private void registrar(int[] envolvidas, int idAntes) {
+        registrar(envolvidas, idAntes, Map.of(), Map.of());
+    }
+
+    private void registrar(int[] envolvidas, int idAntes,
+                           Map<String, Integer> membrosAntes, Map<String, Integer> membrosDepois) {
+        desfazer.push(new Entrada(envolvidas, idAntes, ultimoId, membrosAntes, membrosDepois));
+        refazer.clear();
+    }
+
+    /**
+     * Registra um comando da partição {@code p} que trocou o ID de membro de um empregado e aplica a
+     * troca ao índice global.
+     *
+     * @param troca o ID de membro antes e depois, como em {@link Particao#executarNoMembro}
+     */
+    private void trocarMembro(int p, String[] troca) {
+        Map<String, Integer> antes = troca[0] == null ? Map.of() : Map.of(troca[0], p);
+        Map<String, Integer> depois = troca[1] == null ? Map.of() : Map.of(troca[1], p);
+        trocarMembros(antes, depois);
+        registrar(new int[]{p}, ultimoId, antes, depois);
+    }
+
+    /** Tira do índice global os IDs de membro {@code saem} e põe os {@code entram}. */
+    private void trocarMembros(Map<String, Integer> saem, Map<String, Integer> entram) {
+        membros.keySet().removeAll(saem.keySet());
+        membros.putAll(entram);
+    }
+
+    /** Monta o índice global com os IDs de membro do sindicato de todas as partições. */
+    private void indexarMembros() throws Exception {
+        List<Map<String, String>> atuais = dispersar(todas, Particao::getMembrosSindicato);
+        for (int p : todas) {
+            for (String membro : atuais.get(p).keySet()) membros.put(membro, p);
+        }
+    }
+
+    /**
+     * Executa nas partições informadas um comando que entra no histórico de cada uma. Se falhar em alguma,
+     * desfaz o comando nas que o executaram, para que nenhuma guarde uma entrada que o coordenador não
+     * registrou, e lança a exceção da primeira falha. O comando executado pelas partições descartou o
+     * que elas tinham para refazer, então o coordenador também descarta o seu.
+     */
+    private void dispersarComando(int[] envolvidas, Operacao<?> comando) throws Exception {
+        Set<Particao> executaram = ConcurrentHashMap.newKeySet();
+        try {
+            dispersar(envolvidas, p -> {
+                comando.executar(p);
+                executaram.add(p);
+                return null;
+            });
+        } catch (Exception | Error e) {
+            if (executaram.isEmpty()) throw e;
+            refazer.clear();
+            int[] desfazerEm = Arrays.stream(envolvidas)
+                    .filter(i -> executaram.contains(particoes.get(i))).toArray();
+            try {
+                dispersar(desfazerEm, p -> {
+                    p.undo();
+                    return null;
+                });
+            } catch (Exception | Error falha) {
+                e.addSuppressed(falha);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Executa a operação nas partições informadas, em paralelo quando há mais de uma, e devolve os
+     * resultados na mesma ordem. Se alguma falhar, lança a exceção da primeira (na ordem das partições)
+     * depois de todas terminarem.
+     */
+    private <T> List<T> dispersar(int[] envolvidas, Operacao<T> operacao) throws Exception {
+        List<T> resultados = new ArrayList<>(envolvidas.length);
+        if (envolvidas.length == 1) {
+            resultados.add(operacao.executar(particoes.get(envolvidas[0])));
+            return resultados;
+        }
+        List<Future<T>> futuros = new ArrayList<>(envolvidas.length);
+        for (int p : envolvidas) {
+            Particao particao = particoes.get(p);
+            futuros.add(DISPERSAO.submit(() -> operacao.executar(particao)));
+        }
+        Exception erro = null;
+        for (Future<T> f : futuros) {
+            try {
+                resultados.add(f.get());
+            } catch (ExecutionException e) {
+                if (erro != null) continue;
+                Throwable causa = e.getCause();
+                if (causa instanceof Error err) throw err;
+                erro = (Exception) causa;
+            }
+        }
+        if (erro != null) throw erro;
+        return resultados;
+    }
+}
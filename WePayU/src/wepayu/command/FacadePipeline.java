@@ -0,0 +1,422 @@
+package wepayu.command;
+
+import wepayu.services.Lancamento;
+import wepayu.services.RelatorioImportacao;
+import wepayu.services.RelatorioIngestao;
+import wepayu.services.RelatorioLote;
+import wepayu.services.Sistema;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo de execução da {@link Facade} com um único escritor e leituras sem bloqueio.
+ *
+ * <p>
+ * Toda operação que altera estado é enfileirada em um buffer circular limitado
+ * ({@link ArrayBlockingQueue}) e aplicada, em ordem de chegada, por uma única thread escritora
+ * que é a dona exclusiva da {@link Facade}, do {@link Invoker} e do {@link Sistema}. O escritor
+ * publica uma cópia imutável do estado ({@link Sistema#copia()}) em um campo {@code volatile} no seu
+ * próprio ritmo: no máximo uma cópia a cada {@code wepayu.pipeline.publicacao} milissegundos (padrão
+ * 10), e nunca mais que uma a cada quatro vezes a duração da última cópia, de modo que copiar o estado
+ * ocupe no máximo um quinto do tempo do escritor, seja qual for o tamanho do estado. Sem mutações,
+ * nenhuma cópia é feita.
+ * </p>
+ *
+ * <p>
+ * As consultas ({@code getAtributoEmpregado}, {@code getHoras*}, {@code getVendasRealizadas},
+ * {@code totalFolha} etc.) são executadas na thread de quem chama, sobre o último estado publicado,
+ * sem locks e sem esperar pelo escritor; {@link #getDefasagemMs()} informa há quanto tempo há
+ * mutações aplicadas que esse estado ainda não contém.
+ * </p>
+ *
+ * <h3>Semântica</h3>
+ * <ul>
+ *   <li>Cada mutação retorna um {@link CompletableFuture} que é completado <b>depois</b> que um estado
+ *       contendo aquela mutação foi publicado; portanto, ao aguardar o futuro, as consultas seguintes
+ *       já enxergam a alteração;</li>
+ *   <li>Erros de validação completam o futuro excepcionalmente com a mesma exceção da {@link Facade},
+ *       sem esperar pela publicação; um {@link Error} também, e o escritor continua atendendo a fila;</li>
+ *   <li>Quando a fila está cheia, {@link #enviar(Mutacao)} bloqueia o produtor (contrapressão);</li>
+ *   <li>Mutações aplicadas entre duas publicações são publicadas em um único snapshot, o que amortiza
+ *       o custo da cópia sob carga de escrita.</li>
+ * </ul>
+ *
+ * @see Facade
+ * @see Sistema#copia()
+ */
+public class FacadePipeline implements AutoCloseable {
+
+    /**
+     * Mutação a ser aplicada pelo escritor sobre a {@link Facade} exclusiva do pipeline.
+     *
+     * @param <T> tipo do resultado
+     */
+    @FunctionalInterface
+    public interface Mutacao<T> {
+        T aplicar(Facade facade) throws Exception;
+    }
+
+    private static final class Operacao<T> {
+        final Mutacao<T> mutacao;
+        final CompletableFuture<T> futuro = new CompletableFuture<>();
+        T resultado;
+        Throwable erro;
+
+        Operacao(Mutacao<T> mutacao) {
+            this.mutacao = mutacao;
+        }
+
+        void aplicar(Facade facade) {
+            try {
+                resultado = mutacao.aplicar(facade);
+            } catch (Throwable e) {
+                erro = e;
+            }
+        }
+
+        void completar() {
+            if (erro != null) {
+                futuro.completeExceptionally(erro);
+            } else {
+                futuro.complete(resultado);
+            }
+        }
+    }
+
+    private static final long INTERVALO_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("wepayu.pipeline.publicacao", 10L));
+    /** Razão mínima entre o intervalo de publicação e a duração da última cópia. */
+    private static final int FATOR_COPIA = 4;
+    /** Valor de {@link #pendenteDesde} sem mutações por publicar. */
+    private static final long NADA_PENDENTE = Long.MIN_VALUE;
+
+    private static final Operacao<Void> FIM = new Operacao<>(f -> null);
+
+    private final Facade facade;
+    private final Sistema sistema;
+    private final BlockingQueue<Operacao<?>> fila;
+    private final int capacidade;
+    private final Thread escritor;
+    private volatile Sistema publicado;
+    private volatile long versao;
+    private volatile long pendenteDesde = NADA_PENDENTE;
+    private volatile boolean aberto = true;
+    private long publicadoEm;
+    private long duracaoCopia;
+
+    /**
+     * Cria um pipeline sobre um sistema vazio, com fila de 1024 posições.
+     */
+    public FacadePipeline() {
+        this(new Sistema(), 1024);
+    }
+
+    /**
+     * Cria um pipeline sobre o sistema informado e inicia a thread escritora.
+     * <p>
+     * Após esta chamada, o {@code sistema} pertence ao escritor e não deve ser acessado diretamente.
+     *
+     * @param sistema estado inicial (não {@code null})
+     * @param capacidade número máximo de mutações pendentes na fila
+     */
+    public FacadePipeline(Sistema sistema, int capacidade) {
+        this.sistema = sistema;
+        this.facade = new Facade(sistema);
+        this.capacidade = capacidade;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.publicado = sistema.copia();
+        this.publicadoEm = System.nanoTime();
+        this.escritor = new Thread(this::executarEscritor, "wepayu-escritor");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Laço da thread escritora: drena a fila e aplica as mutações em ordem; quando o intervalo de
+     * publicação vence, publica o estado e completa os futuros das mutações que ele contém. Com a fila
+     * vazia e mutações por publicar, espera no máximo até o vencimento do intervalo.
+     */
+    private void executarEscritor() {
+        List<Operacao<?>> lote = new ArrayList<>(capacidade);
+        List<Operacao<?>> aguardando = new ArrayList<>();
+        boolean parar = false;
+        while (!parar) {
+            try {
+                Operacao<?> op = aguardando.isEmpty()
+                        ? fila.take()
+                        : fila.poll(esperaPublicacao(), TimeUnit.NANOSECONDS);
+                if (op != null) lote.add(op);
+            } catch (InterruptedException e) {
+                break;
+            }
+            fila.drainTo(lote, capacidade);
+
+            for (Operacao<?> op : lote) {
+                if (op == FIM) {
+                    parar = true;
+                    continue;
+                }
+                op.aplicar(facade);
+                if (op.erro != null) {
+                    op.completar();
+                } else {
+                    if (aguardando.isEmpty()) pendenteDesde = System.nanoTime();
+                    aguardando.add(op);
+                }
+            }
+            lote.clear();
+            if (!aguardando.isEmpty() && esperaPublicacao() <= 0) publicar(aguardando);
+        }
+        aberto = false;
+        publicar(aguardando);
+        fila.drainTo(lote);
+        for (Operacao<?> op : lote) {
+            op.futuro.completeExceptionally(new IllegalStateException("Pipeline encerrado."));
+        }
+    }
+
+    /** @return nanossegundos até o vencimento do intervalo de publicação (zero ou negativo se venceu) */
+    private long esperaPublicacao() {
+        long intervalo = Math.max(INTERVALO_NANOS, FATOR_COPIA * duracaoCopia);
+        return publicadoEm + intervalo - System.nanoTime();
+    }
+
+    /**
+     * Publica uma cópia do estado e completa os futuros das mutações aplicadas desde a última
+     * publicação. Só o escritor chama.
+     */
+    private void publicar(List<Operacao<?>> aguardando) {
+        if (aguardando.isEmpty()) return;
+        long inicio = System.nanoTime();
+        try {
+            publicado = sistema.copia();
+            versao++;
+            pendenteDesde = NADA_PENDENTE;
+        } catch (Throwable e) {
+            // as mutações já foram aplicadas; as consultas seguem com o último estado publicado
+        }
+        publicadoEm = System.nanoTime();
+        duracaoCopia = publicadoEm - inicio;
+        for (Operacao<?> op : aguardando) {
+            op.completar();
+        }
+        aguardando.clear();
+    }
+
+    /** @return o último estado publicado, sem esperar pelo escritor */
+    private Sistema estado() {
+        return publicado;
+    }
+
+    /**
+     * Enfileira uma mutação arbitrária para o escritor.
+     *
+     * @param mutacao operação a aplicar sobre a {@link Facade} do pipeline
+     * @param <T> tipo do resultado
+     * @return futuro completado após a publicação do estado com a mutação aplicada
+     * @throws IllegalStateException se o pipeline já foi fechado
+     * @throws InterruptedException se a thread for interrompida aguardando espaço na fila
+     */
+    public <T> CompletableFuture<T> enviar(Mutacao<T> mutacao) throws InterruptedException {
+        if (!aberto) {
+            throw new IllegalStateException("Pipeline encerrado.");
+        }
+        Operacao<T> op = new Operacao<>(mutacao);
+        fila.put(op);
+        return op.futuro;
+    }
+
+    /**
+     * Retorna o número de snapshots publicados desde a criação do pipeline (sem contar o inicial).
+     *
+     * @return versão do estado visível para as consultas
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Retorna o último estado publicado. O objeto retornado não deve ser alterado.
+     *
+     * @return snapshot imutável do sistema
+     */
+    public Sistema getSnapshot() {
+        return estado();
+    }
+
+    /**
+     * Retorna há quanto tempo o estado publicado está atrás do escritor: o tempo desde a primeira
+     * mutação aplicada que ele ainda não contém.
+     *
+     * @return a defasagem em milissegundos, ou zero se o estado publicado estiver em dia
+     */
+    public long getDefasagemMs() {
+        long desde = pendenteDesde;
+        return desde == NADA_PENDENTE ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - desde);
+    }
+
+    /**
+     * Encerra o pipeline: aplica as mutações já enfileiradas, publica o estado final
+     * e aguarda a thread escritora terminar. Se a thread for interrompida, a interrupção é mantida e
+     * o método retorna sem esperar; o escritor termina sozinho depois de aplicar a fila.
+     */
+    @Override
+    public void close() {
+        if (!aberto) return;
+        aberto = false;
+        boolean interrompida = false;
+        while (true) {
+            try {
+                fila.put(FIM);
+                break;
+            } catch (InterruptedException e) {
+                // o escritor continua drenando a fila: a espera por espaço é curta
+                interrompida = true;
+            }
+        }
+        try {
+            if (!interrompida) escritor.join();
+        } catch (InterruptedException e) {
+            interrompida = true;
+        }
+        if (interrompida) Thread.currentThread().interrupt();
+    }
+
+    // --- Mutações (aplicadas pelo escritor) ---
+
+    public CompletableFuture<Void> zerarSistema() throws InterruptedException {
+        return enviar(f -> { f.zerarSistema(); return null; });
+    }
+
+    public CompletableFuture<String> criarEmpregado(String nome, String endereco, String tipo, String salario)
+            throws InterruptedException {
+        return enviar(f -> f.criarEmpregado(nome, endereco, tipo, salario));
+    }
+
+    public CompletableFuture<String> criarEmpregado(String nome, String endereco, String tipo, String salario,
+                                                    String comissao) throws InterruptedException {
+        return enviar(f -> f.criarEmpregado(nome, endereco, tipo, salario, comissao));
+    }
+
+    public CompletableFuture<Void> removerEmpregado(String id) throws InterruptedException {
+        return enviar(f -> { f.removerEmpregado(id); return null; });
+    }
+
+    public CompletableFuture<Void> lancaCartao(String id, String data, String horas) throws InterruptedException {
+        return enviar(f -> { f.lancaCartao(id, data, horas); return null; });
+    }
+
+    public CompletableFuture<Void> lancaVenda(String id, String data, String valor) throws InterruptedException {
+        return enviar(f -> { f.lancaVenda(id, data, valor); return null; });
+    }
+
+    public CompletableFuture<Void> lancaTaxaServico(String membro, String data, String valor)
+            throws InterruptedException {
+        return enviar(f -> { f.lancaTaxaServico(membro, data, valor); return null; });
+    }
+
+    public CompletableFuture<Void> lancaLote(Collection<Lancamento> lancamentos) throws InterruptedException {
+        return enviar(f -> { f.lancaLote(lancamentos); return null; });
+    }
+
+    public CompletableFuture<RelatorioLote> lancaLoteParcial(Collection<Lancamento> lancamentos)
+            throws InterruptedException {
+        return enviar(f -> f.lancaLoteParcial(lancamentos));
+    }
+
+    public CompletableFuture<RelatorioImportacao> importaEmpregados(String arquivo) throws InterruptedException {
+        return enviar(f -> f.importaEmpregados(arquivo));
+    }
+
+    public CompletableFuture<RelatorioImportacao> importaEmpregadosParcial(String arquivo)
+            throws InterruptedException {
+        return enviar(f -> f.importaEmpregadosParcial(arquivo));
+    }
+
+    public CompletableFuture<RelatorioIngestao> ingereLancamentos(Path arquivo, Lancamento.Tipo tipo, boolean parcial,
+                                                                  RelatorioIngestao.Progresso progresso)
+            throws InterruptedException {
+        return enviar(f -> f.ingereLancamentos(arquivo, tipo, parcial, progresso));
+    }
+
+    public CompletableFuture<Void> alteraEmpregado(String emp, String atributo, String valor)
+            throws InterruptedException {
+        return enviar(f -> { f.alteraEmpregado(emp, atributo, valor); return null; });
+    }
+
+    public CompletableFuture<Void> alteraEmpregado(String emp, String atributo, String valor, String extra)
+            throws InterruptedException {
+        return enviar(f -> { f.alteraEmpregado(emp, atributo, valor, extra); return null; });
+    }
+
+    public CompletableFuture<Void> alteraEmpregado(String emp, String atributo, String valor, String idSindicato,
+                                                   String taxaSindical) throws InterruptedException {
+        return enviar(f -> { f.alteraEmpregado(emp, atributo, valor, idSindicato, taxaSindical); return null; });
+    }
+
+    public CompletableFuture<Void> alteraEmpregado(String emp, String atributo, String valor1, String banco,
+                                                   String agencia, String contaCorrente) throws InterruptedException {
+        return enviar(f -> { f.alteraEmpregado(emp, atributo, valor1, banco, agencia, contaCorrente); return null; });
+    }
+
+    public CompletableFuture<Void> rodaFolha(String data, String saida) throws InterruptedException {
+        return enviar(f -> { f.rodaFolha(data, saida); return null; });
+    }
+
+    public CompletableFuture<Void> criarAgendaDePagamentos(String descricao) throws InterruptedException {
+        return enviar(f -> { f.criarAgendaDePagamentos(descricao); return null; });
+    }
+
+    public CompletableFuture<Void> undo() throws InterruptedException {
+        return enviar(f -> { f.undo(); return null; });
+    }
+
+    public CompletableFuture<Void> redo() throws InterruptedException {
+        return enviar(f -> { f.redo(); return null; });
+    }
+
+    // --- Consultas (snapshot publicado) ---
+
+    public String getAtributoEmpregado(String id, String atributo) throws Exception {
+        return estado().getAtributoEmpregado(id, atributo);
+    }
+
+    public String getEmpregadoPorNome(String nome, int indice) throws Exception {
+        return estado().getEmpregadoPorNome(nome, indice);
+    }
+
+    public String getHorasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return estado().getHorasTrabalhadas(id, dataInicial, dataFinal);
+    }
+
+    public String getHorasNormaisTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return estado().getHorasNormaisTrabalhadas(id, dataInicial, dataFinal);
+    }
+
+    public String getHorasExtrasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return estado().getHorasExtrasTrabalhadas(id, dataInicial, dataFinal);
+    }
+
+    public String getVendasRealizadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return estado().getVendasRealizadas(id, dataInicial, dataFinal);
+    }
+
+    public String getTaxasServico(String emp, String dataInicial, String dataFinal) throws Exception {
+        return estado().getTaxasServico(emp, dataInicial, dataFinal);
+    }
+
+    public String totalFolha(String data) throws Exception {
+        return estado().totalFolha(data);
+    }
+
+    public String getNumeroDeEmpregados() {
+        return String.valueOf(estado().getNumeroDeEmpregados());
+    }
+}
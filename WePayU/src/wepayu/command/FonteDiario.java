@@ -0,0 +1,45 @@
+package wepayu.command;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * De onde uma {@link ReplicaLeitura} lê as entradas do diário do primário: o próprio arquivo,
+ * compartilhado ({@link FonteDiarioArquivo}), ou um socket ({@code wepayu.server.FonteDiarioSocket}).
+ */
+public interface FonteDiario extends AutoCloseable {
+
+    /**
+     * Resultado de uma leitura.
+     *
+     * @param entradas entradas lidas, em ordem (pode conter entradas já aplicadas, que a réplica ignora)
+     * @param emDia {@code true} se, no {@code instante}, não havia no primário entradas além destas
+     * @param instante {@link System#nanoTime()} em que o fim do diário foi observado
+     */
+    record Leitura(List<DiarioDeComandos.Entrada> entradas, boolean emDia, long instante) {
+    }
+
+    /** Abre uma fonte que entrega as entradas posteriores a {@code desde}. */
+    @FunctionalInterface
+    interface Conexao {
+        FonteDiario abrir(long desde) throws IOException;
+    }
+
+    /**
+     * Lê as próximas entradas. Se não houver nenhuma, espera até {@code esperaMs} por novas.
+     *
+     * @param esperaMs espera máxima quando não há entradas novas
+     * @param maximo máximo de entradas a devolver
+     * @return as entradas lidas
+     * @throws IOException se a fonte falhar ou a conexão com o primário cair
+     */
+    Leitura ler(long esperaMs, int maximo) throws IOException;
+
+    /**
+     * @return {@code true} se o primário parece estar ativo (dono do diário ou conectado)
+     */
+    boolean isPrimarioAtivo();
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,86 @@
+package wepayu.command;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link FonteDiario} que acompanha o arquivo do diário diretamente (disco compartilhado), relendo-o a
+ * partir da última linha completa. Enquanto o arquivo não existir, não há entradas e a fonte não está
+ * em dia.
+ */
+public final class FonteDiarioArquivo implements FonteDiario {
+
+    private final Path arquivo;
+    private FileChannel canal;
+    private LeitorDiario leitor;
+
+    /**
+     * @param arquivo caminho do diário do primário
+     */
+    public FonteDiarioArquivo(Path arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    @Override
+    public Leitura ler(long esperaMs, int maximo) throws IOException {
+        Leitura leitura = lerDisponiveis(maximo);
+        if (!leitura.entradas().isEmpty() || esperaMs <= 0) return leitura;
+        try {
+            Thread.sleep(esperaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return leitura;
+        }
+        return lerDisponiveis(maximo);
+    }
+
+    private Leitura lerDisponiveis(int maximo) throws IOException {
+        long instante = System.nanoTime();
+        if (canal == null) {
+            try {
+                canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                return new Leitura(List.of(), false, instante);
+            }
+            leitor = new LeitorDiario(canal, 0);
+        }
+        List<DiarioDeComandos.Entrada> entradas = new ArrayList<>();
+        while (entradas.size() < maximo) {
+            String linha = leitor.proximaLinha();
+            if (linha == null) return new Leitura(entradas, true, instante);
+            DiarioDeComandos.Entrada e = DiarioDeComandos.Entrada.ler(linha);
+            if (e == null) throw new IOException("Entrada invalida no diario " + arquivo + " antes da posicao " + leitor.getPosicao() + ".");
+            entradas.add(e);
+        }
+        return new Leitura(entradas, false, instante);
+    }
+
+    /**
+     * Testa o lock do diário: o primário o mantém enquanto o diário estiver aberto para escrita.
+     */
+    @Override
+    public boolean isPrimarioAtivo() {
+        try (FileChannel c = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            FileLock lock = c.tryLock(0, Long.MAX_VALUE, true);
+            if (lock == null) return true;
+            lock.release();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (canal != null) canal.close();
+    }
+}
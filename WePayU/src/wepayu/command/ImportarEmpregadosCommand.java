@@ -0,0 +1,59 @@
+package wepayu.command;
+
+import wepayu.services.RelatorioImportacao;
+import wepayu.services.Sistema;
+
+import java.nio.file.Path;
+
+/**
+ * Comando para importar empregados de um arquivo CSV.
+ *
+ * <p>A importação inteira ocupa uma única entrada no histórico: {@link SnapshotCommand} captura o
+ * estado antes e depois, e o {@link Sistema} cria um único checkpoint, em vez de um por empregado.
+ * A leitura, a validação e a atribuição de IDs são delegadas a
+ * {@link Sistema#importarEmpregados(Path, boolean)}.</p>
+ *
+ * @see SnapshotCommand
+ * @see Sistema#importarEmpregados(Path, boolean)
+ */
+public class ImportarEmpregadosCommand extends SnapshotCommand {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String arquivo;
+    private final boolean parcial;
+    private RelatorioImportacao relatorio;
+
+    /**
+     * Cria o comando de importação.
+     *
+     * @param sistema instância do sistema (não {@code null})
+     * @param arquivo caminho do CSV
+     * @param parcial se {@code true}, importa as linhas válidas e reporta as inválidas;
+     *                se {@code false}, a importação é atômica
+     */
+    public ImportarEmpregadosCommand(Sistema sistema, Path arquivo, boolean parcial) {
+        super(sistema);
+        this.arquivo = arquivo.toString();
+        this.parcial = parcial;
+    }
+
+    /**
+     * Executa a importação.
+     *
+     * @throws Exception se o arquivo não puder ser lido ou, no modo atômico, se alguma linha for inválida
+     */
+    @Override
+    protected void doExecute() throws Exception {
+        relatorio = sistema.importarEmpregados(Path.of(arquivo), parcial);
+    }
+
+    /**
+     * Retorna o relatório da última execução.
+     *
+     * @return o relatório, ou {@code null} se o comando ainda não foi executado
+     */
+    public RelatorioImportacao getRelatorio() {
+        return relatorio;
+    }
+}
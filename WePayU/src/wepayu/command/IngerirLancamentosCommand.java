@@ -0,0 +1,65 @@
+package wepayu.command;
+
+import wepayu.services.Lancamento;
+import wepayu.services.RelatorioIngestao;
+import wepayu.services.Sistema;
+
+import java.nio.file.Path;
+
+/**
+ * Comando para ingerir um arquivo de cartões de ponto ou de vendas.
+ *
+ * <p>A ingestão inteira ocupa uma única entrada no histórico: {@link SnapshotCommand} captura o estado
+ * antes e depois, e o {@link Sistema} cria um único checkpoint. A leitura, a validação e a aplicação são
+ * delegadas a {@link Sistema#ingerirLancamentos(Path, Lancamento.Tipo, boolean, RelatorioIngestao.Progresso)}.</p>
+ *
+ * @see SnapshotCommand
+ */
+public class IngerirLancamentosCommand extends SnapshotCommand {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String arquivo;
+    private final Lancamento.Tipo tipo;
+    private final boolean parcial;
+    private final transient RelatorioIngestao.Progresso progresso;
+    private RelatorioIngestao relatorio;
+
+    /**
+     * Cria o comando de ingestão.
+     *
+     * @param sistema instância do sistema (não {@code null})
+     * @param arquivo caminho do arquivo
+     * @param tipo {@link Lancamento.Tipo#CARTAO} ou {@link Lancamento.Tipo#VENDA}
+     * @param parcial se {@code true}, aplica as linhas válidas e reporta as inválidas;
+     *                se {@code false}, a ingestão é atômica
+     * @param progresso notificado após cada bloco aplicado (pode ser {@code null})
+     */
+    public IngerirLancamentosCommand(Sistema sistema, Path arquivo, Lancamento.Tipo tipo, boolean parcial,
+                                     RelatorioIngestao.Progresso progresso) {
+        super(sistema);
+        this.arquivo = arquivo.toString();
+        this.tipo = tipo;
+        this.parcial = parcial;
+        this.progresso = progresso;
+    }
+
+    /**
+     * Executa a ingestão.
+     *
+     * @throws Exception se o arquivo não puder ser lido ou, no modo atômico, se alguma linha for inválida
+     */
+    @Override
+    protected void doExecute() throws Exception {
+        relatorio = sistema.ingerirLancamentos(Path.of(arquivo), tipo, parcial, progresso);
+    }
+
+    /**
+     * Retorna o relatório da última execução.
+     *
+     * @return o relatório, ou {@code null} se o comando ainda não foi executado
+     */
+    public RelatorioIngestao getRelatorio() {
+        return relatorio;
+    }
+}
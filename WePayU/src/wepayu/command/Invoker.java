@@ -1,14 +1,30 @@
 package wepayu.command;
 
+import wepayu.metricas.Metricas;
+import wepayu.metricas.MetricasOperacao;
+
 import java.util.Stack;
 
 /**
  * Implementa o "Invocador" (Invoker) do padrão de projeto Command.
  * Gerencia o histórico de ações para a funcionalidade de undo/redo.
+ * <p>
+ * A latência de cada comando, de {@code undo} e de {@code redo} e o tamanho do histórico são
+ * registrados em {@link Metricas}; o tamanho do histórico de cada Invoker entra no total enquanto
+ * ele estiver vivo.
+ * <p>
+ * Por padrão o histórico não tem limite; com {@link #setLimiteHistorico(int)}, os comandos mais antigos
+ * são descartados (e deixam de poder ser desfeitos) quando o limite é ultrapassado.
  */
-public class Invoker {
+public class Invoker implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
     private Stack<Command> undoStack = new Stack<>();
     private Stack<Command> redoStack = new Stack<>();
+    private int limiteHistorico;
+    private transient Metricas.Historico historico;
+
+    private static final MetricasOperacao UNDO = Metricas.operacao("undo");
+    private static final MetricasOperacao REDO = Metricas.operacao("redo");
 
     /**
      * Executa um comando e gerencia o histórico.
@@ -16,9 +32,42 @@ public class Invoker {
      * @throws Exception se ocorrer um erro na execução.
      */
     public void executeCommand(Command command) throws Exception {
-        command.execute();
+        MetricasOperacao metricas = Metricas.comando(command.getClass());
+        long inicio = System.nanoTime();
+        try {
+            command.execute();
+        } catch (Exception | Error e) {
+            metricas.registrarErro(System.nanoTime() - inicio, e);
+            throw e;
+        }
+        metricas.registrar(System.nanoTime() - inicio);
         undoStack.push(command);
         redoStack.clear();
+        descartarExcedente();
+        informarHistorico();
+    }
+
+    /**
+     * Limita quantos comandos podem ser desfeitos.
+     *
+     * @param limite número máximo de comandos no histórico de undo, ou 0 para não limitar
+     */
+    public void setLimiteHistorico(int limite) {
+        if (limite < 0) throw new IllegalArgumentException("Limite de historico negativo: " + limite);
+        this.limiteHistorico = limite;
+        descartarExcedente();
+        informarHistorico();
+    }
+
+    private void descartarExcedente() {
+        if (limiteHistorico == 0) return;
+        int excedente = undoStack.size() - limiteHistorico;
+        if (excedente > 0) undoStack.subList(0, excedente).clear();
+    }
+
+    private void informarHistorico() {
+        if (historico == null) historico = Metricas.historico(this);
+        historico.informar(undoStack.size());
     }
 
     /**
@@ -30,8 +79,16 @@ public class Invoker {
             throw new Exception("Nao ha comando a desfazer.");
         }
         Command command = undoStack.pop();
-        command.undo();
+        long inicio = System.nanoTime();
+        try {
+            command.undo();
+        } catch (Exception | Error e) {
+            UNDO.registrarErro(System.nanoTime() - inicio, e);
+            throw e;
+        }
+        UNDO.registrar(System.nanoTime() - inicio);
         redoStack.push(command);
+        informarHistorico();
     }
 
     /**
@@ -43,8 +100,16 @@ public class Invoker {
             throw new Exception("Nao ha comando a refazer.");
         }
         Command command = redoStack.pop();
-        command.redo();
+        long inicio = System.nanoTime();
+        try {
+            command.redo();
+        } catch (Exception | Error e) {
+            REDO.registrarErro(System.nanoTime() - inicio, e);
+            throw e;
+        }
+        REDO.registrar(System.nanoTime() - inicio);
         undoStack.push(command);
+        informarHistorico();
     }
 
     /**
@@ -53,6 +118,22 @@ public class Invoker {
     public void clearHistory() {
         undoStack.clear();
         redoStack.clear();
+        informarHistorico();
+    }
+
+    /**
+     * Estima a memória retida pelos comandos das pilhas de undo e redo.
+     * <p>
+     * Soma {@link Command#getBytesEstimados()} de cada comando, que é O(1); os snapshots não são
+     * percorridos.
+     * </p>
+     * @return bytes estimados
+     */
+    public long getBytesEstimados() {
+        long total = 0;
+        for (Command c : undoStack) total += c.getBytesEstimados();
+        for (Command c : redoStack) total += c.getBytesEstimados();
+        return total;
     }
 
     /**
@@ -70,5 +151,6 @@ public class Invoker {
     public void restore(InvokerMemento memento) {
         this.undoStack = memento.getUndoState();
         this.redoStack = memento.getRedoState();
+        informarHistorico();
     }
 }
\ No newline at end of file
@@ -15,6 +15,8 @@ import wepayu.services.Sistema;
  */
 public class LancarCartaoCommand extends SnapshotCommand {
 
+    private static final long serialVersionUID = 1L;
+
     private final String id;
     private final String data;
     private final String horas;
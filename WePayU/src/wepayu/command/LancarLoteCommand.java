@@ -0,0 +1,60 @@
+package wepayu.command;
+
+import wepayu.services.Lancamento;
+import wepayu.services.RelatorioLote;
+import wepayu.services.Sistema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Comando para lançar um lote de cartões de ponto, vendas e taxas de serviço.
+ *
+ * <p>O lote inteiro ocupa uma única entrada no histórico: {@link SnapshotCommand} captura o estado
+ * antes e depois do lote, e o {@link Sistema} cria um único checkpoint, em vez de um por lançamento.
+ * A validação e a aplicação são delegadas a {@link Sistema#lancaLote(Collection, boolean)}.</p>
+ *
+ * @see SnapshotCommand
+ * @see Sistema#lancaLote(Collection, boolean)
+ */
+public class LancarLoteCommand extends SnapshotCommand {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<Lancamento> lancamentos;
+    private final boolean parcial;
+    private RelatorioLote relatorio;
+
+    /**
+     * Cria o comando de lançamento em lote.
+     *
+     * @param sistema instância do sistema (não {@code null})
+     * @param lancamentos lançamentos do lote, na ordem de aplicação
+     * @param parcial se {@code true}, aplica as linhas válidas e reporta as inválidas;
+     *                se {@code false}, o lote é atômico
+     */
+    public LancarLoteCommand(Sistema sistema, Collection<Lancamento> lancamentos, boolean parcial) {
+        super(sistema);
+        this.lancamentos = new ArrayList<>(lancamentos);
+        this.parcial = parcial;
+    }
+
+    /**
+     * Executa o lote.
+     *
+     * @throws Exception no modo atômico, se alguma linha for inválida
+     */
+    @Override
+    protected void doExecute() throws Exception {
+        relatorio = sistema.lancaLote(lancamentos, parcial);
+    }
+
+    /**
+     * Retorna o relatório da última execução.
+     *
+     * @return o relatório, ou {@code null} se o comando ainda não foi executado
+     */
+    public RelatorioLote getRelatorio() {
+        return relatorio;
+    }
+}
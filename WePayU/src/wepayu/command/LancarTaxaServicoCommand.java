@@ -7,6 +7,7 @@ import wepayu.services.Sistema;
  * Undo/redo são tratados por SnapshotCommand via mementos do Sistema.
  */
 public class LancarTaxaServicoCommand extends SnapshotCommand {
+    private static final long serialVersionUID = 1L;
     private final String membroId;
     private final String data;
     private final String valor;
@@ -0,0 +1,64 @@
+package wepayu.command;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lê as linhas completas de um {@link DiarioDeComandos} a partir de uma posição, sem mover a posição
+ * do canal. Uma linha sem {@code '\n'} no fim do arquivo fica guardada até ser completada; por isso o
+ * mesmo leitor serve para acompanhar um diário que ainda está sendo escrito.
+ */
+final class LeitorDiario {
+
+    private final FileChannel canal;
+    private byte[] dados = new byte[64 * 1024];
+    private int inicio;
+    private int fim;
+    private int varrido;
+    private long posicao;
+
+    /**
+     * @param canal canal aberto para leitura
+     * @param posicao posição do início de uma linha
+     */
+    LeitorDiario(FileChannel canal, long posicao) {
+        this.canal = canal;
+        this.posicao = posicao;
+    }
+
+    /**
+     * @return a próxima linha completa, sem o {@code '\n'}, ou {@code null} se o arquivo ainda não
+     *         tiver outra linha completa
+     * @throws IOException se a leitura falhar
+     */
+    String proximaLinha() throws IOException {
+        while (true) {
+            for (; varrido < fim; varrido++) {
+                if (dados[varrido] == '\n') {
+                    String linha = new String(dados, inicio, varrido - inicio, StandardCharsets.UTF_8);
+                    posicao += varrido - inicio + 1;
+                    inicio = ++varrido;
+                    return linha;
+                }
+            }
+            if (inicio > 0) {
+                System.arraycopy(dados, inicio, dados, 0, fim - inicio);
+                fim -= inicio;
+                varrido -= inicio;
+                inicio = 0;
+            }
+            if (fim == dados.length) dados = Arrays.copyOf(dados, dados.length * 2);
+            int lidos = canal.read(ByteBuffer.wrap(dados, fim, dados.length - fim), posicao + fim);
+            if (lidos <= 0) return null;
+            fim += lidos;
+        }
+    }
+
+    /** @return posição logo depois da última linha devolvida */
+    long getPosicao() {
+        return posicao;
+    }
+}
@@ -0,0 +1,37 @@
+package wepayu.command;
+
+import wepayu.services.Sistema;
+
+/**
+ * Comando que registra o pagamento da folha de uma data sem gravar o arquivo: a parte de
+ * {@link RodaFolhaCommand} que altera o estado dos empregados.
+ *
+ * <p>Usado pelas partições de uma {@link FacadeParticionada}, em que o arquivo é montado pelo
+ * coordenador a partir das folhas de todas as partições. A captura de estado para undo/redo é feita
+ * por {@link SnapshotCommand}.</p>
+ *
+ * @see Sistema#pagarFolha(String)
+ */
+public class PagarFolhaCommand extends SnapshotCommand {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String data;
+
+    /**
+     * @param sistema instância do sistema (não {@code null})
+     * @param data data de referência no formato {@code d/M/uuuu}
+     */
+    public PagarFolhaCommand(Sistema sistema, String data) {
+        super(sistema);
+        this.data = data;
+    }
+
+    /**
+     * @throws Exception se a data for inválida
+     */
+    @Override
+    protected void doExecute() throws Exception {
+        sistema.pagarFolha(data);
+    }
+}
@@ -0,0 +1,116 @@
+package wepayu.command;
+
+import wepayu.services.FolhaCalculada;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uma partição de uma {@link FacadeParticionada}: um {@code Sistema} com parte dos empregados, no
+ * mesmo processo ({@link ParticaoLocal}) ou em outra JVM ({@code wepayu.server.ParticaoRemota}).
+ *
+ * <p>
+ * As operações são as que o coordenador precisa para rotear comandos e consultas por ID e montar a
+ * folha por dispersão e coleta. Os erros de validação são as mesmas exceções da {@link Facade}, com as
+ * mesmas mensagens; os comandos executados entram no histórico de undo/redo da partição.
+ * </p>
+ */
+public interface Particao extends AutoCloseable {
+
+    /**
+     * Executa um comando ou consulta da {@link Facade} que só envolve esta partição: criação,
+     * remoção, lançamentos, alterações e consultas de um empregado, {@code zerarSistema} e
+     * {@code criarAgendaDePagamentos}.
+     *
+     * @param comando nome do método da {@code Facade}
+     * @param args argumentos, na ordem da {@code Facade}
+     * @return o retorno do método, ou {@code null} se for {@code void}
+     * @throws Exception a exceção que a {@code Facade} lançaria
+     */
+    String executar(String comando, String... args) throws Exception;
+
+    /**
+     * Cria um empregado com o ID informado ({@code criarEmpregado} com 4 ou 5 argumentos).
+     *
+     * @param id ID atribuído pelo coordenador
+     * @param args argumentos de {@code criarEmpregado}
+     * @return o ID do empregado criado
+     * @throws Exception a exceção que a {@code Facade} lançaria
+     */
+    String criarEmpregado(int id, String... args) throws Exception;
+
+    /**
+     * Executa um comando que pode mudar o ID de membro do sindicato de um empregado:
+     * {@code removerEmpregado} ou {@code alteraEmpregado} do tipo ou da sindicalização.
+     *
+     * @param comando nome do método da {@code Facade}
+     * @param args argumentos, na ordem da {@code Facade}; o primeiro é o ID do empregado
+     * @param membroEmUsoFora se o ID de membro informado ao sindicalizar já é usado por um empregado de
+     *                        outra partição
+     * @return o ID de membro do empregado antes e depois do comando ({@code null} onde ele não é membro)
+     * @throws Exception a exceção que a {@code Facade} lançaria
+     */
+    String[] executarNoMembro(String comando, String[] args, boolean membroEmUsoFora) throws Exception;
+
+    /** @return IDs de membro do sindicato em uso nesta partição, com o ID do empregado de cada um */
+    Map<String, String> getMembrosSindicato() throws Exception;
+
+    /**
+     * @param nome termo a procurar (contém)
+     * @param limite quantidade máxima de IDs
+     * @return IDs dos primeiros empregados, em ordem de cadastro, cujo nome contém o termo
+     */
+    List<String> getEmpregadosPorNome(String nome, int limite) throws Exception;
+
+    /** @return quantidade de empregados da partição */
+    int getNumeroDeEmpregados() throws Exception;
+
+    /** @return o maior ID já atribuído a um empregado da partição (o contador de IDs do seu sistema) */
+    int getUltimoId() throws Exception;
+
+    /**
+     * @param data data da folha
+     * @return a folha dos empregados da partição, sem alterar o estado
+     * @throws Exception se a data for inválida
+     */
+    FolhaCalculada calcularFolha(String data) throws Exception;
+
+    /**
+     * Registra o pagamento da folha nos empregados da partição, como um comando do histórico.
+     *
+     * @param data data da folha
+     * @throws Exception se a data for inválida
+     */
+    void pagarFolha(String data) throws Exception;
+
+    /**
+     * @param data data da folha
+     * @param porAgenda se o total é calculado pela agenda de cada empregado (ver
+     *                  {@link #haAgendaCustomizada()})
+     * @return total bruto da folha dos empregados da partição, sem arredondamento final
+     * @throws Exception se a data for inválida
+     */
+    BigDecimal calcularTotalFolha(String data, boolean porAgenda) throws Exception;
+
+    /** @return se algum empregado da partição tem agenda diferente da padrão do seu tipo */
+    boolean haAgendaCustomizada() throws Exception;
+
+    /** Desfaz o último comando da partição. */
+    void undo() throws Exception;
+
+    /** Refaz o último comando desfeito da partição. */
+    void redo() throws Exception;
+
+    /** Descarta o histórico de undo/redo da partição. */
+    void limparHistorico() throws Exception;
+
+    /**
+     * Libera a partição.
+     *
+     * @throws IOException se a conexão com a partição falhar ao fechar
+     */
+    @Override
+    void close() throws IOException;
+}
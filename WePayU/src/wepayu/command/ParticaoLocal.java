@@ -0,0 +1,167 @@
+package wepayu.command;
+
+import wepayu.models.MembroSindicato;
+import wepayu.services.FolhaCalculada;
+import wepayu.services.Sistema;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Particao} no mesmo processo: uma {@link Facade} sobre um {@link Sistema} próprio, com seu
+ * próprio histórico de undo/redo.
+ */
+public final class ParticaoLocal implements Particao {
+
+    private final Facade facade;
+
+    /** Cria uma partição vazia. */
+    public ParticaoLocal() {
+        this(new Sistema());
+    }
+
+    /**
+     * @param sistema sistema com os empregados da partição (não {@code null})
+     */
+    public ParticaoLocal(Sistema sistema) {
+        this.facade = new Facade(sistema);
+    }
+
+    @Override
+    public String executar(String comando, String... a) throws Exception {
+        switch (comando) {
+            case "removerEmpregado" -> facade.removerEmpregado(a[0]);
+            case "lancaCartao" -> facade.lancaCartao(a[0], a[1], a[2]);
+            case "lancaVenda" -> facade.lancaVenda(a[0], a[1], a[2]);
+            case "lancaTaxaServico" -> facade.lancaTaxaServico(a[0], a[1], a[2]);
+            case "alteraEmpregado" -> {
+                switch (a.length) {
+                    case 3 -> facade.alteraEmpregado(a[0], a[1], a[2]);
+                    case 4 -> facade.alteraEmpregado(a[0], a[1], a[2], a[3]);
+                    case 5 -> facade.alteraEmpregado(a[0], a[1], a[2], a[3], a[4]);
+                    case 6 -> facade.alteraEmpregado(a[0], a[1], a[2], a[3], a[4], a[5]);
+                    default -> throw new IllegalArgumentException("alteraEmpregado com " + a.length + " argumentos.");
+                }
+            }
+            case "zerarSistema" -> facade.zerarSistema();
+            case "criarAgendaDePagamentos" -> facade.criarAgendaDePagamentos(a[0]);
+            case "getAtributoEmpregado" -> {
+                return facade.getAtributoEmpregado(a[0], a[1]);
+            }
+            case "getHorasTrabalhadas" -> {
+                return facade.getHorasTrabalhadas(a[0], a[1], a[2]);
+            }
+            case "getHorasNormaisTrabalhadas" -> {
+                return facade.getHorasNormaisTrabalhadas(a[0], a[1], a[2]);
+            }
+            case "getHorasExtrasTrabalhadas" -> {
+                return facade.getHorasExtrasTrabalhadas(a[0], a[1], a[2]);
+            }
+            case "getVendasRealizadas" -> {
+                return facade.getVendasRealizadas(a[0], a[1], a[2]);
+            }
+            case "getTaxasServico" -> {
+                return facade.getTaxasServico(a[0], a[1], a[2]);
+            }
+            default -> throw new IllegalArgumentException("Comando desconhecido: " + comando);
+        }
+        return null;
+    }
+
+    @Override
+    public String criarEmpregado(int id, String... a) throws Exception {
+        sistema().setId(id - 1);
+        return switch (a.length) {
+            case 4 -> facade.criarEmpregado(a[0], a[1], a[2], a[3]);
+            case 5 -> facade.criarEmpregado(a[0], a[1], a[2], a[3], a[4]);
+            default -> throw new IllegalArgumentException("criarEmpregado com " + a.length + " argumentos.");
+        };
+    }
+
+    @Override
+    public String[] executarNoMembro(String comando, String[] a, boolean membroEmUsoFora) throws Exception {
+        String antes = membro(a[0]);
+        if (membroEmUsoFora) sistema().setMembrosExternos(a[3]::equals);
+        try {
+            executar(comando, a);
+        } finally {
+            sistema().setMembrosExternos(null);
+        }
+        return new String[]{antes, "removerEmpregado".equals(comando) ? null : membro(a[0])};
+    }
+
+    /** ID de membro do sindicato do empregado, ou {@code null} se ele não for membro (ou não existir). */
+    private String membro(String emp) {
+        try {
+            MembroSindicato sindicato = sistema().getEmpregado(emp).getSindicato();
+            return sindicato == null ? null : sindicato.getIdMembro();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, String> getMembrosSindicato() {
+        return sistema().getMembrosSindicato();
+    }
+
+    @Override
+    public List<String> getEmpregadosPorNome(String nome, int limite) {
+        return sistema().getEmpregadosPorNome(nome, limite);
+    }
+
+    @Override
+    public int getNumeroDeEmpregados() {
+        return sistema().getNumeroDeEmpregados();
+    }
+
+    @Override
+    public int getUltimoId() {
+        return sistema().getId();
+    }
+
+    @Override
+    public FolhaCalculada calcularFolha(String data) throws Exception {
+        return sistema().calcularFolha(data);
+    }
+
+    @Override
+    public void pagarFolha(String data) throws Exception {
+        facade.pagarFolha(data);
+    }
+
+    @Override
+    public BigDecimal calcularTotalFolha(String data, boolean porAgenda) throws Exception {
+        return sistema().calcularTotalFolha(data, porAgenda);
+    }
+
+    @Override
+    public boolean haAgendaCustomizada() {
+        return sistema().haAgendaCustomizada();
+    }
+
+    @Override
+    public void undo() throws Exception {
+        facade.undo();
+    }
+
+    @Override
+    public void redo() throws Exception {
+        facade.redo();
+    }
+
+    @Override
+    public void limparHistorico() {
+        facade.getInvoker().clearHistory();
+    }
+
+    /** Nada a liberar: o sistema é só memória. */
+    @Override
+    public void close() {
+    }
+
+    private Sistema sistema() {
+        return facade.getSistema();
+    }
+}
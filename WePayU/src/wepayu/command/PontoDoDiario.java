@@ -0,0 +1,126 @@
+package wepayu.command;
+
+import wepayu.services.Sistema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Ponto de recuperação de um {@link DiarioDeComandos}: o estado logo depois de uma entrada
+ * {@code ponto}, gravado em {@code <diario>.ponto}. A recuperação do primário e as réplicas partem do
+ * ponto e reaplicam só as entradas seguintes, em vez do diário inteiro.
+ *
+ * <p>
+ * A cada {@code wepayu.diario.ponto} entradas (padrão 1000; 0 desliga), o primário registra no diário
+ * a entrada {@code ponto}, que limpa o histórico de undo/redo, e grava o estado; as réplicas limpam o
+ * histórico ao aplicar a entrada, e a réplica por socket grava o ponto da sua cópia local. Assim o ponto
+ * não precisa do histórico: depois dele, nem o primário nem as réplicas desfazem comandos anteriores.
+ * O ponto guarda também a linha da sua entrada: um ponto cuja entrada não confere com o diário (de um
+ * diário recriado, por exemplo) é ignorado, e o diário é reaplicado desde o início. Entre dois pontos,
+ * o histórico dos diários é limitado a {@code wepayu.diario.historico} comandos (padrão 100), no
+ * primário e nas réplicas.
+ * </p>
+ */
+final class PontoDoDiario {
+
+    static final int INTERVALO = Integer.getInteger("wepayu.diario.ponto", 1000);
+    static final int HISTORICO = Integer.getInteger("wepayu.diario.historico", 100);
+
+    private static final System.Logger LOG = System.getLogger("wepayu.diario");
+
+    private final long seq;
+    private final String linha;
+    private final Facade facade;
+
+    private PontoDoDiario(long seq, String linha, Facade facade) {
+        this.seq = seq;
+        this.linha = linha;
+        this.facade = facade;
+    }
+
+    /** @return uma {@link Facade} vazia com o histórico limitado dos diários */
+    static Facade novaFacade() {
+        return new Facade(new Sistema(), novoHistorico());
+    }
+
+    /** @return um {@link Invoker} com o histórico limitado dos diários */
+    static Invoker novoHistorico() {
+        Invoker invoker = new Invoker();
+        invoker.setLimiteHistorico(HISTORICO);
+        return invoker;
+    }
+
+    /** @return se uma entrada {@code ponto} deve ser registrada depois da entrada informada */
+    static boolean devePersistir(long seq) {
+        return INTERVALO > 0 && seq % INTERVALO == 0;
+    }
+
+    /** @return sequência da entrada do ponto */
+    long getSeq() {
+        return seq;
+    }
+
+    /** @return a linha da entrada do ponto, para conferir com o diário */
+    String getLinha() {
+        return linha;
+    }
+
+    /** @return o estado do ponto, com o histórico vazio */
+    Facade getFacade() {
+        return facade;
+    }
+
+    /**
+     * Grava o ponto de um diário, substituindo o anterior. Uma falha é registrada no log e não afeta o
+     * diário, que continua sendo a referência.
+     *
+     * @param diario caminho do diário
+     * @param entrada a entrada {@code ponto}, a última aplicada em {@code facade}
+     * @param facade estado depois da entrada
+     */
+    static void gravar(Path diario, DiarioDeComandos.Entrada entrada, Facade facade) {
+        Path arquivo = arquivo(diario);
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+                out.writeLong(entrada.seq());
+                out.writeUTF(entrada.formatar());
+                out.writeObject(facade.getSistema());
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOG.log(System.Logger.Level.WARNING, "Falha ao gravar o ponto de recuperacao " + arquivo, e);
+        }
+    }
+
+    /**
+     * Lê o ponto de um diário.
+     *
+     * @param diario caminho do diário
+     * @return o ponto, ou {@code null} se não houver ponto ou ele não puder ser lido
+     */
+    static PontoDoDiario ler(Path diario) {
+        Path arquivo = arquivo(diario);
+        if (!Files.exists(arquivo)) return null;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            long seq = in.readLong();
+            String linha = in.readUTF();
+            Sistema sistema = (Sistema) in.readObject();
+            return new PontoDoDiario(seq, linha, new Facade(sistema, novoHistorico()));
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LOG.log(System.Logger.Level.WARNING, "Ponto de recuperacao " + arquivo + " ignorado", e);
+            return null;
+        }
+    }
+
+    private static Path arquivo(Path diario) {
+        return diario.resolveSibling(diario.getFileName() + ".ponto");
+    }
+}
@@ -0,0 +1,266 @@
+package wepayu.command;
+
+import wepayu.services.Sistema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registro de empresas (tenants): um {@link Sistema} independente por empresa, na mesma JVM.
+ *
+ * <p>
+ * Cada empresa é criada sob demanda na primeira operação e tem sua própria {@link Facade},
+ * seu próprio {@link Invoker} (undo/redo) e seu próprio flag de encerramento. As operações de
+ * uma mesma empresa são executadas em ordem de chegada, uma de cada vez; operações de empresas
+ * diferentes executam em paralelo no {@link ExecutorService} compartilhado.
+ * </p>
+ *
+ * <h3>Despejo para disco</h3>
+ * <ul>
+ *   <li>Empresas ociosas por mais que o limite configurado, ou as menos usadas recentemente quando
+ *       há mais empresas residentes que o máximo, são gravadas em {@code <empresa>.wepayu} no
+ *       diretório do registro e liberadas da memória;</li>
+ *   <li>O arquivo contém o {@link Sistema} e o {@link Invoker}, portanto o histórico de undo/redo
+ *       continua válido quando a empresa é recarregada;</li>
+ *   <li>O despejo entra na fila da própria empresa, logo nunca ocorre no meio de uma operação;</li>
+ *   <li>{@link #despejarOciosos()} deve ser chamado periodicamente (por exemplo, por um
+ *       {@code ScheduledExecutorService}); o limite de residentes também é verificado a cada carga.</li>
+ * </ul>
+ *
+ * @see Facade
+ * @see Sistema
+ */
+public class RegistroDeEmpresas implements AutoCloseable {
+
+    /**
+     * Operação executada sobre a {@link Facade} de uma empresa.
+     *
+     * @param <T> tipo do resultado
+     */
+    @FunctionalInterface
+    public interface Operacao<T> {
+        T executar(Facade facade) throws Exception;
+    }
+
+    private static final String EXTENSAO = ".wepayu";
+
+    private final class Empresa {
+        final String nome;
+        final Path arquivo;
+        Facade facade;
+        volatile boolean residente;
+        volatile boolean despejoPendente;
+        volatile long ultimoAcesso;
+        CompletableFuture<?> cauda = CompletableFuture.completedFuture(null);
+
+        Empresa(String nome) {
+            this.nome = nome;
+            this.arquivo = diretorio.resolve(URLEncoder.encode(nome, StandardCharsets.UTF_8) + EXTENSAO);
+        }
+
+        /**
+         * Enfileira uma tarefa depois de todas as já pendentes desta empresa.
+         */
+        synchronized <T> CompletableFuture<T> enfileirar(Operacao<T> tarefa) {
+            CompletableFuture<T> futuro = cauda.handleAsync((r, e) -> {
+                try {
+                    return tarefa.executar(facade);
+                } catch (RuntimeException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new CompletionException(ex);
+                }
+            }, executor);
+            cauda = futuro;
+            return futuro;
+        }
+
+        void carregar() throws IOException, ClassNotFoundException {
+            if (residente) return;
+            if (Files.exists(arquivo)) {
+                try (ObjectInputStream in = new ObjectInputStream(
+                        new BufferedInputStream(Files.newInputStream(arquivo)))) {
+                    Sistema sistema = (Sistema) in.readObject();
+                    Invoker invoker = (Invoker) in.readObject();
+                    facade = new Facade(sistema, invoker);
+                    facade.setSistemaEncerrado(in.readBoolean());
+                }
+            } else {
+                facade = new Facade(new Sistema());
+            }
+            residente = true;
+            residentes.incrementAndGet();
+        }
+
+        void descarregar() throws IOException {
+            if (!residente) return;
+            Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+                out.writeObject(facade.getSistema());
+                out.writeObject(facade.getInvoker());
+                out.writeBoolean(facade.isSistemaEncerrado());
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            facade = null;
+            residente = false;
+            residentes.decrementAndGet();
+        }
+    }
+
+    private final ExecutorService executor;
+    private final Path diretorio;
+    private final int maxResidentes;
+    private final long ociosidadeNanos;
+    private final ConcurrentHashMap<String, Empresa> empresas = new ConcurrentHashMap<>();
+    private final AtomicInteger residentes = new AtomicInteger();
+
+    /**
+     * Cria um registro de empresas.
+     *
+     * @param executor executor compartilhado por todas as empresas (não é encerrado por {@link #close()})
+     * @param diretorio diretório dos snapshots das empresas despejadas (criado se não existir)
+     * @param maxResidentes número máximo de empresas mantidas em memória
+     * @param ociosidade tempo sem operações após o qual uma empresa pode ser despejada
+     * @throws IOException se o diretório não puder ser criado
+     */
+    public RegistroDeEmpresas(ExecutorService executor, Path diretorio, int maxResidentes, Duration ociosidade)
+            throws IOException {
+        if (maxResidentes < 1) {
+            throw new IllegalArgumentException("maxResidentes deve ser positivo.");
+        }
+        this.executor = executor;
+        this.diretorio = Files.createDirectories(diretorio);
+        this.maxResidentes = maxResidentes;
+        this.ociosidadeNanos = ociosidade.toNanos();
+    }
+
+    /**
+     * Executa uma operação sobre a {@link Facade} de uma empresa, criando ou recarregando a empresa
+     * se necessário.
+     *
+     * @param empresa identificador da empresa
+     * @param operacao operação a executar
+     * @param <T> tipo do resultado
+     * @return futuro com o resultado; erros de validação completam o futuro com a exceção da {@link Facade}
+     */
+    public <T> CompletableFuture<T> executar(String empresa, Operacao<T> operacao) {
+        Empresa e = empresas.computeIfAbsent(empresa, Empresa::new);
+        return e.enfileirar(f -> {
+            boolean carregou = !e.residente;
+            e.carregar();
+            e.ultimoAcesso = System.nanoTime();
+            T resultado = operacao.executar(e.facade);
+            if (carregou && residentes.get() > maxResidentes) {
+                despejarExcedentes();
+            }
+            return resultado;
+        });
+    }
+
+    /**
+     * Despeja para disco as empresas sem operações há mais tempo que o limite de ociosidade.
+     *
+     * @return futuro completado quando os despejos agendados terminarem
+     */
+    public CompletableFuture<Void> despejarOciosos() {
+        long agora = System.nanoTime();
+        List<CompletableFuture<?>> despejos = new ArrayList<>();
+        for (Empresa e : empresas.values()) {
+            if (e.residente && agora - e.ultimoAcesso > ociosidadeNanos) {
+                despejos.add(despejar(e, true));
+            }
+        }
+        return CompletableFuture.allOf(despejos.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Despeja as empresas menos usadas recentemente até que o número de residentes
+     * volte ao máximo configurado.
+     */
+    private synchronized void despejarExcedentes() {
+        long pendentes = empresas.values().stream().filter(e -> e.residente && e.despejoPendente).count();
+        long excesso = residentes.get() - pendentes - maxResidentes;
+        if (excesso <= 0) return;
+        empresas.values().stream()
+                .filter(e -> e.residente && !e.despejoPendente)
+                .sorted(Comparator.comparingLong(e -> e.ultimoAcesso))
+                .limit(excesso)
+                .forEach(e -> despejar(e, false));
+    }
+
+    /**
+     * Agenda o despejo de uma empresa na fila dela. Se {@code soOciosa} for {@code true}, o despejo é
+     * cancelado caso a empresa tenha recebido operações desde o agendamento.
+     */
+    private CompletableFuture<?> despejar(Empresa e, boolean soOciosa) {
+        e.despejoPendente = true;
+        return e.enfileirar(f -> {
+            try {
+                if (!soOciosa || System.nanoTime() - e.ultimoAcesso > ociosidadeNanos) {
+                    e.descarregar();
+                }
+            } finally {
+                e.despejoPendente = false;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Retorna o número de empresas atualmente carregadas em memória.
+     *
+     * @return empresas residentes
+     */
+    public int getResidentes() {
+        return residentes.get();
+    }
+
+    /**
+     * Retorna o número de empresas conhecidas pelo registro (residentes ou despejadas).
+     *
+     * @return empresas registradas
+     */
+    public int getEmpresas() {
+        return empresas.size();
+    }
+
+    /**
+     * Grava todas as empresas residentes em disco, aguardando as operações pendentes.
+     *
+     * @throws UncheckedIOException se algum snapshot não puder ser gravado
+     */
+    @Override
+    public void close() {
+        List<CompletableFuture<?>> despejos = new ArrayList<>();
+        for (Empresa e : empresas.values()) {
+            despejos.add(despejar(e, false));
+        }
+        try {
+            CompletableFuture.allOf(despejos.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw ex;
+        }
+    }
+}
@@ -8,6 +8,8 @@ import wepayu.services.Sistema;
  */
 public class RemoverEmpregadoCommand extends SnapshotCommand {
 
+    private static final long serialVersionUID = 1L;
+
     private final String id;
 
     public RemoverEmpregadoCommand(Sistema sistema, String id) {
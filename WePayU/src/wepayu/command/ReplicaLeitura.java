@@ -0,0 +1,425 @@
+package wepayu.command;
+
+import wepayu.exceptions.ReplicaDesatualizadaException;
+import wepayu.services.Sistema;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Réplica de leitura: acompanha o {@link DiarioDeComandos} de um primário ({@link FacadeComDiario}),
+ * reaplica as entradas em um {@link Sistema} próprio e atende consultas e simulações de folha sem
+ * tocar no primário.
+ *
+ * <p>
+ * Uma thread ({@code wepayu-replica}) lê a {@link FonteDiario} e aplica as entradas em ordem, sob o
+ * lock de escrita; as consultas usam o lock de leitura e podem rodar em paralelo entre si. Entradas já
+ * aplicadas são ignoradas; uma lacuna na sequência ou uma entrada que falhe ao ser reaplicada indica
+ * divergência e interrompe a réplica ({@link #getErro()}). Se a fonte cair, a réplica reconecta a partir
+ * da última entrada aplicada. A réplica parte do {@link PontoDoDiario ponto de recuperação} do diário
+ * (no modo socket, o da sua cópia local, que ela mesma grava), e não da primeira entrada; o histórico
+ * de undo/redo é limitado e limpo em cada ponto, como no primário.
+ * </p>
+ *
+ * <h3>Atraso</h3>
+ * <p>
+ * A réplica está sincronizada até o último instante em que viu o fim do diário do primário;
+ * {@link #getAtraso()} é o tempo decorrido desde então, e é o que uma consulta pode ter perdido. Com
+ * {@link #setAtrasoMaximo(Duration)} (ou {@code wepayu.replica.atrasoMaximo}, em ms), as consultas
+ * falham com {@link ReplicaDesatualizadaException} em vez de responder com um estado mais antigo que
+ * o limite. {@link #aguardarSequencia(long, Duration)} permite ler o que se acabou de escrever no
+ * primário.
+ * </p>
+ *
+ * <h3>Promoção</h3>
+ * <p>
+ * {@link #promover()} para de acompanhar o primário, aplica o que restar do diário e devolve uma
+ * {@link FacadeComDiario} que continua a mesma sequência. No modo arquivo, a promoção só é possível
+ * depois que o primário liberou o lock do diário (terminou ou caiu); no modo socket, só depois que a
+ * conexão com o primário caiu ou o {@code ServidorDiario} informou que o primário liberou o diário, e
+ * a réplica passa a gravar na sua cópia local do diário. A replicação por socket é assíncrona: entradas
+ * que o primário gravou e ainda não enviou se perdem na promoção, e garantir que o primário antigo não
+ * volte a aceitar comandos fica a cargo de quem promove.
+ * </p>
+ */
+public final class ReplicaLeitura implements AutoCloseable {
+
+    private static final System.Logger LOG = System.getLogger("wepayu.replica");
+    private static final long INTERVALO_MS = Long.getLong("wepayu.replica.intervalo", 50);
+    private static final int LOTE = 1024;
+    private static final long NUNCA = Long.MIN_VALUE;
+
+    @FunctionalInterface
+    private interface Consulta<T> {
+        T executar() throws Exception;
+    }
+
+    private Facade facade;
+    private String conferir;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final FonteDiario.Conexao conexao;
+    private final Path diarioDoPrimario;
+    private final DiarioDeComandos copia;
+    private final Object aplicadas = new Object();
+    private Thread aplicador;
+    private volatile FonteDiario fonte;
+    private volatile long sequencia;
+    private volatile long sincronizadaEm = NUNCA;
+    private volatile boolean primarioAtivo;
+    private volatile Duration atrasoMaximo;
+    private volatile Exception erro;
+    private volatile boolean parar;
+    private boolean promovida;
+
+    private ReplicaLeitura(FonteDiario.Conexao conexao, Path diarioDoPrimario, DiarioDeComandos copia, Facade facade) {
+        this.conexao = conexao;
+        this.facade = facade;
+        this.diarioDoPrimario = diarioDoPrimario;
+        this.copia = copia;
+        long limite = Long.getLong("wepayu.replica.atrasoMaximo", -1);
+        this.atrasoMaximo = limite < 0 ? null : Duration.ofMillis(limite);
+    }
+
+    /**
+     * Cria uma réplica que lê o arquivo do diário do primário diretamente.
+     *
+     * @param diario caminho do diário do primário
+     * @return a réplica, já acompanhando o diário
+     */
+    public static ReplicaLeitura seguirArquivo(Path diario) {
+        PontoDoDiario ponto = PontoDoDiario.ler(diario);
+        ReplicaLeitura r = new ReplicaLeitura(desde -> new FonteDiarioArquivo(diario), diario, null,
+                ponto == null ? PontoDoDiario.novaFacade() : ponto.getFacade());
+        if (ponto != null) {
+            r.sequencia = ponto.getSeq();
+            r.conferir = ponto.getLinha();
+        }
+        r.iniciar();
+        return r;
+    }
+
+    /**
+     * Cria uma réplica que recebe as entradas de uma conexão com o primário e as grava em uma cópia
+     * local do diário. O que já estiver na cópia é reaplicado antes de conectar, e a conexão pede só as
+     * entradas seguintes.
+     *
+     * @param conexao abre a conexão com o primário
+     * @param copiaLocal caminho da cópia local do diário (criada se não existir)
+     * @return a réplica, já acompanhando o primário
+     * @throws Exception se a cópia não puder ser aberta ou reaplicada
+     */
+    public static ReplicaLeitura seguir(FonteDiario.Conexao conexao, Path copiaLocal) throws Exception {
+        DiarioDeComandos copia = DiarioDeComandos.abrir(copiaLocal);
+        ReplicaLeitura r;
+        try {
+            r = new ReplicaLeitura(conexao, null, copia, FacadeComDiario.recuperar(copia));
+        } catch (Exception e) {
+            copia.close();
+            throw e;
+        }
+        r.sequencia = copia.getSequencia();
+        r.iniciar();
+        return r;
+    }
+
+    // --- Replicação ---
+
+    private void acompanhar() {
+        while (!parar) {
+            try {
+                FonteDiario f = fonte;
+                if (f == null) fonte = f = conexao.abrir(sequencia);
+                FonteDiario.Leitura leitura = f.ler(INTERVALO_MS, LOTE);
+                primarioAtivo = diarioDoPrimario != null || f.isPrimarioAtivo();
+                aplicar(leitura.entradas());
+                if (leitura.emDia()) sincronizadaEm = leitura.instante();
+            } catch (IOException e) {
+                if (parar) return;
+                primarioAtivo = false;
+                LOG.log(System.Logger.Level.DEBUG, "Fonte do diario indisponivel", e);
+                fecharFonte();
+                dormir();
+            } catch (Exception e) {
+                erro = e;
+                LOG.log(System.Logger.Level.ERROR, "Replica divergiu do primario na entrada " + (sequencia + 1), e);
+                return;
+            }
+        }
+    }
+
+    private void aplicar(List<DiarioDeComandos.Entrada> entradas) throws Exception {
+        if (entradas.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            for (DiarioDeComandos.Entrada e : entradas) {
+                if (e.seq() == sequencia && conferir != null) conferirPonto(e);
+                if (e.seq() <= sequencia) continue;
+                if (copia != null) copia.anexar(e);
+                aplicar(e);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        synchronized (aplicadas) {
+            aplicadas.notifyAll();
+        }
+    }
+
+    private void aplicar(DiarioDeComandos.Entrada e) throws Exception {
+        if (e.seq() != sequencia + 1) {
+            throw new IllegalStateException("Lacuna no diario: entrada " + e.seq() + ", esperada " + (sequencia + 1) + ".");
+        }
+        FacadeComDiario.aplicar(facade, e);
+        sequencia = e.seq();
+        conferir = null;
+        if (copia != null && e.comando().equals("ponto")) PontoDoDiario.gravar(copia.getArquivo(), e, facade);
+    }
+
+    /**
+     * Confere a entrada do ponto de recuperação com a do diário. Se não for a mesma (o ponto é de um
+     * diário anterior), descarta o ponto e pede para reler o diário desde o início.
+     */
+    private void conferirPonto(DiarioDeComandos.Entrada e) throws IOException {
+        String linha = conferir;
+        conferir = null;
+        if (e.formatar().equals(linha)) return;
+        facade = PontoDoDiario.novaFacade();
+        sequencia = 0;
+        throw new IOException("Ponto de recuperacao nao confere com o diario; reaplicando desde o inicio.");
+    }
+
+    private void fecharFonte() {
+        FonteDiario f = fonte;
+        fonte = null;
+        if (f == null) return;
+        try {
+            f.close();
+        } catch (IOException e) {
+            // já fechada
+        }
+    }
+
+    private static void dormir() {
+        try {
+            Thread.sleep(INTERVALO_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Estado da réplica ---
+
+    /** @return sequência da última entrada aplicada */
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    /**
+     * @return tempo desde que a réplica viu o fim do diário do primário, ou {@code null} se ainda não
+     *         viu
+     */
+    public Duration getAtraso() {
+        long em = sincronizadaEm;
+        return em == NUNCA ? null : Duration.ofNanos(System.nanoTime() - em);
+    }
+
+    /**
+     * Define o atraso máximo aceito pelas consultas.
+     *
+     * @param atrasoMaximo limite, ou {@code null} para responder com qualquer atraso
+     */
+    public void setAtrasoMaximo(Duration atrasoMaximo) {
+        this.atrasoMaximo = atrasoMaximo;
+    }
+
+    /**
+     * @return no modo arquivo, se o diário está aberto para escrita; no modo socket, se a última
+     *         leitura da conexão teve sucesso
+     */
+    public boolean isPrimarioAtivo() {
+        return diarioDoPrimario != null ? new FonteDiarioArquivo(diarioDoPrimario).isPrimarioAtivo() : primarioAtivo;
+    }
+
+    /** @return a falha que interrompeu a réplica (divergência), ou {@code null} */
+    public Exception getErro() {
+        return erro;
+    }
+
+    /**
+     * Espera a réplica aplicar a entrada informada (por exemplo, a {@link FacadeComDiario#getSequencia()}
+     * logo após um comando no primário).
+     *
+     * @param seq sequência esperada
+     * @param espera espera máxima
+     * @return {@code true} se a entrada foi aplicada a tempo
+     * @throws InterruptedException se a thread for interrompida
+     */
+    public boolean aguardarSequencia(long seq, Duration espera) throws InterruptedException {
+        long limite = System.nanoTime() + espera.toNanos();
+        synchronized (aplicadas) {
+            while (sequencia < seq) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0 || erro != null) return false;
+                aplicadas.wait(Math.max(1, restante / 1_000_000));
+            }
+        }
+        return true;
+    }
+
+    // --- Consultas ---
+
+    private <T> T consultar(Consulta<T> consulta) throws Exception {
+        Duration limite = atrasoMaximo;
+        if (limite != null) {
+            Duration atraso = getAtraso();
+            if (atraso == null) throw new ReplicaDesatualizadaException();
+            if (atraso.compareTo(limite) > 0) {
+                throw new ReplicaDesatualizadaException(atraso.toMillis(), limite.toMillis());
+            }
+        }
+        lock.readLock().lock();
+        try {
+            if (promovida) throw new IllegalStateException("Replica promovida: use a FacadeComDiario devolvida.");
+            return consulta.executar();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getAtributoEmpregado(String id, String atributo) throws Exception {
+        return consultar(() -> facade.getAtributoEmpregado(id, atributo));
+    }
+
+    public String getEmpregadoPorNome(String nome, int indice) throws Exception {
+        return consultar(() -> facade.getEmpregadoPorNome(nome, indice));
+    }
+
+    public String getHorasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return consultar(() -> facade.getHorasTrabalhadas(id, dataInicial, dataFinal));
+    }
+
+    public String getHorasNormaisTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return consultar(() -> facade.getHorasNormaisTrabalhadas(id, dataInicial, dataFinal));
+    }
+
+    public String getHorasExtrasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return consultar(() -> facade.getHorasExtrasTrabalhadas(id, dataInicial, dataFinal));
+    }
+
+    public String getVendasRealizadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return consultar(() -> facade.getVendasRealizadas(id, dataInicial, dataFinal));
+    }
+
+    public String getTaxasServico(String emp, String dataInicial, String dataFinal) throws Exception {
+        return consultar(() -> facade.getTaxasServico(emp, dataInicial, dataFinal));
+    }
+
+    public String totalFolha(String data) throws Exception {
+        return consultar(() -> facade.totalFolha(data));
+    }
+
+    public String getNumeroDeEmpregados() throws Exception {
+        return consultar(facade::getNumeroDeEmpregados);
+    }
+
+    /**
+     * Calcula a folha de uma data sobre o estado da réplica, sem pagá-la.
+     *
+     * @param data data da folha
+     * @return o relatório que {@code rodaFolha} gravaria
+     * @throws Exception se a data for inválida ou a réplica estiver desatualizada
+     */
+    public String simularFolha(String data) throws Exception {
+        return consultar(() -> facade.getSistema().calcularFolha(data).formatar());
+    }
+
+    // --- Promoção ---
+
+    /**
+     * Promove a réplica a primário.
+     *
+     * @return o novo primário, com o estado e a sequência da réplica
+     * @throws IOException se o primário ainda estiver ativo ou o diário não puder ser aberto; a réplica
+     *                     continua acompanhando o primário
+     * @throws Exception se uma entrada restante falhar ao ser reaplicada
+     */
+    public synchronized FacadeComDiario promover() throws Exception {
+        if (promovida) throw new IllegalStateException("Replica ja promovida.");
+        if (erro != null) throw new IllegalStateException("Replica divergiu do primario.", erro);
+        if (copia != null && primarioAtivo) {
+            throw new IOException("Primario ainda conectado: a replica nao pode ser promovida.");
+        }
+        pararAplicador();
+        DiarioDeComandos diario = copia;
+        try {
+            if (diario == null) {
+                diario = DiarioDeComandos.abrir(diarioDoPrimario);
+                DiarioDeComandos aberto = diario;
+                lock.writeLock().lock();
+                try {
+                    diario.percorrer(e -> {
+                        if (e.seq() > sequencia) aplicar(e);
+                    });
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (aberto.getSequencia() != sequencia) {
+                    throw new IllegalStateException("Diario termina na entrada " + aberto.getSequencia()
+                            + ", replica na " + sequencia + ".");
+                }
+            }
+        } catch (Exception e) {
+            if (diario != null && diario != copia) diario.close();
+            if (e instanceof IOException) iniciar();
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            promovida = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.log(System.Logger.Level.INFO, "Replica promovida a primario na entrada " + sequencia);
+        return new FacadeComDiario(facade, diario);
+    }
+
+    private void pararAplicador() throws InterruptedException {
+        parar = true;
+        aplicador.join(INTERVALO_MS * 4 + 1000);
+        if (aplicador.isAlive()) {
+            fecharFonte();
+            aplicador.join();
+        }
+        fecharFonte();
+    }
+
+    private void iniciar() {
+        parar = false;
+        aplicador = new Thread(this::acompanhar, "wepayu-replica");
+        aplicador.setDaemon(true);
+        aplicador.start();
+    }
+
+    /**
+     * Para de acompanhar o primário e fecha a cópia local do diário (a menos que a réplica tenha sido
+     * promovida: a cópia passa a ser o diário do novo primário). Se a thread for interrompida enquanto
+     * espera o aplicador, a fonte é fechada, o que o faz parar, e a interrupção é mantida.
+     *
+     * @throws IOException se a cópia não puder ser fechada
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!parar) {
+            try {
+                pararAplicador();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fecharFonte();
+            }
+        }
+        if (copia != null && !promovida) copia.close();
+    }
+}
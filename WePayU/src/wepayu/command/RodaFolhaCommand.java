@@ -17,6 +17,8 @@ import wepayu.services.Sistema;
  */
 public class RodaFolhaCommand extends SnapshotCommand {
 
+    private static final long serialVersionUID = 1L;
+
     private final String data;
     private final String saida;
 
@@ -1,6 +1,9 @@
 package wepayu.command;
 
 import wepayu.models.Empregado;
+import wepayu.services.ContagemEstado;
+import wepayu.services.PegadaMemoria;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,9 +17,12 @@ import java.util.List;
  * @see wepayu.services.Sistema
  * @see ZerarSistemaCommand
  */
-public class SistemaMemento {
+public class SistemaMemento implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
     private final ArrayList<Empregado> empregadosState;
     private final int idState;
+    private ContagemEstado contagemState;
+    private long bytesEstimados;
 
     /**
      * Constrói um novo Memento do Sistema, salvando o estado atual.
@@ -33,6 +39,26 @@ public class SistemaMemento {
             this.empregadosState.add(e.clone());
         }
         this.idState = id;
+        this.contagemState = ContagemEstado.de(this.empregadosState);
+        this.bytesEstimados = PegadaMemoria.estimarCopia(contagemState);
+    }
+
+    /**
+     * Constrói um novo Memento do Sistema com a contagem já conhecida do estado salvo, sem contá-lo
+     * de novo.
+     *
+     * @param empregados A lista de empregados a ser salva.
+     * @param id O valor atual do contador de IDs a ser salvo.
+     * @param contagem A contagem de empregados e lançamentos de {@code empregados} (é copiada).
+     */
+    public SistemaMemento(java.util.List<Empregado> empregados, int id, ContagemEstado contagem) {
+        this.empregadosState = new java.util.ArrayList<>(empregados.size());
+        for (Empregado e : empregados) {
+            this.empregadosState.add(e.clone());
+        }
+        this.idState = id;
+        this.contagemState = contagem.copia();
+        this.bytesEstimados = PegadaMemoria.estimarCopia(contagemState);
     }
 
     /**
@@ -56,4 +82,30 @@ public class SistemaMemento {
     public int getIdState() {
         return idState;
     }
+
+    /**
+     * Retorna a contagem de empregados e lançamentos do estado salvo.
+     *
+     * @return Uma cópia da contagem salva.
+     */
+    public ContagemEstado getContagemState() {
+        return contagemState.copia();
+    }
+
+    /**
+     * Retorna a memória estimada deste snapshot (ver {@link PegadaMemoria#estimarCopia(ContagemEstado)}).
+     *
+     * @return Os bytes estimados.
+     */
+    public long getBytesEstimados() {
+        return bytesEstimados;
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (contagemState == null) {
+            contagemState = ContagemEstado.de(empregadosState);
+            bytesEstimados = PegadaMemoria.estimarCopia(contagemState);
+        }
+    }
 }
\ No newline at end of file
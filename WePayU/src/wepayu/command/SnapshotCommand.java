@@ -23,6 +23,7 @@ import wepayu.services.Sistema;
  * @see SistemaMemento
  */
 public abstract class SnapshotCommand implements Command {
+    private static final long serialVersionUID = 1L;
     protected final Sistema sistema;
     private SistemaMemento before, after;
 
@@ -62,6 +63,16 @@ public abstract class SnapshotCommand implements Command {
     @Override
     public final void redo() throws Exception { sistema.restore(after); }
 
+    /**
+     * Retorna a memória estimada dos snapshots "antes" e "depois" (0 antes da execução).
+     *
+     * @return bytes estimados
+     */
+    @Override
+    public long getBytesEstimados() {
+        return (before == null ? 0 : before.getBytesEstimados()) + (after == null ? 0 : after.getBytesEstimados());
+    }
+
     /**
      * Ponto de extensão que contém a lógica concreta do comando.
      * <p>
@@ -0,0 +1,83 @@
+package wepayu.command;
+
+import wepayu.services.FolhaCalculada;
+
+/**
+ * Uma versão do estado de uma {@link FacadeConcorrente}, fixada para leitura
+ * ({@link FacadeConcorrente#fixarVersao()}).
+ *
+ * <p>
+ * As consultas enxergam o estado como estava quando a versão foi fixada, por mais que comandos sejam
+ * executados depois, e não bloqueiam nem são bloqueadas por eles. A cópia do estado é compartilhada
+ * por todas as fixações da mesma versão e fica retida até a última ser fechada; por isso, feche a
+ * versão assim que a leitura terminar.
+ * </p>
+ */
+public final class VersaoFixada implements AutoCloseable {
+
+    private final Versoes versoes;
+    private final Versoes.Instantaneo instantaneo;
+    private boolean fechada;
+
+    VersaoFixada(Versoes versoes, Versoes.Instantaneo instantaneo) {
+        this.versoes = versoes;
+        this.instantaneo = instantaneo;
+    }
+
+    /** @return número da versão: quantos comandos tinham sido executados quando ela foi fixada */
+    public long getNumero() {
+        return instantaneo.numero;
+    }
+
+    Facade facade() {
+        if (fechada) throw new IllegalStateException("Versao " + instantaneo.numero + " ja foi liberada.");
+        return instantaneo.facade;
+    }
+
+    public String getAtributoEmpregado(String id, String atributo) throws Exception {
+        return facade().getAtributoEmpregado(id, atributo);
+    }
+
+    public String getEmpregadoPorNome(String nome, int indice) throws Exception {
+        return facade().getEmpregadoPorNome(nome, indice);
+    }
+
+    public String getHorasTrabalhadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return facade().getHorasTrabalhadas(id, dataInicial, dataFinal);
+    }
+
+    public String getVendasRealizadas(String id, String dataInicial, String dataFinal) throws Exception {
+        return facade().getVendasRealizadas(id, dataInicial, dataFinal);
+    }
+
+    public String getTaxasServico(String emp, String dataInicial, String dataFinal) throws Exception {
+        return facade().getTaxasServico(emp, dataInicial, dataFinal);
+    }
+
+    public String totalFolha(String data) throws Exception {
+        return facade().totalFolha(data);
+    }
+
+    public String getNumeroDeEmpregados() {
+        return facade().getNumeroDeEmpregados();
+    }
+
+    /**
+     * Calcula a folha de uma data nesta versão, sem pagá-la.
+     *
+     * @param data data de referência no formato {@code d/M/uuuu}
+     * @return linhas e totais da folha
+     * @throws Exception se a data for inválida
+     */
+    public FolhaCalculada calcularFolha(String data) throws Exception {
+        return facade().getSistema().calcularFolha(data);
+    }
+
+    /** Libera a versão; a cópia do estado é descartada quando não houver mais quem a leia. */
+    @Override
+    public synchronized void close() {
+        if (fechada) return;
+        fechada = true;
+        versoes.liberar(instantaneo);
+    }
+}
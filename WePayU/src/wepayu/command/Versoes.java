@@ -0,0 +1,136 @@
+package wepayu.command;
+
+import wepayu.services.Sistema;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Controle das versões do estado de uma {@link FacadeConcorrente}.
+ *
+ * <p>
+ * Cada comando executado com sucesso cria uma nova versão ({@link #registrar(LocalDate)}), sem copiar
+ * nada. A cópia do estado ({@link Sistema#copia()}) só é feita quando alguém fixa a versão atual, uma vez
+ * por versão, e é compartilhada por todas as fixações dela. Uma cópia deixa de ser referenciada (e é
+ * coletada pelo GC) quando a versão deixa de ser a atual e a última fixação é liberada.
+ * </p>
+ *
+ * <p>
+ * Para as folhas calculadas sobre uma versão fixada, guarda também os comandos executados depois dela,
+ * com a data dos lançamentos, e diz se algum deles muda a folha de um dia ({@link #conflita(long,
+ * LocalDate)}). Os métodos são chamados sob o lock da {@code FacadeConcorrente}: {@link #registrar} sob
+ * o de escrita e {@link #fixar} sob o de leitura.
+ * </p>
+ */
+final class Versoes {
+
+    /** A cópia do estado de uma versão. */
+    static final class Instantaneo {
+        final long numero;
+        final Facade facade;
+        int leitores;
+
+        Instantaneo(long numero, Facade facade) {
+            this.numero = numero;
+            this.facade = facade;
+        }
+    }
+
+    /**
+     * Comando executado enquanto havia uma folha em curso.
+     *
+     * @param versao versão criada pelo comando
+     * @param data data do lançamento, ou {@code null} se o comando não for um lançamento
+     */
+    private record Alteracao(long versao, LocalDate data) {
+    }
+
+    private final Set<Instantaneo> retidos = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final TreeMap<Long, Integer> folhasEmCurso = new TreeMap<>();
+    private final ArrayDeque<Alteracao> alteracoes = new ArrayDeque<>();
+    private long atual;
+    private Instantaneo instantaneoAtual;
+
+    /**
+     * Cria a próxima versão, depois de um comando.
+     *
+     * @param dataLancamento data do lançamento, se o comando for um lançamento; {@code null} para os
+     *                       demais comandos, que conflitam com qualquer folha
+     */
+    synchronized void registrar(LocalDate dataLancamento) {
+        atual++;
+        if (!folhasEmCurso.isEmpty()) alteracoes.add(new Alteracao(atual, dataLancamento));
+        if (instantaneoAtual != null) {
+            if (instantaneoAtual.leitores == 0) retidos.remove(instantaneoAtual);
+            instantaneoAtual = null;
+        }
+    }
+
+    /**
+     * Fixa a versão atual, copiando o estado se ela ainda não tiver cópia.
+     *
+     * @param vivo estado atual, que não pode mudar durante a chamada
+     * @param folha se a fixação é de uma folha, que vai consultar {@link #conflita(long, LocalDate)}
+     * @return a versão fixada
+     */
+    synchronized VersaoFixada fixar(Sistema vivo, boolean folha) {
+        if (instantaneoAtual == null) {
+            instantaneoAtual = new Instantaneo(atual, new Facade(vivo.copia()));
+            retidos.add(instantaneoAtual);
+        }
+        instantaneoAtual.leitores++;
+        if (folha) folhasEmCurso.merge(atual, 1, Integer::sum);
+        return new VersaoFixada(this, instantaneoAtual);
+    }
+
+    /**
+     * Fixa a versão atual só se ela já tiver cópia, sem copiar o estado.
+     *
+     * @return a versão fixada, ou {@code null} se a versão atual não tiver cópia
+     */
+    synchronized VersaoFixada fixarExistente() {
+        if (instantaneoAtual == null) return null;
+        instantaneoAtual.leitores++;
+        return new VersaoFixada(this, instantaneoAtual);
+    }
+
+    synchronized void liberar(Instantaneo instantaneo) {
+        if (--instantaneo.leitores == 0 && instantaneo != instantaneoAtual) retidos.remove(instantaneo);
+    }
+
+    /**
+     * Diz se algum comando posterior à versão muda a folha do dia: lançamentos com data até o dia ou
+     * qualquer outro comando. Lançamentos posteriores ao dia não entram na folha nem são afetados pelo
+     * pagamento.
+     *
+     * @param versao versão sobre a qual a folha foi calculada
+     * @param dia dia da folha
+     * @return {@code true} se a folha precisa ser recalculada
+     */
+    synchronized boolean conflita(long versao, LocalDate dia) {
+        for (Alteracao a : alteracoes) {
+            if (a.versao() > versao && (a.data() == null || !a.data().isAfter(dia))) return true;
+        }
+        return false;
+    }
+
+    /** Encerra uma folha calculada sobre a versão, descartando as alterações que só ela consultaria. */
+    synchronized void encerrarFolha(long versao) {
+        folhasEmCurso.computeIfPresent(versao, (v, n) -> n == 1 ? null : n - 1);
+        long minima = folhasEmCurso.isEmpty() ? Long.MAX_VALUE : folhasEmCurso.firstKey();
+        while (!alteracoes.isEmpty() && alteracoes.peekFirst().versao() <= minima) alteracoes.pollFirst();
+    }
+
+    synchronized long getAtual() {
+        return atual;
+    }
+
+    /** @return quantas cópias do estado estão retidas (a da versão atual e as ainda fixadas) */
+    synchronized int getRetidas() {
+        return retidos.size();
+    }
+}
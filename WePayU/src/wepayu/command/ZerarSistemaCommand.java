@@ -13,6 +13,8 @@ import wepayu.services.Sistema;
  */
 public class ZerarSistemaCommand extends SnapshotCommand {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Cria o comando de zerar sistema.
      *
@@ -1,6 +1,8 @@
 package wepayu.exceptions;
 
-public class AgendaDePagamentosJaExisteException extends Exception {
+public class AgendaDePagamentosJaExisteException extends BusinessException {
+    private static final long serialVersionUID = 1L;
+
     public AgendaDePagamentosJaExisteException() {
         super("Agenda de pagamentos ja existe");
     }
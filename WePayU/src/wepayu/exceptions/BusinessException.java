@@ -3,6 +3,10 @@ package wepayu.exceptions;
 /**
  * Base type for all domain (business) checked exceptions.
  *
+ * <p>Business exceptions are expected outcomes of validation, not bugs: they are created without a
+ * stack trace (and without suppression), so rejecting a bad input costs about as much as building
+ * its message. For a non-throwing alternative, see {@link CodigoValidacao}.</p>
+ *
  * :param message: Human-readable error text.
  * :type message: String
  */
@@ -10,10 +14,10 @@ public class BusinessException extends Exception {
     private static final long serialVersionUID = 1L;
 
     public BusinessException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public BusinessException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
-}
\ No newline at end of file
+}
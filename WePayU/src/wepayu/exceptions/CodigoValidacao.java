@@ -0,0 +1,143 @@
+package wepayu.exceptions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Resultado de uma validação sem exceção: {@link #OK} ou um código por tipo de exceção de negócio.
+ *
+ * <p>
+ * Cada código corresponde a exatamente uma classe de {@code wepayu.exceptions}, com a mesma mensagem
+ * padrão. As APIs de lote e de importação devolvem esses códigos em vez de lançar, e os métodos
+ * individuais da {@code Facade} continuam lançando a exceção equivalente ({@link #lancarSeErro()}).
+ * </p>
+ *
+ * @see BusinessException
+ */
+public enum CodigoValidacao {
+    /** Entrada válida. */
+    OK(null),
+    AGENCIA_NULA(AgenciaNulaException::new),
+    AGENDA_DE_PAGAMENTO_NAO_ESTA_DISPONIVEL(AgendaDePagamentoNaoEstaDisponivelException::new),
+    AGENDA_DE_PAGAMENTOS_JA_EXISTE(AgendaDePagamentosJaExisteException::new),
+    ARQUIVO_DE_SAIDA_INVALIDO(ArquivoDeSaidaInvalidoException::new),
+    ATRIBUTO_NAO_EXISTE(AtributoNaoExisteException::new),
+    BANCO_NULO(BancoNuloException::new),
+    COMISSAO_DEVE_SER_NUMERICA(ComissaoDeveSerNumericaException::new),
+    COMISSAO_NAO_NEGATIVA(ComissaoNaoNegativaException::new),
+    COMISSAO_NULA(ComissaoNulaException::new),
+    CONTA_CORRENTE_NULA(ContaCorrenteNulaException::new),
+    DATA_FINAL_INVALIDA(DataFinalInvalidaException::new),
+    DATA_INICIAL_INVALIDA(DataInicialInvalidaException::new),
+    DATA_INICIAL_POSTERIOR_A_DATA_FINAL(DataInicialPosteriorADataFinalException::new),
+    DATA_INVALIDA(DataInvalidaException::new),
+    DESCRICAO_AGENDA_INVALIDA(DescricaoAgendaInvalidaException::new),
+    EMPREGADO_NAO_EH_COMISSIONADO(EmpregadoNaoEhComissionadoException::new),
+    EMPREGADO_NAO_EH_HORISTA(EmpregadoNaoEhHoristaException::new),
+    EMPREGADO_NAO_EH_SINDICALIZADO(EmpregadoNaoEhSindicalizadoException::new),
+    EMPREGADO_NAO_EXISTE(EmpregadoNaoExisteException::new),
+    EMPREGADO_NAO_RECEBE_EM_BANCO(EmpregadoNaoRecebeEmBancoException::new),
+    ENDERECO_NULO(EnderecoNuloException::new),
+    ERRO_AO_ESCREVER_ARQUIVO_DE_SAIDA(ErroAoEscreverArquivoDeSaidaException::new),
+    HORAS_DEVEM_SER_POSITIVAS(HorasDevemSerPositivasException::new),
+    IDENTIFICACAO_EMPREGADO_NULA(IdentificacaoEmpregadoNulaException::new),
+    IDENTIFICACAO_MEMBRO_NULA(IdentificacaoMembroNulaException::new),
+    IDENTIFICACAO_SINDICATO_NULA(IdentificacaoSindicatoNulaException::new),
+    MEMBRO_NAO_EXISTE(MembroNaoExisteException::new),
+    METODO_PAGAMENTO_INVALIDO(MetodoPagamentoInvalidoException::new),
+    NAO_HA_COMANDO_DESFAZER(NaoHaComandoDesfazer::new),
+    NAO_HA_COMANDO_REFAZER(NaoHaComandoRefazer::new),
+    NAO_HA_EMPREGADO_COM_ESSE_NOME(NaoHaEmpregadoComEsseNomeException::new),
+    NAO_PODE_COMANDOS_APOS_ENCERRAR_SISTEMA(NaoPodeComandosAposEncerrarSistemaException::new),
+    NOME_NULO(NomeNuloException::new),
+    ORCAMENTO_DE_MEMORIA_EXCEDIDO(OrcamentoDeMemoriaExcedidoException::new),
+    OUTRO_EMPREGADO_COM_MESMO_ID_SINDICATO(OutroEmpregadoComMesmoIdSindicatoException::new),
+    REPLICA_DESATUALIZADA(ReplicaDesatualizadaException::new),
+    SALARIO_DEVE_SER_NUMERICO(SalarioDeveSerNumericoException::new),
+    SALARIO_NAO_NEGATIVO(SalarioNaoNegativoException::new),
+    SALARIO_NULO(SalarioNuloException::new),
+    TAXA_SINDICAL_DEVE_SER_NUMERICA(TaxaSindicalDeveSerNumericaException::new),
+    TAXA_SINDICAL_NAO_NEGATIVA(TaxaSindicalNaoNegativaException::new),
+    TAXA_SINDICAL_NULA(TaxaSindicalNulaException::new),
+    TIPO_INVALIDO(TipoInvalidoException::new),
+    TIPO_NAO_APLICAVEL(TipoNaoAplicavelException::new),
+    VALOR_DEVE_SER_POSITIVO(ValorDeveSerPositivoException::new),
+    VALOR_DEVE_SER_TRUE_OU_FALSE(ValorDeveSerTrueOuFalseException::new);
+
+    private static final Map<Class<? extends BusinessException>, CodigoValidacao> POR_CLASSE = new HashMap<>();
+
+    static {
+        for (CodigoValidacao c : values()) {
+            if (c.tipo != null) POR_CLASSE.put(c.tipo, c);
+        }
+    }
+
+    private final Supplier<? extends BusinessException> fabrica;
+    private final Class<? extends BusinessException> tipo;
+    private final String mensagem;
+
+    CodigoValidacao(Supplier<? extends BusinessException> fabrica) {
+        this.fabrica = fabrica;
+        BusinessException exemplo = fabrica == null ? null : fabrica.get();
+        this.tipo = exemplo == null ? null : exemplo.getClass();
+        this.mensagem = exemplo == null ? null : exemplo.getMessage();
+    }
+
+    /**
+     * Indica se a entrada foi aceita.
+     *
+     * @return {@code true} para {@link #OK}
+     */
+    public boolean isOk() {
+        return this == OK;
+    }
+
+    /**
+     * Retorna a mensagem padrão da exceção correspondente.
+     *
+     * @return a mensagem (ex.: {@code "Data invalida."}), ou {@code null} para {@link #OK}
+     */
+    public String getMensagem() {
+        return mensagem;
+    }
+
+    /**
+     * Retorna a classe de exceção correspondente.
+     *
+     * @return a classe, ou {@code null} para {@link #OK}
+     */
+    public Class<? extends BusinessException> getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Cria a exceção correspondente, com a mensagem padrão.
+     *
+     * @return uma nova exceção
+     * @throws IllegalStateException se chamado em {@link #OK}
+     */
+    public BusinessException excecao() {
+        if (fabrica == null) throw new IllegalStateException("OK nao corresponde a uma excecao.");
+        return fabrica.get();
+    }
+
+    /**
+     * Lança a exceção correspondente, se houver.
+     *
+     * @throws BusinessException se o código não for {@link #OK}
+     */
+    public void lancarSeErro() throws BusinessException {
+        if (fabrica != null) throw fabrica.get();
+    }
+
+    /**
+     * Retorna o código da classe de uma exceção de negócio.
+     *
+     * @param erro exceção lançada por uma chamada individual
+     * @return o código correspondente, ou {@code null} se não for uma exceção de {@code wepayu.exceptions}
+     */
+    public static CodigoValidacao de(Throwable erro) {
+        return erro == null ? null : POR_CLASSE.get(erro.getClass());
+    }
+}
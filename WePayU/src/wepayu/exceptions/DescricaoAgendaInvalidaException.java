@@ -1,7 +1,9 @@
 package wepayu.exceptions;
 
-public class DescricaoAgendaInvalidaException extends Exception {
+public class DescricaoAgendaInvalidaException extends BusinessException {
+    private static final long serialVersionUID = 1L;
+
     public DescricaoAgendaInvalidaException() {
         super("Descricao de agenda invalida");
     }
-}
\ No newline at end of file
+}
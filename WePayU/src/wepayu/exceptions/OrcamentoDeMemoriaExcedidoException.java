@@ -0,0 +1,13 @@
+package wepayu.exceptions;
+
+public class OrcamentoDeMemoriaExcedidoException extends BusinessException {
+    private static final long serialVersionUID = 1L;
+
+    public OrcamentoDeMemoriaExcedidoException() {
+        super("Orcamento de memoria excedido.");
+    }
+
+    public OrcamentoDeMemoriaExcedidoException(long estimados, long orcamento) {
+        super("Orcamento de memoria excedido: " + estimados + " bytes estimados, orcamento de " + orcamento + ".");
+    }
+}
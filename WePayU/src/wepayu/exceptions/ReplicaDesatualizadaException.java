@@ -0,0 +1,13 @@
+package wepayu.exceptions;
+
+public class ReplicaDesatualizadaException extends BusinessException {
+    private static final long serialVersionUID = 1L;
+
+    public ReplicaDesatualizadaException() {
+        super("Replica ainda nao sincronizou com o primario.");
+    }
+
+    public ReplicaDesatualizadaException(long atrasoMs, long limiteMs) {
+        super("Replica desatualizada: atraso de " + atrasoMs + " ms excede o limite de " + limiteMs + " ms.");
+    }
+}
@@ -0,0 +1,99 @@
+package wepayu.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências em nanossegundos, no estilo HDR: faixas log-lineares com precisão relativa
+ * fixa e registro sem locks.
+ *
+ * <p>
+ * Valores abaixo de {@value #SUBFAIXAS} ocupam uma posição cada; acima disso, cada potência de dois
+ * é dividida em {@value #SUBFAIXAS} subfaixas iguais, então o erro de um percentil é de no máximo
+ * 1/{@value #SUBFAIXAS} (cerca de 3%) do valor. O registro custa um {@code numberOfLeadingZeros}, um
+ * deslocamento e dois incrementos atômicos (faixa e soma); a contagem é a soma das faixas. A leitura
+ * percorre as faixas e pode ver um registro concorrente pela metade (faixa já somada, máximo ainda
+ * não), o que não importa para métricas.
+ * </p>
+ */
+public final class HistogramaLatencia {
+
+    private static final int BITS = 5;
+    private static final int SUBFAIXAS = 1 << BITS;
+    private static final int POSICOES = SUBFAIXAS + (64 - BITS) * SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(POSICOES);
+    private final AtomicLong soma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra uma latência.
+     *
+     * @param nanos duração em nanossegundos (valores negativos contam como zero)
+     */
+    public void registrar(long nanos) {
+        long v = Math.max(0, nanos);
+        contagens.incrementAndGet(posicao(v));
+        soma.addAndGet(v);
+        long m = maximo.get();
+        while (v > m && !maximo.compareAndSet(m, v)) m = maximo.get();
+    }
+
+    /** @return quantidade de valores registrados */
+    public long getContagem() {
+        long n = 0;
+        for (int i = 0; i < POSICOES; i++) n += contagens.get(i);
+        return n;
+    }
+
+    /** @return maior valor registrado, em nanossegundos */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /** @return média dos valores registrados, em nanossegundos, ou 0 se não houver valores */
+    public double getMedia() {
+        long n = getContagem();
+        return n == 0 ? 0 : (double) soma.get() / n;
+    }
+
+    /**
+     * Retorna o percentil pedido: o maior valor equivalente da faixa que contém o {@code q}-ésimo valor,
+     * limitado ao máximo registrado.
+     *
+     * @param q quantil entre 0 e 1 (ex.: {@code 0.99})
+     * @return percentil em nanossegundos, ou 0 se não houver valores
+     */
+    public long percentil(double q) {
+        long n = getContagem();
+        if (n == 0) return 0;
+        long alvo = Math.max(1, (long) Math.ceil(q * n));
+        long acumulado = 0;
+        for (int i = 0; i < POSICOES; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) return Math.min(limiteSuperior(i), maximo.get());
+        }
+        return maximo.get();
+    }
+
+    /** Zera o histograma. */
+    public void limpar() {
+        for (int i = 0; i < POSICOES; i++) contagens.set(i, 0);
+        soma.set(0);
+        maximo.set(0);
+    }
+
+    static int posicao(long v) {
+        if (v < SUBFAIXAS) return (int) v;
+        int expoente = 63 - Long.numberOfLeadingZeros(v);
+        int deslocamento = expoente - BITS;
+        return SUBFAIXAS + deslocamento * SUBFAIXAS + (int) ((v >>> deslocamento) & (SUBFAIXAS - 1));
+    }
+
+    static long limiteSuperior(int posicao) {
+        if (posicao < SUBFAIXAS) return posicao;
+        int deslocamento = posicao / SUBFAIXAS - 1;
+        long inicio = (long) (SUBFAIXAS + posicao % SUBFAIXAS) << deslocamento;
+        return inicio + (1L << deslocamento) - 1;
+    }
+}
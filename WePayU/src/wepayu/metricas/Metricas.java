@@ -0,0 +1,232 @@
+package wepayu.metricas;
+
+import javax.management.JMException;
+import java.lang.ref.Cleaner;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registro das métricas de latência e vazão do WePayU.
+ *
+ * <p>
+ * Cada {@code Command} executado pelo {@code Invoker} (inclusive {@code undo} e {@code redo}) e cada
+ * consulta da {@code Facade} tem uma {@link MetricasOperacao}, criada no primeiro uso e publicada via
+ * JMX como {@code wepayu:type=Operacao,name=<operacao>}; a visão geral, com o tamanho do histórico de
+ * undo somado entre os {@code Invoker}s vivos ({@link Historico}), fica em {@code wepayu:type=Metricas}.
+ * O registro no caminho quente é um par de
+ * {@link System#nanoTime()} e alguns incrementos atômicos, sem locks nem alocação.
+ * </p>
+ *
+ * <h3>Propriedades de sistema</h3>
+ * <ul>
+ *   <li>{@code wepayu.metricas.jmx} — {@code false} para não publicar os MBeans (padrão {@code true});</li>
+ *   <li>{@code wepayu.metricas.log} — intervalo, em segundos, de uma linha de log
+ *       ({@link System.Logger} {@code wepayu.metricas}, nível {@code INFO}) com as operações executadas no
+ *       intervalo; {@code 0} desliga (padrão).</li>
+ * </ul>
+ */
+public final class Metricas {
+
+    private static final boolean JMX = !"false".equals(System.getProperty("wepayu.metricas.jmx"));
+    private static final long INTERVALO_LOG = Long.getLong("wepayu.metricas.log", 0L);
+
+    private static final Map<String, MetricasOperacao> OPERACOES = new ConcurrentHashMap<>();
+    private static final ClassValue<MetricasOperacao> COMANDOS = new ClassValue<>() {
+        @Override
+        protected MetricasOperacao computeValue(Class<?> tipo) {
+            String nome = tipo.getSimpleName();
+            if (nome.endsWith("Command") && nome.length() > "Command".length()) {
+                nome = nome.substring(0, nome.length() - "Command".length());
+            }
+            return operacao(nome);
+        }
+    };
+    private static final AtomicInteger HISTORICO = new AtomicInteger();
+    private static final AtomicInteger HISTORICO_MAXIMO = new AtomicInteger();
+    private static final Cleaner COLETOR = Cleaner.create();
+
+    /**
+     * Tamanho do histórico de undo de um {@code Invoker}, somado ao total de {@link Metricas} enquanto o
+     * dono estiver vivo: quando ele é coletado, a sua parte é descontada.
+     */
+    public static final class Historico {
+        private final AtomicInteger tamanho = new AtomicInteger();
+
+        private Historico() {
+        }
+
+        /**
+         * Informa o tamanho atual do histórico.
+         *
+         * @param novo comandos que podem ser desfeitos
+         */
+        public void informar(int novo) {
+            int antes = tamanho.getAndSet(novo);
+            if (novo == antes) return;
+            int total = HISTORICO.addAndGet(novo - antes);
+            int m = HISTORICO_MAXIMO.get();
+            while (total > m && !HISTORICO_MAXIMO.compareAndSet(m, total)) m = HISTORICO_MAXIMO.get();
+        }
+    }
+
+    static {
+        registrar("wepayu:type=Metricas", new Visao());
+        if (INTERVALO_LOG > 0) iniciarLog(INTERVALO_LOG);
+    }
+
+    private Metricas() {
+    }
+
+    /**
+     * Retorna as métricas de uma operação, criando-as (e publicando o MBean) no primeiro uso.
+     *
+     * @param nome nome da operação (ex.: {@code "totalFolha"})
+     * @return métricas da operação
+     */
+    public static MetricasOperacao operacao(String nome) {
+        MetricasOperacao m = OPERACOES.get(nome);
+        if (m != null) return m;
+        return OPERACOES.computeIfAbsent(nome, n -> {
+            MetricasOperacao nova = new MetricasOperacao(n);
+            registrar("wepayu:type=Operacao,name=" + ObjectName.quote(n), nova);
+            return nova;
+        });
+    }
+
+    /**
+     * Retorna as métricas de um tipo de comando, com o nome simples da classe sem o sufixo
+     * {@code Command} (ex.: {@code LancarCartao}).
+     *
+     * @param tipo classe do comando
+     * @return métricas do comando
+     */
+    public static MetricasOperacao comando(Class<?> tipo) {
+        return COMANDOS.get(tipo);
+    }
+
+    /**
+     * Cria o registro do tamanho do histórico de undo de um {@code Invoker}.
+     *
+     * @param dono o {@code Invoker}; quando ele é coletado, o seu histórico deixa o total
+     * @return o registro, que o dono atualiza a cada mudança do histórico
+     */
+    public static Historico historico(Object dono) {
+        Historico historico = new Historico();
+        COLETOR.register(dono, () -> historico.informar(0));
+        return historico;
+    }
+
+    /**
+     * Retorna uma linha com contagem, erros e percentis de cada operação executada e o histórico de undo
+     * somado entre os {@code Invoker}s vivos.
+     *
+     * @return relatório em uma linha
+     */
+    public static String relatorio() {
+        return relatorio(null, 0);
+    }
+
+    /** Zera as métricas de todas as operações e o máximo do histórico. */
+    public static void redefinir() {
+        OPERACOES.values().forEach(MetricasOperacao::redefinir);
+        HISTORICO_MAXIMO.set(HISTORICO.get());
+    }
+
+    /**
+     * @param anteriores contagens do relatório anterior, para mostrar só o que mudou e a vazão
+     *                   no intervalo; {@code null} para todas as operações já executadas
+     * @param segundos duração do intervalo
+     */
+    private static String relatorio(Map<String, Long> anteriores, double segundos) {
+        StringBuilder sb = new StringBuilder("historico=").append(HISTORICO.get())
+                .append(" (max ").append(HISTORICO_MAXIMO.get()).append(')');
+        List<MetricasOperacao> ops = new ArrayList<>(OPERACOES.values());
+        ops.sort((a, b) -> a.getNome().compareTo(b.getNome()));
+        for (MetricasOperacao m : ops) {
+            long n = m.getContagem();
+            if (n == 0) continue;
+            long antes = anteriores == null ? 0 : anteriores.getOrDefault(m.getNome(), 0L);
+            if (anteriores != null) {
+                anteriores.put(m.getNome(), n);
+                if (n == antes) continue;
+            }
+            HistogramaLatencia h = m.getLatencias();
+            sb.append("; ").append(m.getNome()).append(" n=").append(n);
+            if (anteriores != null && segundos > 0) {
+                sb.append(String.format(Locale.ROOT, " (+%d, %.1f/s)", n - antes, (n - antes) / segundos));
+            }
+            sb.append(String.format(Locale.ROOT, " err=%d p50=%s p99=%s p999=%s max=%s", m.getErros(),
+                    duracao(h.percentil(0.50)), duracao(h.percentil(0.99)), duracao(h.percentil(0.999)),
+                    duracao(h.getMaximo())));
+        }
+        return sb.toString();
+    }
+
+    private static String duracao(long nanos) {
+        if (nanos < 10_000) return nanos + "ns";
+        if (nanos < 10_000_000) return nanos / 1_000 + "us";
+        return nanos / 1_000_000 + "ms";
+    }
+
+    private static void registrar(String nome, Object mbean) {
+        if (!JMX) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName(nome));
+        } catch (JMException | SecurityException e) {
+            // outro carregador de classes já publicou o nome, ou o JMX não está disponível: as
+            // métricas continuam acessíveis por relatorio()
+        }
+    }
+
+    private static void iniciarLog(long segundos) {
+        System.Logger log = System.getLogger("wepayu.metricas");
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wepayu-metricas");
+            t.setDaemon(true);
+            return t;
+        });
+        Map<String, Long> anteriores = new HashMap<>();
+        agendador.scheduleAtFixedRate(() -> log.log(System.Logger.Level.INFO,
+                relatorio(anteriores, segundos)), segundos, segundos, TimeUnit.SECONDS);
+    }
+
+    /** Visão geral publicada via JMX. */
+    private static final class Visao implements MetricasMXBean {
+        @Override
+        public List<String> getOperacoes() {
+            List<String> nomes = new ArrayList<>(OPERACOES.keySet());
+            nomes.sort(null);
+            return nomes;
+        }
+
+        @Override
+        public int getTamanhoHistorico() {
+            return HISTORICO.get();
+        }
+
+        @Override
+        public int getTamanhoHistoricoMaximo() {
+            return HISTORICO_MAXIMO.get();
+        }
+
+        @Override
+        public String getRelatorio() {
+            return relatorio();
+        }
+
+        @Override
+        public void redefinir() {
+            Metricas.redefinir();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package wepayu.metricas;
+
+import java.util.List;
+
+/**
+ * Visão geral das métricas publicada via JMX ({@code wepayu:type=Metricas}).
+ */
+public interface MetricasMXBean {
+
+    /** @return nomes das operações com métricas registradas */
+    List<String> getOperacoes();
+
+    /** @return soma dos tamanhos dos históricos de undo dos {@code Invoker}s vivos */
+    int getTamanhoHistorico();
+
+    /** @return maior soma dos históricos de undo observada */
+    int getTamanhoHistoricoMaximo();
+
+    /** @return uma linha com o resumo de todas as operações, como a do log periódico */
+    String getRelatorio();
+
+    /** Zera as métricas de todas as operações e o máximo do histórico. */
+    void redefinir();
+}
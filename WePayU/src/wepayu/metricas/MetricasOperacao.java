@@ -0,0 +1,115 @@
+package wepayu.metricas;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contagem, erros e latências de uma operação (um tipo de {@code Command} ou uma consulta da
+ * {@code Facade}).
+ *
+ * <p>Obtida por {@link Metricas#operacao(String)} ou {@link Metricas#comando(Class)}; quem executa a
+ * operação mede o tempo com {@link System#nanoTime()} e chama {@link #registrar(long)} ou
+ * {@link #registrarErro(long, Throwable)}.</p>
+ */
+public final class MetricasOperacao implements MetricasOperacaoMXBean {
+
+    private final String nome;
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+    private final Map<String, LongAdder> errosPorTipo = new ConcurrentHashMap<>();
+    private final LongAdder erros = new LongAdder();
+    private final AtomicLong desde = new AtomicLong(System.nanoTime());
+
+    MetricasOperacao(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Registra uma execução bem-sucedida.
+     *
+     * @param nanos duração em nanossegundos
+     */
+    public void registrar(long nanos) {
+        latencias.registrar(nanos);
+    }
+
+    /**
+     * Registra uma execução que lançou exceção; a latência também entra no histograma.
+     *
+     * @param nanos duração em nanossegundos
+     * @param erro exceção lançada
+     */
+    public void registrarErro(long nanos, Throwable erro) {
+        latencias.registrar(nanos);
+        erros.increment();
+        errosPorTipo.computeIfAbsent(erro.getClass().getSimpleName(), k -> new LongAdder()).increment();
+    }
+
+    /** @return histograma de latências da operação */
+    public HistogramaLatencia getLatencias() {
+        return latencias;
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public long getContagem() {
+        return latencias.getContagem();
+    }
+
+    @Override
+    public long getErros() {
+        return erros.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrosPorTipo() {
+        Map<String, Long> m = new TreeMap<>();
+        errosPorTipo.forEach((tipo, n) -> m.put(tipo, n.sum()));
+        return m;
+    }
+
+    @Override
+    public double getVazaoPorSegundo() {
+        double segundos = (System.nanoTime() - desde.get()) / 1e9;
+        return segundos <= 0 ? 0 : getContagem() / segundos;
+    }
+
+    @Override
+    public double getMediaMicros() {
+        return latencias.getMedia() / 1e3;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latencias.percentil(0.50) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latencias.percentil(0.99) / 1e3;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latencias.percentil(0.999) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latencias.getMaximo() / 1e3;
+    }
+
+    @Override
+    public void redefinir() {
+        latencias.limpar();
+        erros.reset();
+        errosPorTipo.clear();
+        desde.set(System.nanoTime());
+    }
+}
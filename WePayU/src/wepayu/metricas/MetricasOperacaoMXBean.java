@@ -0,0 +1,45 @@
+package wepayu.metricas;
+
+import java.util.Map;
+
+/**
+ * Métricas de uma operação publicadas via JMX ({@code wepayu:type=Operacao,name=<operacao>}).
+ *
+ * <p>As latências estão em microssegundos e acumulam desde a criação ou desde o último
+ * {@link #redefinir()}.</p>
+ */
+public interface MetricasOperacaoMXBean {
+
+    /** @return nome da operação */
+    String getNome();
+
+    /** @return quantidade de execuções, inclusive as que falharam */
+    long getContagem();
+
+    /** @return quantidade de execuções que lançaram exceção */
+    long getErros();
+
+    /** @return execuções que falharam, por nome simples da classe da exceção */
+    Map<String, Long> getErrosPorTipo();
+
+    /** @return execuções por segundo desde a criação ou o último {@link #redefinir()} */
+    double getVazaoPorSegundo();
+
+    /** @return latência média */
+    double getMediaMicros();
+
+    /** @return percentil 50 da latência */
+    double getP50Micros();
+
+    /** @return percentil 99 da latência */
+    double getP99Micros();
+
+    /** @return percentil 99,9 da latência */
+    double getP999Micros();
+
+    /** @return maior latência */
+    double getMaxMicros();
+
+    /** Zera contagens, erros e latências. */
+    void redefinir();
+}
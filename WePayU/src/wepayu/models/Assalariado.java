@@ -8,6 +8,7 @@ package wepayu.models;
  * @see Comissionado
  */
 public class Assalariado extends Empregado implements Cloneable {
+    private static final long serialVersionUID = 1L;
     private double salarioMensal;
 
     /**
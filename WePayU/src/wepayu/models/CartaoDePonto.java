@@ -9,7 +9,8 @@ import java.util.Objects;
  *
  * @see Horista
  */
-public class CartaoDePonto implements Cloneable {
+public class CartaoDePonto implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 1L;
     private LocalDate data;
     private double horas;
 
@@ -12,6 +12,7 @@ import java.util.ArrayList;
  * @see ResultadoDeVenda
  */
 public class Comissionado extends Assalariado implements Cloneable {
+    private static final long serialVersionUID = 1L;
     private double comissao;
     private ArrayList<ResultadoDeVenda> listaVendas;
 
@@ -11,7 +11,8 @@ package wepayu.models;
  * @see Horista
  * @see Assalariado
  */
-public abstract class Empregado implements Cloneable {
+public abstract class Empregado implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 1L;
     private String nome;
     private String endereco;
     private String tipo;
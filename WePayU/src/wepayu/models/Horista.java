@@ -13,6 +13,7 @@ import java.util.ArrayList;
  * @see CartaoDePonto
  */
 public class Horista extends Empregado implements Cloneable {
+    private static final long serialVersionUID = 1L;
     private double salarioHora;
     private ArrayList<CartaoDePonto> listaCartoes;
 
@@ -15,11 +15,12 @@ import java.util.List;
  * @see Empregado
  * @see TaxaServico
  */
-public class MembroSindicato implements Cloneable {
+public class MembroSindicato implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 1L;
     private String idMembro;
     private double taxaSindical;
     private double dividaSindical = 0.0;
-    private List<TaxaServico> taxasDeServicos = new ArrayList<>();
+    private ArrayList<TaxaServico> taxasDeServicos = new ArrayList<>();
     private LocalDate ultimoDiaPago;
 
     /**
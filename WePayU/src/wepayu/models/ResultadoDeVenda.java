@@ -11,7 +11,8 @@ import java.util.Objects;
  *
  * @see Comissionado
  */
-public class ResultadoDeVenda implements Cloneable {
+public class ResultadoDeVenda implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 1L;
     private LocalDate date;
     private double valor;
 
@@ -11,7 +11,8 @@ import java.util.Objects;
  *
  * @see MembroSindicato
  */
-public class TaxaServico implements Cloneable {
+public class TaxaServico implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 1L;
     private LocalDate data;
     private double valor;
 
@@ -0,0 +1,18 @@
+package wepayu.script;
+
+/**
+ * Erro de sintaxe ou de resolução em um script de aceitação (comando inexistente, aspas não
+ * fechadas, variável não definida etc.). Não confundir com as falhas de teste, que são
+ * registradas no {@link ResultadoScript} sem interromper o script.
+ */
+public class ErroDeScript extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public ErroDeScript(String message) {
+        super(message);
+    }
+
+    public ErroDeScript(String arquivo, int linha, String message) {
+        super("Linha " + linha + ", arquivo " + arquivo + ": " + message);
+    }
+}
@@ -0,0 +1,101 @@
+package wepayu.script;
+
+import wepayu.Main;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executor nativo dos scripts de aceitação, alternativa ao {@code EasyAccept.main}.
+ *
+ * <p>
+ * Compila cada script uma única vez ({@link Script#compilar(Path, Class)}) e o executa sobre uma
+ * nova instância da classe-alvo, criada pelo construtor sem argumentos, exatamente como o EasyAccept
+ * faz a cada arquivo. A saída por script usa o mesmo resumo do EasyAccept
+ * ({@code Test file X: N tests OK}); ao final é impressa a tabela de tempos por comando.
+ * </p>
+ *
+ * <p>Uso: {@code ExecutorDeScripts [--alvo classe] [--repeticoes N] [script...]}; sem scripts,
+ * executa a mesma sequência de {@link Main}.</p>
+ */
+public final class ExecutorDeScripts {
+
+    private ExecutorDeScripts() {
+    }
+
+    /**
+     * Executa os scripts em sequência, cada um com uma nova instância da classe-alvo.
+     *
+     * @param alvo classe-alvo (com construtor público sem argumentos)
+     * @param scripts scripts compilados, na ordem de execução
+     * @return os resultados, na mesma ordem
+     * @throws ReflectiveOperationException se a classe-alvo não puder ser instanciada
+     */
+    public static List<ResultadoScript> executar(Class<?> alvo, List<Script> scripts)
+            throws ReflectiveOperationException {
+        List<ResultadoScript> resultados = new ArrayList<>(scripts.size());
+        for (Script s : scripts) {
+            Object instancia = alvo.getConstructor().newInstance();
+            resultados.add(s.executar(instancia));
+        }
+        return resultados;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String classe = "wepayu.command.Facade";
+        int repeticoes = 1;
+        List<String> arquivos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--alvo" -> classe = args[++i];
+                case "--repeticoes" -> repeticoes = Integer.parseInt(args[++i]);
+                default -> arquivos.add(args[i]);
+            }
+        }
+        if (arquivos.isEmpty()) {
+            arquivos.addAll(List.of(Main.SCRIPTS));
+        }
+
+        Class<?> alvo = Class.forName(classe);
+        long inicioCompilacao = System.nanoTime();
+        List<Script> scripts = new ArrayList<>();
+        for (String a : arquivos) {
+            scripts.add(Script.compilar(Path.of(a), alvo));
+        }
+        long compilacao = System.nanoTime() - inicioCompilacao;
+
+        ResultadoScript consolidado = new ResultadoScript("total");
+        long inicio = System.nanoTime();
+        boolean sucesso = true;
+        for (int r = 0; r < repeticoes; r++) {
+            for (ResultadoScript resultado : executar(alvo, scripts)) {
+                if (r == 0 || !resultado.isSucesso()) {
+                    System.out.println(resultado);
+                }
+                sucesso &= resultado.isSucesso();
+                consolidado.somarTempos(resultado);
+            }
+        }
+        long total = System.nanoTime() - inicio;
+
+        System.out.printf("%nCompilacao: %.2f ms; execucao: %d repeticao(oes) em %.2f ms (%.3f ms por repeticao)%n",
+                compilacao / 1e6, repeticoes, total / 1e6, total / 1e6 / repeticoes);
+        imprimirTempos(consolidado);
+        if (!sucesso) System.exit(1);
+    }
+
+    private static void imprimirTempos(ResultadoScript resultado) {
+        System.out.printf("%-30s %10s %12s %12s %12s%n", "comando", "chamadas", "total(ms)", "medio(us)", "max(us)");
+        resultado.getTempos().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, ResultadoScript.Tempo> e) -> e.getValue().getTotalNanos())
+                        .reversed())
+                .forEach(e -> {
+                    ResultadoScript.Tempo t = e.getValue();
+                    System.out.printf("%-30s %10d %12.2f %12.2f %12.2f%n", e.getKey(), t.getChamadas(),
+                            t.getTotalNanos() / 1e6, t.getMedioNanos() / 1e3, t.getMaximoNanos() / 1e3);
+                });
+    }
+}
@@ -0,0 +1,159 @@
+package wepayu.script;
+
+import wepayu.Main;
+import wepayu.command.Facade;
+import wepayu.services.Sistema;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Executa os scripts de aceitação em paralelo, cada grupo com seu próprio {@link Sistema}.
+ *
+ * <p>
+ * Os scripts de persistência ({@code usN_1.txt}) dependem do estado deixado pelo script anterior
+ * ({@code usN.txt}); por isso os scripts são agrupados pelo nome sem o sufixo {@code _<n>}, e cada
+ * grupo roda em sequência sobre um {@code Sistema} exclusivo, com uma nova {@link Facade} (e um novo
+ * histórico) por script, como no EasyAccept. Grupos diferentes rodam em paralelo no pool.
+ * </p>
+ *
+ * <p>
+ * Cada grupo grava as saídas de {@code rodaFolha} em um diretório temporário próprio
+ * ({@link Facade#setDiretorioSaida(Path)}), e o {@code equalFiles} procura os arquivos gerados
+ * nesse diretório antes do diretório base; assim os grupos não disputam os mesmos arquivos. Os
+ * diretórios de grupos bem-sucedidos são removidos ao final.
+ * </p>
+ *
+ * <p>Uso: {@code ExecutorParalelo [--threads N] [--repeticoes N] [script...]}; sem scripts,
+ * executa os mesmos de {@link Main}.</p>
+ *
+ * @see ExecutorDeScripts
+ */
+public final class ExecutorParalelo {
+
+    private ExecutorParalelo() {
+    }
+
+    /**
+     * Agrupa os scripts que compartilham estado, preservando a ordem de cada grupo.
+     *
+     * @param scripts scripts compilados, na ordem original
+     * @return grupos, na ordem da primeira ocorrência
+     */
+    static List<List<Script>> agrupar(List<Script> scripts) {
+        Map<String, List<Script>> grupos = new LinkedHashMap<>();
+        for (Script s : scripts) {
+            String arquivo = Path.of(s.getNome()).getFileName().toString();
+            int ponto = arquivo.lastIndexOf('.');
+            String base = (ponto > 0 ? arquivo.substring(0, ponto) : arquivo).replaceFirst("_\\d+$", "");
+            grupos.computeIfAbsent(base, k -> new ArrayList<>()).add(s);
+        }
+        return new ArrayList<>(grupos.values());
+    }
+
+    /**
+     * Executa os scripts em paralelo, um grupo por tarefa.
+     *
+     * @param scripts scripts compilados para {@link Facade}, na ordem original
+     * @param pool executor das tarefas
+     * @param diretorio diretório base dos arquivos de referência (ex.: o que contém {@code ok/})
+     * @return os resultados, na ordem original dos scripts
+     * @throws Exception se uma tarefa falhar de forma inesperada
+     */
+    public static List<ResultadoScript> executar(List<Script> scripts, ExecutorService pool, Path diretorio)
+            throws Exception {
+        List<Future<List<ResultadoScript>>> tarefas = new ArrayList<>();
+        for (List<Script> grupo : agrupar(scripts)) {
+            tarefas.add(pool.submit(() -> executarGrupo(grupo, diretorio)));
+        }
+        Map<Script, ResultadoScript> porScript = new LinkedHashMap<>();
+        int g = 0;
+        for (List<Script> grupo : agrupar(scripts)) {
+            List<ResultadoScript> resultados = tarefas.get(g++).get();
+            for (int i = 0; i < grupo.size(); i++) {
+                porScript.put(grupo.get(i), resultados.get(i));
+            }
+        }
+        List<ResultadoScript> ordenados = new ArrayList<>(scripts.size());
+        for (Script s : scripts) {
+            ordenados.add(porScript.get(s));
+        }
+        return ordenados;
+    }
+
+    private static List<ResultadoScript> executarGrupo(List<Script> grupo, Path diretorio) throws IOException {
+        Path saida = Files.createTempDirectory("wepayu-");
+        Sistema sistema = new Sistema();
+        List<ResultadoScript> resultados = new ArrayList<>(grupo.size());
+        boolean sucesso = true;
+        for (Script s : grupo) {
+            Facade facade = new Facade(sistema);
+            facade.setDiretorioSaida(saida);
+            ResultadoScript r = s.executar(facade, diretorio, saida);
+            sucesso &= r.isSucesso();
+            resultados.add(r);
+        }
+        if (sucesso) {
+            apagar(saida);
+        }
+        return resultados;
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path p : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int repeticoes = 1;
+        List<String> arquivos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--repeticoes" -> repeticoes = Integer.parseInt(args[++i]);
+                default -> arquivos.add(args[i]);
+            }
+        }
+        if (arquivos.isEmpty()) {
+            arquivos.addAll(List.of(Main.SCRIPTS));
+        }
+
+        List<Script> scripts = new ArrayList<>();
+        for (String a : arquivos) {
+            scripts.add(Script.compilar(Path.of(a), Facade.class));
+        }
+
+        boolean sucesso = true;
+        long inicio = System.nanoTime();
+        long somaScripts = 0;
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int r = 0; r < repeticoes; r++) {
+                for (ResultadoScript resultado : executar(scripts, pool, Path.of(""))) {
+                    if (r == 0 || !resultado.isSucesso()) {
+                        System.out.println(resultado);
+                    }
+                    sucesso &= resultado.isSucesso();
+                    somaScripts += resultado.getDuracaoNanos();
+                }
+            }
+        }
+        long total = System.nanoTime() - inicio;
+        System.out.printf("%n%d repeticao(oes) em %.2f ms com %d thread(s); soma dos scripts: %.2f ms%n",
+                repeticoes, total / 1e6, threads, somaScripts / 1e6);
+        if (!sucesso) System.exit(1);
+    }
+}
@@ -0,0 +1,270 @@
+package wepayu.script;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instrução pré-compilada de um script de aceitação.
+ *
+ * <p>Cada diretiva do formato EasyAccept ({@code expect}, {@code expectError},
+ * {@code expectDifferent}, {@code equalFiles}, {@code quit}, atribuição e chamada simples)
+ * tem sua própria implementação, com a {@link Chamada} já resolvida na tabela de comandos.</p>
+ */
+abstract class Instrucao {
+
+    /**
+     * Estado de uma execução de script.
+     */
+    static final class Contexto {
+        final Object alvo;
+        final Map<String, String> variaveis;
+        final ResultadoScript resultado;
+        final Path diretorio;
+        final Path diretorioSaida;
+
+        Contexto(Object alvo, Map<String, String> variaveis, ResultadoScript resultado, Path diretorio,
+                 Path diretorioSaida) {
+            this.alvo = alvo;
+            this.variaveis = variaveis;
+            this.resultado = resultado;
+            this.diretorio = diretorio;
+            this.diretorioSaida = diretorioSaida;
+        }
+
+        /**
+         * Resolve um arquivo do script: primeiro no diretório de saída (onde ficam os arquivos
+         * gerados pelo script), depois no diretório base (arquivos de referência, ex.: {@code ok/}).
+         *
+         * @throws NoSuchFileException se o arquivo não existir em nenhum dos dois, com os dois caminhos
+         *                             procurados na mensagem
+         */
+        Path resolver(String arquivo) throws NoSuchFileException {
+            Path gerado = diretorioSaida == null ? null : diretorioSaida.resolve(arquivo);
+            if (gerado != null && Files.exists(gerado)) return gerado;
+            Path referencia = diretorio.resolve(arquivo);
+            if (Files.exists(referencia)) return referencia;
+            throw new NoSuchFileException(arquivo, null, gerado == null
+                    ? "nao encontrado em " + referencia.toAbsolutePath()
+                    : "nao encontrado em " + gerado.toAbsolutePath() + " nem em " + referencia.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Chamada de um comando da classe-alvo (ou do comando embutido {@code echo}).
+     */
+    static final class Chamada {
+        final String comando;
+        final TabelaDeComandos.Entrada entrada;
+        final Texto[] argumentos;
+
+        Chamada(String comando, TabelaDeComandos.Entrada entrada, Texto[] argumentos) {
+            this.comando = comando;
+            this.entrada = entrada;
+            this.argumentos = argumentos;
+        }
+
+        Object invocar(Contexto ctx) throws Throwable {
+            String[] valores = new String[argumentos.length];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = argumentos[i].resolver(ctx.variaveis);
+            }
+            if (entrada == null) {
+                return String.join(" ", valores);
+            }
+            long inicio = System.nanoTime();
+            try {
+                return entrada.invocar(ctx.alvo, valores);
+            } finally {
+                ctx.resultado.registrarTempo(comando, System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    final int linha;
+
+    Instrucao(int linha) {
+        this.linha = linha;
+    }
+
+    /**
+     * Executa a instrução, registrando teste e falhas no resultado do contexto.
+     *
+     * @return {@code false} se o script deve parar ({@code quit})
+     */
+    abstract boolean executar(Contexto ctx);
+
+    static String mensagem(Throwable t) {
+        if (t instanceof Error e && !(t instanceof AssertionError)) throw e;
+        return t.getMessage() != null ? t.getMessage() : t.toString();
+    }
+
+    // --- Diretivas ---
+
+    /** Chamada simples, com atribuição opcional ({@code var=comando ...}). */
+    static final class Executar extends Instrucao {
+        private final String variavel;
+        private final Chamada chamada;
+
+        Executar(int linha, String variavel, Chamada chamada) {
+            super(linha);
+            this.variavel = variavel;
+            this.chamada = chamada;
+        }
+
+        @Override
+        boolean executar(Contexto ctx) {
+            ctx.resultado.contarTeste();
+            try {
+                Object r = chamada.invocar(ctx);
+                ctx.resultado.registrarRetorno(r);
+                if (variavel != null) ctx.variaveis.put(variavel, String.valueOf(r));
+            } catch (Throwable t) {
+                ctx.resultado.registrarFalha(linha, "Erro inesperado: " + mensagem(t));
+            }
+            return true;
+        }
+    }
+
+    /** {@code expect <valor> comando ...} */
+    static final class Esperar extends Instrucao {
+        private final Texto esperado;
+        private final Chamada chamada;
+
+        Esperar(int linha, Texto esperado, Chamada chamada) {
+            super(linha);
+            this.esperado = esperado;
+            this.chamada = chamada;
+        }
+
+        @Override
+        boolean executar(Contexto ctx) {
+            ctx.resultado.contarTeste();
+            try {
+                String e = esperado.resolver(ctx.variaveis);
+                String r = String.valueOf(chamada.invocar(ctx));
+                if (!e.equals(r)) {
+                    ctx.resultado.registrarFalha(linha, "Esperado <" + e + ">, mas foi <" + r + ">.");
+                }
+            } catch (Throwable t) {
+                ctx.resultado.registrarFalha(linha, "Erro inesperado: " + mensagem(t));
+            }
+            return true;
+        }
+    }
+
+    /** {@code expectError <mensagem> comando ...} */
+    static final class EsperarErro extends Instrucao {
+        private final Texto esperado;
+        private final Chamada chamada;
+
+        EsperarErro(int linha, Texto esperado, Chamada chamada) {
+            super(linha);
+            this.esperado = esperado;
+            this.chamada = chamada;
+        }
+
+        @Override
+        boolean executar(Contexto ctx) {
+            ctx.resultado.contarTeste();
+            String e;
+            try {
+                e = esperado.resolver(ctx.variaveis);
+            } catch (ErroDeScript erro) {
+                ctx.resultado.registrarFalha(linha, erro.getMessage());
+                return true;
+            }
+            try {
+                Object r = chamada.invocar(ctx);
+                ctx.resultado.registrarFalha(linha, "Esperado erro <" + e + ">, mas nenhum erro ocorreu (resultado <"
+                        + r + ">).");
+            } catch (Throwable t) {
+                String m = mensagem(t);
+                if (!e.equals(m)) {
+                    ctx.resultado.registrarFalha(linha, "Esperado erro <" + e + ">, mas foi <" + m + ">.");
+                }
+            }
+            return true;
+        }
+    }
+
+    /** {@code expectDifferent <valor> comando ...} */
+    static final class EsperarDiferente extends Instrucao {
+        private final Texto valor;
+        private final Chamada chamada;
+
+        EsperarDiferente(int linha, Texto valor, Chamada chamada) {
+            super(linha);
+            this.valor = valor;
+            this.chamada = chamada;
+        }
+
+        @Override
+        boolean executar(Contexto ctx) {
+            ctx.resultado.contarTeste();
+            try {
+                String v = valor.resolver(ctx.variaveis);
+                String r = String.valueOf(chamada.invocar(ctx));
+                if (v.equals(r)) {
+                    ctx.resultado.registrarFalha(linha, "Esperado valor diferente de <" + v + ">.");
+                }
+            } catch (Throwable t) {
+                ctx.resultado.registrarFalha(linha, "Erro inesperado: " + mensagem(t));
+            }
+            return true;
+        }
+    }
+
+    /** {@code equalFiles file1=... file2=...}: compara os arquivos linha a linha. */
+    static final class ArquivosIguais extends Instrucao {
+        private final Texto arquivo1;
+        private final Texto arquivo2;
+
+        ArquivosIguais(int linha, Texto arquivo1, Texto arquivo2) {
+            super(linha);
+            this.arquivo1 = arquivo1;
+            this.arquivo2 = arquivo2;
+        }
+
+        @Override
+        boolean executar(Contexto ctx) {
+            ctx.resultado.contarTeste();
+            try {
+                Path a = ctx.resolver(arquivo1.resolver(ctx.variaveis));
+                Path b = ctx.resolver(arquivo2.resolver(ctx.variaveis));
+                List<String> la = Files.readAllLines(a);
+                List<String> lb = Files.readAllLines(b);
+                int n = Math.min(la.size(), lb.size());
+                for (int i = 0; i < n; i++) {
+                    if (!la.get(i).equals(lb.get(i))) {
+                        ctx.resultado.registrarFalha(linha, "Arquivos " + a + " e " + b + " diferem na linha "
+                                + (i + 1) + ": <" + la.get(i) + "> / <" + lb.get(i) + ">.");
+                        return true;
+                    }
+                }
+                if (la.size() != lb.size()) {
+                    ctx.resultado.registrarFalha(linha, "Arquivos " + a + " e " + b + " tem tamanhos diferentes: "
+                            + la.size() + " / " + lb.size() + " linhas.");
+                }
+            } catch (IOException | ErroDeScript e) {
+                ctx.resultado.registrarFalha(linha, "Erro ao comparar arquivos: " + mensagem(e));
+            }
+            return true;
+        }
+    }
+
+    /** {@code quit}: encerra o script. */
+    static final class Sair extends Instrucao {
+        Sair(int linha) {
+            super(linha);
+        }
+
+        @Override
+        boolean executar(Contexto ctx) {
+            return false;
+        }
+    }
+}
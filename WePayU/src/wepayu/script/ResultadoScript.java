@@ -0,0 +1,125 @@
+package wepayu.script;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado da execução de um script: quantidade de testes, falhas por linha e tempos por comando.
+ *
+ * <p>Os tempos medem apenas a invocação do comando na classe-alvo (sem o despacho e a
+ * comparação do resultado) e são agregados pelo nome do comando.</p>
+ */
+public class ResultadoScript {
+
+    /**
+     * Tempos acumulados de um comando.
+     */
+    public static final class Tempo {
+        private long chamadas;
+        private long totalNanos;
+        private long maximoNanos;
+
+        void registrar(long nanos) {
+            chamadas++;
+            totalNanos += nanos;
+            if (nanos > maximoNanos) maximoNanos = nanos;
+        }
+
+        void somar(Tempo outro) {
+            chamadas += outro.chamadas;
+            totalNanos += outro.totalNanos;
+            maximoNanos = Math.max(maximoNanos, outro.maximoNanos);
+        }
+
+        public long getChamadas() { return chamadas; }
+
+        public long getTotalNanos() { return totalNanos; }
+
+        public long getMaximoNanos() { return maximoNanos; }
+
+        /** @return tempo médio por chamada, em nanossegundos */
+        public double getMedioNanos() {
+            return chamadas == 0 ? 0 : (double) totalNanos / chamadas;
+        }
+    }
+
+    private final String arquivo;
+    private final List<String> falhas = new ArrayList<>();
+    private final Map<String, Tempo> tempos = new LinkedHashMap<>();
+    private int testes;
+    private long duracaoNanos;
+    private Object ultimoRetorno;
+
+    ResultadoScript(String arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    void contarTeste() {
+        testes++;
+    }
+
+    void registrarFalha(int linha, String mensagem) {
+        falhas.add("Linha " + linha + ", arquivo " + arquivo + ": " + mensagem);
+    }
+
+    void registrarTempo(String comando, long nanos) {
+        tempos.computeIfAbsent(comando, c -> new Tempo()).registrar(nanos);
+    }
+
+    void registrarRetorno(Object retorno) {
+        ultimoRetorno = retorno;
+    }
+
+    void setDuracaoNanos(long duracaoNanos) {
+        this.duracaoNanos = duracaoNanos;
+    }
+
+    /**
+     * Acumula os tempos de outro resultado neste (útil para consolidar várias execuções).
+     *
+     * @param outro resultado a somar
+     */
+    public void somarTempos(ResultadoScript outro) {
+        for (Map.Entry<String, Tempo> e : outro.tempos.entrySet()) {
+            tempos.computeIfAbsent(e.getKey(), c -> new Tempo()).somar(e.getValue());
+        }
+    }
+
+    public String getArquivo() { return arquivo; }
+
+    /** @return número de comandos executados (mesma contagem do EasyAccept) */
+    public int getTestes() { return testes; }
+
+    /** @return mensagens de falha, na ordem do script */
+    public List<String> getFalhas() { return Collections.unmodifiableList(falhas); }
+
+    public boolean isSucesso() { return falhas.isEmpty(); }
+
+    /** @return tempos por comando, na ordem da primeira execução */
+    public Map<String, Tempo> getTempos() { return Collections.unmodifiableMap(tempos); }
+
+    /** @return retorno da última chamada simples ou atribuição ({@code null} se nenhuma ou {@code void}) */
+    public Object getUltimoRetorno() { return ultimoRetorno; }
+
+    /** @return duração total do script, incluindo despacho e comparações */
+    public long getDuracaoNanos() { return duracaoNanos; }
+
+    /**
+     * Resumo no mesmo formato do EasyAccept ({@code Test file X: N tests OK}), seguido das falhas.
+     */
+    @Override
+    public String toString() {
+        if (falhas.isEmpty()) {
+            return "Test file " + arquivo + ": " + testes + " tests OK";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Test file ").append(arquivo).append(": ").append(falhas.size()).append(" errors:");
+        for (String f : falhas) {
+            sb.append(System.lineSeparator()).append(f);
+        }
+        return sb.toString();
+    }
+}
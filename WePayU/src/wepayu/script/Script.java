@@ -0,0 +1,274 @@
+package wepayu.script;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Script de aceitação no formato EasyAccept ({@code tests/us*.txt}), pré-compilado.
+ *
+ * <p>
+ * A compilação lê o arquivo uma única vez, junta as linhas continuadas com {@code \}, separa os
+ * argumentos (com ou sem aspas, com ou sem o prefixo {@code nome=}), localiza as referências
+ * {@code ${var}} e resolve cada comando na {@link TabelaDeComandos} da classe-alvo. O resultado é
+ * uma lista de {@link Instrucao} que pode ser executada quantas vezes for necessário, sem nova
+ * análise de texto nem reflexão.
+ * </p>
+ *
+ * <h3>Formato aceito</h3>
+ * <ul>
+ *   <li>Linhas em branco e linhas iniciadas por {@code #} são ignoradas;</li>
+ *   <li>{@code comando arg...} e {@code var=comando arg...} (o resultado fica em {@code ${var}});</li>
+ *   <li>{@code expect <valor> comando arg...}, {@code expectError <mensagem> comando arg...}
+ *       e {@code expectDifferent <valor> comando arg...} (diretivas sem distinção de maiúsculas);</li>
+ *   <li>{@code equalFiles file1=<a> file2=<b>}, {@code echo <texto>} e {@code quit};</li>
+ *   <li>Os argumentos são casados por posição; o prefixo {@code nome=} é apenas documental.</li>
+ * </ul>
+ *
+ * @see ExecutorDeScripts
+ */
+public final class Script {
+
+    private final String nome;
+    private final List<Instrucao> instrucoes;
+
+    private Script(String nome, List<Instrucao> instrucoes) {
+        this.nome = nome;
+        this.instrucoes = instrucoes;
+    }
+
+    /**
+     * Compila um arquivo de script para a classe-alvo informada.
+     *
+     * @param arquivo caminho do script
+     * @param alvo classe cujos métodos públicos são os comandos (ex.: {@code Facade})
+     * @return o script compilado
+     * @throws IOException se o arquivo não puder ser lido
+     * @throws ErroDeScript se houver erro de sintaxe ou comando inexistente
+     */
+    public static Script compilar(Path arquivo, Class<?> alvo) throws IOException, ErroDeScript {
+        return compilar(arquivo.toString(), Files.readAllLines(arquivo, StandardCharsets.UTF_8), alvo);
+    }
+
+    /**
+     * Compila as linhas de um script para a classe-alvo informada.
+     *
+     * @param nome nome usado nas mensagens (normalmente o caminho do arquivo)
+     * @param linhas linhas do script
+     * @param alvo classe cujos métodos públicos são os comandos
+     * @return o script compilado
+     * @throws ErroDeScript se houver erro de sintaxe ou comando inexistente
+     */
+    public static Script compilar(String nome, List<String> linhas, Class<?> alvo) throws ErroDeScript {
+        TabelaDeComandos tabela = TabelaDeComandos.de(alvo);
+        List<Instrucao> instrucoes = new ArrayList<>();
+        StringBuilder logica = new StringBuilder();
+        int inicioLogica = 0;
+        for (int i = 0; i < linhas.size(); i++) {
+            String linha = linhas.get(i);
+            if (logica.length() == 0) {
+                String t = linha.strip();
+                if (t.isEmpty() || t.startsWith("#")) continue;
+                inicioLogica = i + 1;
+                linha = t;
+            } else {
+                linha = linha.strip();
+            }
+            if (linha.endsWith("\\")) {
+                logica.append(linha, 0, linha.length() - 1).append(' ');
+                continue;
+            }
+            logica.append(linha);
+            instrucoes.add(compilarLinha(nome, inicioLogica, logica.toString(), tabela));
+            logica.setLength(0);
+        }
+        if (logica.length() > 0) {
+            instrucoes.add(compilarLinha(nome, inicioLogica, logica.toString(), tabela));
+        }
+        return new Script(nome, List.copyOf(instrucoes));
+    }
+
+    /**
+     * Executa o script sobre uma instância da classe-alvo, resolvendo arquivos relativos
+     * ao diretório de trabalho.
+     *
+     * @param alvo instância que recebe os comandos
+     * @return o resultado, com falhas e tempos por comando
+     */
+    public ResultadoScript executar(Object alvo) {
+        return executar(alvo, Path.of(""));
+    }
+
+    /**
+     * Executa o script sobre uma instância da classe-alvo.
+     *
+     * @param alvo instância que recebe os comandos
+     * @param diretorio diretório base dos caminhos relativos de {@code equalFiles}
+     * @return o resultado, com falhas e tempos por comando
+     */
+    public ResultadoScript executar(Object alvo, Path diretorio) {
+        return executar(alvo, diretorio, null);
+    }
+
+    /**
+     * Executa o script sobre uma instância da classe-alvo, com os arquivos gerados isolados em
+     * um diretório próprio. Em {@code equalFiles}, cada caminho é procurado primeiro em
+     * {@code diretorioSaida} e depois em {@code diretorio}.
+     *
+     * @param alvo instância que recebe os comandos (já configurada para gravar em {@code diretorioSaida})
+     * @param diretorio diretório base dos arquivos de referência
+     * @param diretorioSaida diretório dos arquivos gerados, ou {@code null}
+     * @return o resultado, com falhas e tempos por comando
+     */
+    public ResultadoScript executar(Object alvo, Path diretorio, Path diretorioSaida) {
+        return executar(alvo, new HashMap<>(), diretorio, diretorioSaida);
+    }
+
+    /**
+     * Executa o script com variáveis {@code ${var}} de uma sessão, que sobrevivem entre execuções
+     * (ex.: comandos avulsos enviados um a um ao {@code DaemonResidente}).
+     *
+     * @param alvo instância que recebe os comandos
+     * @param variaveis variáveis da sessão, lidas e atualizadas pelo script
+     * @param diretorio diretório base dos arquivos de referência
+     * @param diretorioSaida diretório dos arquivos gerados, ou {@code null}
+     * @return o resultado, com falhas e tempos por comando
+     */
+    public ResultadoScript executar(Object alvo, Map<String, String> variaveis, Path diretorio, Path diretorioSaida) {
+        ResultadoScript resultado = new ResultadoScript(nome);
+        Instrucao.Contexto ctx = new Instrucao.Contexto(alvo, variaveis, resultado, diretorio, diretorioSaida);
+        long inicio = System.nanoTime();
+        for (Instrucao instrucao : instrucoes) {
+            if (!instrucao.executar(ctx)) break;
+        }
+        resultado.setDuracaoNanos(System.nanoTime() - inicio);
+        return resultado;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /** @return número de instruções compiladas */
+    public int getTamanho() {
+        return instrucoes.size();
+    }
+
+    // --- Compilação ---
+
+    /** Argumento de uma linha: nome opcional ({@code nome=}) e valor sem aspas. */
+    private record Argumento(String nome, String valor, boolean entreAspas) {
+        String literal() {
+            return nome == null ? valor : nome + "=" + valor;
+        }
+    }
+
+    private static Instrucao compilarLinha(String arquivo, int linha, String texto, TabelaDeComandos tabela)
+            throws ErroDeScript {
+        List<Argumento> args = separar(arquivo, linha, texto);
+        Argumento primeiro = args.get(0);
+
+        if (primeiro.nome() != null && !primeiro.entreAspas()) {
+            Instrucao.Chamada chamada = chamada(arquivo, linha, primeiro.valor(), args.subList(1, args.size()), tabela);
+            return new Instrucao.Executar(linha, primeiro.nome(), chamada);
+        }
+
+        String diretiva = primeiro.valor().toLowerCase(Locale.ROOT);
+        switch (diretiva) {
+            case "quit":
+                return new Instrucao.Sair(linha);
+            case "expect":
+            case "expecterror":
+            case "expectdifferent": {
+                if (args.size() < 3) {
+                    throw new ErroDeScript(arquivo, linha, primeiro.valor() + " requer um valor e um comando.");
+                }
+                Texto valor = Texto.de(args.get(1).literal());
+                Instrucao.Chamada chamada = chamada(arquivo, linha, args.get(2).valor(), args.subList(3, args.size()), tabela);
+                return switch (diretiva) {
+                    case "expect" -> new Instrucao.Esperar(linha, valor, chamada);
+                    case "expecterror" -> new Instrucao.EsperarErro(linha, valor, chamada);
+                    default -> new Instrucao.EsperarDiferente(linha, valor, chamada);
+                };
+            }
+            case "equalfiles":
+                if (args.size() != 3) {
+                    throw new ErroDeScript(arquivo, linha, "equalFiles requer dois arquivos.");
+                }
+                return new Instrucao.ArquivosIguais(linha, Texto.de(args.get(1).valor()), Texto.de(args.get(2).valor()));
+            default:
+                return new Instrucao.Executar(linha, null,
+                        chamada(arquivo, linha, primeiro.valor(), args.subList(1, args.size()), tabela));
+        }
+    }
+
+    private static Instrucao.Chamada chamada(String arquivo, int linha, String comando, List<Argumento> args,
+                                             TabelaDeComandos tabela) throws ErroDeScript {
+        Texto[] argumentos = new Texto[args.size()];
+        for (int i = 0; i < argumentos.length; i++) {
+            argumentos[i] = Texto.de(args.get(i).valor());
+        }
+        if (comando.equalsIgnoreCase("echo")) {
+            return new Instrucao.Chamada("echo", null, argumentos);
+        }
+        TabelaDeComandos.Entrada entrada = tabela.buscar(comando, argumentos.length);
+        if (entrada == null) {
+            throw new ErroDeScript(arquivo, linha, "Comando " + comando + " com " + argumentos.length
+                    + " parametros nao existe em " + tabela.getClasse().getSimpleName() + ".");
+        }
+        return new Instrucao.Chamada(comando, entrada, argumentos);
+    }
+
+    /**
+     * Separa uma linha lógica em argumentos. Aspas delimitam valores com espaços e {@code \"}
+     * representa uma aspa dentro delas.
+     */
+    private static List<Argumento> separar(String arquivo, int linha, String texto) throws ErroDeScript {
+        List<Argumento> args = new ArrayList<>();
+        int n = texto.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && Character.isWhitespace(texto.charAt(i))) i++;
+            if (i >= n) break;
+
+            String nome = null;
+            int j = i;
+            if (Character.isJavaIdentifierStart(texto.charAt(j))) {
+                while (j < n && Character.isJavaIdentifierPart(texto.charAt(j)) && texto.charAt(j) != '$') j++;
+                if (j < n && texto.charAt(j) == '=') {
+                    nome = texto.substring(i, j);
+                    i = j + 1;
+                }
+            }
+
+            StringBuilder valor = new StringBuilder();
+            boolean aspas = false;
+            while (i < n && !Character.isWhitespace(texto.charAt(i))) {
+                char c = texto.charAt(i);
+                if (c == '"') {
+                    aspas = true;
+                    i++;
+                    while (i < n && texto.charAt(i) != '"') {
+                        if (texto.charAt(i) == '\\' && i + 1 < n && texto.charAt(i + 1) == '"') i++;
+                        valor.append(texto.charAt(i++));
+                    }
+                    if (i >= n) {
+                        throw new ErroDeScript(arquivo, linha, "Aspas nao fechadas.");
+                    }
+                    i++;
+                } else {
+                    valor.append(c);
+                    i++;
+                }
+            }
+            args.add(new Argumento(nome, valor.toString(), aspas));
+        }
+        return args;
+    }
+}
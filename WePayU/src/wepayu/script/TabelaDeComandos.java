@@ -0,0 +1,154 @@
+package wepayu.script;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tabela de despacho dos comandos de script para os métodos públicos de uma classe-alvo
+ * (normalmente a {@code Facade}).
+ *
+ * <p>
+ * Cada método público de instância cujos parâmetros sejam texto, números ou booleanos vira uma
+ * entrada indexada por nome e aridade, como faz o EasyAccept: os parâmetros do script são casados
+ * por posição, não por nome. A reflexão acontece uma única vez, na construção da tabela; cada
+ * entrada guarda um {@link MethodHandle} já adaptado para o formato {@code (Object, Object[])Object}
+ * e os conversores de texto para o tipo de cada parâmetro.
+ * </p>
+ *
+ * <p>
+ * Se houver mais de um método com o mesmo nome e aridade, vale o que tiver mais parâmetros de texto
+ * (o script só tem texto, então é o que não converte nada); no empate, o primeiro pela lista de tipos
+ * dos parâmetros. A escolha não depende da ordem de {@link Class#getMethods()}, que não é definida.
+ * </p>
+ */
+final class TabelaDeComandos {
+
+    /**
+     * Método resolvido por nome e aridade.
+     */
+    static final class Entrada {
+        final String nome;
+        final MethodHandle metodo;
+        final Conversor[] conversores;
+
+        Entrada(String nome, MethodHandle metodo, Conversor[] conversores) {
+            this.nome = nome;
+            this.metodo = metodo;
+            this.conversores = conversores;
+        }
+
+        /**
+         * Converte os argumentos e invoca o método sobre o alvo.
+         *
+         * @param alvo instância da classe-alvo
+         * @param argumentos argumentos em texto, na ordem do script
+         * @return o retorno do método ({@code null} para métodos {@code void})
+         * @throws Throwable a exceção lançada pelo método, sem encapsulamento
+         */
+        Object invocar(Object alvo, String[] argumentos) throws Throwable {
+            Object[] valores = new Object[argumentos.length];
+            for (int i = 0; i < argumentos.length; i++) {
+                valores[i] = conversores[i].converter(argumentos[i]);
+            }
+            return (Object) metodo.invokeExact(alvo, valores);
+        }
+    }
+
+    /** Conversão de um argumento em texto para o tipo do parâmetro. */
+    @FunctionalInterface
+    interface Conversor {
+        Object converter(String texto);
+    }
+
+    /** Ordem de preferência entre métodos de mesmo nome e aridade: o primeiro de cada chave entra na tabela. */
+    private static final Comparator<Method> PREFERENCIA = Comparator
+            .comparingInt((Method m) -> -parametrosDeTexto(m))
+            .thenComparing(m -> Arrays.toString(m.getParameterTypes()));
+
+    private static final Map<Class<?>, TabelaDeComandos> CACHE = new java.util.concurrent.ConcurrentHashMap<>();
+
+    private final Class<?> classe;
+    private final Map<String, Entrada> entradas = new HashMap<>();
+
+    private TabelaDeComandos(Class<?> classe) {
+        this.classe = classe;
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Method[] metodos = classe.getMethods();
+        Arrays.sort(metodos, PREFERENCIA);
+        for (Method m : metodos) {
+            if (Modifier.isStatic(m.getModifiers()) || m.getDeclaringClass() == Object.class || m.isBridge()) continue;
+            Class<?>[] tipos = m.getParameterTypes();
+            Conversor[] conversores = new Conversor[tipos.length];
+            boolean suportado = true;
+            for (int i = 0; i < tipos.length && suportado; i++) {
+                conversores[i] = conversor(tipos[i]);
+                suportado = conversores[i] != null;
+            }
+            if (!suportado) continue;
+
+            String chave = chave(m.getName(), tipos.length);
+            if (entradas.containsKey(chave)) continue;
+            try {
+                MethodHandle mh = lookup.unreflect(m)
+                        .asType(MethodType.genericMethodType(tipos.length + 1))
+                        .asSpreader(1, Object[].class, tipos.length);
+                entradas.put(chave, new Entrada(m.getName(), mh, conversores));
+            } catch (IllegalAccessException e) {
+                // método público de classe não exportada: fica fora da tabela
+            }
+        }
+    }
+
+    /**
+     * Retorna a tabela da classe informada, construindo-a na primeira chamada.
+     *
+     * @param classe classe-alvo dos comandos
+     * @return a tabela de despacho
+     */
+    static TabelaDeComandos de(Class<?> classe) {
+        return CACHE.computeIfAbsent(classe, TabelaDeComandos::new);
+    }
+
+    /**
+     * Localiza o método para um comando com a quantidade de argumentos informada.
+     *
+     * @param nome nome do comando (nome do método)
+     * @param aridade número de argumentos
+     * @return a entrada, ou {@code null} se não houver método compatível
+     */
+    Entrada buscar(String nome, int aridade) {
+        return entradas.get(chave(nome, aridade));
+    }
+
+    Class<?> getClasse() {
+        return classe;
+    }
+
+    private static String chave(String nome, int aridade) {
+        return nome + "/" + aridade;
+    }
+
+    private static int parametrosDeTexto(Method m) {
+        int n = 0;
+        for (Class<?> tipo : m.getParameterTypes()) {
+            if (tipo == String.class) n++;
+        }
+        return n;
+    }
+
+    private static Conversor conversor(Class<?> tipo) {
+        if (tipo == String.class || tipo == Object.class || tipo == CharSequence.class) return s -> s;
+        if (tipo == int.class || tipo == Integer.class) return Integer::valueOf;
+        if (tipo == long.class || tipo == Long.class) return Long::valueOf;
+        if (tipo == double.class || tipo == Double.class) return Double::valueOf;
+        if (tipo == boolean.class || tipo == Boolean.class) return Boolean::valueOf;
+        return null;
+    }
+}
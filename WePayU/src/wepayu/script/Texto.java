@@ -0,0 +1,81 @@
+package wepayu.script;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Argumento de script pré-compilado, com as referências {@code ${var}} já localizadas.
+ *
+ * <p>Textos sem variáveis são resolvidos sem nenhuma alocação; os demais guardam os trechos
+ * literais e os nomes das variáveis intercalados.</p>
+ */
+final class Texto {
+
+    private final String literal;
+    private final String[] partes;
+
+    private Texto(String literal, String[] partes) {
+        this.literal = literal;
+        this.partes = partes;
+    }
+
+    /**
+     * Pré-compila um texto, localizando as referências {@code ${nome}}.
+     *
+     * @param bruto texto do script, já sem aspas
+     * @return o texto compilado
+     */
+    static Texto de(String bruto) {
+        int i = bruto.indexOf("${");
+        if (i < 0) {
+            return new Texto(bruto, null);
+        }
+        List<String> partes = new ArrayList<>();
+        int inicio = 0;
+        while (i >= 0) {
+            int fim = bruto.indexOf('}', i + 2);
+            if (fim < 0) break;
+            partes.add(bruto.substring(inicio, i));
+            partes.add(bruto.substring(i + 2, fim));
+            inicio = fim + 1;
+            i = bruto.indexOf("${", inicio);
+        }
+        partes.add(bruto.substring(inicio));
+        return new Texto(null, partes.toArray(new String[0]));
+    }
+
+    /**
+     * Substitui as variáveis pelos valores atuais.
+     *
+     * @param variaveis variáveis definidas até o momento no script
+     * @return o texto resolvido
+     * @throws ErroDeScript se alguma variável ainda não foi definida
+     */
+    String resolver(Map<String, String> variaveis) throws ErroDeScript {
+        if (literal != null) return literal;
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < partes.length; k++) {
+            if ((k & 1) == 0) {
+                sb.append(partes[k]);
+            } else {
+                String valor = variaveis.get(partes[k]);
+                if (valor == null) {
+                    throw new ErroDeScript("Variavel " + partes[k] + " nao definida.");
+                }
+                sb.append(valor);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        if (literal != null) return literal;
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < partes.length; k++) {
+            sb.append((k & 1) == 0 ? partes[k] : "${" + partes[k] + "}");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package wepayu.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cliente de linha de comando do {@link DaemonResidente}: envia scripts e comandos pelo socket e
+ * imprime as respostas.
+ *
+ * <p>
+ * Só usa classes do JDK (nem {@code DaemonResidente} é carregada), então a partida do cliente é a de
+ * uma JVM vazia; todo o trabalho acontece no daemon, já aquecido. Os caminhos relativos dos scripts
+ * são resolvidos no diretório atual do cliente, que é enviado em cada requisição.
+ * </p>
+ *
+ * <p>Uso: {@code ClienteDaemon [--socket caminho] [script... | -c linha... | --status | --encerrar |
+ * --promover]}; {@code -} lê um script da entrada padrão e {@code --promover} promove um
+ * {@link ServidorReplica}. O código de saída é o maior código das respostas
+ * ({@code 0} sucesso, {@code 1} falhas nos testes, {@code 2} requisição inválida) ou {@code 3} se o
+ * daemon não estiver rodando.</p>
+ */
+public final class ClienteDaemon implements AutoCloseable {
+
+    private final SocketChannel canal;
+    private final BufferedReader in;
+    private final BufferedWriter out;
+    private final String diretorio = Path.of("").toAbsolutePath().toString();
+
+    /**
+     * Conecta ao daemon.
+     *
+     * @param socket caminho do socket do daemon
+     * @throws IOException se não houver daemon escutando no socket
+     */
+    public ClienteDaemon(Path socket) throws IOException {
+        canal = SocketChannel.open(StandardProtocolFamily.UNIX);
+        canal.connect(UnixDomainSocketAddress.of(socket));
+        in = new BufferedReader(new InputStreamReader(Channels.newInputStream(canal), StandardCharsets.UTF_8));
+        out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(canal), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Executa um script no daemon.
+     *
+     * @param nome nome do script, usado nas mensagens
+     * @param linhas linhas do script
+     * @param saida recebe as linhas da resposta
+     * @return código da resposta
+     * @throws IOException se a conexão falhar
+     */
+    public int script(String nome, List<String> linhas, List<String> saida) throws IOException {
+        out.write("SCRIPT\t" + diretorio + "\t" + nome + "\t" + linhas.size());
+        out.newLine();
+        for (String l : linhas) {
+            out.write(l);
+            out.newLine();
+        }
+        return enviar(saida);
+    }
+
+    /**
+     * Executa uma linha no formato dos scripts no daemon.
+     *
+     * @param linha chamada, atribuição ou diretiva
+     * @param saida recebe as linhas da resposta (o retorno do comando, se houver)
+     * @return código da resposta
+     * @throws IOException se a conexão falhar
+     */
+    public int comando(String linha, List<String> saida) throws IOException {
+        out.write("COMANDO\t" + diretorio + "\t" + linha);
+        out.newLine();
+        return enviar(saida);
+    }
+
+    /**
+     * Envia uma requisição sem argumentos ({@code STATUS}, {@code ENCERRAR} ou {@code PROMOVER}).
+     *
+     * @param requisicao nome da requisição
+     * @param saida recebe as linhas da resposta
+     * @return código da resposta
+     * @throws IOException se a conexão falhar
+     */
+    public int simples(String requisicao, List<String> saida) throws IOException {
+        out.write(requisicao);
+        out.newLine();
+        return enviar(saida);
+    }
+
+    private int enviar(List<String> saida) throws IOException {
+        out.flush();
+        String l;
+        while ((l = in.readLine()) != null) {
+            if (l.startsWith("= ")) return Integer.parseInt(l.substring(2).trim());
+            saida.add(l.startsWith("> ") ? l.substring(2) : l);
+        }
+        throw new IOException("Conexao encerrada pelo daemon.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path socket = Path.of(System.getProperty("wepayu.daemon.socket",
+                Path.of(System.getProperty("java.io.tmpdir"), "wepayu-" + System.getProperty("user.name") + ".sock")
+                        .toString()));
+        List<String[]> pedidos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--socket" -> socket = Path.of(args[++i]);
+                case "-c" -> pedidos.add(new String[]{"COMANDO", args[++i]});
+                case "--status" -> pedidos.add(new String[]{"STATUS"});
+                case "--encerrar" -> pedidos.add(new String[]{"ENCERRAR"});
+                case "--promover" -> pedidos.add(new String[]{"PROMOVER"});
+                default -> pedidos.add(new String[]{"SCRIPT", args[i]});
+            }
+        }
+        if (pedidos.isEmpty()) pedidos.add(new String[]{"STATUS"});
+
+        ClienteDaemon cliente;
+        try {
+            cliente = new ClienteDaemon(socket);
+        } catch (IOException e) {
+            System.err.println("Daemon nao encontrado em " + socket + ".");
+            System.exit(3);
+            return;
+        }
+        int codigo = 0;
+        try (cliente) {
+            for (String[] p : pedidos) {
+                List<String> saida = new ArrayList<>();
+                int c = switch (p[0]) {
+                    case "COMANDO" -> cliente.comando(p[1], saida);
+                    case "SCRIPT" -> p[1].equals("-")
+                            ? cliente.script("stdin", new BufferedReader(new InputStreamReader(System.in,
+                                    StandardCharsets.UTF_8)).lines().toList(), saida)
+                            : cliente.script(p[1], Files.readAllLines(Path.of(p[1]), StandardCharsets.UTF_8), saida);
+                    default -> cliente.simples(p[0], saida);
+                };
+                saida.forEach(System.out::println);
+                codigo = Math.max(codigo, c);
+            }
+        }
+        System.exit(codigo);
+    }
+}
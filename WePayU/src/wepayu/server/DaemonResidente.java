@@ -0,0 +1,414 @@
+package wepayu.server;
+
+import wepayu.Main;
+import wepayu.command.Facade;
+import wepayu.script.ErroDeScript;
+import wepayu.script.ResultadoScript;
+import wepayu.script.Script;
+import wepayu.services.Sistema;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Processo residente que mantém um {@link Sistema} carregado e a JVM já aquecida, atendendo scripts
+ * de aceitação e comandos avulsos recebidos por um socket de domínio Unix.
+ *
+ * <p>
+ * Cada execução de {@code Main} ou do {@code EasyAccept} paga a partida da JVM, o carregamento das
+ * classes e roda o código ainda interpretado. O daemon paga isso uma vez: na partida, executa os
+ * scripts de {@link Main#SCRIPTS} algumas vezes sobre um {@code Sistema} descartável (saídas em um
+ * diretório temporário), e depois atende o {@link ClienteDaemon}, que só envia texto pelo socket.
+ * Os scripts são compilados ({@link Script#compilar(String, List, Class)}) uma vez por conteúdo e
+ * ficam em cache.
+ * </p>
+ *
+ * <p>
+ * O estado é o de uma sequência de execuções do EasyAccept: um único {@code Sistema} residente, com
+ * uma nova {@link Facade} (e um novo histórico de undo/redo) por script. Os comandos avulsos usam uma
+ * {@code Facade} própria, mantida entre requisições, e compartilham as variáveis {@code ${var}}. Cada
+ * conexão é atendida por uma thread virtual, mas as requisições são executadas uma de cada vez. Os
+ * arquivos de {@code rodaFolha} e de {@code equalFiles} são resolvidos no diretório do cliente.
+ * </p>
+ *
+ * <h3>Protocolo</h3>
+ * <p>Texto UTF-8, uma requisição após a outra na mesma conexão; campos separados por tabulação:</p>
+ * <ul>
+ *   <li>{@code SCRIPT <diretorio> <nome> <n>}, seguida das {@code n} linhas do script (no máximo
+ *       {@value #MAX_LINHAS_SCRIPT}; acima disso a conexão é fechada);</li>
+ *   <li>{@code COMANDO <diretorio> <linha>}: uma linha no formato dos scripts (chamada, atribuição
+ *       {@code var=comando ...} ou diretiva {@code expect...});</li>
+ *   <li>{@code STATUS} e {@code ENCERRAR}.</li>
+ * </ul>
+ * <p>
+ * A resposta são linhas iniciadas por {@code "> "} (resumo do script, falhas ou retorno do comando)
+ * e uma linha final {@code "= <codigo>"}: {@code 0} sucesso, {@code 1} falhas nos testes e {@code 2}
+ * requisição inválida. Por ser texto, {@code nc -U} também serve de cliente.
+ * </p>
+ *
+ * @see ClienteDaemon
+ */
+public final class DaemonResidente implements AutoCloseable {
+
+    /** Socket padrão: {@code wepayu.daemon.socket} ou {@code <tmpdir>/wepayu-<usuario>.sock}. */
+    public static final Path SOCKET_PADRAO = Path.of(System.getProperty("wepayu.daemon.socket",
+            Path.of(System.getProperty("java.io.tmpdir"), "wepayu-" + System.getProperty("user.name") + ".sock")
+                    .toString()));
+
+    private static final int SCRIPTS_EM_CACHE = 64;
+    private static final int ESPERA_ENCERRAMENTO = 5;
+    private static final int MAX_LINHAS_SCRIPT = 1_000_000;
+    private static final System.Logger LOG = System.getLogger("wepayu.daemon");
+
+    private final Path socket;
+    private final Sistema sistema;
+    private final Facade comandos;
+    private final Map<String, String> variaveis = new HashMap<>();
+    private final Map<String, Script> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Script> maisAntigo) {
+            return size() > SCRIPTS_EM_CACHE;
+        }
+    };
+    private final ReentrantLock execucao = new ReentrantLock();
+    private final ExecutorService conexoes = Executors.newVirtualThreadPerTaskExecutor();
+    private final long inicio = System.nanoTime();
+    private ServerSocketChannel servidor;
+    private Thread aceitador;
+    private long requisicoes;
+    private boolean encerrado;
+
+    /**
+     * Cria o daemon sobre um sistema vazio, sem abrir o socket.
+     *
+     * @param socket caminho do socket de domínio Unix
+     */
+    public DaemonResidente(Path socket) {
+        this(socket, new Sistema());
+    }
+
+    /**
+     * Cria o daemon sobre o sistema informado, sem abrir o socket.
+     * <p>
+     * Após esta chamada, o {@code sistema} só deve ser acessado por meio do daemon.
+     *
+     * @param socket caminho do socket de domínio Unix
+     * @param sistema sistema residente
+     */
+    public DaemonResidente(Path socket, Sistema sistema) {
+        this.socket = socket;
+        this.sistema = sistema;
+        this.comandos = new Facade(sistema);
+    }
+
+    /**
+     * Aquece a JVM executando os scripts de aceitação sobre um sistema descartável, sem tocar no
+     * sistema residente. Scripts ausentes são ignorados.
+     *
+     * @param diretorio diretório que contém {@code tests/} e {@code ok/}
+     * @param repeticoes quantas vezes executar a sequência
+     * @return quantidade de scripts executados
+     * @throws IOException se o diretório temporário das saídas não puder ser criado
+     */
+    public int aquecer(Path diretorio, int repeticoes) throws IOException {
+        if (repeticoes <= 0) return 0;
+        List<Script> scripts = new ArrayList<>();
+        for (String s : Main.SCRIPTS) {
+            Path arquivo = diretorio.resolve(s);
+            if (!Files.isRegularFile(arquivo)) continue;
+            try {
+                scripts.add(Script.compilar(arquivo, Facade.class));
+            } catch (ErroDeScript e) {
+                LOG.log(System.Logger.Level.WARNING, "Aquecimento: " + e.getMessage());
+            }
+        }
+        if (scripts.isEmpty()) return 0;
+        long t0 = System.nanoTime();
+        int executados = 0;
+        Path saida = Files.createTempDirectory("wepayu-aquecimento-");
+        try {
+            for (int r = 0; r < repeticoes; r++) {
+                Sistema descartavel = new Sistema();
+                for (Script s : scripts) {
+                    Facade facade = new Facade(descartavel);
+                    facade.setDiretorioSaida(saida);
+                    s.executar(facade, diretorio, saida);
+                    executados++;
+                }
+            }
+        } finally {
+            apagar(saida);
+        }
+        LOG.log(System.Logger.Level.INFO, String.format(java.util.Locale.ROOT,
+                "Aquecimento: %d scripts em %.1f ms", executados, (System.nanoTime() - t0) / 1e6));
+        return executados;
+    }
+
+    /**
+     * Abre o socket e começa a aceitar conexões em uma thread própria. Um arquivo de socket
+     * abandonado por um daemon que não está mais rodando é substituído.
+     *
+     * @throws IOException se o socket não puder ser aberto ou se outro daemon já atender nele
+     */
+    public void iniciar() throws IOException {
+        UnixDomainSocketAddress endereco = UnixDomainSocketAddress.of(socket);
+        if (Files.exists(socket)) {
+            if (atendendo(endereco)) throw new IOException("Ja existe um daemon em " + socket + ".");
+            Files.delete(socket);
+        }
+        servidor = SocketPrivado.abrir(socket);
+        aceitador = new Thread(this::aceitar, "wepayu-daemon");
+        aceitador.start();
+    }
+
+    private static boolean atendendo(UnixDomainSocketAddress endereco) {
+        try (SocketChannel outro = SocketChannel.open(endereco)) {
+            return outro.isConnected();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** @return caminho do socket */
+    public Path getSocket() {
+        return socket;
+    }
+
+    /**
+     * Espera o daemon ser encerrado (por {@code ENCERRAR} ou {@link #close()}).
+     *
+     * @throws InterruptedException se a espera for interrompida
+     */
+    public void aguardar() throws InterruptedException {
+        if (aceitador != null) aceitador.join();
+    }
+
+    /**
+     * Para de aceitar conexões, espera as requisições em andamento (até {@value #ESPERA_ENCERRAMENTO}
+     * segundos, depois fecha as conexões ociosas) e remove o arquivo do socket.
+     */
+    @Override
+    public synchronized void close() {
+        if (encerrado) return;
+        encerrado = true;
+        if (servidor == null) {
+            conexoes.close();
+            return;
+        }
+        try {
+            servidor.close();
+        } catch (IOException e) {
+            // já fechado
+        }
+        conexoes.shutdown();
+        try {
+            if (!conexoes.awaitTermination(ESPERA_ENCERRAMENTO, TimeUnit.SECONDS)) conexoes.shutdownNow();
+        } catch (InterruptedException e) {
+            conexoes.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Files.deleteIfExists(socket);
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.WARNING, "Nao foi possivel remover " + socket, e);
+        }
+    }
+
+    // --- Atendimento ---
+
+    private void aceitar() {
+        try {
+            while (true) {
+                SocketChannel canal = servidor.accept();
+                conexoes.submit(() -> atender(canal));
+            }
+        } catch (ClosedChannelException e) {
+            // encerrado
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.ERROR, "Falha ao aceitar conexoes em " + socket, e);
+        }
+    }
+
+    private void atender(SocketChannel canal) {
+        try (canal;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(canal), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(canal), StandardCharsets.UTF_8))) {
+            String cabecalho;
+            while ((cabecalho = in.readLine()) != null) {
+                if (cabecalho.isBlank()) continue;
+                String[] campos = cabecalho.split("\t", -1);
+                if (campos[0].equals("ENCERRAR")) {
+                    responder(out, List.of("Encerrando."), 0);
+                    new Thread(this::close, "wepayu-daemon-encerramento").start();
+                    return;
+                }
+                List<String> linhas = null;
+                if (campos[0].equals("SCRIPT") && campos.length == 4) {
+                    linhas = lerCorpo(in, campos[3]);
+                    if (linhas == null) return;
+                }
+                Resposta r;
+                execucao.lock();
+                try {
+                    requisicoes++;
+                    r = executar(campos, linhas);
+                } finally {
+                    execucao.unlock();
+                }
+                responder(out, r.linhas(), r.codigo());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // cliente desconectou
+        }
+    }
+
+    private static List<String> lerCorpo(BufferedReader in, String quantidade) throws IOException {
+        int n;
+        try {
+            n = Integer.parseInt(quantidade);
+        } catch (NumberFormatException e) {
+            n = -1;
+        }
+        if (n < 0 || n > MAX_LINHAS_SCRIPT) return null;
+        List<String> linhas = new ArrayList<>(Math.min(n, 1024));
+        for (int i = 0; i < n; i++) {
+            String l = in.readLine();
+            if (l == null) return null;
+            linhas.add(l);
+        }
+        return linhas;
+    }
+
+    private record Resposta(List<String> linhas, int codigo) {
+    }
+
+    private Resposta executar(String[] campos, List<String> linhas) {
+        switch (campos[0]) {
+            case "SCRIPT" -> {
+                if (linhas == null) return invalida("Uso: SCRIPT <diretorio> <nome> <linhas>");
+                Path diretorio = Path.of(campos[1]);
+                Script script;
+                try {
+                    script = compilar(campos[2], linhas);
+                } catch (ErroDeScript e) {
+                    return invalida(e.getMessage());
+                }
+                Facade facade = new Facade(sistema);
+                facade.setDiretorioSaida(diretorio);
+                ResultadoScript r = script.executar(facade, diretorio, null);
+                return new Resposta(r.toString().lines().toList(), r.isSucesso() ? 0 : 1);
+            }
+            case "COMANDO" -> {
+                if (campos.length != 3) return invalida("Uso: COMANDO <diretorio> <linha>");
+                Path diretorio = Path.of(campos[1]);
+                Script script;
+                try {
+                    script = compilar("comando", List.of(campos[2]));
+                } catch (ErroDeScript e) {
+                    return invalida(e.getMessage());
+                }
+                comandos.setDiretorioSaida(diretorio);
+                ResultadoScript r = script.executar(comandos, variaveis, diretorio, null);
+                if (!r.isSucesso()) return new Resposta(r.getFalhas(), 1);
+                Object retorno = r.getUltimoRetorno();
+                return new Resposta(retorno == null ? List.of() : String.valueOf(retorno).lines().toList(), 0);
+            }
+            case "STATUS" -> {
+                return new Resposta(List.of(String.format(java.util.Locale.ROOT,
+                        "empregados=%d requisicoes=%d scriptsEmCache=%d ativoHa=%ds",
+                        sistema.getEmpregados().size(), requisicoes, cache.size(),
+                        (System.nanoTime() - inicio) / 1_000_000_000L)), 0);
+            }
+            default -> {
+                return invalida("Requisicao invalida: " + campos[0]);
+            }
+        }
+    }
+
+    /** Compila o script, ou o reaproveita do cache se o mesmo conteúdo já foi compilado. */
+    private Script compilar(String nome, List<String> linhas) throws ErroDeScript {
+        String chave = nome + '\0' + String.join("\n", linhas);
+        Script script = cache.get(chave);
+        if (script == null) {
+            script = Script.compilar(nome, linhas, Facade.class);
+            cache.put(chave, script);
+        }
+        return script;
+    }
+
+    private static Resposta invalida(String mensagem) {
+        return new Resposta(List.of(mensagem), 2);
+    }
+
+    private static void responder(BufferedWriter out, List<String> linhas, int codigo) throws IOException {
+        for (String l : linhas) {
+            out.write("> ");
+            out.write(l);
+            out.newLine();
+        }
+        out.write("= " + codigo);
+        out.newLine();
+        out.flush();
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path p : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /**
+     * Inicia o daemon e espera o {@code ENCERRAR}.
+     *
+     * <p>Uso: {@code DaemonResidente [--socket caminho] [--aquecer N] [--diretorio dir]}: {@code --aquecer}
+     * define quantas vezes os scripts de {@code dir} (padrão, o diretório atual) são executados na partida
+     * (padrão 5; {@code 0} desliga).</p>
+     *
+     * @param args argumentos de linha de comando
+     * @throws Exception se o socket não puder ser aberto
+     */
+    public static void main(String[] args) throws Exception {
+        Path socket = SOCKET_PADRAO;
+        Path diretorio = Path.of("");
+        int aquecimento = 5;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--socket" -> socket = Path.of(args[++i]);
+                case "--aquecer" -> aquecimento = Integer.parseInt(args[++i]);
+                case "--diretorio" -> diretorio = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Argumento invalido: " + args[i]);
+            }
+        }
+        try (DaemonResidente daemon = new DaemonResidente(socket)) {
+            int scripts = daemon.aquecer(diretorio.toAbsolutePath(), aquecimento);
+            daemon.iniciar();
+            System.out.println("WePayU residente em " + socket + " (" + scripts + " scripts de aquecimento)");
+            daemon.aguardar();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package wepayu.server;
+
+import wepayu.command.FacadeParticionada;
+import wepayu.command.Particao;
+
+import java.util.List;
+
+/**
+ * {@link FacadeParticionada} com as partições em JVMs de trabalho ({@link ParticaoRemota}), para rodar
+ * os scripts de aceitação pelo construtor sem argumentos ({@code --alvo} do {@code ExecutorDeScripts}
+ * ou o EasyAccept).
+ *
+ * <p>As JVMs são iniciadas na primeira instância, em número dado por {@code wepayu.particoes}
+ * (padrão 4), e mantidas entre instâncias, como as partições locais da {@code FacadeParticionada}.</p>
+ */
+public class FacadeParticionadaRemota extends FacadeParticionada {
+
+    private static List<Particao> particoesRemotas;
+
+    /**
+     * @throws Exception se as JVMs de trabalho não puderem ser iniciadas
+     */
+    public FacadeParticionadaRemota() throws Exception {
+        super(particoesRemotas(), true);
+    }
+
+    private static synchronized List<Particao> particoesRemotas() throws Exception {
+        if (particoesRemotas == null) {
+            particoesRemotas = List.copyOf(ParticaoRemota.iniciar(Integer.getInteger("wepayu.particoes", 4)));
+        }
+        return particoesRemotas;
+    }
+}
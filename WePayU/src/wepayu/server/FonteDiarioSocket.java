@@ -0,0 +1,95 @@
+package wepayu.server;
+
+import wepayu.command.DiarioDeComandos;
+import wepayu.command.FonteDiario;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link FonteDiario} que recebe o diário de um {@link ServidorDiario}.
+ *
+ * <p>
+ * A leitura bloqueia até a próxima mensagem do servidor; como ele envia {@code = <seq>} a cada
+ * intervalo quando não há entradas novas, a espera é a do servidor, e não a pedida em
+ * {@link #ler(long, int)}. Depois de um {@code ! <seq>} (o primário liberou o diário), a fonte entrega
+ * as entradas recebidas e deixa de se considerar conectada.
+ * </p>
+ */
+public final class FonteDiarioSocket implements FonteDiario {
+
+    private final SocketChannel canal;
+    private final BufferedReader in;
+    private volatile boolean conectado = true;
+
+    /**
+     * Conecta ao servidor e pede as entradas posteriores a {@code desde}.
+     *
+     * @param socket caminho do socket do {@link ServidorDiario}
+     * @param desde sequência da última entrada que a réplica já tem
+     * @throws IOException se não houver servidor escutando
+     */
+    public FonteDiarioSocket(Path socket, long desde) throws IOException {
+        canal = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            canal.connect(UnixDomainSocketAddress.of(socket));
+            canal.write(StandardCharsets.UTF_8.encode("DESDE " + desde + "\n"));
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+        in = new BufferedReader(new InputStreamReader(Channels.newInputStream(canal), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param socket caminho do socket do {@link ServidorDiario}
+     * @return conexão para {@code ReplicaLeitura.seguir}
+     */
+    public static FonteDiario.Conexao para(Path socket) {
+        return desde -> new FonteDiarioSocket(socket, desde);
+    }
+
+    @Override
+    public Leitura ler(long esperaMs, int maximo) throws IOException {
+        if (!conectado) throw new EOFException("Primario inativo.");
+        List<DiarioDeComandos.Entrada> entradas = new ArrayList<>();
+        while (entradas.size() < maximo) {
+            String linha = in.readLine();
+            long instante = System.nanoTime();
+            if (linha == null) {
+                conectado = false;
+                throw new EOFException("Conexao com o primario encerrada.");
+            }
+            if (linha.startsWith("= ")) return new Leitura(entradas, true, instante);
+            if (linha.startsWith("! ")) {
+                conectado = false;
+                return new Leitura(entradas, false, instante);
+            }
+            DiarioDeComandos.Entrada e = DiarioDeComandos.Entrada.ler(linha);
+            if (e == null) throw new IOException("Entrada invalida recebida do primario.");
+            entradas.add(e);
+        }
+        return new Leitura(entradas, false, System.nanoTime());
+    }
+
+    @Override
+    public boolean isPrimarioAtivo() {
+        return conectado && canal.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        conectado = false;
+        canal.close();
+    }
+}
@@ -0,0 +1,249 @@
+package wepayu.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leitura e escrita de JSON mínimas para a API HTTP.
+ *
+ * <p>
+ * Objetos viram {@link LinkedHashMap}, arrays viram {@link ArrayList}, e números são mantidos
+ * como o texto original ({@link String}), pois a {@code Facade} recebe todos os valores em texto
+ * (ex.: {@code "10,50"} ou {@code 10.5} chegam ambos como string). Booleanos e {@code null}
+ * são convertidos para {@link Boolean} e {@code null}. A leitura é recursiva, e documentos com objetos
+ * e arrays aninhados além de {@value #PROFUNDIDADE_MAXIMA} níveis são recusados antes de esgotar a pilha.
+ * </p>
+ */
+final class Json {
+
+    /** Níveis de objetos e arrays aninhados aceitos por {@link #ler(String)}. */
+    static final int PROFUNDIDADE_MAXIMA = 64;
+
+    private final String texto;
+    private int pos;
+    private int profundidade;
+
+    private Json(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Converte um documento JSON em mapas, listas e strings.
+     *
+     * @param texto documento JSON
+     * @return valor lido
+     * @throws IllegalArgumentException se o documento for inválido ou aninhado além de
+     *                                  {@value #PROFUNDIDADE_MAXIMA} níveis
+     */
+    static Object ler(String texto) {
+        Json json = new Json(texto);
+        json.pularEspacos();
+        Object valor = json.valor();
+        json.pularEspacos();
+        if (json.pos != texto.length()) {
+            throw json.erro("conteudo apos o fim do documento");
+        }
+        return valor;
+    }
+
+    /**
+     * Serializa mapas, listas, strings, números, booleanos e {@code null} em JSON.
+     *
+     * @param valor valor a serializar
+     * @return documento JSON
+     */
+    static String escrever(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escrever(sb, valor);
+        return sb.toString();
+    }
+
+    private static void escrever(StringBuilder sb, Object valor) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof Map<?, ?> mapa) {
+            sb.append('{');
+            boolean primeiro = true;
+            for (Map.Entry<?, ?> e : mapa.entrySet()) {
+                if (!primeiro) sb.append(',');
+                primeiro = false;
+                escreverString(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                escrever(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (valor instanceof Iterable<?> lista) {
+            sb.append('[');
+            boolean primeiro = true;
+            for (Object o : lista) {
+                if (!primeiro) sb.append(',');
+                primeiro = false;
+                escrever(sb, o);
+            }
+            sb.append(']');
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            sb.append(valor);
+        } else {
+            escreverString(sb, valor.toString());
+        }
+    }
+
+    private static void escreverString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private Object valor() {
+        if (pos >= texto.length()) {
+            throw erro("fim inesperado");
+        }
+        char c = texto.charAt(pos);
+        switch (c) {
+            case '{', '[': {
+                if (++profundidade > PROFUNDIDADE_MAXIMA) {
+                    throw erro("aninhamento acima de " + PROFUNDIDADE_MAXIMA + " niveis");
+                }
+                Object composto = c == '{' ? objeto() : lista();
+                profundidade--;
+                return composto;
+            }
+            case '"': return string();
+            case 't': literal("true"); return Boolean.TRUE;
+            case 'f': literal("false"); return Boolean.FALSE;
+            case 'n': literal("null"); return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return numero();
+                throw erro("caractere inesperado '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> objeto() {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        pos++;
+        pularEspacos();
+        if (consumir('}')) return mapa;
+        do {
+            pularEspacos();
+            if (pos >= texto.length() || texto.charAt(pos) != '"') {
+                throw erro("chave esperada");
+            }
+            String chave = string();
+            pularEspacos();
+            if (!consumir(':')) throw erro("':' esperado");
+            pularEspacos();
+            mapa.put(chave, valor());
+            pularEspacos();
+        } while (consumir(','));
+        if (!consumir('}')) throw erro("'}' esperado");
+        return mapa;
+    }
+
+    private List<Object> lista() {
+        List<Object> lista = new ArrayList<>();
+        pos++;
+        pularEspacos();
+        if (consumir(']')) return lista;
+        do {
+            pularEspacos();
+            lista.add(valor());
+            pularEspacos();
+        } while (consumir(','));
+        if (!consumir(']')) throw erro("']' esperado");
+        return lista;
+    }
+
+    private String string() {
+        pos++;
+        StringBuilder sb = null;
+        int inicio = pos;
+        while (pos < texto.length()) {
+            char c = texto.charAt(pos);
+            if (c == '"') {
+                String s = sb == null ? texto.substring(inicio, pos) : sb.append(texto, inicio, pos).toString();
+                pos++;
+                return s;
+            }
+            if (c == '\\') {
+                if (sb == null) sb = new StringBuilder();
+                sb.append(texto, inicio, pos);
+                if (++pos >= texto.length()) break;
+                char esc = texto.charAt(pos);
+                switch (esc) {
+                    case '"', '\\', '/' -> sb.append(esc);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 >= texto.length()) throw erro("escape unicode incompleto");
+                        try {
+                            sb.append((char) Integer.parseInt(texto.substring(pos + 1, pos + 5), 16));
+                        } catch (NumberFormatException e) {
+                            throw erro("escape unicode invalido");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw erro("escape invalido");
+                }
+                pos++;
+                inicio = pos;
+            } else {
+                pos++;
+            }
+        }
+        throw erro("string nao terminada");
+    }
+
+    private String numero() {
+        int inicio = pos;
+        while (pos < texto.length() && "+-0123456789.eE".indexOf(texto.charAt(pos)) >= 0) {
+            pos++;
+        }
+        return texto.substring(inicio, pos);
+    }
+
+    private void literal(String esperado) {
+        if (!texto.startsWith(esperado, pos)) {
+            throw erro("'" + esperado + "' esperado");
+        }
+        pos += esperado.length();
+    }
+
+    private boolean consumir(char c) {
+        if (pos < texto.length() && texto.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void pularEspacos() {
+        while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException erro(String detalhe) {
+        return new IllegalArgumentException("JSON invalido na posicao " + pos + ": " + detalhe + ".");
+    }
+}
@@ -0,0 +1,227 @@
+package wepayu.server;
+
+import wepayu.command.Particao;
+import wepayu.services.FolhaCalculada;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Particao} em outra JVM: encaminha cada operação ao {@link ServidorParticao} por um socket de
+ * domínio Unix e devolve o retorno ou relança a exceção recebida.
+ *
+ * <p>
+ * {@link #iniciar(int)} cria as JVMs de trabalho com o mesmo {@code java} e o mesmo classpath do
+ * processo atual, cada uma com seu socket em um diretório temporário; elas terminam com
+ * {@link #close()} ou junto com o processo que as criou.
+ * </p>
+ */
+public final class ParticaoRemota implements Particao {
+
+    private static final long ESPERA_MS = 30_000;
+
+    private final SocketChannel canal;
+    private final ObjectOutputStream out;
+    private final ObjectInputStream in;
+    private final Process processo;
+
+    /**
+     * Conecta a um {@link ServidorParticao} já em execução.
+     *
+     * @param socket caminho do socket do servidor
+     * @throws IOException se não houver servidor escutando
+     */
+    public ParticaoRemota(Path socket) throws IOException {
+        this(socket, null);
+    }
+
+    private ParticaoRemota(Path socket, Process processo) throws IOException {
+        this.processo = processo;
+        canal = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            canal.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+        out = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)));
+        out.flush();
+        in = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(canal)));
+        in.setObjectInputFilter(ServidorParticao.novoFiltro());
+    }
+
+    /**
+     * Inicia {@code n} JVMs de trabalho e conecta a cada uma.
+     *
+     * @param n quantidade de partições
+     * @return as partições, na ordem de criação
+     * @throws IOException se alguma JVM não iniciar ou não abrir o socket a tempo
+     */
+    public static List<Particao> iniciar(int n) throws IOException {
+        Path diretorio = Files.createTempDirectory("wepayu-particoes");
+        diretorio.toFile().deleteOnExit();
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processos = new ArrayList<>(n);
+        List<Particao> particoes = new ArrayList<>(n);
+        try {
+            for (int i = 0; i < n; i++) {
+                Path socket = diretorio.resolve("particao-" + i + ".sock");
+                processos.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ServidorParticao.class.getName(), socket.toString(), "--seguir-pai")
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start());
+            }
+            for (int i = 0; i < n; i++) {
+                particoes.add(conectar(diretorio.resolve("particao-" + i + ".sock"), processos.get(i)));
+            }
+        } catch (IOException e) {
+            for (Process p : processos) p.destroy();
+            throw e;
+        }
+        return particoes;
+    }
+
+    /** Tenta conectar até a JVM recém-criada aceitar conexões no socket. */
+    private static ParticaoRemota conectar(Path socket, Process processo) throws IOException {
+        long limite = System.currentTimeMillis() + ESPERA_MS;
+        while (true) {
+            try {
+                return new ParticaoRemota(socket, processo);
+            } catch (IOException e) {
+                if (!processo.isAlive()) throw new IOException("Particao terminou ao iniciar: " + socket, e);
+                if (System.currentTimeMillis() > limite) throw new IOException("Particao nao abriu " + socket + " a tempo.", e);
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrompido ao esperar " + socket, e);
+            }
+        }
+    }
+
+    private synchronized Object chamar(String operacao, Object... argumentos) throws Exception {
+        out.writeObject(new ServidorParticao.Pedido(operacao, argumentos));
+        out.flush();
+        out.reset();
+        ServidorParticao.Resposta resposta = (ServidorParticao.Resposta) in.readObject();
+        if (resposta.erro() instanceof Exception e) throw e;
+        if (resposta.erro() instanceof Error e) throw e;
+        return resposta.valor();
+    }
+
+    @Override
+    public String executar(String comando, String... args) throws Exception {
+        return (String) chamar("executar", comando, args);
+    }
+
+    @Override
+    public String criarEmpregado(int id, String... args) throws Exception {
+        return (String) chamar("criarEmpregado", id, args);
+    }
+
+    @Override
+    public String[] executarNoMembro(String comando, String[] args, boolean membroEmUsoFora) throws Exception {
+        return (String[]) chamar("executarNoMembro", comando, args, membroEmUsoFora);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getMembrosSindicato() throws Exception {
+        return (Map<String, String>) chamar("getMembrosSindicato");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> getEmpregadosPorNome(String nome, int limite) throws Exception {
+        return (List<String>) chamar("getEmpregadosPorNome", nome, limite);
+    }
+
+    @Override
+    public int getNumeroDeEmpregados() throws Exception {
+        return (Integer) chamar("getNumeroDeEmpregados");
+    }
+
+    @Override
+    public int getUltimoId() throws Exception {
+        return (Integer) chamar("getUltimoId");
+    }
+
+    @Override
+    public FolhaCalculada calcularFolha(String data) throws Exception {
+        return (FolhaCalculada) chamar("calcularFolha", data);
+    }
+
+    @Override
+    public void pagarFolha(String data) throws Exception {
+        chamar("pagarFolha", data);
+    }
+
+    @Override
+    public BigDecimal calcularTotalFolha(String data, boolean porAgenda) throws Exception {
+        return (BigDecimal) chamar("calcularTotalFolha", data, porAgenda);
+    }
+
+    @Override
+    public boolean haAgendaCustomizada() throws Exception {
+        return (Boolean) chamar("haAgendaCustomizada");
+    }
+
+    @Override
+    public void undo() throws Exception {
+        chamar("undo");
+    }
+
+    @Override
+    public void redo() throws Exception {
+        chamar("redo");
+    }
+
+    @Override
+    public void limparHistorico() throws Exception {
+        chamar("limparHistorico");
+    }
+
+    /**
+     * Desconecta; se a JVM de trabalho foi criada por {@link #iniciar(int)}, pede seu encerramento e
+     * espera que termine.
+     *
+     * @throws IOException se a conexão falhar
+     */
+    @Override
+    public void close() throws IOException {
+        try (canal) {
+            if (processo != null && canal.isOpen()) chamar("encerrar");
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Particao nao encerrou: " + e.getMessage(), e);
+        } finally {
+            if (processo != null) aguardarProcesso();
+        }
+    }
+
+    private void aguardarProcesso() {
+        try {
+            if (processo.waitFor(5, TimeUnit.SECONDS)) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        processo.destroyForcibly();
+    }
+}
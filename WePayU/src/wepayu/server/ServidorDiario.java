@@ -0,0 +1,147 @@
+package wepayu.server;
+
+import wepayu.command.DiarioDeComandos;
+import wepayu.command.FonteDiario;
+import wepayu.command.FonteDiarioArquivo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Envia o {@link DiarioDeComandos} do primário às réplicas por um socket de domínio Unix, para réplicas
+ * que não enxergam o arquivo do diário ({@link FonteDiarioSocket}).
+ *
+ * <p>
+ * Roda ao lado do primário, no mesmo processo ou em outro: só lê o arquivo, como uma
+ * {@link FonteDiarioArquivo} por réplica, cada uma atendida por uma thread virtual.
+ * </p>
+ *
+ * <h3>Protocolo</h3>
+ * <p>
+ * Texto UTF-8, uma linha por mensagem. A réplica envia {@code DESDE <seq>}; o servidor responde com
+ * as linhas do diário posteriores a {@code seq}, no formato do arquivo, e, sempre que alcança o fim do
+ * diário, com {@code = <seq>}, a sequência da última entrada enviada. Sem entradas novas, o
+ * {@code = <seq>} se repete a cada {@code wepayu.replica.intervalo} ms (padrão 50), e é o que a réplica
+ * usa para medir o atraso.
+ * </p>
+ *
+ * <p>
+ * O {@code = <seq>} atesta o primário, e não só o arquivo: só é enviado enquanto o primário mantém o
+ * lock do diário ({@link FonteDiarioArquivo#isPrimarioAtivo()}). Quando o lock é liberado (o primário
+ * terminou ou caiu), o servidor envia o que restar do diário, {@code ! <seq>} e fecha a conexão; a
+ * réplica deixa de estar em dia e pode ser promovida, mesmo que o servidor rode em outro processo.
+ * </p>
+ *
+ * <p>Uso: {@code ServidorDiario diario socket}.</p>
+ */
+public final class ServidorDiario implements AutoCloseable {
+
+    private static final System.Logger LOG = System.getLogger("wepayu.diario");
+    private static final long INTERVALO_MS = Long.getLong("wepayu.replica.intervalo", 50);
+    private static final int LOTE = 1024;
+
+    private final Path diario;
+    private final Path socket;
+    private final ExecutorService conexoes = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocketChannel servidor;
+    private Thread aceitador;
+
+    /**
+     * Cria o servidor, sem abrir o socket.
+     *
+     * @param diario caminho do diário do primário
+     * @param socket caminho do socket de domínio Unix
+     */
+    public ServidorDiario(Path diario, Path socket) {
+        this.diario = diario;
+        this.socket = socket;
+    }
+
+    /**
+     * Abre o socket e começa a aceitar réplicas.
+     *
+     * @throws IOException se o socket não puder ser aberto
+     */
+    public synchronized void iniciar() throws IOException {
+        servidor = SocketPrivado.abrir(socket);
+        aceitador = new Thread(this::aceitar, "wepayu-diario");
+        aceitador.start();
+    }
+
+    private void aceitar() {
+        try {
+            while (true) {
+                SocketChannel canal = servidor.accept();
+                conexoes.submit(() -> atender(canal));
+            }
+        } catch (ClosedChannelException e) {
+            // encerrado
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.ERROR, "Falha ao aceitar replicas em " + socket, e);
+        }
+    }
+
+    private void atender(SocketChannel canal) {
+        try (canal;
+             FonteDiarioArquivo fonte = new FonteDiarioArquivo(diario);
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(canal), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(canal), StandardCharsets.UTF_8))) {
+            String pedido = in.readLine();
+            if (pedido == null || !pedido.startsWith("DESDE ")) return;
+            long enviada = Long.parseLong(pedido.substring(6).trim());
+            while (true) {
+                FonteDiario.Leitura leitura = fonte.ler(INTERVALO_MS, LOTE);
+                for (DiarioDeComandos.Entrada e : leitura.entradas()) {
+                    if (e.seq() <= enviada) continue;
+                    out.write(e.formatar());
+                    out.newLine();
+                    enviada = e.seq();
+                }
+                if (leitura.emDia()) {
+                    boolean ativo = fonte.isPrimarioAtivo();
+                    out.write((ativo ? "= " : "! ") + enviada);
+                    out.newLine();
+                    if (!ativo) {
+                        out.flush();
+                        return;
+                    }
+                }
+                out.flush();
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOG.log(System.Logger.Level.DEBUG, "Replica desconectou", e);
+        }
+    }
+
+    /** Fecha o socket e as conexões com as réplicas. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (servidor == null) return;
+        servidor.close();
+        conexoes.shutdownNow();
+        Files.deleteIfExists(socket);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Uso: ServidorDiario diario socket");
+            System.exit(2);
+        }
+        ServidorDiario servidor = new ServidorDiario(Path.of(args[0]), Path.of(args[1]));
+        servidor.iniciar();
+        System.out.println("Diario " + args[0] + " disponivel em " + args[1]);
+        servidor.aceitador.join();
+    }
+}
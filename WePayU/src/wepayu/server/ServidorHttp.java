@@ -0,0 +1,455 @@
+package wepayu.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import wepayu.command.FacadeConcorrente;
+import wepayu.services.Lancamento;
+import wepayu.services.RelatorioLote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP embutido que expõe as operações da {@code Facade} como endpoints JSON.
+ *
+ * <p>
+ * Usa o {@link HttpServer} do JDK com uma thread virtual por requisição, de modo que milhares de
+ * clientes (relógios de ponto, por exemplo) possam ficar conectados simultaneamente sem uma thread
+ * de plataforma para cada um. O estado é mantido em uma {@link FacadeConcorrente}: consultas usam
+ * leitura otimista e comandos são serializados pelo lock de escrita.
+ * </p>
+ *
+ * <h3>Endpoints</h3>
+ * <ul>
+ *   <li>{@code GET /empregados} → {@code {"total": n}};</li>
+ *   <li>{@code POST /empregados} {@code {nome, endereco, tipo, salario[, comissao]}} → {@code {"id"}};</li>
+ *   <li>{@code GET /empregados/busca?nome=&indice=} → {@code {"id"}};</li>
+ *   <li>{@code DELETE /empregados/{id}};</li>
+ *   <li>{@code GET /empregados/{id}/atributos/{atributo}} → {@code {"valor"}};</li>
+ *   <li>{@code PUT /empregados/{id}/atributos/{atributo}} {@code {valor[, comissao | idSindicato, taxaSindical
+ *       | banco, agencia, contaCorrente | extra]}};</li>
+ *   <li>{@code POST /empregados/{id}/cartoes} {@code {data, horas}} e
+ *       {@code POST /empregados/{id}/vendas} {@code {data, valor}};</li>
+ *   <li>{@code GET /empregados/{id}/horas?inicio=&fim=[&tipo=normais|extras]},
+ *       {@code GET /empregados/{id}/vendas?inicio=&fim=} e
+ *       {@code GET /empregados/{id}/taxas?inicio=&fim=} → {@code {"valor"}};</li>
+ *   <li>{@code POST /sindicato/{membro}/taxas} {@code {data, valor}};</li>
+ *   <li>{@code POST /lotes} {@code {parcial, lancamentos: [{tipo: cartao|venda|taxa, alvo, data, valor}]}}
+ *       → {@code {"aplicados", "falhas": [{linha, erro}]}};</li>
+ *   <li>{@code GET /folha/total?data=} → {@code {"valor"}};</li>
+ *   <li>{@code POST /folha} {@code {data}} → relatório da folha em {@code text/plain}, enviado em
+ *       blocos (chunked) à medida que é lido do disco;</li>
+ *   <li>{@code POST /agendas} {@code {descricao}}, {@code POST /undo}, {@code POST /redo},
+ *       {@code POST /zerar} e {@code POST /encerrar}.</li>
+ * </ul>
+ *
+ * <p>
+ * Erros de validação da {@code Facade} respondem {@code 400} com {@code {"erro": mensagem}}, com a mesma
+ * mensagem dos testes de aceitação; rotas inexistentes respondem {@code 404} e métodos não suportados
+ * {@code 405}. Corpos acima de {@code wepayu.http.corpoMaximo} bytes (padrão 16 MiB) respondem
+ * {@code 413}, sem que o excesso seja guardado em memória, e JSON aninhado além de
+ * {@value Json#PROFUNDIDADE_MAXIMA} níveis responde {@code 400}.
+ * </p>
+ *
+ * @see FacadeConcorrente
+ */
+public class ServidorHttp implements AutoCloseable {
+
+    private static final int BACKLOG_PADRAO = 16_384;
+    private static final int CORPO_MAXIMO = Integer.getInteger("wepayu.http.corpoMaximo", 16 << 20);
+
+    /** Sinaliza rota inexistente (404) ou método não suportado (405). */
+    private static final class RotaInvalida extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        RotaInvalida(int status) {
+            super(null, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /** Sinaliza corpo de requisição acima de {@link #CORPO_MAXIMO} (413). */
+    private static final class CorpoExcessivo extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CorpoExcessivo() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final FacadeConcorrente facade;
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+
+    /**
+     * Cria o servidor sobre a Facade informada, sem iniciá-lo.
+     *
+     * @param facade estado compartilhado por todas as requisições
+     * @param endereco endereço e porta de escuta (porta {@code 0} escolhe uma porta livre)
+     * @param backlog tamanho da fila de conexões pendentes do socket
+     * @throws IOException se a porta não puder ser aberta
+     */
+    public ServidorHttp(FacadeConcorrente facade, InetSocketAddress endereco, int backlog) throws IOException {
+        this.facade = facade;
+        this.servidor = HttpServer.create(endereco, backlog);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.servidor.setExecutor(executor);
+        this.servidor.createContext("/", this::tratar);
+    }
+
+    /**
+     * Cria o servidor sobre um sistema vazio, escutando na porta informada.
+     *
+     * @param porta porta TCP
+     * @throws IOException se a porta não puder ser aberta
+     */
+    public ServidorHttp(int porta) throws IOException {
+        this(new FacadeConcorrente(), new InetSocketAddress(porta), BACKLOG_PADRAO);
+    }
+
+    /**
+     * Inicia o atendimento de requisições.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Retorna a porta efetivamente em uso (útil quando criado com porta {@code 0}).
+     *
+     * @return porta TCP
+     */
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Para de aceitar conexões e encerra o executor das requisições.
+     */
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.close();
+    }
+
+    /**
+     * Inicia o servidor na porta {@code args[0]} (padrão {@code 8080}).
+     *
+     * @param args argumentos de linha de comando
+     * @throws IOException se a porta não puder ser aberta
+     */
+    public static void main(String[] args) throws IOException {
+        int porta = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        ServidorHttp servidor = new ServidorHttp(porta);
+        servidor.iniciar();
+        System.out.println("WePayU escutando na porta " + servidor.getPorta());
+    }
+
+    // --- Despacho ---
+
+    private void tratar(HttpExchange troca) {
+        try (troca) {
+            try {
+                rotear(troca);
+            } catch (RotaInvalida e) {
+                responder(troca, e.status, Map.of("erro", e.status == 404 ? "Rota inexistente." : "Metodo nao suportado."));
+            } catch (CorpoExcessivo e) {
+                responder(troca, 413, Map.of("erro", "Corpo da requisicao acima de " + CORPO_MAXIMO + " bytes."));
+            } catch (IllegalArgumentException e) {
+                responder(troca, 400, Map.of("erro", String.valueOf(e.getMessage())));
+            } catch (RuntimeException e) {
+                responder(troca, 500, Map.of("erro", String.valueOf(e)));
+            } catch (IOException e) {
+                // conexão perdida durante a resposta: nada a responder
+            } catch (Exception e) {
+                responder(troca, 400, Map.of("erro", String.valueOf(e.getMessage())));
+            }
+        } catch (IOException e) {
+            // conexão perdida ao enviar o erro
+        }
+    }
+
+    private void rotear(HttpExchange troca) throws Exception {
+        String metodo = troca.getRequestMethod();
+        String[] p = segmentos(troca.getRequestURI().getRawPath());
+        Map<String, String> q = consulta(troca.getRequestURI().getRawQuery());
+
+        if (p.length == 0) throw new RotaInvalida(404);
+        switch (p[0]) {
+            case "empregados" -> rotearEmpregados(troca, metodo, p, q);
+            case "sindicato" -> {
+                exigir(p.length == 3 && p[2].equals("taxas"), 404);
+                exigir(metodo.equals("POST"), 405);
+                Map<String, Object> c = corpo(troca);
+                facade.lancaTaxaServico(p[1], texto(c, "data"), texto(c, "valor"));
+                responder(troca, 201, null);
+            }
+            case "lotes" -> {
+                exigir(p.length == 1, 404);
+                exigir(metodo.equals("POST"), 405);
+                lote(troca);
+            }
+            case "folha" -> {
+                if (p.length == 2 && p[1].equals("total")) {
+                    exigir(metodo.equals("GET"), 405);
+                    responder(troca, 200, Map.of("valor", facade.totalFolha(q.get("data"))));
+                } else {
+                    exigir(p.length == 1, 404);
+                    exigir(metodo.equals("POST"), 405);
+                    folha(troca, texto(corpo(troca), "data"));
+                }
+            }
+            case "agendas" -> {
+                exigir(p.length == 1, 404);
+                exigir(metodo.equals("POST"), 405);
+                facade.criarAgendaDePagamentos(texto(corpo(troca), "descricao"));
+                responder(troca, 201, null);
+            }
+            case "undo", "redo", "zerar", "encerrar" -> {
+                exigir(p.length == 1, 404);
+                exigir(metodo.equals("POST"), 405);
+                switch (p[0]) {
+                    case "undo" -> facade.undo();
+                    case "redo" -> facade.redo();
+                    case "zerar" -> facade.zerarSistema();
+                    default -> facade.encerrarSistema();
+                }
+                responder(troca, 204, null);
+            }
+            default -> throw new RotaInvalida(404);
+        }
+    }
+
+    private void rotearEmpregados(HttpExchange troca, String metodo, String[] p, Map<String, String> q)
+            throws Exception {
+        if (p.length == 1) {
+            if (metodo.equals("GET")) {
+                responder(troca, 200, Map.of("total", facade.getNumeroDeEmpregados()));
+            } else {
+                exigir(metodo.equals("POST"), 405);
+                Map<String, Object> c = corpo(troca);
+                String id = c.containsKey("comissao")
+                        ? facade.criarEmpregado(texto(c, "nome"), texto(c, "endereco"), texto(c, "tipo"),
+                                                texto(c, "salario"), texto(c, "comissao"))
+                        : facade.criarEmpregado(texto(c, "nome"), texto(c, "endereco"), texto(c, "tipo"),
+                                                texto(c, "salario"));
+                responder(troca, 201, Map.of("id", id));
+            }
+            return;
+        }
+        if (p.length == 2 && p[1].equals("busca")) {
+            exigir(metodo.equals("GET"), 405);
+            String indice = q.getOrDefault("indice", "1");
+            responder(troca, 200, Map.of("id", facade.getEmpregadoPorNome(q.get("nome"), Integer.parseInt(indice))));
+            return;
+        }
+        String id = p[1];
+        if (p.length == 2) {
+            exigir(metodo.equals("DELETE"), 405);
+            facade.removerEmpregado(id);
+            responder(troca, 204, null);
+            return;
+        }
+        if (p.length == 4 && p[2].equals("atributos")) {
+            if (metodo.equals("GET")) {
+                responder(troca, 200, Map.of("valor", facade.getAtributoEmpregado(id, p[3])));
+            } else {
+                exigir(metodo.equals("PUT"), 405);
+                alterar(id, p[3], corpo(troca));
+                responder(troca, 204, null);
+            }
+            return;
+        }
+        exigir(p.length == 3, 404);
+        switch (p[2]) {
+            case "cartoes" -> {
+                exigir(metodo.equals("POST"), 405);
+                Map<String, Object> c = corpo(troca);
+                facade.lancaCartao(id, texto(c, "data"), texto(c, "horas"));
+                responder(troca, 201, null);
+            }
+            case "vendas" -> {
+                if (metodo.equals("GET")) {
+                    responder(troca, 200, Map.of("valor", facade.getVendasRealizadas(id, q.get("inicio"), q.get("fim"))));
+                } else {
+                    exigir(metodo.equals("POST"), 405);
+                    Map<String, Object> c = corpo(troca);
+                    facade.lancaVenda(id, texto(c, "data"), texto(c, "valor"));
+                    responder(troca, 201, null);
+                }
+            }
+            case "horas" -> {
+                exigir(metodo.equals("GET"), 405);
+                String inicio = q.get("inicio"), fim = q.get("fim");
+                String valor = switch (q.getOrDefault("tipo", "normais")) {
+                    case "normais" -> facade.getHorasNormaisTrabalhadas(id, inicio, fim);
+                    case "extras" -> facade.getHorasExtrasTrabalhadas(id, inicio, fim);
+                    default -> throw new IllegalArgumentException("Tipo de horas deve ser normais ou extras.");
+                };
+                responder(troca, 200, Map.of("valor", valor));
+            }
+            case "taxas" -> {
+                exigir(metodo.equals("GET"), 405);
+                responder(troca, 200, Map.of("valor", facade.getTaxasServico(id, q.get("inicio"), q.get("fim"))));
+            }
+            default -> throw new RotaInvalida(404);
+        }
+    }
+
+    /**
+     * Escolhe a sobrecarga de {@code alteraEmpregado} conforme os campos presentes no corpo.
+     */
+    private void alterar(String id, String atributo, Map<String, Object> c) throws Exception {
+        String valor = texto(c, "valor");
+        if (c.containsKey("banco")) {
+            facade.alteraEmpregado(id, atributo, valor, texto(c, "banco"), texto(c, "agencia"), texto(c, "contaCorrente"));
+        } else if (c.containsKey("idSindicato")) {
+            facade.alteraEmpregado(id, atributo, valor, texto(c, "idSindicato"), texto(c, "taxaSindical"));
+        } else if (c.containsKey("comissao")) {
+            facade.alteraEmpregado(id, atributo, valor, texto(c, "comissao"));
+        } else if (c.containsKey("extra")) {
+            facade.alteraEmpregado(id, atributo, valor, texto(c, "extra"));
+        } else {
+            facade.alteraEmpregado(id, atributo, valor);
+        }
+    }
+
+    private void lote(HttpExchange troca) throws Exception {
+        Map<String, Object> c = corpo(troca);
+        if (!(c.get("lancamentos") instanceof List<?> linhas)) {
+            throw new IllegalArgumentException("Campo lancamentos deve ser uma lista.");
+        }
+        List<Lancamento> lancamentos = new ArrayList<>(linhas.size());
+        for (Object o : linhas) {
+            if (!(o instanceof Map<?, ?> linha)) {
+                throw new IllegalArgumentException("Cada lancamento deve ser um objeto.");
+            }
+            String alvo = texto(linha, "alvo"), data = texto(linha, "data"), valor = texto(linha, "valor");
+            String tipo = texto(linha, "tipo");
+            lancamentos.add(switch (tipo == null ? "" : tipo) {
+                case "cartao" -> Lancamento.cartao(alvo, data, valor);
+                case "venda" -> Lancamento.venda(alvo, data, valor);
+                case "taxa" -> Lancamento.taxaServico(alvo, data, valor);
+                default -> throw new IllegalArgumentException("Tipo de lancamento deve ser cartao, venda ou taxa.");
+            });
+        }
+
+        if (Boolean.TRUE.equals(c.get("parcial"))) {
+            RelatorioLote relatorio = facade.lancaLoteParcial(lancamentos);
+            List<Map<String, Object>> falhas = new ArrayList<>();
+            for (RelatorioLote.Falha f : relatorio.getFalhas()) {
+                Map<String, Object> falha = new LinkedHashMap<>();
+                falha.put("linha", f.getLinha());
+                falha.put("erro", f.getMensagem());
+                falhas.add(falha);
+            }
+            Map<String, Object> resposta = new LinkedHashMap<>();
+            resposta.put("aplicados", relatorio.getAplicados());
+            resposta.put("falhas", falhas);
+            responder(troca, 200, resposta);
+        } else {
+            facade.lancaLote(lancamentos);
+            responder(troca, 200, Map.of("aplicados", lancamentos.size(), "falhas", List.of()));
+        }
+    }
+
+    /**
+     * Roda a folha para um arquivo temporário e transmite o relatório em blocos.
+     */
+    private void folha(HttpExchange troca, String data) throws Exception {
+        Path arquivo = Files.createTempFile("wepayu-folha-", ".txt");
+        try {
+            facade.rodaFolha(data, arquivo.toString());
+            troca.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            troca.sendResponseHeaders(200, 0);
+            try (InputStream in = Files.newInputStream(arquivo); OutputStream out = troca.getResponseBody()) {
+                in.transferTo(out);
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    // --- Utilitários ---
+
+    private static void exigir(boolean condicao, int status) {
+        if (!condicao) throw new RotaInvalida(status);
+    }
+
+    private static String[] segmentos(String caminho) {
+        List<String> partes = new ArrayList<>();
+        for (String s : caminho.split("/")) {
+            if (!s.isEmpty()) partes.add(URLDecoder.decode(s, StandardCharsets.UTF_8));
+        }
+        return partes.toArray(new String[0]);
+    }
+
+    private static Map<String, String> consulta(String bruta) {
+        Map<String, String> mapa = new HashMap<>();
+        if (bruta == null || bruta.isEmpty()) return mapa;
+        for (String par : bruta.split("&")) {
+            int i = par.indexOf('=');
+            String chave = i < 0 ? par : par.substring(0, i);
+            String valor = i < 0 ? "" : par.substring(i + 1);
+            mapa.put(URLDecoder.decode(chave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return mapa;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> corpo(HttpExchange troca) throws IOException {
+        byte[] bytes;
+        try (InputStream in = troca.getRequestBody()) {
+            bytes = in.readNBytes(CORPO_MAXIMO + 1);
+            if (bytes.length > CORPO_MAXIMO) {
+                // o restante é descartado: fechar a conexão com dados não lidos perderia a resposta
+                in.transferTo(OutputStream.nullOutputStream());
+                throw new CorpoExcessivo();
+            }
+        }
+        String texto = new String(bytes, StandardCharsets.UTF_8);
+        if (texto.isBlank()) return Map.of();
+        if (!(Json.ler(texto) instanceof Map<?, ?> mapa)) {
+            throw new IllegalArgumentException("Corpo da requisicao deve ser um objeto JSON.");
+        }
+        return (Map<String, Object>) mapa;
+    }
+
+    /**
+     * Lê um campo do corpo como texto; campos ausentes viram {@code null}, como nas chamadas da Facade,
+     * que já validam valores nulos com as exceções de negócio adequadas.
+     */
+    private static String texto(Map<?, ?> corpo, String campo) {
+        Object v = corpo.get(campo);
+        return v == null ? null : v.toString();
+    }
+
+    private static void responder(HttpExchange troca, int status, Object corpo) throws IOException {
+        Headers h = troca.getResponseHeaders();
+        if (corpo == null) {
+            troca.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = Json.escrever(corpo).getBytes(StandardCharsets.UTF_8);
+        h.set("Content-Type", "application/json; charset=UTF-8");
+        troca.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = troca.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package wepayu.server;
+
+import wepayu.command.Particao;
+import wepayu.command.ParticaoLocal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * JVM de trabalho de uma {@code FacadeParticionada}: mantém uma {@link ParticaoLocal} e executa as
+ * operações que a {@link ParticaoRemota} do coordenador envia por um socket de domínio Unix.
+ *
+ * <p>
+ * Pedidos e respostas são objetos serializados ({@link Pedido}, {@link Resposta}); as exceções de
+ * validação voltam como estão, com a mesma classe e mensagem; as demais exceções voltam como
+ * {@link IllegalStateException} ou {@link Error} com a mesma pilha ({@link #transportavel(Throwable)}).
+ * A desserialização, dos dois lados, só aceita as classes das mensagens e tem limites por mensagem
+ * ({@link #novoFiltro()}). Atende uma conexão de cada vez, na ordem em que
+ * chegam, e termina com o pedido {@code encerrar} ou, se iniciada com {@code --seguir-pai}, quando o
+ * processo que a iniciou termina.
+ * </p>
+ *
+ * <p>Uso: {@code ServidorParticao socket [--seguir-pai]}.</p>
+ *
+ * @see ParticaoRemota
+ */
+public final class ServidorParticao {
+
+    private static final System.Logger LOG = System.getLogger("wepayu.particao");
+
+    /**
+     * Classes que os pedidos e as respostas contêm: os argumentos e retornos de {@link Particao}, a
+     * {@code FolhaCalculada} e as exceções de validação. Em arrays vale a classe dos elementos, e as
+     * coleções conferem o tamanho como um array ({@code Map$Entry} nos mapas).
+     */
+    private static final ObjectInputFilter CLASSES = ObjectInputFilter.Config.createFilter(
+            "wepayu.server.ServidorParticao$Pedido;wepayu.server.ServidorParticao$Resposta;"
+                    + "wepayu.services.FolhaCalculada;wepayu.services.FolhaCalculada$*;wepayu.exceptions.*;"
+                    + "java.lang.Object;java.lang.String;java.lang.Number;java.lang.Integer;java.lang.Boolean;"
+                    + "java.lang.Enum;java.lang.Throwable;java.lang.Exception;java.lang.RuntimeException;"
+                    + "java.lang.IllegalStateException;java.lang.Error;java.lang.StackTraceElement;"
+                    + "java.math.BigDecimal;java.math.BigInteger;java.time.Ser;java.time.LocalDate;"
+                    + "java.util.ArrayList;java.util.HashMap;java.util.LinkedHashMap;java.util.EnumMap;"
+                    + "java.util.Map$Entry;java.util.CollSer;java.util.ImmutableCollections$List12;"
+                    + "java.util.ImmutableCollections$ListN;java.util.Collections$EmptyList;!*");
+
+    private static final int MAX_PROFUNDIDADE = 32;
+    private static final long MAX_ELEMENTOS = 10_000_000L;
+    private static final long MAX_REFERENCIAS = 50_000_000L;
+    private static final long MAX_BYTES = 1L << 30;
+
+    /**
+     * Cria o filtro de desserialização de uma conexão: só as classes de {@link #CLASSES}, com no máximo
+     * {@value #MAX_PROFUNDIDADE} níveis de aninhamento e {@value #MAX_ELEMENTOS} elementos por array ou
+     * coleção, e {@value #MAX_REFERENCIAS} referências e {@value #MAX_BYTES} bytes por mensagem. Os
+     * limites do {@code jdk.serialFilter} ({@code maxrefs}, {@code maxbytes}) contam desde a abertura do
+     * fluxo, que dura a conexão inteira; por isso este filtro os conta a partir do início de cada
+     * mensagem (o objeto de profundidade 1) e precisa de uma instância por fluxo.
+     *
+     * @return um filtro novo, para um único {@link ObjectInputStream}
+     */
+    static ObjectInputFilter novoFiltro() {
+        return new ObjectInputFilter() {
+            private long referenciasAntes;
+            private long bytesAntes;
+
+            @Override
+            public Status checkInput(FilterInfo info) {
+                if (info.depth() == 1) {
+                    referenciasAntes = info.references();
+                    bytesAntes = info.streamBytes();
+                }
+                if (info.depth() > MAX_PROFUNDIDADE || info.arrayLength() > MAX_ELEMENTOS
+                        || info.references() - referenciasAntes > MAX_REFERENCIAS
+                        || info.streamBytes() - bytesAntes > MAX_BYTES) {
+                    return Status.REJECTED;
+                }
+                return CLASSES.checkInput(info);
+            }
+        };
+    }
+
+    /**
+     * Pedido do coordenador.
+     *
+     * @param operacao nome do método de {@link Particao}
+     * @param argumentos argumentos do método
+     */
+    record Pedido(String operacao, Object[] argumentos) implements Serializable {
+    }
+
+    /**
+     * Resposta da partição: o retorno da operação ou a exceção lançada.
+     *
+     * @param valor retorno ({@code null} se {@code void} ou se houve erro)
+     * @param erro exceção lançada, ou {@code null}
+     */
+    record Resposta(Object valor, Throwable erro) implements Serializable {
+    }
+
+    private ServidorParticao() {
+    }
+
+    /**
+     * Executa um pedido na partição.
+     *
+     * @param particao partição local
+     * @param pedido pedido recebido
+     * @return retorno da operação, serializável
+     * @throws Exception a exceção da operação
+     */
+    static Object despachar(Particao particao, Pedido pedido) throws Exception {
+        Object[] a = pedido.argumentos();
+        return switch (pedido.operacao()) {
+            case "executar" -> particao.executar((String) a[0], (String[]) a[1]);
+            case "criarEmpregado" -> particao.criarEmpregado((Integer) a[0], (String[]) a[1]);
+            case "executarNoMembro" -> particao.executarNoMembro((String) a[0], (String[]) a[1], (Boolean) a[2]);
+            case "getMembrosSindicato" -> new LinkedHashMap<>(particao.getMembrosSindicato());
+            case "getEmpregadosPorNome" -> new ArrayList<>(particao.getEmpregadosPorNome((String) a[0], (Integer) a[1]));
+            case "getNumeroDeEmpregados" -> particao.getNumeroDeEmpregados();
+            case "getUltimoId" -> particao.getUltimoId();
+            case "calcularFolha" -> particao.calcularFolha((String) a[0]);
+            case "pagarFolha" -> {
+                particao.pagarFolha((String) a[0]);
+                yield null;
+            }
+            case "calcularTotalFolha" -> particao.calcularTotalFolha((String) a[0], (Boolean) a[1]);
+            case "haAgendaCustomizada" -> particao.haAgendaCustomizada();
+            case "undo" -> {
+                particao.undo();
+                yield null;
+            }
+            case "redo" -> {
+                particao.redo();
+                yield null;
+            }
+            case "limparHistorico" -> {
+                particao.limparHistorico();
+                yield null;
+            }
+            default -> throw new IllegalArgumentException("Operacao desconhecida: " + pedido.operacao());
+        };
+    }
+
+    /**
+     * Converte uma exceção da partição em uma que o filtro do coordenador aceite: as exceções de validação
+     * ({@code wepayu.exceptions}, sem causa de fora do pacote) voltam como estão, e as demais como uma
+     * {@link IllegalStateException} (ou um {@link Error}) com a descrição e a pilha da original.
+     *
+     * @param erro exceção lançada pela operação
+     * @return a exceção a enviar
+     */
+    static Throwable transportavel(Throwable erro) {
+        Throwable t = erro;
+        for (int i = 0; t != null && i < MAX_PROFUNDIDADE; i++, t = t.getCause()) {
+            if (!t.getClass().getName().startsWith("wepayu.exceptions.")) break;
+        }
+        if (t == null) return erro;
+        Throwable copia = erro instanceof Error ? new Error(erro.toString()) : new IllegalStateException(erro.toString());
+        copia.setStackTrace(erro.getStackTrace());
+        return copia;
+    }
+
+    /**
+     * Atende uma conexão até o coordenador desconectar.
+     *
+     * @return {@code true} se o coordenador pediu o encerramento
+     */
+    private static boolean atender(SocketChannel canal, Particao particao) throws IOException {
+        try (canal) {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)));
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(canal)));
+            in.setObjectInputFilter(novoFiltro());
+            while (true) {
+                Pedido pedido;
+                try {
+                    pedido = (Pedido) in.readObject();
+                } catch (EOFException e) {
+                    return false;
+                } catch (ClassNotFoundException | ClassCastException e) {
+                    throw new IOException("Pedido invalido.", e);
+                }
+                if (pedido.operacao().equals("encerrar")) {
+                    out.writeObject(new Resposta(null, null));
+                    out.flush();
+                    return true;
+                }
+                Resposta resposta;
+                try {
+                    resposta = new Resposta(despachar(particao, pedido), null);
+                } catch (Exception | Error e) {
+                    resposta = new Resposta(null, transportavel(e));
+                }
+                out.writeObject(resposta);
+                out.flush();
+                out.reset();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Uso: ServidorParticao socket [--seguir-pai]");
+            System.exit(2);
+        }
+        Path socket = Path.of(args[0]);
+        if (args.length > 1 && args[1].equals("--seguir-pai")) {
+            ProcessHandle.current().parent().ifPresent(pai -> pai.onExit().thenRun(() -> System.exit(0)));
+        }
+
+        Particao particao = new ParticaoLocal();
+        try (ServerSocketChannel servidor = SocketPrivado.abrir(socket)) {
+            LOG.log(System.Logger.Level.DEBUG, "Particao escutando em " + socket);
+            boolean encerrar = false;
+            while (!encerrar) {
+                try {
+                    encerrar = atender(servidor.accept(), particao);
+                } catch (IOException e) {
+                    LOG.log(System.Logger.Level.WARNING, "Conexao com o coordenador falhou", e);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+        System.exit(0);
+    }
+}
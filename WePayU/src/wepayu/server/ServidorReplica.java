@@ -0,0 +1,242 @@
+package wepayu.server;
+
+import wepayu.command.FacadeComDiario;
+import wepayu.command.ReplicaLeitura;
+import wepayu.script.ErroDeScript;
+import wepayu.script.ResultadoScript;
+import wepayu.script.Script;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Processo seguidor: mantém uma {@link ReplicaLeitura} e atende consultas por um socket de domínio
+ * Unix, no protocolo do {@link DaemonResidente} (o {@link ClienteDaemon} serve de cliente).
+ *
+ * <p>
+ * {@code COMANDO <diretorio> <linha>} executa uma linha no formato dos scripts sobre a réplica, que só
+ * tem consultas, {@code totalFolha} e {@code simularFolha}; as variáveis {@code ${var}} são da conexão,
+ * e conexões diferentes consultam em paralelo. {@code STATUS} informa a sequência aplicada, o atraso e
+ * se o primário está ativo. {@code PROMOVER} promove a réplica: a partir daí os comandos são executados
+ * (um de cada vez) sobre a {@link FacadeComDiario} devolvida e, com {@code --servir-diario}, o novo
+ * diário é oferecido a outras réplicas por um {@link ServidorDiario}. {@code ENCERRAR} termina o
+ * processo.
+ * </p>
+ *
+ * <p>Uso: {@code ServidorReplica --socket caminho (--arquivo diario | --primario socket --copia arquivo)
+ * [--atraso-maximo ms] [--servir-diario socket]}.</p>
+ */
+public final class ServidorReplica implements AutoCloseable {
+
+    private static final System.Logger LOG = System.getLogger("wepayu.replica");
+
+    private final Path socket;
+    private final ReplicaLeitura replica;
+    private final Path socketDiario;
+    private final ExecutorService conexoes = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocketChannel servidor;
+    private Thread aceitador;
+    private volatile FacadeComDiario primario;
+    private ServidorDiario servidorDiario;
+
+    /**
+     * @param socket caminho do socket de domínio Unix
+     * @param replica réplica a expor
+     * @param socketDiario onde servir o diário depois da promoção, ou {@code null}
+     */
+    public ServidorReplica(Path socket, ReplicaLeitura replica, Path socketDiario) {
+        this.socket = socket;
+        this.replica = replica;
+        this.socketDiario = socketDiario;
+    }
+
+    /**
+     * Abre o socket e começa a aceitar conexões.
+     *
+     * @throws IOException se o socket não puder ser aberto
+     */
+    public synchronized void iniciar() throws IOException {
+        servidor = SocketPrivado.abrir(socket);
+        aceitador = new Thread(this::aceitar, "wepayu-replica-servidor");
+        aceitador.start();
+    }
+
+    private void aceitar() {
+        try {
+            while (true) {
+                SocketChannel canal = servidor.accept();
+                conexoes.submit(() -> atender(canal));
+            }
+        } catch (ClosedChannelException e) {
+            // encerrado
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.ERROR, "Falha ao aceitar conexoes em " + socket, e);
+        }
+    }
+
+    private void atender(SocketChannel canal) {
+        Map<String, String> variaveis = new HashMap<>();
+        try (canal;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(canal), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(canal), StandardCharsets.UTF_8))) {
+            String cabecalho;
+            while ((cabecalho = in.readLine()) != null) {
+                if (cabecalho.isBlank()) continue;
+                String[] campos = cabecalho.split("\t", -1);
+                switch (campos[0]) {
+                    case "COMANDO" -> {
+                        if (campos.length != 3) responder(out, List.of("Uso: COMANDO <diretorio> <linha>"), 2);
+                        else comando(out, Path.of(campos[1]), campos[2], variaveis);
+                    }
+                    case "STATUS" -> responder(out, List.of(status()), 0);
+                    case "PROMOVER" -> promover(out);
+                    case "ENCERRAR" -> {
+                        responder(out, List.of("Encerrando."), 0);
+                        new Thread(this::encerrar, "wepayu-replica-encerramento").start();
+                        return;
+                    }
+                    default -> responder(out, List.of("Requisicao invalida: " + campos[0]), 2);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // cliente desconectou
+        }
+    }
+
+    private void comando(BufferedWriter out, Path diretorio, String linha, Map<String, String> variaveis)
+            throws IOException {
+        FacadeComDiario p = primario;
+        Script script;
+        try {
+            script = Script.compilar("comando", List.of(linha), p == null ? ReplicaLeitura.class : FacadeComDiario.class);
+        } catch (ErroDeScript e) {
+            responder(out, List.of(e.getMessage()), 2);
+            return;
+        }
+        ResultadoScript r;
+        if (p == null) {
+            r = script.executar(replica, variaveis, diretorio, null);
+        } else {
+            synchronized (p) {
+                p.setDiretorioSaida(diretorio);
+                r = script.executar(p, variaveis, diretorio, null);
+            }
+        }
+        if (!r.isSucesso()) {
+            responder(out, r.getFalhas(), 1);
+            return;
+        }
+        Object retorno = r.getUltimoRetorno();
+        responder(out, retorno == null ? List.of() : String.valueOf(retorno).lines().toList(), 0);
+    }
+
+    private String status() {
+        FacadeComDiario p = primario;
+        if (p != null) return "papel=primario sequencia=" + p.getSequencia();
+        Duration atraso = replica.getAtraso();
+        return String.format(Locale.ROOT, "papel=replica sequencia=%d atraso=%s primarioAtivo=%b%s",
+                replica.getSequencia(), atraso == null ? "-" : atraso.toMillis() + "ms", replica.isPrimarioAtivo(),
+                replica.getErro() == null ? "" : " erro=" + replica.getErro().getMessage());
+    }
+
+    private synchronized void promover(BufferedWriter out) throws IOException {
+        if (primario != null) {
+            responder(out, List.of("Ja promovida."), 2);
+            return;
+        }
+        try {
+            FacadeComDiario p = replica.promover();
+            if (socketDiario != null) {
+                servidorDiario = new ServidorDiario(p.getDiario(), socketDiario);
+                servidorDiario.iniciar();
+            }
+            primario = p;
+        } catch (Exception e) {
+            responder(out, List.of(String.valueOf(e.getMessage())), 1);
+            return;
+        }
+        responder(out, List.of(status()), 0);
+    }
+
+    private void encerrar() {
+        try {
+            close();
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.WARNING, "Falha ao encerrar a replica", e);
+        }
+    }
+
+    private static void responder(BufferedWriter out, List<String> linhas, int codigo) throws IOException {
+        for (String l : linhas) {
+            out.write("> ");
+            out.write(l);
+            out.newLine();
+        }
+        out.write("= " + codigo);
+        out.newLine();
+        out.flush();
+    }
+
+    /** Fecha o socket, a réplica e, se promovida, o diário. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (servidor == null) return;
+        servidor.close();
+        conexoes.shutdownNow();
+        Files.deleteIfExists(socket);
+        if (servidorDiario != null) servidorDiario.close();
+        replica.close();
+        if (primario != null) primario.close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path socket = null;
+        Path arquivo = null;
+        Path primario = null;
+        Path copia = null;
+        Path servirDiario = null;
+        long atrasoMaximo = -1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--socket" -> socket = Path.of(args[++i]);
+                case "--arquivo" -> arquivo = Path.of(args[++i]);
+                case "--primario" -> primario = Path.of(args[++i]);
+                case "--copia" -> copia = Path.of(args[++i]);
+                case "--atraso-maximo" -> atrasoMaximo = Long.parseLong(args[++i]);
+                case "--servir-diario" -> servirDiario = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Argumento invalido: " + args[i]);
+            }
+        }
+        if (socket == null || (arquivo == null) == (primario == null) || (primario != null && copia == null)) {
+            System.err.println("Uso: ServidorReplica --socket caminho (--arquivo diario | --primario socket --copia arquivo)"
+                    + " [--atraso-maximo ms] [--servir-diario socket]");
+            System.exit(2);
+        }
+        ReplicaLeitura replica = arquivo != null
+                ? ReplicaLeitura.seguirArquivo(arquivo)
+                : ReplicaLeitura.seguir(FonteDiarioSocket.para(primario), copia);
+        if (atrasoMaximo >= 0) replica.setAtrasoMaximo(Duration.ofMillis(atrasoMaximo));
+        ServidorReplica servidor = new ServidorReplica(socket, replica, servirDiario);
+        servidor.iniciar();
+        System.out.println("Replica escutando em " + socket);
+        servidor.aceitador.join();
+    }
+}
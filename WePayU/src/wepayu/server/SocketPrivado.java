@@ -0,0 +1,77 @@
+package wepayu.server;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Abertura de sockets de domínio Unix acessíveis só ao dono do processo.
+ *
+ * <p>
+ * O {@code bind} cria o arquivo do socket com a permissão da umask do processo, e a JVM não permite
+ * mudá-la; trocar a permissão depois deixaria um intervalo em que outro usuário poderia se conectar.
+ * Por isso o socket é criado dentro de um diretório temporário com permissão {@code 0700}, ao lado
+ * do caminho final, recebe a permissão {@code 0600} e só então é movido para o caminho final. Em
+ * sistemas de arquivos sem permissões POSIX, o socket é criado direto no caminho final.
+ * </p>
+ */
+final class SocketPrivado {
+
+    private static final FileAttribute<Set<PosixFilePermission>> DIRETORIO_PRIVADO =
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
+
+    private SocketPrivado() {
+    }
+
+    /**
+     * Abre um socket servidor no caminho informado, substituindo um arquivo que já esteja lá.
+     *
+     * @param socket caminho do socket
+     * @return o canal já ligado ao caminho
+     * @throws IOException se o socket não puder ser criado ou movido
+     */
+    static ServerSocketChannel abrir(Path socket) throws IOException {
+        Path pai = socket.toAbsolutePath().getParent();
+        Path privado;
+        try {
+            privado = Files.createTempDirectory(pai, ".s", DIRETORIO_PRIVADO);
+        } catch (UnsupportedOperationException e) {
+            Files.deleteIfExists(socket);
+            return ligar(socket);
+        }
+        Path temporario = privado.resolve("s");
+        try {
+            ServerSocketChannel servidor = ligar(temporario);
+            try {
+                Files.setPosixFilePermissions(temporario, PosixFilePermissions.fromString("rw-------"));
+                Files.move(temporario, socket, StandardCopyOption.ATOMIC_MOVE);
+                return servidor;
+            } catch (IOException | RuntimeException e) {
+                servidor.close();
+                throw e;
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+            Files.deleteIfExists(privado);
+        }
+    }
+
+    private static ServerSocketChannel ligar(Path caminho) throws IOException {
+        ServerSocketChannel servidor = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            servidor.bind(UnixDomainSocketAddress.of(caminho));
+            return servidor;
+        } catch (IOException | RuntimeException e) {
+            servidor.close();
+            throw e;
+        }
+    }
+}
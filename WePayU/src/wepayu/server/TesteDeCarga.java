@@ -0,0 +1,101 @@
+package wepayu.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gerador de carga local para o {@link ServidorHttp}, simulando relógios de ponto.
+ *
+ * <p>
+ * Cria {@code horistas} empregados e dispara {@code clientes} threads virtuais, cada uma lançando
+ * {@code cartoes} cartões de ponto em sequência para um dos horistas. Ao final imprime a vazão e a
+ * latência média e máxima das requisições de cartão.
+ * </p>
+ *
+ * <p>Uso: {@code TesteDeCarga <url-base> [clientes] [cartoes] [horistas]}; se a URL for omitida,
+ * um servidor é iniciado na mesma JVM em uma porta livre.</p>
+ */
+public final class TesteDeCarga {
+
+    private TesteDeCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ServidorHttp local = null;
+        String base;
+        if (args.length > 0 && args[0].startsWith("http")) {
+            base = args[0];
+        } else {
+            local = new ServidorHttp(0);
+            local.iniciar();
+            base = "http://localhost:" + local.getPorta();
+        }
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int cartoes = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int horistas = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        String[] ids = new String[horistas];
+        for (int i = 0; i < horistas; i++) {
+            String corpo = "{\"nome\":\"Horista " + i + "\",\"endereco\":\"Rua " + i
+                    + "\",\"tipo\":\"horista\",\"salario\":\"20,00\"}";
+            String resposta = http.send(post(base + "/empregados", corpo), HttpResponse.BodyHandlers.ofString()).body();
+            ids[i] = (String) ((java.util.Map<?, ?>) Json.ler(resposta)).get("id");
+        }
+
+        LongAdder ok = new LongAdder();
+        LongAdder falhas = new LongAdder();
+        LongAdder somaNanos = new LongAdder();
+        AtomicLong maxNanos = new AtomicLong();
+        long inicio = System.nanoTime();
+        try (ExecutorService virtuais = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                String id = ids[c % horistas];
+                int cliente = c;
+                virtuais.submit(() -> {
+                    for (int k = 0; k < cartoes; k++) {
+                        int dia = 1 + (cliente * cartoes + k) % 28;
+                        String corpo = "{\"data\":\"" + dia + "/1/2005\",\"horas\":\"8\"}";
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> r = http.send(post(base + "/empregados/" + id + "/cartoes", corpo),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (r.statusCode() == 201) ok.increment(); else falhas.increment();
+                        } catch (Exception e) {
+                            falhas.increment();
+                        }
+                        long dt = System.nanoTime() - t0;
+                        somaNanos.add(dt);
+                        maxNanos.accumulateAndGet(dt, Math::max);
+                    }
+                    return null;
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        long total = ok.sum() + falhas.sum();
+        System.out.printf("clientes=%d requisicoes=%d ok=%d falhas=%d tempo=%.2fs vazao=%.0f req/s "
+                        + "latencia media=%.2fms max=%.2fms%n",
+                clientes, total, ok.sum(), falhas.sum(), segundos, total / segundos,
+                somaNanos.sum() / 1e6 / Math.max(1, total), maxNanos.get() / 1e6);
+        if (local != null) local.close();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
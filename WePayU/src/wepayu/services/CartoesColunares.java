@@ -0,0 +1,369 @@
+package wepayu.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Cartões de ponto de vários horistas em colunas de tipos primitivos, para consultas por período sobre
+ * volumes grandes.
+ *
+ * <p>
+ * Na representação por objetos cada cartão custa um {@link wepayu.models.CartaoDePonto}, um
+ * {@link java.time.LocalDate} e uma referência na lista do horista (cerca de 50 bytes). Aqui os cartões
+ * ficam agrupados por empregado e ordenados por dia em duas colunas {@code int}: o dia (epoch) e as
+ * horas em centésimos, ou seja, 8 bytes por cartão. O empregado de cada cartão não é guardado: um
+ * índice de posições indica onde começam os cartões de cada um. As colunas são divididas em segmentos
+ * de 2<sup>20</sup> posições, então dezenas de milhões de cartões não exigem um único vetor contíguo.
+ * </p>
+ *
+ * <p>
+ * A estrutura é imutável e opcional: é montada por um {@link Construtor} (ou por
+ * {@link Sistema#exportarCartoes()}) e não acompanha alterações posteriores do sistema. Os períodos
+ * são semiabertos, {@code [diaInicial, diaFinal)}, em dias epoch; os totais são devolvidos em
+ * centésimos de hora, com horas normais limitadas a 8 por dia e o excedente como horas extras,
+ * como no cálculo da folha.
+ * </p>
+ */
+public final class CartoesColunares {
+
+    private static final int BITS_SEGMENTO = 20;
+    private static final int SEGMENTO = 1 << BITS_SEGMENTO;
+    private static final int MASCARA = SEGMENTO - 1;
+
+    /** Horas diárias, em centésimos, a partir das quais as horas são extras. */
+    private static final int LIMITE_NORMAIS = 800;
+
+    private final int[] ids;
+    private final HashMap<Integer, Integer> indices;
+    private final long[] inicio;
+    private final int[][] dias;
+    private final int[][] centesimos;
+
+    private CartoesColunares(int[] ids, long[] inicio, int[][] dias, int[][] centesimos) {
+        this.ids = ids;
+        this.inicio = inicio;
+        this.dias = dias;
+        this.centesimos = centesimos;
+        this.indices = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) indices.put(ids[i], i);
+    }
+
+    /**
+     * Monta um {@link CartoesColunares} a partir de cartões em qualquer ordem.
+     *
+     * <p>Se o mesmo empregado tiver mais de um cartão no mesmo dia, vale o último adicionado, como em
+     * {@link wepayu.models.Horista#addCartaoDePonto(wepayu.models.CartaoDePonto)}.</p>
+     */
+    public static final class Construtor {
+        private int[] ids = new int[16];
+        private int empregados;
+        private int[][] empregado = new int[0][];
+        private int[][] dias = new int[0][];
+        private int[][] centesimos = new int[0][];
+        private long tamanho;
+
+        /**
+         * Registra um empregado.
+         *
+         * @param id identificador numérico do empregado no sistema
+         * @return índice do empregado, usado em {@link #adicionar} e nas consultas
+         */
+        public int empregado(int id) {
+            if (empregados == ids.length) ids = Arrays.copyOf(ids, empregados * 2);
+            ids[empregados] = id;
+            return empregados++;
+        }
+
+        /**
+         * Adiciona um cartão de ponto.
+         *
+         * @param empregado índice devolvido por {@link #empregado(int)}
+         * @param dia data do cartão em dias epoch
+         * @param horas horas trabalhadas no dia
+         * @throws IllegalArgumentException se o índice for desconhecido ou se as horas não puderem ser
+         *                                  representadas exatamente em centésimos
+         */
+        public void adicionar(int empregado, long dia, double horas) {
+            if (empregado < 0 || empregado >= empregados) {
+                throw new IllegalArgumentException("Empregado desconhecido: " + empregado);
+            }
+            long c = Math.round(horas * 100);
+            if (c / 100.0 != horas || c != (int) c || dia != (int) dia) {
+                throw new IllegalArgumentException("Cartao nao representavel em centesimos de hora: " + horas);
+            }
+            if (tamanho == (long) this.dias.length << BITS_SEGMENTO) {
+                int n = this.dias.length + 1;
+                this.empregado = Arrays.copyOf(this.empregado, n);
+                this.dias = Arrays.copyOf(this.dias, n);
+                this.centesimos = Arrays.copyOf(this.centesimos, n);
+                this.empregado[n - 1] = new int[SEGMENTO];
+                this.dias[n - 1] = new int[SEGMENTO];
+                this.centesimos[n - 1] = new int[SEGMENTO];
+            }
+            gravar(this.empregado, tamanho, empregado);
+            gravar(this.dias, tamanho, (int) dia);
+            gravar(this.centesimos, tamanho, (int) c);
+            tamanho++;
+        }
+
+        /**
+         * Agrupa os cartões por empregado (contagem, em tempo linear), ordena os de cada empregado por
+         * dia quando ainda não estiverem em ordem e descarta os cartões substituídos. O construtor não
+         * pode ser reutilizado depois.
+         *
+         * @return a estrutura montada
+         */
+        public CartoesColunares construir() {
+            long[] inicio = new long[empregados + 1];
+            for (long p = 0; p < tamanho; p++) inicio[ler(empregado, p) + 1]++;
+            for (int e = 0; e < empregados; e++) inicio[e + 1] += inicio[e];
+
+            int segmentos = (int) ((tamanho + MASCARA) >>> BITS_SEGMENTO);
+            int[][] d = new int[segmentos][];
+            int[][] c = new int[segmentos][];
+            for (int s = 0; s < segmentos; s++) {
+                int n = (int) Math.min(SEGMENTO, tamanho - ((long) s << BITS_SEGMENTO));
+                d[s] = new int[n];
+                c[s] = new int[n];
+            }
+            long[] cursor = Arrays.copyOf(inicio, empregados);
+            for (long p = 0; p < tamanho; p++) {
+                long destino = cursor[ler(empregado, p)]++;
+                gravar(d, destino, ler(dias, p));
+                gravar(c, destino, ler(centesimos, p));
+            }
+            empregado = dias = centesimos = null;
+
+            long escrita = 0;
+            for (int e = 0; e < empregados; e++) {
+                long a = inicio[e], b = inicio[e + 1];
+                inicio[e] = escrita;
+                escrita = ordenarSemRepetidos(d, c, a, b, escrita);
+            }
+            inicio[empregados] = escrita;
+            return new CartoesColunares(Arrays.copyOf(ids, empregados), inicio, d, c);
+        }
+
+        /**
+         * Copia os cartões de {@code [a, b)} para a partir de {@code escrita} (que nunca passa de
+         * {@code a}), ordenados por dia e com um cartão por dia.
+         *
+         * @return a posição seguinte ao último cartão escrito
+         */
+        private static long ordenarSemRepetidos(int[][] d, int[][] c, long a, long b, long escrita) {
+            boolean crescente = true;
+            for (long p = a + 1; p < b && crescente; p++) crescente = ler(d, p - 1) < ler(d, p);
+            if (crescente) {
+                if (escrita == a) return b;
+                for (long p = a; p < b; p++, escrita++) {
+                    gravar(d, escrita, ler(d, p));
+                    gravar(c, escrita, ler(c, p));
+                }
+                return escrita;
+            }
+            int n = (int) (b - a);
+            long[] chaves = new long[n];
+            int[] horas = new int[n];
+            for (int i = 0; i < n; i++) {
+                chaves[i] = (long) ler(d, a + i) << 32 | i;
+                horas[i] = ler(c, a + i);
+            }
+            Arrays.sort(chaves);
+            for (int i = 0; i < n; i++) {
+                int dia = (int) (chaves[i] >> 32);
+                if (i + 1 < n && (int) (chaves[i + 1] >> 32) == dia) continue;
+                gravar(d, escrita, dia);
+                gravar(c, escrita, horas[(int) chaves[i]]);
+                escrita++;
+            }
+            return escrita;
+        }
+    }
+
+    /**
+     * Retorna o número de empregados.
+     *
+     * @return empregados registrados
+     */
+    public int getEmpregados() {
+        return ids.length;
+    }
+
+    /**
+     * Retorna o número total de cartões (um por empregado e dia).
+     *
+     * @return cartões armazenados
+     */
+    public long getCartoes() {
+        return inicio[ids.length];
+    }
+
+    /**
+     * Retorna o identificador do empregado de um índice.
+     *
+     * @param empregado índice do empregado
+     * @return o id numérico no sistema
+     */
+    public int getId(int empregado) {
+        return ids[empregado];
+    }
+
+    /**
+     * Retorna o índice de um empregado.
+     *
+     * @param id id numérico no sistema
+     * @return o índice, ou {@code -1} se o empregado não estiver na estrutura
+     */
+    public int indiceDe(int id) {
+        Integer i = indices.get(id);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Retorna os bytes ocupados pelas colunas e pelo índice de posições (sem cabeçalhos de objetos).
+     *
+     * @return bytes aproximados em memória
+     */
+    public long getBytes() {
+        long bytes = (long) inicio.length * Long.BYTES + (long) ids.length * Integer.BYTES;
+        for (int[] s : dias) bytes += (long) s.length * Integer.BYTES;
+        for (int[] s : centesimos) bytes += (long) s.length * Integer.BYTES;
+        return bytes;
+    }
+
+    /**
+     * Soma as horas normais de um empregado no período, em centésimos.
+     *
+     * @param empregado índice do empregado
+     * @param diaInicial primeiro dia (inclusive), em dias epoch
+     * @param diaFinal último dia (exclusivo), em dias epoch
+     * @return horas normais × 100
+     */
+    public long horasNormais(int empregado, long diaInicial, long diaFinal) {
+        long[] totais = new long[2];
+        somar(empregado, diaInicial, diaFinal, totais);
+        return totais[0];
+    }
+
+    /**
+     * Soma as horas extras de um empregado no período, em centésimos.
+     *
+     * @param empregado índice do empregado
+     * @param diaInicial primeiro dia (inclusive), em dias epoch
+     * @param diaFinal último dia (exclusivo), em dias epoch
+     * @return horas extras × 100
+     */
+    public long horasExtras(int empregado, long diaInicial, long diaFinal) {
+        long[] totais = new long[2];
+        somar(empregado, diaInicial, diaFinal, totais);
+        return totais[1];
+    }
+
+    /**
+     * Soma as horas normais e extras de todos os empregados no período, em uma passada por empregado.
+     *
+     * @param diaInicial primeiro dia (inclusive), em dias epoch
+     * @param diaFinal último dia (exclusivo), em dias epoch
+     * @param normais recebe, por índice de empregado, as horas normais × 100
+     * @param extras recebe, por índice de empregado, as horas extras × 100
+     */
+    public void somarHoras(long diaInicial, long diaFinal, long[] normais, long[] extras) {
+        long[] totais = new long[2];
+        for (int e = 0; e < ids.length; e++) {
+            totais[0] = totais[1] = 0;
+            somar(e, diaInicial, diaFinal, totais);
+            normais[e] = totais[0];
+            extras[e] = totais[1];
+        }
+    }
+
+    /**
+     * Acumula horas normais, horas extras e salário bruto de um empregado no período com um
+     * {@link KernelFolha}, passando ao kernel cada trecho contíguo de cartões.
+     *
+     * <p>Os totais têm o mesmo valor das somas em {@code BigDecimal} da folha de pagamento para os
+     * mesmos cartões e salário por hora; para o período {@code [ini, fim]} da folha use
+     * {@code diaFinal = fim + 1}.</p>
+     *
+     * @param empregado índice do empregado
+     * @param diaInicial primeiro dia (inclusive), em dias epoch
+     * @param diaFinal último dia (exclusivo), em dias epoch
+     * @param salarioHora salário por hora do empregado
+     * @param kernel implementação do cálculo (ex.: {@link KernelFolha#padrao()})
+     * @param totais totais que recebem a soma
+     */
+    public void acumularFolha(int empregado, long diaInicial, long diaFinal, double salarioHora,
+                              KernelFolha kernel, KernelFolha.Totais totais) {
+        long p = primeiroDia(empregado, diaInicial);
+        long limite = diaFinal <= diaInicial ? p : primeiroDia(empregado, diaFinal);
+        while (p < limite) {
+            int s = (int) (p >>> BITS_SEGMENTO);
+            int o = (int) (p & MASCARA);
+            int fim = (int) Math.min(centesimos[s].length, o + (limite - p));
+            kernel.acumular(centesimos[s], o, fim, salarioHora, totais);
+            p = ((long) s << BITS_SEGMENTO) + fim;
+        }
+    }
+
+    /**
+     * Retorna o dia do último cartão de um empregado antes de uma data, por busca binária.
+     *
+     * @param empregado índice do empregado
+     * @param diaFinal dia limite (exclusivo), em dias epoch
+     * @return dia epoch do cartão, ou {@link Long#MIN_VALUE} se não houver cartão antes de {@code diaFinal}
+     */
+    public long ultimoDiaAntes(int empregado, long diaFinal) {
+        long p = primeiroDia(empregado, diaFinal);
+        return p == inicio[empregado] ? Long.MIN_VALUE : ler(dias, p - 1);
+    }
+
+    /**
+     * Acumula em {@code totais[0]} e {@code totais[1]} as horas normais e extras do empregado no
+     * período. Os cartões do empregado estão ordenados por dia: o primeiro é achado por busca binária
+     * e a varredura para no primeiro dia fora do período.
+     */
+    private void somar(int empregado, long diaInicial, long diaFinal, long[] totais) {
+        long p = primeiroDia(empregado, diaInicial);
+        long limite = inicio[empregado + 1];
+        long normais = 0, extras = 0;
+        while (p < limite) {
+            int s = (int) (p >>> BITS_SEGMENTO);
+            int o = (int) (p & MASCARA);
+            int[] d = dias[s];
+            int[] c = centesimos[s];
+            int fim = (int) Math.min(d.length, o + (limite - p));
+            for (; o < fim; o++) {
+                if (d[o] >= diaFinal) {
+                    fim = -1;
+                    break;
+                }
+                int h = c[o];
+                normais += Math.min(h, LIMITE_NORMAIS);
+                extras += Math.max(0, h - LIMITE_NORMAIS);
+            }
+            if (fim < 0) break;
+            p = ((long) s << BITS_SEGMENTO) + fim;
+        }
+        totais[0] += normais;
+        totais[1] += extras;
+    }
+
+    /** Posição do primeiro cartão do empregado com dia maior ou igual a {@code dia}. */
+    private long primeiroDia(int empregado, long dia) {
+        long a = inicio[empregado], b = inicio[empregado + 1];
+        while (a < b) {
+            long m = (a + b) >>> 1;
+            if (ler(dias, m) < dia) a = m + 1;
+            else b = m;
+        }
+        return a;
+    }
+
+    private static int ler(int[][] coluna, long p) {
+        return coluna[(int) (p >>> BITS_SEGMENTO)][(int) (p & MASCARA)];
+    }
+
+    private static void gravar(int[][] coluna, long p, int v) {
+        coluna[(int) (p >>> BITS_SEGMENTO)][(int) (p & MASCARA)] = v;
+    }
+}
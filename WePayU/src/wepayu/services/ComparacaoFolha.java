@@ -0,0 +1,27 @@
+package wepayu.services;
+
+/**
+ * Resultado de uma comparação do modo sombra ({@link Sistema#setMotorSombra(MotorFolha)}).
+ *
+ * @param operacao {@code rodaFolha} ou {@code totalFolha}
+ * @param data data da folha, como informada
+ * @param motor nome do motor alternativo
+ * @param linhas linhas comparadas (empregados pagos pela referência; 1 para {@code totalFolha})
+ * @param divergencias linhas e totais diferentes, ausentes ou a mais no motor alternativo
+ * @param nanosReferencia duração do cálculo de referência, em nanossegundos
+ * @param nanosMotor duração do cálculo do motor alternativo, em nanossegundos (0 se falhou)
+ * @param erro mensagem da falha do motor alternativo, ou {@code null}
+ */
+public record ComparacaoFolha(String operacao, String data, String motor, int linhas, int divergencias,
+                              long nanosReferencia, long nanosMotor, String erro) {
+
+    /** @return {@code true} se o motor produziu exatamente o resultado da referência */
+    public boolean isIgual() {
+        return erro == null && divergencias == 0;
+    }
+
+    /** @return quantas vezes o motor foi mais rápido que a referência (abaixo de 1, mais lento) */
+    public double getRazao() {
+        return nanosMotor == 0 ? 0 : (double) nanosReferencia / nanosMotor;
+    }
+}
@@ -0,0 +1,148 @@
+package wepayu.services;
+
+import wepayu.models.Comissionado;
+import wepayu.models.Empregado;
+import wepayu.models.Horista;
+
+/**
+ * Quantidade de empregados (por tipo) e de lançamentos de um estado do {@link Sistema}.
+ *
+ * <p>
+ * O {@code Sistema} mantém uma contagem do estado atual, atualizada a cada alteração: quem altera um
+ * empregado chama {@link #remover(Empregado)} antes e {@link #adicionar(Empregado)} depois, e cada
+ * chamada custa O(1) (só lê os tamanhos das listas). Cada {@link wepayu.command.SistemaMemento} guarda
+ * uma cópia da contagem do estado salvo. A partir dessas contagens, {@link PegadaMemoria} estima a
+ * memória ocupada sem percorrer os objetos.
+ * </p>
+ */
+public final class ContagemEstado implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    long horistas, assalariados, comissionados, sindicalizados;
+    long cartoes, vendas, taxas;
+
+    /** Cria uma contagem zerada. */
+    public ContagemEstado() {
+    }
+
+    /**
+     * Conta os empregados e lançamentos de uma lista (percorre a lista uma vez).
+     *
+     * @param empregados empregados a contar
+     * @return nova contagem
+     */
+    public static ContagemEstado de(Iterable<? extends Empregado> empregados) {
+        ContagemEstado c = new ContagemEstado();
+        for (Empregado e : empregados) c.adicionar(e);
+        return c;
+    }
+
+    /**
+     * Soma um empregado, com seus cartões, vendas e taxas de serviço.
+     *
+     * @param e empregado
+     */
+    public void adicionar(Empregado e) {
+        somar(e, 1);
+    }
+
+    /**
+     * Subtrai um empregado, com seus cartões, vendas e taxas de serviço.
+     *
+     * @param e empregado
+     */
+    public void remover(Empregado e) {
+        somar(e, -1);
+    }
+
+    private void somar(Empregado e, int sinal) {
+        if (e instanceof Horista h) {
+            horistas += sinal;
+            cartoes += (long) sinal * h.getListaCartoes().size();
+        } else if (e instanceof Comissionado c) {
+            comissionados += sinal;
+            vendas += (long) sinal * c.getListaVendas().size();
+        } else {
+            assalariados += sinal;
+        }
+        if (e.getSindicato() != null) {
+            sindicalizados += sinal;
+            taxas += (long) sinal * e.getSindicato().getTotalTaxas().size();
+        }
+    }
+
+    /**
+     * Soma outra contagem a esta.
+     *
+     * @param outra contagem a somar
+     */
+    public void somar(ContagemEstado outra) {
+        horistas += outra.horistas;
+        assalariados += outra.assalariados;
+        comissionados += outra.comissionados;
+        sindicalizados += outra.sindicalizados;
+        cartoes += outra.cartoes;
+        vendas += outra.vendas;
+        taxas += outra.taxas;
+    }
+
+    /** Zera a contagem. */
+    public void limpar() {
+        horistas = assalariados = comissionados = sindicalizados = 0;
+        cartoes = vendas = taxas = 0;
+    }
+
+    /** @return cópia independente desta contagem */
+    public ContagemEstado copia() {
+        ContagemEstado c = new ContagemEstado();
+        c.somar(this);
+        return c;
+    }
+
+    /** @return quantidade de horistas */
+    public long getHoristas() {
+        return horistas;
+    }
+
+    /** @return quantidade de assalariados (sem contar os comissionados) */
+    public long getAssalariados() {
+        return assalariados;
+    }
+
+    /** @return quantidade de comissionados */
+    public long getComissionados() {
+        return comissionados;
+    }
+
+    /** @return quantidade de empregados */
+    public long getEmpregados() {
+        return horistas + assalariados + comissionados;
+    }
+
+    /** @return quantidade de empregados sindicalizados */
+    public long getSindicalizados() {
+        return sindicalizados;
+    }
+
+    /** @return quantidade de cartões de ponto */
+    public long getCartoes() {
+        return cartoes;
+    }
+
+    /** @return quantidade de resultados de venda */
+    public long getVendas() {
+        return vendas;
+    }
+
+    /** @return quantidade de taxas de serviço */
+    public long getTaxas() {
+        return taxas;
+    }
+
+    @Override
+    public String toString() {
+        return "horistas=" + horistas + " assalariados=" + assalariados + " comissionados=" + comissionados
+                + " sindicalizados=" + sindicalizados + " cartoes=" + cartoes + " vendas=" + vendas
+                + " taxas=" + taxas;
+    }
+}
@@ -0,0 +1,213 @@
+package wepayu.services;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+/**
+ * Conversão das entradas textuais do sistema (datas {@code d/M/uuuu} e números com vírgula ou ponto)
+ * sem alocação e sem exceções no caminho comum.
+ *
+ * <p>
+ * As funções não lançam exceção para entradas inválidas: devolvem um código de erro
+ * ({@link #DATA_INVALIDA}, {@code NaN} ou {@link #NUMERO_INVALIDO}), e quem chama decide qual exceção de
+ * negócio lançar. Entradas no formato usual (dia e mês com 1 ou 2 dígitos, ano com 4 dígitos; números
+ * com no máximo 15 dígitos significativos) são tratadas por um analisador escrito à mão; formas raras
+ * ainda aceitas pelo comportamento anterior (dia com zeros à esquerda extras, expoente etc.) caem no
+ * caminho antigo, com o formatador em cache.
+ * </p>
+ *
+ * <p>
+ * Os resultados são idênticos aos de {@code LocalDate.parse(s, ofPattern("d/M/uuuu").withResolverStyle(STRICT))}
+ * e {@code Double.parseDouble(s.replace(",", "."))}, exceto que {@code "NaN"} e {@code "Infinity"} agora
+ * são rejeitados.
+ * </p>
+ */
+public final class ConversorEntrada {
+
+    /** Código devolvido por {@link #epochDay(CharSequence)} para datas inválidas. */
+    public static final long DATA_INVALIDA = Long.MIN_VALUE;
+
+    /** Código devolvido por {@link #inteiro(CharSequence)} para números inválidos. */
+    public static final long NUMERO_INVALIDO = Long.MIN_VALUE;
+
+    private static final DateTimeFormatter FORMATO_DATA =
+            DateTimeFormatter.ofPattern("d/M/uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    private static final double[] POTENCIAS_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private ConversorEntrada() {
+    }
+
+    /**
+     * Converte uma data {@code d/M/uuuu} (validação estrita) em dia epoch.
+     *
+     * @param s texto da data (pode ser {@code null})
+     * @return dias desde 1970-01-01, ou {@link #DATA_INVALIDA}
+     */
+    public static long epochDay(CharSequence s) {
+        if (s == null) return DATA_INVALIDA;
+        int n = s.length();
+        int i = 0;
+
+        int dia = 0, digitos = 0;
+        while (i < n && digitos < 3 && eDigito(s.charAt(i))) {
+            dia = dia * 10 + (s.charAt(i++) - '0');
+            digitos++;
+        }
+        if (digitos == 0 || digitos > 2 || i >= n || s.charAt(i++) != '/') return epochDayLento(s);
+
+        int mes = 0;
+        digitos = 0;
+        while (i < n && digitos < 3 && eDigito(s.charAt(i))) {
+            mes = mes * 10 + (s.charAt(i++) - '0');
+            digitos++;
+        }
+        if (digitos == 0 || digitos > 2 || i >= n || s.charAt(i++) != '/') return epochDayLento(s);
+
+        if (n - i != 4) return epochDayLento(s);
+        int ano = 0;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (!eDigito(c)) return epochDayLento(s);
+            ano = ano * 10 + (c - '0');
+        }
+
+        if (mes < 1 || mes > 12 || dia < 1 || dia > diasNoMes(ano, mes)) return DATA_INVALIDA;
+        return diaEpoch(ano, mes, dia);
+    }
+
+    /**
+     * Converte uma data {@code d/M/uuuu} em {@link LocalDate}.
+     *
+     * @param s texto da data (pode ser {@code null})
+     * @return a data, ou {@code null} se for inválida
+     */
+    public static LocalDate data(CharSequence s) {
+        long dia = epochDay(s);
+        return dia == DATA_INVALIDA ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    /**
+     * Converte um número com separador decimal vírgula ou ponto.
+     *
+     * @param s texto do número (pode ser {@code null})
+     * @return o valor, ou {@code NaN} se o texto não for numérico
+     */
+    public static double decimal(CharSequence s) {
+        if (s == null) return Double.NaN;
+        int n = s.length();
+        int i = 0;
+        boolean negativo = false;
+        if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negativo = s.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significativos = 0, digitos = 0, escala = 0;
+        boolean separador = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (eDigito(c)) {
+                digitos++;
+                if (mantissa != 0 || c != '0') significativos++;
+                mantissa = mantissa * 10 + (c - '0');
+                if (separador) escala++;
+                if (significativos > 15) return decimalLento(s);
+            } else if (c == ',' || c == '.') {
+                if (separador) return Double.NaN;
+                separador = true;
+            } else {
+                // expoente, sufixo de tipo, hexadecimal ou espaços: formas raras aceitas por parseDouble
+                return c <= ' ' || "eExXpPdDfF".indexOf(c) >= 0 ? decimalLento(s) : Double.NaN;
+            }
+        }
+        if (digitos == 0 || escala > 22) return decimalLento(s);
+        double v = mantissa / POTENCIAS_10[escala];
+        return negativo ? -v : v;
+    }
+
+    /**
+     * Converte um inteiro decimal com as mesmas regras de {@link Integer#parseInt(String)}
+     * (sinal opcional, apenas dígitos, dentro da faixa de {@code int}).
+     *
+     * @param s texto do número (pode ser {@code null})
+     * @return o valor, ou {@link #NUMERO_INVALIDO}
+     */
+    public static long inteiro(CharSequence s) {
+        if (s == null) return NUMERO_INVALIDO;
+        int n = s.length();
+        int i = 0;
+        boolean negativo = false;
+        if (n > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negativo = s.charAt(0) == '-';
+            i++;
+        }
+        if (i >= n) return NUMERO_INVALIDO;
+        long valor = 0;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (!eDigito(c)) return NUMERO_INVALIDO;
+            valor = valor * 10 + (c - '0');
+            if (valor > (long) Integer.MAX_VALUE + 1) return NUMERO_INVALIDO;
+        }
+        if (negativo) valor = -valor;
+        return valor > Integer.MAX_VALUE ? NUMERO_INVALIDO : valor;
+    }
+
+    // --- Caminho lento (formas raras, mesmo resultado do código anterior) ---
+
+    private static long epochDayLento(CharSequence s) {
+        try {
+            return LocalDate.parse(s, FORMATO_DATA).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return DATA_INVALIDA;
+        }
+    }
+
+    private static double decimalLento(CharSequence s) {
+        String t = s.toString();
+        if (t.indexOf('N') >= 0 || t.indexOf('I') >= 0) return Double.NaN;
+        try {
+            return Double.parseDouble(t.replace(",", "."));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    // --- Calendário ---
+
+    private static boolean eDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean bissexto(int ano) {
+        return (ano & 3) == 0 && (ano % 100 != 0 || ano % 400 == 0);
+    }
+
+    private static int diasNoMes(int ano, int mes) {
+        return switch (mes) {
+            case 2 -> bissexto(ano) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /** Mesmo cálculo de {@link LocalDate#toEpochDay()}, sem criar o objeto. */
+    private static long diaEpoch(int ano, int mes, int dia) {
+        long y = ano;
+        long total = 365 * y;
+        total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * mes - 362) / 12;
+        total += dia - 1;
+        if (mes > 2) {
+            total--;
+            if (!bissexto(ano)) total--;
+        }
+        return total - 719_528L;
+    }
+}
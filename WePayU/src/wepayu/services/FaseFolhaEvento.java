@@ -0,0 +1,73 @@
+package wepayu.services;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de uma fase de {@link Sistema#rodaFolha(String, String)}.
+ *
+ * <p>Fases por grupo ({@code horistas}, {@code comissionados}, {@code assalariados}):
+ * {@code selecao}, {@code bruto}, {@code descontos} (taxa sindical, inclusive a busca do último
+ * pagamento, e taxas de serviço) e {@code ordenacao}; fases da folha inteira (grupo {@code folha}):
+ * {@code formatacao}, {@code escrita} e {@code atualizacao}.</p>
+ */
+@Name("wepayu.FaseFolha")
+@Label("Fase da folha de pagamento")
+@Category({"WePayU", "Folha"})
+@Description("Uma fase de rodaFolha, com a quantidade de empregados processados e os bytes escritos")
+@StackTrace(false)
+final class FaseFolhaEvento extends Event {
+
+    @Label("Data")
+    String data;
+
+    @Label("Grupo")
+    String grupo;
+
+    @Label("Fase")
+    String fase;
+
+    @Label("Empregados")
+    int empregados;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Cria o evento de uma fase e marca o seu início.
+     *
+     * @param data data da folha
+     * @param grupo grupo de empregados da fase, ou {@code folha}
+     * @param fase nome da fase
+     * @return evento iniciado
+     */
+    static FaseFolhaEvento iniciar(String data, String grupo, String fase) {
+        FaseFolhaEvento e = new FaseFolhaEvento();
+        e.data = data;
+        e.grupo = grupo;
+        e.fase = fase;
+        e.begin();
+        return e;
+    }
+
+    /**
+     * Marca o fim da fase e grava o evento, se a gravação estiver ativa.
+     *
+     * @param empregados empregados processados na fase
+     * @param bytes bytes produzidos ou escritos na fase
+     */
+    void concluir(int empregados, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.empregados = empregados;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package wepayu.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Resultado do cálculo de uma folha de pagamento, antes da formatação: uma {@link Linha} por empregado
+ * pago, por grupo, na ordem em que aparecem no arquivo (por nome).
+ *
+ * <p>É o que {@link Sistema#rodaFolha(String, String)} formata ({@link #formatar()}) e o que um
+ * {@link MotorFolha} devolve, então dois motores podem ser comparados linha a linha e coluna a coluna.
+ * Os totais de cada coluna são as somas das linhas, como no rodapé de cada seção do arquivo. Folhas de
+ * partes disjuntas do quadro de empregados podem ser unidas com {@link #juntar(List)}.</p>
+ */
+public final class FolhaCalculada implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final String HEADER_SEP = "====================================";
+    private static final String SECTION_SEP = "===============================================================================================================================";
+    private static final String SECTION_HORISTAS = "===================== HORISTAS ================================================================================================";
+    private static final String SECTION_COMISSIONADOS = "===================== COMISSIONADOS ===========================================================================================";
+    private static final String SECTION_ASSALARIADOS = "===================== ASSALARIADOS ============================================================================================";
+
+    /**
+     * Ordem das linhas de uma seção: por nome e, entre homônimos, por ordem de cadastro (ID crescente),
+     * a mesma da ordenação estável da lista de empregados.
+     */
+    private static final Comparator<Linha> ORDEM = Comparator.comparing(Linha::nome)
+            .thenComparingLong(l -> Long.parseLong(l.id()));
+
+    /** Seções da folha. */
+    public enum Grupo { HORISTAS, COMISSIONADOS, ASSALARIADOS }
+
+    /**
+     * Linha de um empregado pago. As colunas que não se aplicam ao grupo valem zero.
+     *
+     * @param id ID do empregado
+     * @param nome nome do empregado
+     * @param metodo método de pagamento, como impresso no arquivo
+     * @param horasNormais horas normais no período (horistas)
+     * @param horasExtras horas extras no período (horistas)
+     * @param fixo parte fixa do salário (comissionados)
+     * @param vendas total de vendas no período (comissionados)
+     * @param comissao comissão sobre as vendas (comissionados)
+     * @param bruto salário bruto
+     * @param descontos descontos sindicais e taxas de serviço
+     * @param liquido salário líquido
+     */
+    public record Linha(String id, String nome, String metodo,
+                        BigDecimal horasNormais, BigDecimal horasExtras,
+                        BigDecimal fixo, BigDecimal vendas, BigDecimal comissao,
+                        BigDecimal bruto, BigDecimal descontos, BigDecimal liquido) implements java.io.Serializable {
+    }
+
+    private final LocalDate dia;
+    private final EnumMap<Grupo, List<Linha>> linhas = new EnumMap<>(Grupo.class);
+
+    /**
+     * @param dia data da folha
+     * @param horistas linhas dos horistas, ordenadas por nome (vazia se o dia não paga horistas)
+     * @param comissionados linhas dos comissionados, ordenadas por nome
+     * @param assalariados linhas dos assalariados, ordenadas por nome
+     */
+    public FolhaCalculada(LocalDate dia, List<Linha> horistas, List<Linha> comissionados, List<Linha> assalariados) {
+        this.dia = dia;
+        linhas.put(Grupo.HORISTAS, List.copyOf(horistas));
+        linhas.put(Grupo.COMISSIONADOS, List.copyOf(comissionados));
+        linhas.put(Grupo.ASSALARIADOS, List.copyOf(assalariados));
+    }
+
+    /** @return data da folha */
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    /**
+     * @param grupo seção da folha
+     * @return linhas da seção, na ordem do arquivo (lista imutável)
+     */
+    public List<Linha> getLinhas(Grupo grupo) {
+        return linhas.get(grupo);
+    }
+
+    /** @return quantidade de empregados pagos */
+    public int getPagos() {
+        int n = 0;
+        for (List<Linha> l : linhas.values()) n += l.size();
+        return n;
+    }
+
+    /**
+     * Soma uma coluna das linhas de uma seção.
+     *
+     * @param grupo seção da folha
+     * @param coluna coluna a somar (ex.: {@code Linha::bruto})
+     * @return soma da coluna
+     */
+    public BigDecimal total(Grupo grupo, Function<Linha, BigDecimal> coluna) {
+        BigDecimal t = BigDecimal.ZERO;
+        for (Linha l : linhas.get(grupo)) t = t.add(coluna.apply(l));
+        return t;
+    }
+
+    /** @return soma dos salários brutos de todas as seções ({@code TOTAL FOLHA}) */
+    public BigDecimal getTotalBruto() {
+        BigDecimal t = BigDecimal.ZERO;
+        for (Grupo g : Grupo.values()) t = t.add(total(g, Linha::bruto));
+        return t;
+    }
+
+    /**
+     * Une folhas do mesmo dia calculadas sobre partes disjuntas do quadro de empregados, intercalando as
+     * seções já ordenadas de cada parte (sem reordenar tudo). O resultado é a folha que o quadro inteiro
+     * produziria.
+     *
+     * @param partes folhas das partes (ao menos uma), todas do mesmo dia
+     * @return folha unida
+     */
+    public static FolhaCalculada juntar(List<FolhaCalculada> partes) {
+        if (partes.size() == 1) return partes.get(0);
+        Map<Grupo, List<Linha>> grupos = new EnumMap<>(Grupo.class);
+        for (Grupo g : Grupo.values()) {
+            List<List<Linha>> secoes = new ArrayList<>(partes.size());
+            for (FolhaCalculada p : partes) secoes.add(p.getLinhas(g));
+            grupos.put(g, intercalar(secoes));
+        }
+        return new FolhaCalculada(partes.get(0).dia, grupos.get(Grupo.HORISTAS), grupos.get(Grupo.COMISSIONADOS),
+                grupos.get(Grupo.ASSALARIADOS));
+    }
+
+    /** Intercala listas ordenadas por {@link #ORDEM} com uma fila de prioridade (uma cabeça por lista). */
+    private static List<Linha> intercalar(List<List<Linha>> secoes) {
+        int total = 0;
+        PriorityQueue<int[]> cabecas = new PriorityQueue<>(Math.max(1, secoes.size()),
+                (a, b) -> ORDEM.compare(secoes.get(a[0]).get(a[1]), secoes.get(b[0]).get(b[1])));
+        for (int i = 0; i < secoes.size(); i++) {
+            total += secoes.get(i).size();
+            if (!secoes.get(i).isEmpty()) cabecas.add(new int[]{i, 0});
+        }
+        List<Linha> linhas = new ArrayList<>(total);
+        while (!cabecas.isEmpty()) {
+            int[] c = cabecas.poll();
+            List<Linha> secao = secoes.get(c[0]);
+            linhas.add(secao.get(c[1]));
+            if (++c[1] < secao.size()) cabecas.add(c);
+        }
+        return linhas;
+    }
+
+    /**
+     * Formata a folha no layout do arquivo de {@link Sistema#rodaFolha(String, String)}.
+     *
+     * @return conteúdo do arquivo, com o separador de linhas da plataforma
+     */
+    public String formatar() {
+        String ln = System.lineSeparator();
+        StringBuilder sb = new StringBuilder();
+        sb.append("FOLHA DE PAGAMENTO DO DIA ").append(dia.toString()).append(ln);
+        sb.append(HEADER_SEP).append(ln);
+        sb.append(ln);
+
+        sb.append(SECTION_SEP).append(ln);
+        sb.append(SECTION_HORISTAS).append(ln);
+        sb.append(SECTION_SEP).append(ln);
+        sb.append("Nome                                 Horas Extra Salario Bruto Descontos Salario Liquido Metodo").append(ln);
+        sb.append("==================================== ===== ===== ============= ========= =============== ======================================").append(ln);
+        for (Linha r : getLinhas(Grupo.HORISTAS)) {
+            sb.append(String.format(Locale.FRANCE,
+                    "%-36s %5.0f %5.0f %13.2f %9.2f %15.2f %s",
+                    r.nome(), r.horasNormais(), r.horasExtras(), r.bruto(), r.descontos(), r.liquido(), r.metodo())).append(ln);
+        }
+        sb.append(ln);
+        Grupo g = Grupo.HORISTAS;
+        sb.append(String.format(Locale.FRANCE,
+                "TOTAL HORISTAS %27.0f %5.0f %13.2f %9.2f %15.2f",
+                total(g, Linha::horasNormais), total(g, Linha::horasExtras),
+                total(g, Linha::bruto), total(g, Linha::descontos), total(g, Linha::liquido))).append(ln);
+        sb.append(ln);
+
+        sb.append(SECTION_SEP).append(ln);
+        sb.append(SECTION_ASSALARIADOS).append(ln);
+        sb.append(SECTION_SEP).append(ln);
+        sb.append("Nome                                             Salario Bruto Descontos Salario Liquido Metodo").append(ln);
+        sb.append("================================================ ============= ========= =============== ======================================").append(ln);
+        for (Linha r : getLinhas(Grupo.ASSALARIADOS)) {
+            sb.append(String.format(Locale.FRANCE,
+                    "%-48s %13.2f %9.2f %15.2f %s",
+                    r.nome(), r.bruto(), r.descontos(), r.liquido(), r.metodo())).append(ln);
+        }
+        sb.append(ln);
+        g = Grupo.ASSALARIADOS;
+        sb.append(String.format(Locale.FRANCE,
+                "TOTAL ASSALARIADOS %43.2f %9.2f %15.2f",
+                total(g, Linha::bruto), total(g, Linha::descontos), total(g, Linha::liquido))).append(ln);
+        sb.append(ln);
+
+        sb.append(SECTION_SEP).append(ln);
+        sb.append(SECTION_COMISSIONADOS).append(ln);
+        sb.append(SECTION_SEP).append(ln);
+        sb.append("Nome                  Fixo     Vendas   Comissao Salario Bruto Descontos Salario Liquido Metodo").append(ln);
+        sb.append("===================== ======== ======== ======== ============= ========= =============== ======================================").append(ln);
+        for (Linha r : getLinhas(Grupo.COMISSIONADOS)) {
+            sb.append(String.format(Locale.FRANCE,
+                    "%-21s %8.2f %8.2f %8.2f %13.2f %9.2f %15.2f %s",
+                    r.nome(), r.fixo(), r.vendas(), r.comissao(), r.bruto(), r.descontos(), r.liquido(), r.metodo())).append(ln);
+        }
+        sb.append(ln);
+        g = Grupo.COMISSIONADOS;
+        sb.append(String.format(Locale.FRANCE,
+                "TOTAL COMISSIONADOS %10.2f %8.2f %8.2f %13.2f %9.2f %15.2f",
+                total(g, Linha::fixo), total(g, Linha::vendas), total(g, Linha::comissao),
+                total(g, Linha::bruto), total(g, Linha::descontos), total(g, Linha::liquido))).append(ln);
+        sb.append(ln);
+
+        sb.append("TOTAL FOLHA: ").append(String.format(Locale.FRANCE, "%.2f", getTotalBruto())).append(ln);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package wepayu.services;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de uma execução completa de {@link Sistema#rodaFolha(String, String)}; as fases da
+ * execução são registradas como {@link FaseFolhaEvento}.
+ */
+@Name("wepayu.Folha")
+@Label("Folha de pagamento")
+@Category({"WePayU", "Folha"})
+@Description("Execução de rodaFolha, da validação até a atualização dos empregados pagos")
+@StackTrace(false)
+final class FolhaEvento extends Event {
+
+    @Label("Data")
+    String data;
+
+    @Label("Arquivo de saída")
+    String saida;
+
+    @Label("Empregados no sistema")
+    int empregados;
+
+    @Label("Empregados pagos")
+    int pagos;
+
+    @Label("Bytes escritos")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,238 @@
+package wepayu.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Uma execução do modo sombra: o cálculo do motor alternativo sobre uma cópia do sistema e a
+ * comparação com o resultado da referência.
+ *
+ * <p>
+ * {@link #iniciar} copia o sistema na thread chamadora e agenda o motor em uma thread própria
+ * ({@code wepayu-folha-sombra}); {@link #compararFolha} e {@link #compararTotal} agendam a comparação
+ * para depois do motor e voltam imediatamente, então a folha de referência não espera o motor. As
+ * execuções de sistemas diferentes passam pela mesma thread, em ordem. Se o motor ficar para trás, as
+ * folhas seguintes não são comparadas até que as execuções pendentes terminem: cada uma retém uma cópia
+ * do sistema, e a fila não pode crescer sem limite.
+ * </p>
+ *
+ * <h3>Propriedades de sistema</h3>
+ * <ul>
+ *   <li>{@code wepayu.folha.sombra} — motor inicial de cada {@link Sistema} ({@link MotorFolha#porNome});
+ *       vazio, ausente ou um nome desconhecido (registrado no log) desliga o modo sombra;</li>
+ *   <li>{@code wepayu.folha.sombra.pendentes} — execuções do motor aguardando ou em curso (padrão 1);
+ *       acima disso a folha não é comparada;</li>
+ *   <li>{@code wepayu.folha.sombra.log} — divergências registradas com contexto completo por execução
+ *       (padrão 20); as demais só entram na contagem do resumo.</li>
+ * </ul>
+ */
+final class FolhaSombra {
+
+    private static final System.Logger LOG = System.getLogger("wepayu.folha.sombra");
+
+    static final MotorFolha MOTOR_PADRAO = motorConfigurado();
+
+    /** Data dos eventos JFR emitidos pelos motores alternativos, que calculam sobre a cópia. */
+    static final String DATA_EVENTOS = "sombra";
+
+    private static final int DIVERGENCIAS_NO_LOG = Integer.getInteger("wepayu.folha.sombra.log", 20);
+    private static final Semaphore PENDENTES = new Semaphore(Math.max(1, Integer.getInteger("wepayu.folha.sombra.pendentes", 1)));
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wepayu-folha-sombra");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Resultado do motor alternativo e a duração do cálculo. */
+    private record Saida(Object resultado, long nanos) {
+    }
+
+    private final String operacao;
+    private final String data;
+    private final MotorFolha motor;
+    private final CompletableFuture<Saida> saida;
+
+    private FolhaSombra(String operacao, String data, MotorFolha motor, CompletableFuture<Saida> saida) {
+        this.operacao = operacao;
+        this.data = data;
+        this.motor = motor;
+        this.saida = saida;
+    }
+
+    /**
+     * Copia o sistema e agenda o cálculo do motor alternativo, se houver vaga entre as execuções
+     * pendentes; a cópia só é feita depois de obtida a vaga.
+     *
+     * @param motor motor alternativo
+     * @param sistema sistema cuja folha será calculada pela referência
+     * @param operacao {@code rodaFolha} ou {@code totalFolha}
+     * @param data data como informada
+     * @param dia data da folha
+     * @return a execução, para comparar com o resultado da referência, ou {@code null} se o motor ainda
+     *         não terminou as execuções anteriores
+     */
+    static FolhaSombra iniciar(MotorFolha motor, Sistema sistema, String operacao, String data, LocalDate dia) {
+        if (!PENDENTES.tryAcquire()) {
+            LOG.log(System.Logger.Level.DEBUG, operacao + " " + data + " motor=" + motor.getNome()
+                    + ": nao comparada, motor com execucoes pendentes");
+            return null;
+        }
+        CompletableFuture<Saida> saida;
+        try {
+            Sistema copia = sistema.copia();
+            copia.setMotorSombra(null);
+            boolean folha = operacao.equals("rodaFolha");
+            saida = CompletableFuture.supplyAsync(() -> {
+                long inicio = System.nanoTime();
+                try {
+                    Object r = folha ? motor.calcularFolha(copia, dia) : motor.calcularTotalFolha(copia, dia);
+                    return new Saida(r, System.nanoTime() - inicio);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    PENDENTES.release();
+                }
+            }, EXECUTOR);
+        } catch (RuntimeException | Error e) {
+            PENDENTES.release();
+            throw e;
+        }
+        return new FolhaSombra(operacao, data, motor, saida);
+    }
+
+    /**
+     * Agenda a comparação das linhas e dos totais de uma folha.
+     *
+     * @param referencia folha calculada pela referência
+     * @param nanosReferencia duração do cálculo de referência
+     * @return a comparação, concluída depois do motor alternativo
+     */
+    CompletableFuture<ComparacaoFolha> compararFolha(FolhaCalculada referencia, long nanosReferencia) {
+        return saida.handleAsync((s, erro) -> {
+            if (erro != null) return falha(referencia.getPagos(), nanosReferencia, erro);
+            List<String> divergencias = new ArrayList<>();
+            FolhaCalculada outra = (FolhaCalculada) s.resultado();
+            for (FolhaCalculada.Grupo g : FolhaCalculada.Grupo.values()) {
+                compararLinhas(g, referencia.getLinhas(g), outra.getLinhas(g), divergencias);
+            }
+            compararValor("TOTAL FOLHA", referencia.getTotalBruto(), outra.getTotalBruto(), divergencias);
+            return concluir(referencia.getPagos(), divergencias, nanosReferencia, s.nanos());
+        }, EXECUTOR);
+    }
+
+    /**
+     * Agenda a comparação de um total da folha.
+     *
+     * @param referencia total calculado pela referência
+     * @param nanosReferencia duração do cálculo de referência
+     * @return a comparação, concluída depois do motor alternativo
+     */
+    CompletableFuture<ComparacaoFolha> compararTotal(BigDecimal referencia, long nanosReferencia) {
+        return saida.handleAsync((s, erro) -> {
+            if (erro != null) return falha(1, nanosReferencia, erro);
+            List<String> divergencias = new ArrayList<>();
+            compararValor("total", referencia, (BigDecimal) s.resultado(), divergencias);
+            return concluir(1, divergencias, nanosReferencia, s.nanos());
+        }, EXECUTOR);
+    }
+
+    /** Compara as linhas de uma seção pelo ID do empregado, coluna a coluna, e a ordem do arquivo. */
+    private static void compararLinhas(FolhaCalculada.Grupo grupo, List<FolhaCalculada.Linha> referencia,
+                                       List<FolhaCalculada.Linha> outra, List<String> divergencias) {
+        Map<String, FolhaCalculada.Linha> porId = new HashMap<>(outra.size() * 2);
+        for (FolhaCalculada.Linha l : outra) porId.put(l.id(), l);
+        boolean mesmaOrdem = referencia.size() == outra.size();
+        for (int i = 0; i < referencia.size(); i++) {
+            FolhaCalculada.Linha r = referencia.get(i);
+            FolhaCalculada.Linha o = porId.remove(r.id());
+            if (o == null) {
+                divergencias.add(grupo + " id=" + r.id() + " ausente no motor: referencia=" + r);
+                mesmaOrdem = false;
+                continue;
+            }
+            if (mesmaOrdem && !outra.get(i).id().equals(r.id())) mesmaOrdem = false;
+            String campos = camposDiferentes(r, o);
+            if (!campos.isEmpty()) {
+                divergencias.add(grupo + " id=" + r.id() + " [" + campos + "]: referencia=" + r + " motor=" + o);
+            }
+        }
+        for (FolhaCalculada.Linha o : porId.values()) {
+            divergencias.add(grupo + " id=" + o.id() + " a mais no motor: motor=" + o);
+        }
+        if (!mesmaOrdem && porId.isEmpty() && referencia.size() == outra.size()) {
+            divergencias.add(grupo + " ordem das linhas diferente");
+        }
+    }
+
+    private static String camposDiferentes(FolhaCalculada.Linha r, FolhaCalculada.Linha o) {
+        StringBuilder sb = new StringBuilder();
+        if (!Objects.equals(r.nome(), o.nome())) sb.append(" nome");
+        if (!Objects.equals(r.metodo(), o.metodo())) sb.append(" metodo");
+        campo(sb, "horasNormais", r, o, FolhaCalculada.Linha::horasNormais);
+        campo(sb, "horasExtras", r, o, FolhaCalculada.Linha::horasExtras);
+        campo(sb, "fixo", r, o, FolhaCalculada.Linha::fixo);
+        campo(sb, "vendas", r, o, FolhaCalculada.Linha::vendas);
+        campo(sb, "comissao", r, o, FolhaCalculada.Linha::comissao);
+        campo(sb, "bruto", r, o, FolhaCalculada.Linha::bruto);
+        campo(sb, "descontos", r, o, FolhaCalculada.Linha::descontos);
+        campo(sb, "liquido", r, o, FolhaCalculada.Linha::liquido);
+        return sb.toString().trim();
+    }
+
+    /** Valores são comparados por {@code compareTo}: a escala do {@code BigDecimal} não aparece no arquivo. */
+    private static void campo(StringBuilder sb, String nome, FolhaCalculada.Linha r, FolhaCalculada.Linha o,
+                              Function<FolhaCalculada.Linha, BigDecimal> coluna) {
+        if (!iguais(coluna.apply(r), coluna.apply(o))) sb.append(' ').append(nome);
+    }
+
+    private static void compararValor(String nome, BigDecimal referencia, BigDecimal outro, List<String> divergencias) {
+        if (!iguais(referencia, outro)) divergencias.add(nome + ": referencia=" + referencia + " motor=" + outro);
+    }
+
+    private static boolean iguais(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private ComparacaoFolha concluir(int linhas, List<String> divergencias, long nanosReferencia, long nanosMotor) {
+        String prefixo = operacao + " " + data + " motor=" + motor.getNome() + ": ";
+        for (int i = 0; i < Math.min(divergencias.size(), DIVERGENCIAS_NO_LOG); i++) {
+            LOG.log(System.Logger.Level.WARNING, prefixo + "divergencia " + divergencias.get(i));
+        }
+        ComparacaoFolha c = new ComparacaoFolha(operacao, data, motor.getNome(), linhas, divergencias.size(),
+                nanosReferencia, nanosMotor, null);
+        LOG.log(c.isIgual() ? System.Logger.Level.INFO : System.Logger.Level.WARNING, prefixo + String.format(Locale.ROOT,
+                "%d linhas, %d divergencias, referencia %.3f ms, motor %.3f ms (%.2fx)", linhas, divergencias.size(),
+                nanosReferencia / 1e6, nanosMotor / 1e6, c.getRazao()));
+        return c;
+    }
+
+    private ComparacaoFolha falha(int linhas, long nanosReferencia, Throwable erro) {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        LOG.log(System.Logger.Level.WARNING, operacao + " " + data + " motor=" + motor.getNome() + ": falhou", causa);
+        return new ComparacaoFolha(operacao, data, motor.getNome(), linhas, 0, nanosReferencia, 0, String.valueOf(causa));
+    }
+
+    private static MotorFolha motorConfigurado() {
+        String nome = System.getProperty("wepayu.folha.sombra", "").trim();
+        if (nome.isEmpty()) return null;
+        try {
+            return MotorFolha.porNome(nome);
+        } catch (IllegalArgumentException e) {
+            LOG.log(System.Logger.Level.WARNING, "wepayu.folha.sombra=" + nome + " ignorado, modo sombra desligado: "
+                    + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package wepayu.services;
+
+import wepayu.exceptions.CodigoValidacao;
+import wepayu.models.Empregado;
+import wepayu.models.MembroSindicato;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Importação de empregados em massa a partir de um arquivo CSV.
+ *
+ * <h3>Formato</h3>
+ * <p>
+ * Uma linha por empregado, com campos separados por {@code ;} (a vírgula é o separador decimal) e,
+ * opcionalmente, entre aspas duplas ({@code ""} representa uma aspa). Linhas em branco são ignoradas e
+ * a primeira linha é tratada como cabeçalho se começar com {@code nome;}. Colunas, nesta ordem:
+ * </p>
+ * <ol>
+ *   <li>{@code nome}, {@code endereco}, {@code tipo}, {@code salario} — como em {@code criarEmpregado};</li>
+ *   <li>{@code comissao} — preenchida apenas para comissionados (como a variante de 5 argumentos);</li>
+ *   <li>{@code sindicato} — vazio, ou {@code idMembro:taxa};</li>
+ *   <li>{@code metodoPagamento} — vazio (padrão), {@code emMaos}, {@code correios} ou
+ *       {@code banco:<banco>:<agencia>:<contaCorrente>};</li>
+ *   <li>{@code agenda} — vazio (agenda padrão do tipo) ou uma agenda já cadastrada.</li>
+ * </ol>
+ * <p>Colunas finais ausentes equivalem a campos vazios; colunas excedentes são ignoradas.</p>
+ *
+ * <h3>Processamento</h3>
+ * <p>
+ * O arquivo é lido sequencialmente de um {@link FileChannel} com buffer, em blocos de
+ * {@link #TAMANHO_BLOCO} linhas. Cada bloco é validado em paralelo (as regras são as de
+ * {@link Sistema#validarNovoEmpregado}, seguidas das de {@code alteraEmpregado} para sindicato, método
+ * de pagamento e agenda, e devolvem {@link CodigoValidacao}); em seguida, em série e na ordem do
+ * arquivo, verifica-se a unicidade do ID sindical e atribuem-se os IDs. As linhas lidas ocupam memória
+ * só durante o seu bloco, mas os empregados aceitos ficam em memória até o fim do arquivo, pois só
+ * então entram no sistema (no modo atômico, nada entra se alguma linha for inválida); a memória extra
+ * é, portanto, proporcional aos empregados aceitos mais um bloco de linhas. Depois de cada bloco, os
+ * aceitos até ali são submetidos ao orçamento de memória ({@link Sistema#setOrcamentoMemoria}).
+ * </p>
+ *
+ * @see Sistema#importarEmpregados(Path, boolean)
+ */
+final class ImportadorEmpregados {
+
+    /** Quantidade de linhas validadas em paralelo por vez. */
+    static final int TAMANHO_BLOCO = 8192;
+
+    private static final char SEPARADOR = ';';
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    private static final int NOME = 0, ENDERECO = 1, TIPO = 2, SALARIO = 3, COMISSAO = 4,
+            SINDICATO = 5, METODO = 6, AGENDA = 7, COLUNAS = 8;
+
+    /** Linha validada: campos já convertidos, ou o código do erro. */
+    private static final class Registro {
+        CodigoValidacao codigo = CodigoValidacao.OK;
+        String[] campos;
+        double salario, comissao, taxaSindical;
+        String idSindicato, metodo, banco, agencia, contaCorrente;
+    }
+
+    private final Sistema sistema;
+    private final boolean parcial;
+    private final Set<String> idsSindicato = new HashSet<>();
+    private final List<Empregado> novos = new ArrayList<>();
+    private final ContagemEstado contagemNovos = new ContagemEstado();
+    private final RelatorioImportacao relatorio = new RelatorioImportacao();
+    private int ultimoId;
+
+    ImportadorEmpregados(Sistema sistema, boolean parcial) {
+        this.sistema = sistema;
+        this.parcial = parcial;
+    }
+
+    /**
+     * Lê, valida e importa o arquivo.
+     *
+     * @param arquivo caminho do CSV
+     * @return o relatório da importação
+     * @throws Exception se o arquivo não puder ser lido ou, no modo atômico, se alguma linha for inválida
+     */
+    RelatorioImportacao importar(Path arquivo) throws Exception {
+        for (Empregado e : sistema.getEmpregados()) {
+            if (e.isSindicalizado()) idsSindicato.add(e.getSindicato().getIdMembro());
+        }
+        int primeiroId = sistema.getId() + 1;
+        ultimoId = sistema.getId();
+
+        String[] linhas = new String[TAMANHO_BLOCO];
+        long[] numeros = new long[TAMANHO_BLOCO];
+        Registro[] registros = new Registro[TAMANHO_BLOCO];
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+             BufferedReader leitor = new BufferedReader(
+                     Channels.newReader(canal, StandardCharsets.UTF_8.newDecoder(), TAMANHO_BUFFER), TAMANHO_BUFFER)) {
+            long numero = 0;
+            int n = 0;
+            String texto;
+            while ((texto = lerLinha(leitor)) != null) {
+                numero++;
+                if (texto.isBlank() || (numero == 1 && cabecalho(texto))) continue;
+                linhas[n] = texto;
+                numeros[n] = numero;
+                if (++n == TAMANHO_BLOCO) {
+                    processarBloco(linhas, numeros, registros, n);
+                    n = 0;
+                }
+            }
+            processarBloco(linhas, numeros, registros, n);
+        }
+
+        if (!novos.isEmpty()) {
+            sistema.adicionarImportados(novos, ultimoId);
+            relatorio.setImportados(novos.size(), primeiroId, ultimoId);
+        }
+        return relatorio;
+    }
+
+    private void processarBloco(String[] linhas, long[] numeros, Registro[] registros, int n) throws Exception {
+        IntStream.range(0, n).parallel().forEach(i -> registros[i] = validar(linhas[i]));
+
+        for (int i = 0; i < n; i++) {
+            Registro r = registros[i];
+            CodigoValidacao codigo = r.codigo;
+            if (codigo.isOk() && r.idSindicato != null && !idsSindicato.add(r.idSindicato)) {
+                codigo = CodigoValidacao.OUTRO_EMPREGADO_COM_MESMO_ID_SINDICATO;
+            }
+            if (!codigo.isOk()) {
+                if (!parcial) throw codigo.excecao();
+                relatorio.registrarFalha(numeros[i], codigo);
+            } else {
+                Empregado e = construir(++ultimoId, r);
+                novos.add(e);
+                contagemNovos.adicionar(e);
+            }
+            registros[i] = null;
+            linhas[i] = null;
+        }
+        sistema.admitir(contagemNovos, true);
+    }
+
+    /**
+     * Valida uma linha sem lançar exceção e sem alterar o estado; seguro para chamadas concorrentes.
+     */
+    private Registro validar(String linha) {
+        Registro r = new Registro();
+        String[] c = campos(linha);
+        r.campos = c;
+
+        r.codigo = c[COMISSAO].isEmpty()
+                ? sistema.validarNovoEmpregado(c[NOME], c[ENDERECO], c[TIPO], c[SALARIO])
+                : sistema.validarNovoEmpregado(c[NOME], c[ENDERECO], c[TIPO], c[SALARIO], c[COMISSAO]);
+        if (!r.codigo.isOk()) return r;
+        r.salario = ConversorEntrada.decimal(c[SALARIO]);
+        r.comissao = c[COMISSAO].isEmpty() ? 0 : ConversorEntrada.decimal(c[COMISSAO]);
+
+        r.codigo = validarSindicato(c[SINDICATO], r);
+        if (r.codigo.isOk()) r.codigo = validarMetodo(c[METODO], r);
+        if (r.codigo.isOk() && !c[AGENDA].isEmpty() && !sistema.isAgendaDisponivel(c[AGENDA])) {
+            r.codigo = CodigoValidacao.AGENDA_DE_PAGAMENTO_NAO_ESTA_DISPONIVEL;
+        }
+        return r;
+    }
+
+    /** Mesmas regras de {@code alteraEmpregado(id, "sindicalizado", "true", idMembro, taxa)}. */
+    private static CodigoValidacao validarSindicato(String campo, Registro r) {
+        if (campo.isEmpty()) return CodigoValidacao.OK;
+        int sep = campo.lastIndexOf(':');
+        String id = sep < 0 ? campo : campo.substring(0, sep);
+        String taxa = sep < 0 ? null : campo.substring(sep + 1);
+        if (id.isBlank()) return CodigoValidacao.IDENTIFICACAO_SINDICATO_NULA;
+        if (taxa == null || taxa.isBlank()) return CodigoValidacao.TAXA_SINDICAL_NULA;
+        double valor = ConversorEntrada.decimal(taxa);
+        if (Double.isNaN(valor)) return CodigoValidacao.TAXA_SINDICAL_DEVE_SER_NUMERICA;
+        if (valor < 0) return CodigoValidacao.TAXA_SINDICAL_NAO_NEGATIVA;
+        r.idSindicato = id;
+        r.taxaSindical = valor;
+        return CodigoValidacao.OK;
+    }
+
+    /** Mesmas regras de {@code alteraEmpregado(id, "metodoPagamento", ...)} e da variante bancária. */
+    private static CodigoValidacao validarMetodo(String campo, Registro r) {
+        if (campo.isEmpty()) return CodigoValidacao.OK;
+        if (campo.equals("emMaos") || campo.equals("correios")) {
+            r.metodo = campo;
+            return CodigoValidacao.OK;
+        }
+        if (!campo.startsWith("banco")) return CodigoValidacao.METODO_PAGAMENTO_INVALIDO;
+        String[] partes = campo.split(":", -1);
+        if (!partes[0].equals("banco")) return CodigoValidacao.METODO_PAGAMENTO_INVALIDO;
+        if (partes.length < 2 || partes[1].isBlank()) return CodigoValidacao.BANCO_NULO;
+        if (partes.length < 3 || partes[2].isBlank()) return CodigoValidacao.AGENCIA_NULA;
+        if (partes.length < 4 || partes[3].isBlank()) return CodigoValidacao.CONTA_CORRENTE_NULA;
+        r.metodo = "banco";
+        r.banco = partes[1];
+        r.agencia = partes[2];
+        r.contaCorrente = partes[3];
+        return CodigoValidacao.OK;
+    }
+
+    private Empregado construir(int id, Registro r) {
+        String[] c = r.campos;
+        Empregado e = sistema.novoEmpregado(id, c[NOME], c[ENDERECO], c[TIPO], r.salario, r.comissao);
+        if (r.idSindicato != null) e.setSindicato(new MembroSindicato(r.idSindicato, r.taxaSindical));
+        if (r.metodo != null) {
+            e.setMetodoPagamento(r.metodo);
+            e.setBanco(r.banco);
+            e.setAgencia(r.agencia);
+            e.setContaCorrente(r.contaCorrente);
+        }
+        if (!c[AGENDA].isEmpty()) e.setAgendaPagamento(c[AGENDA]);
+        return e;
+    }
+
+    // --- CSV ---
+
+    private static boolean cabecalho(String linha) {
+        return linha.regionMatches(true, 0, "nome" + SEPARADOR, 0, 5);
+    }
+
+    /**
+     * Lê uma linha lógica: uma quebra de linha dentro de aspas faz parte do campo.
+     */
+    private static String lerLinha(BufferedReader leitor) throws IOException {
+        String linha = leitor.readLine();
+        if (linha == null || linha.indexOf('"') < 0) return linha;
+        StringBuilder sb = new StringBuilder(linha);
+        while (aspasAbertas(sb)) {
+            String resto = leitor.readLine();
+            if (resto == null) break;
+            sb.append('\n').append(resto);
+        }
+        return sb.toString();
+    }
+
+    private static boolean aspasAbertas(CharSequence s) {
+        int aspas = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') aspas++;
+        }
+        return (aspas & 1) != 0;
+    }
+
+    /**
+     * Separa os campos de uma linha. Aspas sem fechamento vão até o fim da linha, e texto após o
+     * fechamento das aspas é mantido no campo.
+     *
+     * @return {@link #COLUNAS} campos (vazios quando ausentes)
+     */
+    private static String[] campos(String linha) {
+        String[] campos = new String[COLUNAS];
+        int n = linha.length();
+        int i = 0;
+        int coluna = 0;
+        while (coluna < COLUNAS && i <= n) {
+            if (i < n && linha.charAt(i) == '"') {
+                StringBuilder sb = new StringBuilder();
+                boolean aspas = true;
+                for (i++; i < n && (aspas || linha.charAt(i) != SEPARADOR); i++) {
+                    char ch = linha.charAt(i);
+                    if (ch != '"') {
+                        sb.append(ch);
+                    } else if (aspas && i + 1 < n && linha.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        aspas = !aspas;
+                    }
+                }
+                campos[coluna++] = sb.toString();
+            } else {
+                int fim = linha.indexOf(SEPARADOR, i);
+                if (fim < 0) fim = n;
+                campos[coluna++] = linha.substring(i, fim);
+                i = fim;
+            }
+            i++;
+        }
+        for (; coluna < COLUNAS; coluna++) {
+            campos[coluna] = "";
+        }
+        return campos;
+    }
+}
@@ -0,0 +1,236 @@
+package wepayu.services;
+
+import wepayu.models.Empregado;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Índice invertido de trigramas sobre os nomes dos empregados.
+ *
+ * <p>Cada trigrama (sequência de 3 caracteres consecutivos) de um nome aponta para uma lista
+ * de postagens com as <b>posições</b> dos empregados na lista interna do {@link Sistema}, em ordem
+ * crescente (ou seja, em ordem de inserção). Uma busca "nome contém X" intersecta as postagens
+ * dos trigramas de X e confirma cada candidato com {@link String#contains(CharSequence)}, sem
+ * percorrer todos os empregados nem materializar a lista de resultados.</p>
+ *
+ * <h3>Manutenção</h3>
+ * <ul>
+ *   <li>O índice é mantido de forma <em>eager</em> pelo {@link Sistema}, apenas em operações de escrita:
+ *       {@link #adicionar(int, String)} ao cadastrar, {@link #renomear(int, String, String)} ao alterar o nome,
+ *       {@link #remover(int, String)} ao remover (deslocando as posições seguintes) e
+ *       {@link #reconstruir(List)} quando a lista inteira muda (restauração de snapshot, zerar).</li>
+ *   <li>Consultas nunca alteram o índice, o que permite leituras concorrentes sob o mesmo lock de leitura
+ *       que protege a lista de empregados.</li>
+ * </ul>
+ *
+ * <p>Termos com menos de 3 caracteres não possuem trigramas; nesse caso a busca recai em uma varredura
+ * linear (sem alocação de lista temporária).</p>
+ *
+ * @see Sistema#getEmpregadoPorNome(String, int)
+ */
+final class IndiceNomes implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Lista de postagens (posições crescentes) de um trigrama. */
+    private static final class Postagens implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+        int[] posicoes = new int[4];
+        int tamanho;
+
+        void adicionarNoFim(int pos) {
+            if (tamanho > 0 && posicoes[tamanho - 1] == pos) return;
+            if (tamanho == posicoes.length) posicoes = Arrays.copyOf(posicoes, tamanho * 2);
+            posicoes[tamanho++] = pos;
+        }
+
+        void inserirOrdenado(int pos) {
+            int i = Arrays.binarySearch(posicoes, 0, tamanho, pos);
+            if (i >= 0) return;
+            i = -i - 1;
+            if (tamanho == posicoes.length) posicoes = Arrays.copyOf(posicoes, tamanho * 2);
+            System.arraycopy(posicoes, i, posicoes, i + 1, tamanho - i);
+            posicoes[i] = pos;
+            tamanho++;
+        }
+
+        void remover(int pos) {
+            int i = Arrays.binarySearch(posicoes, 0, tamanho, pos);
+            if (i < 0) return;
+            System.arraycopy(posicoes, i + 1, posicoes, i, tamanho - i - 1);
+            tamanho--;
+        }
+
+        void deslocarAcimaDe(int pos) {
+            int i = Arrays.binarySearch(posicoes, 0, tamanho, pos);
+            for (i = i < 0 ? -i - 1 : i + 1; i < tamanho; i++) posicoes[i]--;
+        }
+
+        boolean contem(int pos) {
+            return Arrays.binarySearch(posicoes, 0, tamanho, pos) >= 0;
+        }
+    }
+
+    private final HashMap<Long, Postagens> postagens = new HashMap<>();
+
+    /**
+     * Codifica os 3 caracteres a partir de {@code i} em uma chave única de 48 bits.
+     */
+    private static long trigrama(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * Indexa o nome de um empregado recém-adicionado ao final da lista.
+     *
+     * @param pos posição do empregado na lista (deve ser maior que todas as posições já indexadas)
+     * @param nome nome do empregado
+     */
+    void adicionar(int pos, String nome) {
+        if (nome == null) return;
+        for (int i = 0; i + 3 <= nome.length(); i++) {
+            postagens.computeIfAbsent(trigrama(nome, i), k -> new Postagens()).adicionarNoFim(pos);
+        }
+    }
+
+    /**
+     * Atualiza as postagens de um empregado que teve o nome alterado, mantendo sua posição.
+     *
+     * @param pos posição do empregado na lista
+     * @param antigo nome anterior
+     * @param novo novo nome
+     */
+    void renomear(int pos, String antigo, String novo) {
+        if (antigo != null) {
+            for (int i = 0; i + 3 <= antigo.length(); i++) {
+                Postagens p = postagens.get(trigrama(antigo, i));
+                if (p != null) {
+                    p.remover(pos);
+                    if (p.tamanho == 0) postagens.remove(trigrama(antigo, i));
+                }
+            }
+        }
+        if (novo != null) {
+            for (int i = 0; i + 3 <= novo.length(); i++) {
+                postagens.computeIfAbsent(trigrama(novo, i), k -> new Postagens()).inserirOrdenado(pos);
+            }
+        }
+    }
+
+    /**
+     * Retira do índice um empregado removido da lista: tira a posição das postagens do seu nome e
+     * desloca em uma unidade as posições seguintes, como a própria lista, sem reindexar os nomes.
+     *
+     * @param pos posição que o empregado ocupava na lista
+     * @param nome nome do empregado
+     */
+    void remover(int pos, String nome) {
+        renomear(pos, nome, null);
+        for (Postagens p : postagens.values()) p.deslocarAcimaDe(pos);
+    }
+
+    /**
+     * Descarta o índice atual e indexa novamente todos os empregados, na ordem da lista.
+     *
+     * @param empregados lista interna de empregados do sistema
+     */
+    void reconstruir(List<Empregado> empregados) {
+        postagens.clear();
+        for (int pos = 0; pos < empregados.size(); pos++) {
+            adicionar(pos, empregados.get(pos).getName());
+        }
+    }
+
+    /**
+     * Retorna o {@code indice}-ésimo empregado (1-based), em ordem de inserção, cujo nome contém {@code termo}.
+     *
+     * @param empregados lista interna de empregados (a mesma usada para construir o índice)
+     * @param termo termo procurado (contém)
+     * @param indice posição 1-based do resultado desejado
+     * @return o empregado encontrado, ou {@code null} se não houver resultados suficientes
+     */
+    Empregado buscar(List<Empregado> empregados, String termo, int indice) {
+        if (indice <= 0) return null;
+        if (termo.length() < 3) {
+            return varrer(empregados, termo, indice);
+        }
+
+        int qtd = termo.length() - 2;
+        Postagens[] listas = new Postagens[qtd];
+        for (int i = 0; i < qtd; i++) {
+            Postagens p = postagens.get(trigrama(termo, i));
+            if (p == null) return null;
+            listas[i] = p;
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.tamanho, b.tamanho));
+
+        Postagens menor = listas[0];
+        int encontrados = 0;
+        candidatos:
+        for (int k = 0; k < menor.tamanho; k++) {
+            int pos = menor.posicoes[k];
+            for (int j = 1; j < listas.length; j++) {
+                if (listas[j] != menor && !listas[j].contem(pos)) continue candidatos;
+            }
+            Empregado e = empregados.get(pos);
+            if (e.getName().contains(termo) && ++encontrados == indice) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lista os primeiros {@code limite} empregados, em ordem de inserção, cujo nome contém {@code termo}.
+     *
+     * @param empregados lista interna de empregados (a mesma usada para construir o índice)
+     * @param termo termo procurado (contém)
+     * @param limite quantidade máxima de resultados
+     * @return os empregados encontrados
+     */
+    List<Empregado> listar(List<Empregado> empregados, String termo, int limite) {
+        List<Empregado> encontrados = new java.util.ArrayList<>();
+        if (limite <= 0) return encontrados;
+        if (termo.length() < 3) {
+            for (Empregado e : empregados) {
+                if (e.getName().contains(termo) && encontrados.add(e) && encontrados.size() == limite) break;
+            }
+            return encontrados;
+        }
+
+        int qtd = termo.length() - 2;
+        Postagens[] listas = new Postagens[qtd];
+        for (int i = 0; i < qtd; i++) {
+            Postagens p = postagens.get(trigrama(termo, i));
+            if (p == null) return encontrados;
+            listas[i] = p;
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.tamanho, b.tamanho));
+
+        Postagens menor = listas[0];
+        candidatos:
+        for (int k = 0; k < menor.tamanho && encontrados.size() < limite; k++) {
+            int pos = menor.posicoes[k];
+            for (int j = 1; j < listas.length; j++) {
+                if (listas[j] != menor && !listas[j].contem(pos)) continue candidatos;
+            }
+            Empregado e = empregados.get(pos);
+            if (e.getName().contains(termo)) encontrados.add(e);
+        }
+        return encontrados;
+    }
+
+    /**
+     * Busca linear usada para termos curtos demais para formar um trigrama.
+     */
+    private static Empregado varrer(List<Empregado> empregados, String termo, int indice) {
+        int encontrados = 0;
+        for (Empregado e : empregados) {
+            if (e.getName().contains(termo) && ++encontrados == indice) {
+                return e;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,383 @@
+package wepayu.services;
+
+import wepayu.exceptions.CodigoValidacao;
+import wepayu.models.CartaoDePonto;
+import wepayu.models.Comissionado;
+import wepayu.models.Empregado;
+import wepayu.models.Horista;
+import wepayu.models.ResultadoDeVenda;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Ingestão de arquivos de cartões de ponto ({@code id;data;horas}) ou de vendas ({@code id;data;valor}).
+ *
+ * <h3>Estágios</h3>
+ * <ol>
+ *   <li><b>Leitura e conversão</b> (thread própria): o arquivo é lido em blocos de bytes de um
+ *       {@link FileChannel}, as linhas são separadas sem decodificar texto e os campos são convertidos
+ *       por {@link ConversorEntrada} diretamente sobre os bytes;</li>
+ *   <li><b>Validação</b> (mesma thread): o ID é resolvido em um vetor indexado por ID, montado uma vez,
+ *       em vez de uma busca linear por linha; as regras e a ordem são as de {@code lancaCartao} e
+ *       {@code lancaVenda}, com o resultado em {@link CodigoValidacao};</li>
+ *   <li><b>Agrupamento</b> (thread chamadora): as linhas válidas de cada bloco são ordenadas por
+ *       empregado;</li>
+ *   <li><b>Aplicação</b>: cada empregado recebe seus lançamentos de uma vez, após um único checkpoint
+ *       tomado no início.</li>
+ * </ol>
+ * <p>
+ * Os estágios se comunicam por uma fila limitada, então a memória usada é proporcional ao tamanho do
+ * bloco e a leitura do disco se sobrepõe à aplicação. Cartões do mesmo dia substituem as horas do cartão
+ * existente, como em {@link Horista#addCartaoDePonto(CartaoDePonto)}; como os arquivos costumam chegar em
+ * ordem cronológica, guarda-se o último dia de cada horista, e só um cartão de dia igual ou anterior a
+ * ele paga a busca na lista. Antes de aplicar cada bloco, o acréscimo é submetido ao orçamento de
+ * memória ({@link Sistema#setOrcamentoMemoria}); se não couber, o estado anterior é restaurado.
+ * </p>
+ *
+ * <h3>Formato</h3>
+ * <p>Campos separados por {@code ;}, decimais com vírgula ou ponto, datas {@code d/M/uuuu}, quebras de
+ * linha {@code \n} ou {@code \r\n}. Linhas em branco são ignoradas; a primeira linha é tratada como
+ * cabeçalho se começar com uma letra.</p>
+ *
+ * @see Sistema#ingerirLancamentos(Path, Lancamento.Tipo, boolean, RelatorioIngestao.Progresso)
+ */
+final class IngestorLancamentos {
+
+    /** Quantidade de linhas por bloco entre os estágios. */
+    static final int TAMANHO_BLOCO = 1 << 16;
+
+    private static final int TAMANHO_LEITURA = 1 << 20;
+    private static final int BLOCOS_EM_VOO = 2;
+    private static final long DIA_DESCONHECIDO = Long.MIN_VALUE;
+
+    /** Linhas convertidas e validadas de um trecho do arquivo. */
+    private static final class Bloco {
+        final int[] ids;
+        final long[] dias;
+        final double[] valores;
+        final List<RelatorioIngestao.Falha> falhas = new ArrayList<>();
+        int n;
+        long linhas;
+        long bytesLidos;
+
+        Bloco(int capacidade) {
+            ids = new int[capacidade];
+            dias = new long[capacidade];
+            valores = new double[capacidade];
+        }
+    }
+
+    private static final Bloco FIM = new Bloco(0);
+
+    /** Visão de um trecho de bytes como texto ASCII, para os conversores sem alocar {@code String}. */
+    private static final class Trecho implements CharSequence {
+        byte[] bytes;
+        int inicio;
+        int fim;
+
+        Trecho de(byte[] bytes, int inicio, int fim) {
+            this.bytes = bytes;
+            this.inicio = inicio;
+            this.fim = fim;
+            return this;
+        }
+
+        boolean emBranco() {
+            for (int i = inicio; i < fim; i++) {
+                if ((bytes[i] & 0xFF) > ' ') return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int length() {
+            return fim - inicio;
+        }
+
+        @Override
+        public char charAt(int i) {
+            return (char) (bytes[inicio + i] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int de, int ate) {
+            return toString().substring(de, ate);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, inicio, fim - inicio, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final Sistema sistema;
+    private final Lancamento.Tipo tipo;
+    private final boolean parcial;
+    private final RelatorioIngestao.Progresso progresso;
+    private final Empregado[] porId;
+    private final BlockingQueue<Bloco> fila = new ArrayBlockingQueue<>(BLOCOS_EM_VOO);
+    private volatile Exception erroLeitura;
+
+    /** Maior dia (epoch) entre os cartões de cada horista, por ID; {@link #DIA_DESCONHECIDO} se ainda não calculado. */
+    private final long[] ultimoDia;
+
+    IngestorLancamentos(Sistema sistema, Lancamento.Tipo tipo, boolean parcial, RelatorioIngestao.Progresso progresso) {
+        if (tipo != Lancamento.Tipo.CARTAO && tipo != Lancamento.Tipo.VENDA) {
+            throw new IllegalArgumentException("Tipo de ingestao deve ser CARTAO ou VENDA.");
+        }
+        this.sistema = sistema;
+        this.tipo = tipo;
+        this.parcial = parcial;
+        this.progresso = progresso;
+        this.porId = new Empregado[sistema.getId() + 1];
+        this.ultimoDia = new long[porId.length];
+        Arrays.fill(ultimoDia, DIA_DESCONHECIDO);
+        for (Empregado e : sistema.getEmpregados()) {
+            int id = Integer.parseInt(e.getId());
+            if (id >= 0 && id < porId.length) porId[id] = e;
+        }
+    }
+
+    /**
+     * Lê, valida e aplica o arquivo.
+     *
+     * @param arquivo caminho do arquivo
+     * @return o relatório da ingestão
+     * @throws Exception se o arquivo não puder ser lido ou, no modo atômico, se alguma linha for inválida;
+     *                   em ambos os casos o estado anterior é restaurado
+     */
+    RelatorioIngestao ingerir(Path arquivo) throws Exception {
+        long bytesTotais;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            bytesTotais = canal.size();
+        }
+        Thread leitor = new Thread(() -> ler(arquivo), "wepayu-ingestao");
+        leitor.setDaemon(true);
+        leitor.start();
+
+        RelatorioIngestao relatorio = new RelatorioIngestao();
+        long linhas = 0, aplicados = 0;
+        boolean[] afetados = new boolean[porId.length];
+        int empregados = 0;
+        ContagemEstado acrescimo = new ContagemEstado();
+        sistema.checkpointDeLote();
+        try {
+            for (Bloco bloco = fila.take(); bloco != FIM; bloco = fila.take()) {
+                if (!bloco.falhas.isEmpty()) {
+                    if (!parcial) throw bloco.falhas.get(0).getErro();
+                    relatorio.registrarFalhas(bloco.falhas);
+                }
+                if (tipo == Lancamento.Tipo.CARTAO) acrescimo.cartoes = bloco.n;
+                else acrescimo.vendas = bloco.n;
+                sistema.admitir(acrescimo, false);
+                empregados += aplicar(bloco, afetados);
+                aplicados += bloco.n;
+                linhas = bloco.linhas;
+                if (progresso != null) progresso.notificar(linhas, aplicados, bloco.bytesLidos, bytesTotais);
+            }
+            if (erroLeitura != null) throw erroLeitura;
+        } catch (Exception | Error e) {
+            leitor.interrupt();
+            sistema.reverterCheckpointDeLote();
+            throw e;
+        }
+        relatorio.setTotais(linhas, aplicados, empregados);
+        return relatorio;
+    }
+
+    // --- Leitura, conversão e validação ---
+
+    private void ler(Path arquivo) {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_LEITURA);
+            Trecho id = new Trecho(), data = new Trecho(), valor = new Trecho();
+            Bloco bloco = new Bloco(TAMANHO_BLOCO);
+            long numero = 0, bytesLidos = 0;
+            int inicio = 0, fim = 0;
+            boolean eof = false;
+            while (inicio < fim || !eof) {
+                byte[] b = buffer.array();
+                int nl = indiceDe(b, (byte) '\n', inicio, fim);
+                if (nl < 0 && !eof) {
+                    System.arraycopy(b, inicio, b, 0, fim - inicio);
+                    fim -= inicio;
+                    inicio = 0;
+                    if (fim == b.length) {
+                        buffer = ByteBuffer.wrap(Arrays.copyOf(b, b.length * 2));
+                    }
+                    buffer.limit(buffer.capacity()).position(fim);
+                    int lidos = canal.read(buffer);
+                    if (lidos < 0) {
+                        eof = true;
+                    } else {
+                        fim += lidos;
+                        bytesLidos += lidos;
+                    }
+                    continue;
+                }
+                if (nl < 0) nl = fim;
+                numero++;
+                int fimLinha = nl > inicio && b[nl - 1] == '\r' ? nl - 1 : nl;
+                if (!(numero == 1 && cabecalho(b, inicio, fimLinha))) {
+                    converter(b, inicio, fimLinha, numero, bloco, id, data, valor);
+                }
+                inicio = Math.min(nl + 1, fim);
+                if (bloco.n + bloco.falhas.size() >= TAMANHO_BLOCO) {
+                    bloco.linhas = numero;
+                    bloco.bytesLidos = bytesLidos;
+                    fila.put(bloco);
+                    bloco = new Bloco(TAMANHO_BLOCO);
+                }
+            }
+            bloco.linhas = numero;
+            bloco.bytesLidos = bytesLidos;
+            fila.put(bloco);
+        } catch (InterruptedException | java.nio.channels.ClosedByInterruptException e) {
+            return;
+        } catch (Exception e) {
+            erroLeitura = e;
+        }
+        try {
+            fila.put(FIM);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void converter(byte[] b, int inicio, int fim, long numero, Bloco bloco,
+                           Trecho id, Trecho data, Trecho valor) {
+        if (id.de(b, inicio, fim).emBranco()) return;
+        int s1 = indiceDe(b, (byte) ';', inicio, fim);
+        int s2 = s1 < 0 ? -1 : indiceDe(b, (byte) ';', s1 + 1, fim);
+        int s3 = s2 < 0 ? -1 : indiceDe(b, (byte) ';', s2 + 1, fim);
+        id.de(b, inicio, s1 < 0 ? fim : s1);
+        data.de(b, s1 < 0 ? fim : s1 + 1, s2 < 0 ? fim : s2);
+        valor.de(b, s2 < 0 ? fim : s2 + 1, s3 < 0 ? fim : s3);
+
+        long dia = 0;
+        double v = 0;
+        long idNum = ConversorEntrada.inteiro(id);
+        CodigoValidacao codigo;
+        if (id.emBranco()) {
+            codigo = CodigoValidacao.IDENTIFICACAO_EMPREGADO_NULA;
+        } else if (idNum < 0 || idNum >= porId.length || porId[(int) idNum] == null) {
+            codigo = CodigoValidacao.EMPREGADO_NAO_EXISTE;
+        } else if (tipo == Lancamento.Tipo.CARTAO && !(porId[(int) idNum] instanceof Horista)) {
+            codigo = CodigoValidacao.EMPREGADO_NAO_EH_HORISTA;
+        } else if (tipo == Lancamento.Tipo.VENDA && !(porId[(int) idNum] instanceof Comissionado)) {
+            codigo = CodigoValidacao.EMPREGADO_NAO_EH_COMISSIONADO;
+        } else if ((dia = ConversorEntrada.epochDay(data)) == ConversorEntrada.DATA_INVALIDA) {
+            codigo = CodigoValidacao.DATA_INVALIDA;
+        } else if (!((v = ConversorEntrada.decimal(valor)) > 0)) {
+            codigo = tipo == Lancamento.Tipo.CARTAO
+                    ? CodigoValidacao.HORAS_DEVEM_SER_POSITIVAS
+                    : CodigoValidacao.VALOR_DEVE_SER_POSITIVO;
+        } else {
+            codigo = CodigoValidacao.OK;
+        }
+
+        if (!codigo.isOk()) {
+            bloco.falhas.add(new RelatorioIngestao.Falha(numero, codigo,
+                    new String(b, inicio, fim - inicio, StandardCharsets.UTF_8)));
+            return;
+        }
+        int i = bloco.n++;
+        bloco.ids[i] = (int) idNum;
+        bloco.dias[i] = dia;
+        bloco.valores[i] = v;
+    }
+
+    private static boolean cabecalho(byte[] b, int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            int c = b[i] & 0xFF;
+            if (c > ' ') return (c | 0x20) >= 'a' && (c | 0x20) <= 'z';
+        }
+        return false;
+    }
+
+    private static int indiceDe(byte[] b, byte alvo, int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            if (b[i] == alvo) return i;
+        }
+        return -1;
+    }
+
+    // --- Agrupamento e aplicação ---
+
+    /**
+     * Agrupa as linhas válidas do bloco por empregado (preservando a ordem do arquivo dentro de cada
+     * grupo) e aplica cada grupo de uma vez.
+     *
+     * @return quantidade de empregados tocados pela primeira vez
+     */
+    private int aplicar(Bloco bloco, boolean[] afetados) {
+        int n = bloco.n;
+        long[] chaves = new long[n];
+        for (int i = 0; i < n; i++) {
+            chaves[i] = ((long) bloco.ids[i] << 32) | i;
+        }
+        Arrays.sort(chaves);
+
+        ContagemEstado contagem = sistema.contagem();
+        int novos = 0;
+        for (int g = 0; g < n; ) {
+            int id = (int) (chaves[g] >>> 32);
+            int fimGrupo = g;
+            while (fimGrupo < n && (int) (chaves[fimGrupo] >>> 32) == id) fimGrupo++;
+            if (!afetados[id]) {
+                afetados[id] = true;
+                novos++;
+            }
+            contagem.remover(porId[id]);
+            if (tipo == Lancamento.Tipo.CARTAO) {
+                aplicarCartoes(id, (Horista) porId[id], bloco, chaves, g, fimGrupo);
+            } else {
+                aplicarVendas((Comissionado) porId[id], bloco, chaves, g, fimGrupo);
+            }
+            contagem.adicionar(porId[id]);
+            g = fimGrupo;
+        }
+        return novos;
+    }
+
+    private void aplicarCartoes(int id, Horista h, Bloco bloco, long[] chaves, int de, int ate) {
+        ArrayList<CartaoDePonto> lista = h.getListaCartoes();
+        long ultimo = ultimoDia[id];
+        if (ultimo == DIA_DESCONHECIDO) {
+            ultimo = DIA_DESCONHECIDO + 1;
+            for (CartaoDePonto c : lista) ultimo = Math.max(ultimo, c.getData().toEpochDay());
+        }
+        lista.ensureCapacity(lista.size() + (ate - de));
+        for (int k = de; k < ate; k++) {
+            int i = (int) chaves[k];
+            CartaoDePonto novo = new CartaoDePonto(LocalDate.ofEpochDay(bloco.dias[i]), bloco.valores[i]);
+            if (bloco.dias[i] > ultimo) {
+                lista.add(novo);
+                ultimo = bloco.dias[i];
+            } else {
+                h.addCartaoDePonto(novo);
+            }
+        }
+        ultimoDia[id] = ultimo;
+    }
+
+    private static void aplicarVendas(Comissionado c, Bloco bloco, long[] chaves, int de, int ate) {
+        ArrayList<ResultadoDeVenda> lista = c.getListaVendas();
+        lista.ensureCapacity(lista.size() + (ate - de));
+        for (int k = de; k < ate; k++) {
+            int i = (int) chaves[k];
+            lista.add(new ResultadoDeVenda(LocalDate.ofEpochDay(bloco.dias[i]), bloco.valores[i]));
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package wepayu.services;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Cálculo de horas normais, horas extras e salário bruto de horistas sobre blocos de cartões em
+ * centésimos de hora, como os segmentos de {@link CartoesColunares}.
+ *
+ * <h3>Equivalência com a folha</h3>
+ * <p>
+ * Para cada cartão são calculados os mesmos {@code double} que a folha calcula, na mesma ordem:
+ * {@code h = centesimos / 100.0}, {@code min(8.0, h)}, {@code max(0.0, h - 8.0)} e
+ * {@code normais * salarioHora + extras * salarioHora * 1.5}. A folha soma {@code BigDecimal.valueOf}
+ * de cada valor; aqui, quando o valor é exatamente o {@code double} mais próximo de {@code c / 10^5}
+ * (com {@code c} de até 12 dígitos), {@code BigDecimal.valueOf} vale exatamente {@code c / 10^5}, pois
+ * nenhum outro decimal tão curto cabe no intervalo de arredondamento do {@code double}; então basta
+ * somar {@code c} em um {@code long}. Cinco casas cobrem horas em centésimos vezes salários em
+ * centavos vezes 1,5. Os demais valores (ex.: {@code 8.07 - 8.0}, que carrega o
+ * erro do {@code double}) são somados como {@code BigDecimal}, como antes. Os totais têm, portanto,
+ * exatamente o valor da soma da folha (a escala do {@code BigDecimal} pode diferir).
+ * </p>
+ *
+ * <p>{@link #padrao()} devolve a implementação vetorial ({@code wepayu.vector.KernelFolhaVetorial},
+ * que usa {@code jdk.incubator.vector}) quando ela está no classpath e o módulo foi habilitado com
+ * {@code --add-modules jdk.incubator.vector}; caso contrário, ou com {@code -Dwepayu.kernel=escalar},
+ * devolve a implementação escalar.</p>
+ *
+ * @see CartoesColunares#acumularFolha(int, long, long, double, KernelFolha, Totais)
+ */
+public abstract class KernelFolha {
+
+    /** Casas decimais da parte exata dos totais. */
+    protected static final int ESCALA = 5;
+
+    /** Fator {@code 10^ESCALA}. */
+    protected static final double FATOR = 1e5;
+
+    /**
+     * Limite (exclusivo) de {@code v * FATOR + 0.5} na parte exata: cada valor tem no máximo 12 dígitos
+     * e um trecho de 2<sup>20</sup> cartões cabe em um {@code long}.
+     */
+    protected static final double LIMITE_EXATO = 1e12;
+
+    private static final KernelFolha ESCALAR = new Escalar();
+    private static final KernelFolha PADRAO = carregarPadrao();
+
+    /**
+     * Totais acumulados por um kernel: a parte exata em unidades de {@code 10^-5} e o restante em
+     * {@link BigDecimal}.
+     */
+    public static final class Totais {
+        private long normais, extras, bruto;
+        private final Restantes normaisRestantes = new Restantes();
+        private final Restantes extrasRestantes = new Restantes();
+        private final Restantes brutoRestante = new Restantes();
+
+        /**
+         * Soma valores exatos, em unidades de {@code 10^-5}. Se uma soma estourar o {@code long}, a
+         * parte acumulada é transferida para o {@link BigDecimal}.
+         *
+         * @param normais horas normais × 10<sup>5</sup>
+         * @param extras horas extras × 10<sup>5</sup>
+         * @param bruto salário bruto × 10<sup>5</sup>
+         */
+        public void adicionarUnidades(long normais, long extras, long bruto) {
+            this.normais = somar(this.normais, normais, normaisRestantes);
+            this.extras = somar(this.extras, extras, extrasRestantes);
+            this.bruto = somar(this.bruto, bruto, brutoRestante);
+        }
+
+        private static long somar(long total, long parcela, Restantes restantes) {
+            long s = total + parcela;
+            if (((total ^ s) & (parcela ^ s)) < 0) {
+                restantes.soma = restantes.soma.add(BigDecimal.valueOf(total, ESCALA));
+                return parcela;
+            }
+            return s;
+        }
+
+        /** @param horas horas normais de um cartão, somadas como {@code BigDecimal.valueOf(horas)} */
+        public void adicionarNormais(double horas) {
+            normaisRestantes.adicionar(horas);
+        }
+
+        /** @param horas horas extras de um cartão, somadas como {@code BigDecimal.valueOf(horas)} */
+        public void adicionarExtras(double horas) {
+            extrasRestantes.adicionar(horas);
+        }
+
+        /** @param valor bruto de um cartão, somado como {@code BigDecimal.valueOf(valor)} */
+        public void adicionarBruto(double valor) {
+            brutoRestante.adicionar(valor);
+        }
+
+        /** @return soma das horas normais */
+        public BigDecimal getNormais() {
+            return BigDecimal.valueOf(normais, ESCALA).add(normaisRestantes.total());
+        }
+
+        /** @return soma das horas extras */
+        public BigDecimal getExtras() {
+            return BigDecimal.valueOf(extras, ESCALA).add(extrasRestantes.total());
+        }
+
+        /** @return soma do salário bruto por cartão */
+        public BigDecimal getBruto() {
+            return BigDecimal.valueOf(bruto, ESCALA).add(brutoRestante.total());
+        }
+
+        /** Zera os totais para reutilizar a instância. */
+        public void limpar() {
+            normais = extras = bruto = 0;
+            normaisRestantes.limpar();
+            extrasRestantes.limpar();
+            brutoRestante.limpar();
+        }
+    }
+
+    /**
+     * Valores somados como {@code BigDecimal.valueOf(v)}. Como os mesmos pares de horas e salário se
+     * repetem, cada {@code double} distinto é contado em uma tabela de endereçamento aberto e convertido
+     * uma única vez, multiplicado pela contagem; a tabela é descarregada na soma quando enche.
+     */
+    private static final class Restantes {
+        private static final int CAPACIDADE = 1 << 10;
+        private static final int MASCARA = CAPACIDADE - 1;
+        private static final int LIMITE = CAPACIDADE * 3 / 4;
+
+        private long[] bits;
+        private long[] contagens;
+        private int ocupados;
+        BigDecimal soma = BigDecimal.ZERO;
+
+        void adicionar(double v) {
+            if (bits == null) {
+                bits = new long[CAPACIDADE];
+                contagens = new long[CAPACIDADE];
+            }
+            long b = Double.doubleToRawLongBits(v);
+            int i = (int) ((b * 0x9E3779B97F4A7C15L) >>> 54) & MASCARA;
+            while (contagens[i] != 0 && bits[i] != b) i = (i + 1) & MASCARA;
+            if (contagens[i] == 0) {
+                if (ocupados == LIMITE) {
+                    descarregar();
+                    adicionar(v);
+                    return;
+                }
+                bits[i] = b;
+                ocupados++;
+            }
+            contagens[i]++;
+        }
+
+        BigDecimal total() {
+            descarregar();
+            return soma;
+        }
+
+        void limpar() {
+            if (ocupados > 0) Arrays.fill(contagens, 0);
+            ocupados = 0;
+            soma = BigDecimal.ZERO;
+        }
+
+        private void descarregar() {
+            if (ocupados == 0) return;
+            for (int i = 0; i < CAPACIDADE; i++) {
+                if (contagens[i] == 0) continue;
+                BigDecimal v = BigDecimal.valueOf(Double.longBitsToDouble(bits[i]));
+                soma = soma.add(contagens[i] == 1 ? v : v.multiply(BigDecimal.valueOf(contagens[i])));
+                contagens[i] = 0;
+            }
+            ocupados = 0;
+        }
+    }
+
+    /**
+     * Acumula os cartões {@code centesimos[de..ate)} de um horista.
+     *
+     * @param centesimos horas de cada cartão × 100
+     * @param de primeira posição (inclusive)
+     * @param ate última posição (exclusiva)
+     * @param salarioHora salário por hora do horista
+     * @param totais totais que recebem a soma
+     */
+    public abstract void acumular(int[] centesimos, int de, int ate, double salarioHora, Totais totais);
+
+    /**
+     * Retorna o nome da implementação, para relatórios e benchmarks.
+     *
+     * @return nome da implementação
+     */
+    public abstract String getNome();
+
+    /**
+     * Retorna a implementação escalar.
+     *
+     * @return kernel escalar
+     */
+    public static KernelFolha escalar() {
+        return ESCALAR;
+    }
+
+    /**
+     * Retorna a implementação vetorial, se disponível, ou a escalar.
+     *
+     * @return kernel padrão
+     */
+    public static KernelFolha padrao() {
+        return PADRAO;
+    }
+
+    /**
+     * Converte um valor em unidades de {@code 10^-5} quando {@code BigDecimal.valueOf(v)} vale
+     * exatamente {@code c / 10^5}.
+     *
+     * @param v valor calculado
+     * @return {@code c}, ou {@code -1} se o valor precisar ser somado como {@code BigDecimal}
+     */
+    protected static long unidadesExatas(double v) {
+        double t = v * FATOR + 0.5;
+        long c = (long) t;
+        return v >= 0 && t < LIMITE_EXATO && c / FATOR == v ? c : -1;
+    }
+
+    private static KernelFolha carregarPadrao() {
+        if ("escalar".equals(System.getProperty("wepayu.kernel"))) return ESCALAR;
+        try {
+            return (KernelFolha) Class.forName("wepayu.vector.KernelFolhaVetorial")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return ESCALAR;
+        }
+    }
+
+    private static final class Escalar extends KernelFolha {
+        @Override
+        public void acumular(int[] centesimos, int de, int ate, double salarioHora, Totais totais) {
+            long normais = 0, extras = 0, bruto = 0;
+            for (int i = de; i < ate; i++) {
+                double horas = centesimos[i] / 100.0;
+                double n = Math.min(8.0, horas);
+                double x = Math.max(0.0, horas - 8.0);
+                double valorDia = (n * salarioHora) + (x * salarioHora * 1.5);
+                long c = unidadesExatas(n);
+                if (c >= 0) normais += c; else totais.adicionarNormais(n);
+                c = unidadesExatas(x);
+                if (c >= 0) extras += c; else totais.adicionarExtras(x);
+                c = unidadesExatas(valorDia);
+                if (c >= 0) bruto += c; else totais.adicionarBruto(valorDia);
+            }
+            totais.adicionarUnidades(normais, extras, bruto);
+        }
+
+        @Override
+        public String getNome() {
+            return "escalar";
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package wepayu.services;
+
+/**
+ * Linha de um lote de lançamentos: cartão de ponto, resultado de venda ou taxa de serviço.
+ *
+ * <p>Os campos são mantidos em texto, exatamente como chegariam pelas chamadas individuais
+ * da {@code Facade}; a validação acontece em {@link Sistema#lancaLote(java.util.Collection, boolean)}.</p>
+ *
+ * @see Sistema#lancaLote(java.util.Collection, boolean)
+ * @see RelatorioLote
+ */
+public final class Lancamento implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Tipos de lançamento aceitos em um lote.
+     */
+    public enum Tipo {
+        /** Cartão de ponto de um horista (alvo = id do empregado, valor = horas). */
+        CARTAO,
+        /** Resultado de venda de um comissionado (alvo = id do empregado, valor = valor da venda). */
+        VENDA,
+        /** Taxa de serviço do sindicato (alvo = id do membro, valor = valor da taxa). */
+        TAXA_SERVICO
+    }
+
+    private final Tipo tipo;
+    private final String alvo;
+    private final String data;
+    private final String valor;
+
+    private Lancamento(Tipo tipo, String alvo, String data, String valor) {
+        this.tipo = tipo;
+        this.alvo = alvo;
+        this.data = data;
+        this.valor = valor;
+    }
+
+    /**
+     * Cria um lançamento de cartão de ponto.
+     *
+     * @param id id do empregado horista
+     * @param data data no formato {@code d/M/uuuu}
+     * @param horas horas trabalhadas no dia
+     * @return o lançamento
+     */
+    public static Lancamento cartao(String id, String data, String horas) {
+        return new Lancamento(Tipo.CARTAO, id, data, horas);
+    }
+
+    /**
+     * Cria um lançamento de resultado de venda.
+     *
+     * @param id id do empregado comissionado
+     * @param data data no formato {@code d/M/uuuu}
+     * @param valor valor da venda
+     * @return o lançamento
+     */
+    public static Lancamento venda(String id, String data, String valor) {
+        return new Lancamento(Tipo.VENDA, id, data, valor);
+    }
+
+    /**
+     * Cria um lançamento de taxa de serviço.
+     *
+     * @param membro id do membro no sindicato
+     * @param data data no formato {@code d/M/uuuu}
+     * @param valor valor da taxa
+     * @return o lançamento
+     */
+    public static Lancamento taxaServico(String membro, String data, String valor) {
+        return new Lancamento(Tipo.TAXA_SERVICO, membro, data, valor);
+    }
+
+    public Tipo getTipo() { return tipo; }
+
+    /**
+     * Retorna o alvo do lançamento: id do empregado (cartão/venda) ou id do membro (taxa).
+     *
+     * @return o identificador do alvo
+     */
+    public String getAlvo() { return alvo; }
+
+    public String getData() { return data; }
+
+    /**
+     * Retorna a quantidade lançada: horas (cartão) ou valor monetário (venda/taxa).
+     *
+     * @return o valor em texto
+     */
+    public String getValor() { return valor; }
+
+    @Override
+    public String toString() {
+        return tipo + " " + alvo + " " + data + " " + valor;
+    }
+}
@@ -0,0 +1,82 @@
+package wepayu.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Implementação alternativa do cálculo da folha, comparada com a de referência no modo sombra
+ * ({@link Sistema#setMotorSombra(MotorFolha)}).
+ *
+ * <p>Os métodos recebem uma cópia do sistema ({@link Sistema#copia()}) que não é alterada por ninguém
+ * e devem devolver exatamente o que a referência devolveria: as linhas de
+ * {@link Sistema#rodaFolha(String, String)} e o total de {@link Sistema#totalFolha(String)}, sem
+ * arredondamento final. Eles rodam fora da thread do sistema e não podem alterá-lo.</p>
+ */
+public interface MotorFolha {
+
+    /** @return nome do motor, para o log e os relatórios */
+    String getNome();
+
+    /**
+     * Calcula as linhas da folha de uma data.
+     *
+     * @param sistema cópia somente leitura do sistema
+     * @param dia data da folha
+     * @return as linhas de cada seção, ordenadas por nome
+     * @throws Exception se o cálculo falhar
+     */
+    FolhaCalculada calcularFolha(Sistema sistema, LocalDate dia) throws Exception;
+
+    /**
+     * Calcula o total bruto da folha de uma data.
+     *
+     * @param sistema cópia somente leitura do sistema
+     * @param dia data da folha
+     * @return o total bruto
+     * @throws Exception se o cálculo falhar
+     */
+    BigDecimal calcularTotalFolha(Sistema sistema, LocalDate dia) throws Exception;
+
+    /**
+     * Retorna a própria implementação de referência como motor, para validar o modo sombra e medir o seu
+     * custo (as comparações devem dar sempre zero divergências e razão próxima de 1).
+     *
+     * @return o motor de referência
+     */
+    static MotorFolha referencia() {
+        return MotorFolhaReferencia.INSTANCIA;
+    }
+
+    /**
+     * Retorna o motor colunar: os cartões dos horistas são copiados para um {@link CartoesColunares} e as
+     * horas são somadas por {@link KernelFolha#padrao()}; a última sexta paga de cada horista
+     * sindicalizado é achada por busca binária, em vez de recalcular o bruto de semana em semana. As
+     * demais seções são calculadas como na referência.
+     *
+     * @return o motor colunar
+     */
+    static MotorFolha colunar() {
+        return new MotorFolhaColunar(KernelFolha.padrao());
+    }
+
+    /**
+     * Resolve um motor pelo nome: {@code colunar}, {@code referencia} ou o nome de uma classe que
+     * implemente {@code MotorFolha} e tenha construtor público sem argumentos.
+     *
+     * @param nome nome do motor
+     * @return o motor
+     * @throws IllegalArgumentException se a classe não existir ou não puder ser instanciada
+     */
+    static MotorFolha porNome(String nome) {
+        switch (nome) {
+            case "colunar": return colunar();
+            case "referencia": return referencia();
+            default:
+                try {
+                    return (MotorFolha) Class.forName(nome).getConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Motor de folha invalido: " + nome, e);
+                }
+        }
+    }
+}
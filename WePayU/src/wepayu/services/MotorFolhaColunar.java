@@ -0,0 +1,126 @@
+package wepayu.services;
+
+import wepayu.models.Horista;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Motor de folha sobre os cartões em colunas ({@link MotorFolha#colunar()}).
+ *
+ * <p>
+ * Só o cálculo dos horistas muda. As horas do período vêm de
+ * {@link CartoesColunares#acumularFolha} com um {@link KernelFolha}, cujos totais têm o mesmo valor das
+ * somas em {@code BigDecimal} da referência. A referência acha a última sexta paga de um horista
+ * sindicalizado recalculando o bruto de semana em semana, desde 2005, sobre todos os cartões; aqui
+ * basta o dia do último cartão antes da data ({@link CartoesColunares#ultimoDiaAntes}), já que horas
+ * são sempre positivas e um salário-hora positivo torna positivo o bruto de qualquer semana com cartão.
+ * Os cartões são copiados para colunas a cada cálculo, só se algum horista for consultado. Se algum
+ * cartão não couber em centésimos de hora (ex.: {@code 8,125}), o cálculo usa a referência, para que
+ * o resultado seja o mesmo.
+ * </p>
+ */
+final class MotorFolhaColunar implements MotorFolha {
+
+    /** Primeiro dia considerado pela busca da última sexta paga (semana da sexta 07/01/2005). */
+    private static final long PRIMEIRO_DIA_PAGO = LocalDate.of(2005, 1, 1).toEpochDay();
+
+    private final KernelFolha kernel;
+
+    MotorFolhaColunar(KernelFolha kernel) {
+        this.kernel = kernel;
+    }
+
+    @Override
+    public String getNome() {
+        return "colunar-" + kernel.getNome();
+    }
+
+    @Override
+    public FolhaCalculada calcularFolha(Sistema sistema, LocalDate dia) {
+        return sistema.calcularFolha(dia, FolhaSombra.DATA_EVENTOS, new Calculo(sistema));
+    }
+
+    @Override
+    public BigDecimal calcularTotalFolha(Sistema sistema, LocalDate dia) {
+        return sistema.calcularTotalFolha(dia, new Calculo(sistema));
+    }
+
+    private final class Calculo implements Sistema.CalculoHoristas {
+        private final Sistema sistema;
+        private final KernelFolha.Totais totais = new KernelFolha.Totais();
+        private CartoesColunares cartoes;
+        private Sistema.CalculoHoristas referencia;
+
+        Calculo(Sistema sistema) {
+            this.sistema = sistema;
+        }
+
+        /**
+         * Monta as colunas no primeiro uso.
+         *
+         * @return {@code false} se algum cartão não couber nelas e o cálculo de referência deve ser usado
+         */
+        private boolean colunar() {
+            if (cartoes == null && referencia == null) {
+                try {
+                    cartoes = sistema.exportarCartoes();
+                } catch (IllegalArgumentException e) {
+                    referencia = sistema.calculoReferencia();
+                }
+            }
+            return referencia == null;
+        }
+
+        /** Índice do horista nas colunas; -1 se ele não tiver cartões. */
+        private int indice(Horista h) {
+            return cartoes.indiceDe(Integer.parseInt(h.getId()));
+        }
+
+        /** Acumula em {@link #totais} os cartões de {@code h} em {@code [ini, fim]}. */
+        private void acumular(Horista h, LocalDate ini, LocalDate fim) {
+            totais.limpar();
+            int e = indice(h);
+            if (e >= 0) {
+                cartoes.acumularFolha(e, ini.toEpochDay(), fim.toEpochDay() + 1, h.getSalarioHora(), kernel, totais);
+            }
+        }
+
+        @Override
+        public void somarHoras(List<Horista> horistas, LocalDate ini, LocalDate fim,
+                               BigDecimal[] normais, BigDecimal[] extras) {
+            if (!colunar()) {
+                referencia.somarHoras(horistas, ini, fim, normais, extras);
+                return;
+            }
+            for (int i = 0; i < horistas.size(); i++) {
+                acumular(horistas.get(i), ini, fim);
+                normais[i] = totais.getNormais();
+                extras[i] = totais.getExtras();
+            }
+        }
+
+        @Override
+        public BigDecimal bruto(Horista h, LocalDate ini, LocalDate fim) {
+            if (!colunar()) return referencia.bruto(h, ini, fim);
+            acumular(h, ini, fim);
+            return totais.getBruto();
+        }
+
+        @Override
+        public LocalDate ultimaSextaPaga(Horista h, LocalDate antesDe) {
+            if (!colunar()) return referencia.ultimaSextaPaga(h, antesDe);
+            int e = indice(h);
+            if (e < 0 || !(h.getSalarioHora() > 0)) return null;
+            LocalDate sexta = antesDe;
+            while (sexta.getDayOfWeek() != DayOfWeek.FRIDAY) sexta = sexta.minusDays(1);
+            long ultimo = cartoes.ultimoDiaAntes(e, sexta.toEpochDay() + 1);
+            if (ultimo < PRIMEIRO_DIA_PAGO) return null;
+            LocalDate d = LocalDate.ofEpochDay(ultimo);
+            int ate = (DayOfWeek.FRIDAY.getValue() - d.getDayOfWeek().getValue() + 7) % 7;
+            return d.plusDays(ate);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package wepayu.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** A implementação de referência da folha como {@link MotorFolha}. */
+final class MotorFolhaReferencia implements MotorFolha {
+
+    static final MotorFolhaReferencia INSTANCIA = new MotorFolhaReferencia();
+
+    private MotorFolhaReferencia() {
+    }
+
+    @Override
+    public String getNome() {
+        return "referencia";
+    }
+
+    @Override
+    public FolhaCalculada calcularFolha(Sistema sistema, LocalDate dia) {
+        return sistema.calcularFolha(dia, FolhaSombra.DATA_EVENTOS, sistema.calculoReferencia());
+    }
+
+    @Override
+    public BigDecimal calcularTotalFolha(Sistema sistema, LocalDate dia) {
+        return sistema.calcularTotalFolha(dia, sistema.calculoReferencia());
+    }
+}
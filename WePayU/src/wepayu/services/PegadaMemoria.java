@@ -0,0 +1,156 @@
+package wepayu.services;
+
+import java.util.Locale;
+
+/**
+ * Estimativa dos bytes retidos pelo estado do {@link Sistema} e pelo seu histórico de undo/redo.
+ *
+ * <p>
+ * A estimativa é calculada a partir de uma {@link ContagemEstado}, mantida a cada alteração, e de um
+ * custo médio por objeto; obtê-la custa O(1) e não percorre empregados nem lançamentos. Os custos
+ * foram medidos numa JVM de 64 bits com referências comprimidas (o padrão até 32 GB de heap), com
+ * nomes e endereços de cerca de 10 caracteres, e incluem a posição na lista que guarda cada objeto e,
+ * para os empregados, a entrada no índice de nomes.
+ * </p>
+ *
+ * <p>
+ * Um snapshot do histórico custa menos que o estado vivo: a cópia de um empregado compartilha com o
+ * original os textos (nome, endereço, dados bancários) e as datas dos lançamentos, e só duplica os
+ * objetos e as listas.
+ * </p>
+ *
+ * @see Sistema#getPegadaMemoria()
+ * @see Sistema#setOrcamentoMemoria(long)
+ */
+public final class PegadaMemoria {
+
+    /** Custo médio, em bytes, de cada tipo de objeto. */
+    private record Custos(long horista, long assalariado, long comissionado, long sindicato,
+                          long cartao, long venda, long taxa) {
+        long estimar(ContagemEstado c) {
+            return c.horistas * horista + c.assalariados * assalariado + c.comissionados * comissionado
+                    + c.sindicalizados * sindicato + c.cartoes * cartao + c.vendas * venda + c.taxas * taxa;
+        }
+    }
+
+    private static final Custos ESTADO = new Custos(352, 330, 360, 112, 54, 54, 53);
+    private static final Custos COPIA = new Custos(92, 68, 100, 64, 30, 30, 29);
+
+    private final ContagemEstado contagem;
+    private final long historicoSistema;
+    private final long historicoComandos;
+
+    PegadaMemoria(ContagemEstado contagem, long historicoSistema, long historicoComandos) {
+        this.contagem = contagem;
+        this.historicoSistema = historicoSistema;
+        this.historicoComandos = historicoComandos;
+    }
+
+    /**
+     * Estima os bytes de um estado vivo com a contagem informada.
+     *
+     * @param c contagem do estado
+     * @return bytes estimados
+     */
+    public static long estimarEstado(ContagemEstado c) {
+        return ESTADO.estimar(c);
+    }
+
+    /**
+     * Estima os bytes de um snapshot ({@link wepayu.command.SistemaMemento}) de um estado com a contagem
+     * informada.
+     *
+     * @param c contagem do estado salvo
+     * @return bytes estimados
+     */
+    public static long estimarCopia(ContagemEstado c) {
+        return COPIA.estimar(c);
+    }
+
+    /**
+     * Retorna uma cópia desta estimativa com o histórico de comandos informado (ex.: o do
+     * {@code Invoker} da {@code Facade}).
+     *
+     * @param bytes bytes estimados do histórico de comandos
+     * @return nova estimativa
+     */
+    public PegadaMemoria comHistoricoDeComandos(long bytes) {
+        return new PegadaMemoria(contagem, historicoSistema, bytes);
+    }
+
+    /** @return contagem de empregados e lançamentos do estado atual */
+    public ContagemEstado getContagem() {
+        return contagem.copia();
+    }
+
+    /** @return bytes dos horistas, sem os cartões e os dados sindicais */
+    public long getHoristas() {
+        return contagem.horistas * ESTADO.horista();
+    }
+
+    /** @return bytes dos assalariados, sem os dados sindicais */
+    public long getAssalariados() {
+        return contagem.assalariados * ESTADO.assalariado();
+    }
+
+    /** @return bytes dos comissionados, sem as vendas e os dados sindicais */
+    public long getComissionados() {
+        return contagem.comissionados * ESTADO.comissionado();
+    }
+
+    /** @return bytes dos dados sindicais, sem as taxas de serviço */
+    public long getSindicatos() {
+        return contagem.sindicalizados * ESTADO.sindicato();
+    }
+
+    /** @return bytes dos cartões de ponto */
+    public long getCartoes() {
+        return contagem.cartoes * ESTADO.cartao();
+    }
+
+    /** @return bytes dos resultados de venda */
+    public long getVendas() {
+        return contagem.vendas * ESTADO.venda();
+    }
+
+    /** @return bytes das taxas de serviço */
+    public long getTaxas() {
+        return contagem.taxas * ESTADO.taxa();
+    }
+
+    /** @return bytes do estado atual: empregados, dados sindicais e lançamentos */
+    public long getEmpregados() {
+        return ESTADO.estimar(contagem);
+    }
+
+    /** @return bytes dos snapshots nas pilhas de undo/redo do {@code Sistema} */
+    public long getHistoricoSistema() {
+        return historicoSistema;
+    }
+
+    /** @return bytes dos comandos nas pilhas de undo/redo do {@code Invoker} (0 se não informado) */
+    public long getHistoricoComandos() {
+        return historicoComandos;
+    }
+
+    /** @return soma do estado atual e dos históricos */
+    public long getTotal() {
+        return getEmpregados() + historicoSistema + historicoComandos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "total=%s empregados=%s (horistas=%s assalariados=%s comissionados=%s sindicatos=%s"
+                        + " cartoes=%s vendas=%s taxas=%s) historicoSistema=%s historicoComandos=%s",
+                tamanho(getTotal()), tamanho(getEmpregados()), tamanho(getHoristas()),
+                tamanho(getAssalariados()), tamanho(getComissionados()), tamanho(getSindicatos()),
+                tamanho(getCartoes()), tamanho(getVendas()), tamanho(getTaxas()),
+                tamanho(historicoSistema), tamanho(historicoComandos));
+    }
+
+    private static String tamanho(long bytes) {
+        if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1fKB", bytes / 1024.0);
+        return String.format(Locale.ROOT, "%.1fMB", bytes / (1024.0 * 1024.0));
+    }
+}
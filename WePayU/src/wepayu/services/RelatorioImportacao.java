@@ -0,0 +1,116 @@
+package wepayu.services;
+
+import wepayu.exceptions.BusinessException;
+import wepayu.exceptions.CodigoValidacao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma importação de empregados a partir de CSV.
+ *
+ * <p>Informa quantos empregados foram importados, a faixa de IDs atribuída (consecutiva, na ordem do
+ * arquivo) e, para cada linha rejeitada, o número da linha no arquivo (1-based) e o código de validação.</p>
+ *
+ * @see Sistema#importarEmpregados(java.nio.file.Path, boolean)
+ */
+public class RelatorioImportacao implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Linha rejeitada do arquivo.
+     */
+    public static final class Falha implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+        private final long linha;
+        private final CodigoValidacao codigo;
+
+        Falha(long linha, CodigoValidacao codigo) {
+            this.linha = linha;
+            this.codigo = codigo;
+        }
+
+        /** @return número da linha no arquivo (1-based, contando o cabeçalho) */
+        public long getLinha() { return linha; }
+
+        /** @return o código de validação */
+        public CodigoValidacao getCodigo() { return codigo; }
+
+        /** @return uma nova instância da exceção correspondente */
+        public BusinessException getErro() { return codigo.excecao(); }
+
+        /** @return a mensagem de erro (ex.: {@code "Salario deve ser numerico."}) */
+        public String getMensagem() { return codigo.getMensagem(); }
+
+        @Override
+        public String toString() {
+            return "linha " + linha + ": " + getMensagem();
+        }
+    }
+
+    private final ArrayList<Falha> falhas = new ArrayList<>();
+    private int importados;
+    private int primeiroId;
+    private int ultimoId;
+
+    void registrarFalha(long linha, CodigoValidacao codigo) {
+        falhas.add(new Falha(linha, codigo));
+    }
+
+    void setImportados(int importados, int primeiroId, int ultimoId) {
+        this.importados = importados;
+        this.primeiroId = primeiroId;
+        this.ultimoId = ultimoId;
+    }
+
+    /**
+     * Retorna a quantidade de empregados importados.
+     *
+     * @return número de linhas importadas
+     */
+    public int getImportados() {
+        return importados;
+    }
+
+    /**
+     * Retorna o ID do primeiro empregado importado.
+     *
+     * @return o ID, ou {@code 0} se nada foi importado
+     */
+    public int getPrimeiroId() {
+        return primeiroId;
+    }
+
+    /**
+     * Retorna o ID do último empregado importado.
+     *
+     * @return o ID, ou {@code 0} se nada foi importado
+     */
+    public int getUltimoId() {
+        return ultimoId;
+    }
+
+    /**
+     * Retorna as linhas rejeitadas, na ordem do arquivo.
+     *
+     * @return lista imutável de falhas
+     */
+    public List<Falha> getFalhas() {
+        return Collections.unmodifiableList(falhas);
+    }
+
+    /**
+     * Indica se todas as linhas do arquivo foram importadas.
+     *
+     * @return {@code true} se não houve falhas
+     */
+    public boolean isSucessoTotal() {
+        return falhas.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return importados + " importado(s), " + falhas.size() + " falha(s)";
+    }
+}
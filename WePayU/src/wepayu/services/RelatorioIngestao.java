@@ -0,0 +1,136 @@
+package wepayu.services;
+
+import wepayu.exceptions.BusinessException;
+import wepayu.exceptions.CodigoValidacao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado da ingestão de um arquivo de cartões de ponto ou de vendas.
+ *
+ * <p>Informa as linhas lidas, os lançamentos aplicados, quantos empregados receberam lançamentos e,
+ * para cada linha rejeitada, o número da linha no arquivo (1-based), o código de validação e o texto
+ * original da linha.</p>
+ *
+ * @see Sistema#ingerirLancamentos(java.nio.file.Path, Lancamento.Tipo, boolean, Progresso)
+ */
+public class RelatorioIngestao implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Acompanhamento de uma ingestão em andamento, notificado após cada bloco aplicado.
+     */
+    @FunctionalInterface
+    public interface Progresso {
+        /**
+         * @param linhas linhas lidas até agora
+         * @param aplicados lançamentos aplicados até agora
+         * @param bytesLidos bytes do arquivo já lidos
+         * @param bytesTotais tamanho do arquivo
+         */
+        void notificar(long linhas, long aplicados, long bytesLidos, long bytesTotais);
+    }
+
+    /**
+     * Linha rejeitada do arquivo.
+     */
+    public static final class Falha implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+        private final long linha;
+        private final CodigoValidacao codigo;
+        private final String texto;
+
+        Falha(long linha, CodigoValidacao codigo, String texto) {
+            this.linha = linha;
+            this.codigo = codigo;
+            this.texto = texto;
+        }
+
+        /** @return número da linha no arquivo (1-based) */
+        public long getLinha() { return linha; }
+
+        /** @return o código de validação */
+        public CodigoValidacao getCodigo() { return codigo; }
+
+        /** @return o texto original da linha */
+        public String getTexto() { return texto; }
+
+        /** @return uma nova instância da exceção que a chamada individual lançaria */
+        public BusinessException getErro() { return codigo.excecao(); }
+
+        /** @return a mensagem de erro (ex.: {@code "Empregado nao eh horista."}) */
+        public String getMensagem() { return codigo.getMensagem(); }
+
+        @Override
+        public String toString() {
+            return "linha " + linha + ": " + getMensagem() + " <" + texto + ">";
+        }
+    }
+
+    private final ArrayList<Falha> falhas = new ArrayList<>();
+    private long linhas;
+    private long aplicados;
+    private int empregados;
+
+    void registrarFalhas(List<Falha> novas) {
+        falhas.addAll(novas);
+    }
+
+    void setTotais(long linhas, long aplicados, int empregados) {
+        this.linhas = linhas;
+        this.aplicados = aplicados;
+        this.empregados = empregados;
+    }
+
+    /**
+     * Retorna a quantidade de linhas lidas, incluindo cabeçalho e linhas em branco.
+     *
+     * @return linhas lidas
+     */
+    public long getLinhas() {
+        return linhas;
+    }
+
+    /**
+     * Retorna a quantidade de lançamentos aplicados.
+     *
+     * @return lançamentos aplicados
+     */
+    public long getAplicados() {
+        return aplicados;
+    }
+
+    /**
+     * Retorna a quantidade de empregados que receberam ao menos um lançamento.
+     *
+     * @return empregados afetados
+     */
+    public int getEmpregados() {
+        return empregados;
+    }
+
+    /**
+     * Retorna as linhas rejeitadas, na ordem do arquivo.
+     *
+     * @return lista imutável de falhas
+     */
+    public List<Falha> getFalhas() {
+        return Collections.unmodifiableList(falhas);
+    }
+
+    /**
+     * Indica se todas as linhas do arquivo foram aplicadas.
+     *
+     * @return {@code true} se não houve falhas
+     */
+    public boolean isSucessoTotal() {
+        return falhas.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return aplicados + " aplicado(s) em " + empregados + " empregado(s), " + falhas.size() + " falha(s)";
+    }
+}
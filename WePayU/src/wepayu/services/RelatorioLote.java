@@ -0,0 +1,94 @@
+package wepayu.services;
+
+import wepayu.exceptions.BusinessException;
+import wepayu.exceptions.CodigoValidacao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de um lote de lançamentos processado em modo parcial.
+ *
+ * <p>Informa quantos lançamentos foram aplicados e, para cada linha rejeitada, o número da linha
+ * (1-based, na ordem do lote), o lançamento original e o código de validação correspondente.</p>
+ *
+ * @see Sistema#lancaLote(java.util.Collection, boolean)
+ */
+public class RelatorioLote implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Linha rejeitada de um lote.
+     */
+    public static final class Falha implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int linha;
+        private final Lancamento lancamento;
+        private final CodigoValidacao codigo;
+
+        Falha(int linha, Lancamento lancamento, CodigoValidacao codigo) {
+            this.linha = linha;
+            this.lancamento = lancamento;
+            this.codigo = codigo;
+        }
+
+        /** @return número da linha no lote (1-based) */
+        public int getLinha() { return linha; }
+
+        /** @return o lançamento rejeitado */
+        public Lancamento getLancamento() { return lancamento; }
+
+        /** @return o código de validação, correspondente à exceção da chamada individual */
+        public CodigoValidacao getCodigo() { return codigo; }
+
+        /** @return uma nova instância da exceção lançada pela chamada individual */
+        public BusinessException getErro() { return codigo.excecao(); }
+
+        /** @return a mensagem de erro (ex.: {@code "Empregado nao eh horista."}) */
+        public String getMensagem() { return codigo.getMensagem(); }
+
+        @Override
+        public String toString() {
+            return "linha " + linha + ": " + getMensagem();
+        }
+    }
+
+    private final ArrayList<Falha> falhas = new ArrayList<>();
+    private int aplicados;
+
+    void registrarFalha(int linha, Lancamento lancamento, CodigoValidacao codigo) {
+        falhas.add(new Falha(linha, lancamento, codigo));
+    }
+
+    void setAplicados(int aplicados) {
+        this.aplicados = aplicados;
+    }
+
+    /**
+     * Retorna a quantidade de lançamentos efetivamente aplicados.
+     *
+     * @return número de linhas aplicadas
+     */
+    public int getAplicados() {
+        return aplicados;
+    }
+
+    /**
+     * Retorna as linhas rejeitadas, na ordem do lote.
+     *
+     * @return lista imutável de falhas
+     */
+    public List<Falha> getFalhas() {
+        return Collections.unmodifiableList(falhas);
+    }
+
+    /**
+     * Indica se todas as linhas do lote foram aplicadas.
+     *
+     * @return {@code true} se não houve falhas
+     */
+    public boolean isSucessoTotal() {
+        return falhas.isEmpty();
+    }
+}
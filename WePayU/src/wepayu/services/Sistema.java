@@ -77,14 +77,22 @@ import java.time.temporal.TemporalAdjusters;
  * @see wepayu.command.SistemaMemento
  */
 
-public class Sistema
+public class Sistema implements java.io.Serializable
 {
+    private static final long serialVersionUID = 1L;
     private ArrayList<Empregado> empregados;
     private int id = 0;
     private boolean encerrado = false;
     private final java.util.ArrayDeque<SistemaMemento> undoStack = new java.util.ArrayDeque<>();
     private final java.util.ArrayDeque<SistemaMemento> redoStack = new java.util.ArrayDeque<>();
-    private final java.util.Set<String> agendasDisponiveis =
+    private final IndiceNomes indiceNomes = new IndiceNomes();
+    private ContagemEstado contagem = new ContagemEstado();
+    private long bytesHistorico;
+    private long orcamentoMemoria;
+    private transient MotorFolha motorSombra = FolhaSombra.MOTOR_PADRAO;
+    private transient java.util.function.Predicate<String> membrosExternos;
+    private transient java.util.concurrent.CompletableFuture<ComparacaoFolha> ultimaComparacaoSombra;
+    private final java.util.LinkedHashSet<String> agendasDisponiveis =
             new java.util.LinkedHashSet<>(java.util.Arrays.asList(
                     "semanal 5", "mensal $", "semanal 2 5"
             ));
@@ -108,18 +116,40 @@ public class Sistema
         if (id == null || id.trim().isEmpty()) {
             throw new IdentificacaoEmpregadoNulaException();
         }
-        int idInt;
-        try {
-            idInt = Integer.parseInt(id);
-        } catch (NumberFormatException e) {
+        Empregado empregado = localizarEmpregado(id);
+        if (empregado == null) {
             throw new EmpregadoNaoExisteException();
         }
+        return empregado;
+    }
+
+    /**
+     * Localiza um empregado pelo identificador, sem lançar exceção.
+     *
+     * @param id identificador do empregado (numérico em texto)
+     * @return o empregado, ou {@code null} se {@code id} for nulo, não numérico ou inexistente
+     */
+    private Empregado localizarEmpregado(String id) {
+        long idNum = ConversorEntrada.inteiro(id);
+        if (idNum == ConversorEntrada.NUMERO_INVALIDO) return null;
         for (Empregado empregado : this.empregados) {
-            if (Integer.parseInt(empregado.getId()) == idInt) {
+            if (Integer.parseInt(empregado.getId()) == idNum) {
                 return empregado;
             }
         }
-        throw new EmpregadoNaoExisteException();
+        return null;
+    }
+
+    /**
+     * Valida o identificador de um empregado, sem lançar exceção.
+     *
+     * @param id identificador do empregado
+     * @param empregado resultado de {@link #localizarEmpregado(String)} para {@code id}
+     * @return {@link CodigoValidacao#OK} ou o código do erro que {@link #getEmpregado(String)} lançaria
+     */
+    private CodigoValidacao validarEmpregado(String id, Empregado empregado) {
+        if (id == null || id.trim().isEmpty()) return CodigoValidacao.IDENTIFICACAO_EMPREGADO_NULA;
+        return empregado == null ? CodigoValidacao.EMPREGADO_NAO_EXISTE : CodigoValidacao.OK;
     }
 
     /**
@@ -136,56 +166,15 @@ public class Sistema
     public String criarEmpregado(String name, String endereco, String tipo, String salario) throws Exception
     {
         checkpoint();
-        if (tipo.equals("comissionado"))
-        {
-            throw new TipoNaoAplicavelException();
-        }
-        if (name == null || name.trim().isEmpty())
-        {
-            throw new NomeNuloException();
-        }
-        if (endereco == null || endereco.trim().isEmpty())
-        {
-            throw new EnderecoNuloException();
-        }
-        if (salario == null || salario.trim().isEmpty())
-        {
-            throw new SalarioNuloException();
-        }
-        salario = salario.replace(",", ".");
-        double salarioDouble;
-        try
-        {
-            salarioDouble = Double.parseDouble(salario);
-        }
-        catch (NumberFormatException e)
-        {
-            throw new SalarioDeveSerNumericoException();
-        }
-        if (salarioDouble < 0)
-        {
-            throw new SalarioNaoNegativoException();
-        }
+        validarNovoEmpregado(name, endereco, tipo, salario).lancarSeErro();
+        double salarioDouble = ConversorEntrada.decimal(salario);
 
-        if (tipo.equals("horista"))
-        {
-            this.id += 1;
-            Horista novoEmpregado = new Horista(name, endereco, String.valueOf(this.id), salarioDouble, tipo);
-            novoEmpregado.setAgendaPagamento("semanal 5");
-            empregados.add(novoEmpregado);
-            aplicarAgendaDefaultSeVazia(novoEmpregado);
-            return novoEmpregado.getId();
-        }
-        else if (tipo.equals("assalariado"))
-        {
-            this.id += 1;
-            Assalariado novoEmpregado = new Assalariado(name, endereco, String.valueOf(this.id), salarioDouble, tipo);
-            novoEmpregado.setAgendaPagamento("mensal $");
-            empregados.add(novoEmpregado);
-            aplicarAgendaDefaultSeVazia(novoEmpregado);
-            return novoEmpregado.getId();
-        }
-        throw new TipoInvalidoException();
+        this.id += 1;
+        Empregado novoEmpregado = novoEmpregado(this.id, name, endereco, tipo, salarioDouble, 0);
+        empregados.add(novoEmpregado);
+        contagem.adicionar(novoEmpregado);
+        indiceNomes.adicionar(empregados.size() - 1, name);
+        return novoEmpregado.getId();
     }
 
     /**
@@ -203,68 +192,102 @@ public class Sistema
     public String criarEmpregado(String nome, String endereco, String tipo, String salario, String comissao) throws Exception
     {
         checkpoint();
-        if (!tipo.equals("comissionado"))
-        {
-            throw new TipoNaoAplicavelException();
-        }
-        if (nome == null || nome.trim().isEmpty())
-        {
-            throw new NomeNuloException();
-        }
-        if (endereco == null || endereco.trim().isEmpty())
-        {
-            throw new EnderecoNuloException();
-        }
-        if (comissao == null)
-        {
-            throw new TipoNaoAplicavelException();
-        }
-        if (comissao.equals(""))
-        {
-            throw new ComissaoNulaException();
-        }
-        if (salario == null || salario.trim().isEmpty())
-        {
-            throw new SalarioNuloException();
-        }
-
-        salario = salario.replace(",", ".");
-        double salarioDouble;
-        try
-        {
-            salarioDouble = Double.parseDouble(salario);
-        }
-        catch (NumberFormatException e)
-        {
-            throw new SalarioDeveSerNumericoException();
-        }
-        if (salarioDouble < 0)
-        {
-            throw new SalarioNaoNegativoException();
-        }
-
-        comissao = comissao.replace(",", ".");
-        double comissaoDouble;
-        try
-        {
-            comissaoDouble = Double.parseDouble(comissao);
-        }
-        catch (NumberFormatException e)
-        {
-            throw new ComissaoDeveSerNumericaException();
-        }
-        if (comissaoDouble < 0)
-        {
-            throw new ComissaoNaoNegativaException();
-        }
+        validarNovoEmpregado(nome, endereco, tipo, salario, comissao).lancarSeErro();
+        double salarioDouble = ConversorEntrada.decimal(salario);
+        double comissaoDouble = ConversorEntrada.decimal(comissao);
 
         this.id += 1;
-        Comissionado novoEmpregado = new Comissionado(nome, endereco, String.valueOf(this.id), salarioDouble, comissaoDouble, tipo);
-        novoEmpregado.setAgendaPagamento("semanal 2 5");
+        Empregado novoEmpregado = novoEmpregado(this.id, nome, endereco, tipo, salarioDouble, comissaoDouble);
         empregados.add(novoEmpregado);
-        aplicarAgendaDefaultSeVazia(novoEmpregado);
+        contagem.adicionar(novoEmpregado);
+        indiceNomes.adicionar(empregados.size() - 1, nome);
         return novoEmpregado.getId();
     }
+
+    /**
+     * Constrói um empregado já validado, com a agenda padrão do tipo, sem adicioná-lo ao sistema.
+     *
+     * @param id identificador a atribuir
+     * @param nome nome do empregado
+     * @param endereco endereço do empregado
+     * @param tipo {@code "horista"}, {@code "assalariado"} ou {@code "comissionado"}
+     * @param salario salário-hora (horista) ou mensal
+     * @param comissao taxa de comissão (apenas comissionado)
+     * @return o empregado, ou {@code null} se o tipo for desconhecido
+     */
+    Empregado novoEmpregado(int id, String nome, String endereco, String tipo, double salario, double comissao) {
+        Empregado novo;
+        switch (tipo) {
+            case "horista":
+                novo = new Horista(nome, endereco, String.valueOf(id), salario, tipo);
+                break;
+            case "assalariado":
+                novo = new Assalariado(nome, endereco, String.valueOf(id), salario, tipo);
+                break;
+            case "comissionado":
+                novo = new Comissionado(nome, endereco, String.valueOf(id), salario, comissao, tipo);
+                break;
+            default:
+                return null;
+        }
+        aplicarAgendaDefaultSeVazia(novo);
+        return novo;
+    }
+    /**
+     * Valida os dados de um novo horista ou assalariado, sem lançar exceção e sem alterar o estado.
+     *
+     * <p>As regras e a ordem de verificação são as de {@link #criarEmpregado(String, String, String, String)}.</p>
+     *
+     * @param nome nome do empregado
+     * @param endereco endereço do empregado
+     * @param tipo {@code "horista"} ou {@code "assalariado"}
+     * @param salario salário (texto; aceita vírgula ou ponto)
+     * @return {@link CodigoValidacao#OK} ou o código do erro que a criação lançaria
+     */
+    public CodigoValidacao validarNovoEmpregado(String nome, String endereco, String tipo, String salario) {
+        if ("comissionado".equals(tipo)) return CodigoValidacao.TIPO_NAO_APLICAVEL;
+        if (nome == null || nome.trim().isEmpty()) return CodigoValidacao.NOME_NULO;
+        if (endereco == null || endereco.trim().isEmpty()) return CodigoValidacao.ENDERECO_NULO;
+        CodigoValidacao codigo = validarSalario(salario);
+        if (!codigo.isOk()) return codigo;
+        return "horista".equals(tipo) || "assalariado".equals(tipo) ? CodigoValidacao.OK : CodigoValidacao.TIPO_INVALIDO;
+    }
+
+    /**
+     * Valida os dados de um novo comissionado, sem lançar exceção e sem alterar o estado.
+     *
+     * <p>As regras e a ordem de verificação são as de
+     * {@link #criarEmpregado(String, String, String, String, String)}.</p>
+     *
+     * @param nome nome do empregado
+     * @param endereco endereço do empregado
+     * @param tipo deve ser {@code "comissionado"}
+     * @param salario salário base (texto; aceita vírgula ou ponto)
+     * @param comissao taxa de comissão (texto; aceita vírgula ou ponto)
+     * @return {@link CodigoValidacao#OK} ou o código do erro que a criação lançaria
+     */
+    public CodigoValidacao validarNovoEmpregado(String nome, String endereco, String tipo, String salario, String comissao) {
+        if (!"comissionado".equals(tipo)) return CodigoValidacao.TIPO_NAO_APLICAVEL;
+        if (nome == null || nome.trim().isEmpty()) return CodigoValidacao.NOME_NULO;
+        if (endereco == null || endereco.trim().isEmpty()) return CodigoValidacao.ENDERECO_NULO;
+        if (comissao == null) return CodigoValidacao.TIPO_NAO_APLICAVEL;
+        if (comissao.isEmpty()) return CodigoValidacao.COMISSAO_NULA;
+        CodigoValidacao codigo = validarSalario(salario);
+        if (!codigo.isOk()) return codigo;
+        double comissaoDouble = ConversorEntrada.decimal(comissao);
+        if (Double.isNaN(comissaoDouble)) return CodigoValidacao.COMISSAO_DEVE_SER_NUMERICA;
+        if (comissaoDouble < 0) return CodigoValidacao.COMISSAO_NAO_NEGATIVA;
+        return CodigoValidacao.OK;
+    }
+
+    private CodigoValidacao validarSalario(String salario) {
+        if (salario == null || salario.trim().isEmpty()) return CodigoValidacao.SALARIO_NULO;
+        double salarioDouble = ConversorEntrada.decimal(salario);
+        if (Double.isNaN(salarioDouble)) return CodigoValidacao.SALARIO_DEVE_SER_NUMERICO;
+        if (salarioDouble < 0) return CodigoValidacao.SALARIO_NAO_NEGATIVO;
+        return CodigoValidacao.OK;
+    }
+
     /**
      * Remove um empregado existente.
      *
@@ -274,7 +297,10 @@ public class Sistema
     public void removerEmpregado(String id) throws Exception
     {
         Empregado empregado = getEmpregado(id);
-        empregados.remove(empregado);
+        int pos = empregados.indexOf(empregado);
+        empregados.remove(pos);
+        contagem.remover(empregado);
+        indiceNomes.remover(pos, empregado.getName());
     }
 
     /**
@@ -289,32 +315,55 @@ public class Sistema
      */
     public CartaoDePonto lancaCartao(String id, String data, String horas) throws Exception {
         checkpoint();
+        Horista horista = getHoristaParaCartao(id);
+        CartaoDePonto novoCartao = novoCartaoDePonto(data, horas);
+        contagem.remover(horista);
+        horista.addCartaoDePonto(novoCartao);
+        contagem.adicionar(horista);
+        return novoCartao;
+    }
+
+    /**
+     * Resolve o empregado alvo de um cartão de ponto, exigindo que seja horista.
+     *
+     * @param id identificador do empregado
+     * @return o {@link Horista} correspondente
+     * @throws Exception se o empregado não existir ou não for horista
+     */
+    private Horista getHoristaParaCartao(String id) throws Exception {
         Empregado empregado = getEmpregado(id);
         if (!(empregado instanceof Horista)) {
             throw new EmpregadoNaoEhHoristaException();
         }
+        return (Horista) empregado;
+    }
 
-        LocalDate dataLanc;
-        try {
-            dataLanc = parseDateBR(data);
-        } catch (Exception e) {
-            throw new DataInvalidaException();
-        }
-
-        double horasVal;
-        try {
-            horasVal = Double.parseDouble(horas.replace(",", "."));
-        } catch (NumberFormatException e) {
-            throw new HorasDevemSerPositivasException();
-        }
-
-        if (horasVal <= 0) {
-            throw new HorasDevemSerPositivasException();
-        }
+    /**
+     * Valida data e horas e constrói o {@link CartaoDePonto}, sem alterar o estado do sistema.
+     *
+     * @param data data no formato {@code d/M/uuuu}
+     * @param horas quantidade de horas (texto; aceita vírgula/ponto; deve ser positiva)
+     * @return o cartão pronto para ser lançado
+     * @throws Exception se a data for inválida ou as horas não forem numéricas/positivas
+     */
+    private CartaoDePonto novoCartaoDePonto(String data, String horas) throws Exception {
+        validarCartao(data, horas).lancarSeErro();
+        return new CartaoDePonto(parseDateBR(data), ConversorEntrada.decimal(horas));
+    }
 
-        CartaoDePonto novoCartao = new CartaoDePonto(dataLanc, horasVal);
-        ((Horista) empregado).addCartaoDePonto(novoCartao);
-        return novoCartao;
+    /**
+     * Valida data e horas de um cartão de ponto, sem lançar exceção.
+     *
+     * @param data data no formato {@code d/M/uuuu}
+     * @param horas quantidade de horas (texto; aceita vírgula/ponto)
+     * @return {@link CodigoValidacao#OK} ou o código do erro
+     */
+    private CodigoValidacao validarCartao(String data, String horas) {
+        if (ConversorEntrada.epochDay(data) == ConversorEntrada.DATA_INVALIDA) return CodigoValidacao.DATA_INVALIDA;
+        double horasVal = ConversorEntrada.decimal(horas);
+        // NaN também falha na comparação
+        if (!(horasVal > 0)) return CodigoValidacao.HORAS_DEVEM_SER_POSITIVAS;
+        return CodigoValidacao.OK;
     }
 
     /**
@@ -329,31 +378,53 @@ public class Sistema
      */
     public ResultadoDeVenda lancaVenda(String id, String data, String valor) throws Exception {
         checkpoint();
+        Comissionado comissionado = getComissionadoParaVenda(id);
+        ResultadoDeVenda venda = novoResultadoDeVenda(data, valor);
+        comissionado.addVenda(venda);
+        contagem.vendas++;
+        return venda;
+    }
+
+    /**
+     * Resolve o empregado alvo de um resultado de venda, exigindo que seja comissionado.
+     *
+     * @param id identificador do empregado
+     * @return o {@link Comissionado} correspondente
+     * @throws Exception se o empregado não existir ou não for comissionado
+     */
+    private Comissionado getComissionadoParaVenda(String id) throws Exception {
         Empregado empregado = getEmpregado(id);
         if (!(empregado instanceof Comissionado)) {
             throw new EmpregadoNaoEhComissionadoException();
         }
+        return (Comissionado) empregado;
+    }
 
-        LocalDate dataLanc;
-        try {
-            dataLanc = parseDateBR(data);
-        } catch (Exception e) {
-            throw new DataInvalidaException();
-        }
-
-        double valorNum;
-        try {
-            valorNum = Double.parseDouble(valor.replace(",", "."));
-        } catch (NumberFormatException e) {
-            throw new ValorDeveSerPositivoException();
-        }
-        if (valorNum <= 0) {
-            throw new ValorDeveSerPositivoException();
-        }
+    /**
+     * Valida data e valor e constrói o {@link ResultadoDeVenda}, sem alterar o estado do sistema.
+     *
+     * @param data data no formato {@code d/M/uuuu}
+     * @param valor valor da venda (texto; aceita vírgula/ponto; deve ser positivo)
+     * @return a venda pronta para ser lançada
+     * @throws Exception se a data for inválida ou o valor não for numérico/positivo
+     */
+    private ResultadoDeVenda novoResultadoDeVenda(String data, String valor) throws Exception {
+        validarDataEValor(data, valor).lancarSeErro();
+        return new ResultadoDeVenda(parseDateBR(data), ConversorEntrada.decimal(valor));
+    }
 
-        ResultadoDeVenda venda = new ResultadoDeVenda(dataLanc, valorNum);
-        ((Comissionado) empregado).addVenda(venda);
-        return venda;
+    /**
+     * Valida data e valor de uma venda ou taxa de serviço, sem lançar exceção.
+     *
+     * @param data data no formato {@code d/M/uuuu}
+     * @param valor valor (texto; aceita vírgula/ponto)
+     * @return {@link CodigoValidacao#OK} ou o código do erro
+     */
+    private CodigoValidacao validarDataEValor(String data, String valor) {
+        if (ConversorEntrada.epochDay(data) == ConversorEntrada.DATA_INVALIDA) return CodigoValidacao.DATA_INVALIDA;
+        double v = ConversorEntrada.decimal(valor);
+        if (!(v > 0)) return CodigoValidacao.VALOR_DEVE_SER_POSITIVO;
+        return CodigoValidacao.OK;
     }
 
     /**
@@ -385,7 +456,9 @@ public class Sistema
 
         if (atributo.equalsIgnoreCase("nome")) {
             if (valor1 == null || valor1.trim().isEmpty()) throw new NomeNuloException();
+            String nomeAnterior = empregado.getName();
             empregado.setName(valor1);
+            indiceNomes.renomear(empregados.indexOf(empregado), nomeAnterior, valor1);
 
         } else if (atributo.equalsIgnoreCase("endereco")) {
             if (valor1 == null || valor1.trim().isEmpty()) throw new EnderecoNuloException();
@@ -416,11 +489,8 @@ public class Sistema
             }
         } else if (atributo.equalsIgnoreCase("salario")) {
             if (valor1 == null || valor1.trim().isEmpty()) throw new SalarioNuloException();
-            String salarioCorrigido = valor1.replace(",", ".");
-            double novoSalario;
-            try {
-                novoSalario = Double.parseDouble(salarioCorrigido);
-            } catch (NumberFormatException e) {
+            double novoSalario = ConversorEntrada.decimal(valor1);
+            if (Double.isNaN(novoSalario)) {
                 throw new SalarioDeveSerNumericoException();
             }
             if (novoSalario < 0) throw new SalarioNaoNegativoException();
@@ -434,11 +504,8 @@ public class Sistema
         } else if (atributo.equalsIgnoreCase("comissao")) {
             if (!(empregado instanceof Comissionado)) throw new EmpregadoNaoEhComissionadoException();
             if (valor1 == null || valor1.trim().isEmpty()) throw new ComissaoNulaException();
-            String comissaoCorrigida = valor1.replace(",", ".");
-            double novaComissao;
-            try {
-                novaComissao = Double.parseDouble(comissaoCorrigida);
-            } catch (NumberFormatException e) {
+            double novaComissao = ConversorEntrada.decimal(valor1);
+            if (Double.isNaN(novaComissao)) {
                 throw new ComissaoDeveSerNumericaException();
             }
             if (novaComissao < 0) throw new ComissaoNaoNegativaException();
@@ -454,11 +521,8 @@ public class Sistema
                 if (valor2 == null || valor2.isBlank()) throw new IdentificacaoSindicatoNulaException();
                 if (valor3 == null || valor3.isBlank()) throw new TaxaSindicalNulaException();
 
-                String taxaCorrigida = valor3.replace(",", ".");
-                double taxaSindical;
-                try {
-                    taxaSindical = Double.parseDouble(taxaCorrigida);
-                } catch (NumberFormatException e) {
+                double taxaSindical = ConversorEntrada.decimal(valor3);
+                if (Double.isNaN(taxaSindical)) {
                     throw new TaxaSindicalDeveSerNumericaException();
                 }
                 if (taxaSindical < 0) throw new TaxaSindicalNaoNegativaException();
@@ -469,10 +533,17 @@ public class Sistema
                         throw new OutroEmpregadoComMesmoIdSindicatoException();
                     }
                 }
+                if (membrosExternos != null && membrosExternos.test(valor2)) {
+                    throw new OutroEmpregadoComMesmoIdSindicatoException();
+                }
                 MembroSindicato novoMembro = new MembroSindicato(valor2, taxaSindical);
+                contagem.remover(empregado);
                 empregado.setSindicato(novoMembro);
+                contagem.adicionar(empregado);
             } else {
+                contagem.remover(empregado);
                 empregado.setSindicato(null);
+                contagem.adicionar(empregado);
             }
 
         } else if (atributo.equalsIgnoreCase("metodoPagamento")) {
@@ -608,6 +679,9 @@ public class Sistema
      * Busca empregados cujo nome contém o termo informado e retorna o ID do resultado
      * na posição solicitada.
      *
+     * <p>A busca usa o índice de trigramas ({@link IndiceNomes}) e respeita a ordem de cadastro
+     * dos empregados, sem montar a lista completa de resultados.</p>
+     *
      * @param nome termo a procurar (contém)
      * @param indice índice 1-based do resultado desejado
      * @return ID do empregado correspondente
@@ -615,36 +689,62 @@ public class Sistema
      */
     public String getEmpregadoPorNome(String nome, int indice) throws Exception
     {
-        ArrayList<Empregado> encontrados = new ArrayList<>();
-
-        for (Empregado empregado : this.empregados)
+        Empregado encontrado = indiceNomes.buscar(this.empregados, nome, indice);
+        if (encontrado != null)
         {
-            if (empregado.getName().contains(nome))
-            {
-                encontrados.add(empregado);
-            }
+            return encontrado.getId();
         }
 
-        if (indice > 0 && indice <= encontrados.size())
-        {
-            return encontrados.get(indice - 1).getId();
+        throw new NaoHaEmpregadoComEsseNomeException();
+    }
+
+    /**
+     * Lista os IDs dos primeiros empregados, em ordem de cadastro, cujo nome contém o termo; a mesma
+     * busca de {@link #getEmpregadoPorNome(String, int)}, para juntar resultados de vários sistemas.
+     *
+     * @param nome termo a procurar (contém)
+     * @param limite quantidade máxima de IDs
+     * @return IDs encontrados, no máximo {@code limite}
+     */
+    public java.util.List<String> getEmpregadosPorNome(String nome, int limite) {
+        java.util.List<String> ids = new java.util.ArrayList<>();
+        for (Empregado e : indiceNomes.listar(this.empregados, nome, limite)) ids.add(e.getId());
+        return ids;
+    }
+
+    /**
+     * Retorna os IDs de membro do sindicato em uso e o empregado de cada um.
+     *
+     * @return mapa de ID de membro para ID de empregado, em ordem de cadastro
+     */
+    public java.util.Map<String, String> getMembrosSindicato() {
+        java.util.Map<String, String> membros = new java.util.LinkedHashMap<>();
+        for (Empregado e : this.empregados) {
+            if (e.getSindicato() != null) membros.put(e.getSindicato().getIdMembro(), e.getId());
         }
+        return membros;
+    }
 
-        throw new NaoHaEmpregadoComEsseNomeException();
+    /**
+     * Define IDs de membro do sindicato em uso fora deste sistema (ex.: em outras partições de uma
+     * {@code FacadeParticionada}): sindicalizar um empregado com um deles falha como se outro empregado
+     * deste sistema já o usasse.
+     *
+     * @param membros teste dos IDs em uso fora, ou {@code null} para nenhum
+     */
+    public void setMembrosExternos(java.util.function.Predicate<String> membros) {
+        this.membrosExternos = membros;
     }
     /**
      * Converte uma string de data no formato {@code d/M/uuuu} (estrito) em {@link LocalDate}.
      *
      * @param data data no formato brasileiro curto (ex.: {@code "1/12/2025"})
-     * @return a data como {@link LocalDate}
-     * @throws java.time.format.DateTimeParseException se a string não obedecer ao formato estrito
+     * @return a data como {@link LocalDate}, ou {@code null} se a string for nula ou não obedecer ao formato estrito
+     * @see ConversorEntrada#epochDay(CharSequence)
      */
     private java.time.LocalDate parseDateBR(String data)
     {
-        java.time.format.DateTimeFormatter fmt =
-                java.time.format.DateTimeFormatter.ofPattern("d/M/uuuu")
-                        .withResolverStyle(java.time.format.ResolverStyle.STRICT);
-        return java.time.LocalDate.parse(data, fmt);
+        return ConversorEntrada.data(data);
     }
     /**
      * Verifica se {@code d} está dentro do intervalo inclusivo [{@code ini}, {@code fim}].
@@ -710,17 +810,13 @@ public class Sistema
             throw new EmpregadoNaoEhComissionadoException();
         }
 
-        LocalDate ini;
-        try {
-            ini = parseDateBR(dataInicial);
-        } catch (Exception e) {
+        LocalDate ini = parseDateBR(dataInicial);
+        if (ini == null) {
             throw new DataInicialInvalidaException();
         }
 
-        LocalDate fim;
-        try {
-            fim = parseDateBR(dataFinal);
-        } catch (Exception e) {
+        LocalDate fim = parseDateBR(dataFinal);
+        if (fim == null) {
             throw new DataFinalInvalidaException();
         }
 
@@ -756,17 +852,13 @@ public class Sistema
             throw new EmpregadoNaoEhSindicalizadoException();
         }
 
-        LocalDate ini;
-        try {
-            ini = parseDateBR(dataInicial);
-        } catch (Exception e) {
+        LocalDate ini = parseDateBR(dataInicial);
+        if (ini == null) {
             throw new DataInicialInvalidaException();
         }
 
-        LocalDate fim;
-        try {
-            fim = parseDateBR(dataFinal);
-        } catch (Exception e) {
+        LocalDate fim = parseDateBR(dataFinal);
+        if (fim == null) {
             throw new DataFinalInvalidaException();
         }
 
@@ -796,40 +888,282 @@ public class Sistema
      */
     public TaxaServico lancaTaxaServicoPorMembro(String membro, String data, String valor) throws Exception {
         checkpoint();
+        MembroSindicato alvo = getMembroParaTaxa(membro);
+        TaxaServico taxa = novaTaxaServico(data, valor);
+        alvo.addTaxa(taxa);
+        contagem.taxas++;
+        return taxa;
+    }
+
+    /**
+     * Resolve o membro do sindicato alvo de uma taxa de serviço.
+     *
+     * @param membro ID do membro no sindicato
+     * @return o {@link MembroSindicato} correspondente
+     * @throws Exception se o ID for nulo/vazio ou não houver membro com esse ID
+     */
+    private MembroSindicato getMembroParaTaxa(String membro) throws Exception {
         if (membro == null || membro.trim().isEmpty()) {
             throw new IdentificacaoMembroNulaException();
         }
-        Empregado alvo = null;
+        MembroSindicato alvo = localizarMembro(membro);
+        if (alvo == null) {
+            throw new MembroNaoExisteException();
+        }
+        return alvo;
+    }
+
+    private MembroSindicato localizarMembro(String membro) {
         for (Empregado e : this.empregados) {
             if (e.isSindicalizado() && membro.equals(e.getSindicato().getIdMembro())) {
-                alvo = e;
-                break;
+                return e.getSindicato();
             }
         }
-        if (alvo == null) {
-            throw new MembroNaoExisteException();
+        return null;
+    }
+
+    /**
+     * Valida data e valor e constrói a {@link TaxaServico}, sem alterar o estado do sistema.
+     *
+     * @param data data no formato {@code d/M/uuuu}
+     * @param valor valor da taxa (texto; aceita vírgula/ponto; deve ser positivo)
+     * @return a taxa pronta para ser lançada
+     * @throws Exception se a data for inválida ou o valor não for numérico/positivo
+     */
+    private TaxaServico novaTaxaServico(String data, String valor) throws Exception {
+        validarDataEValor(data, valor).lancarSeErro();
+        return new TaxaServico(parseDateBR(data), ConversorEntrada.decimal(valor));
+    }
+
+    /**
+     * Lança um lote de cartões de ponto, vendas e taxas de serviço com um único checkpoint.
+     *
+     * <p>Todas as linhas são validadas antes de qualquer mutação, com as mesmas regras (e mensagens)
+     * de {@link #lancaCartao(String, String, String)}, {@link #lancaVenda(String, String, String)} e
+     * {@link #lancaTaxaServicoPorMembro(String, String, String)}. Em seguida o estado é salvo uma única vez
+     * e os lançamentos válidos são aplicados na ordem do lote. A validação devolve códigos
+     * ({@link CodigoValidacao}) em vez de lançar, então uma linha inválida custa o mesmo que uma válida.</p>
+     *
+     * <ul>
+     *   <li><b>Atômico</b> ({@code parcial = false}): a primeira linha inválida interrompe o lote com a
+     *       exceção correspondente, e nada é aplicado;</li>
+     *   <li><b>Parcial</b> ({@code parcial = true}): as linhas inválidas são registradas no relatório e as
+     *       demais são aplicadas.</li>
+     * </ul>
+     *
+     * @param lancamentos lançamentos a aplicar, na ordem desejada
+     * @param parcial se {@code true}, aplica as linhas válidas e reporta as inválidas
+     * @return relatório com a quantidade de lançamentos aplicados e as falhas por linha
+     * @throws Exception no modo atômico, se alguma linha for inválida
+     */
+    public RelatorioLote lancaLote(java.util.Collection<Lancamento> lancamentos, boolean parcial) throws Exception {
+        return lancaLote(lancamentos, parcial, true);
+    }
+
+    /**
+     * Variante de {@link #lancaLote(java.util.Collection, boolean)} sem checkpoint: o lote não pode ser
+     * desfeito pelo histórico do sistema. Serve a quem aplica lotes em sequência sem desfazê-los e
+     * descarta o histórico, evitando copiar o estado a cada lote.
+     *
+     * @param lancamentos lançamentos a aplicar, na ordem desejada
+     * @param parcial se {@code true}, aplica as linhas válidas e reporta as inválidas
+     * @return relatório com a quantidade de lançamentos aplicados e as falhas por linha
+     * @throws Exception no modo atômico, se alguma linha for inválida
+     */
+    public RelatorioLote lancaLoteSemCheckpoint(java.util.Collection<Lancamento> lancamentos, boolean parcial)
+            throws Exception {
+        return lancaLote(lancamentos, parcial, false);
+    }
+
+    private RelatorioLote lancaLote(java.util.Collection<Lancamento> lancamentos, boolean parcial, boolean salvar)
+            throws Exception {
+        java.util.List<Runnable> aplicacoes = new ArrayList<>(lancamentos.size());
+        RelatorioLote relatorio = new RelatorioLote();
+        int linha = 0;
+        for (Lancamento l : lancamentos) {
+            linha++;
+            Preparo preparo = prepararLancamento(l);
+            if (preparo.codigo().isOk()) {
+                aplicacoes.add(preparo.aplicacao());
+            } else {
+                if (!parcial) throw preparo.codigo().excecao();
+                relatorio.registrarFalha(linha, l, preparo.codigo());
+            }
         }
-        LocalDate dt;
-        try {
-            dt = parseDateBR(data);
-        } catch (Exception e) {
-            throw new DataInvalidaException();
+
+        if (salvar) checkpoint();
+        for (Runnable aplicacao : aplicacoes) {
+            aplicacao.run();
         }
-        double v;
-        try {
-            v = Double.parseDouble(valor.replace(",", "."));
-        } catch (Exception e) {
-            throw new ValorDeveSerPositivoException();
+        relatorio.setAplicados(aplicacoes.size());
+        return relatorio;
+    }
+
+    /**
+     * Valida um lançamento sem lançar exceção e sem alterar o estado do sistema.
+     *
+     * <p>O código devolvido corresponde à exceção que a chamada individual
+     * ({@link #lancaCartao(String, String, String)}, {@link #lancaVenda(String, String, String)} ou
+     * {@link #lancaTaxaServicoPorMembro(String, String, String)}) lançaria para os mesmos dados.</p>
+     *
+     * @param l lançamento a validar
+     * @return {@link CodigoValidacao#OK} ou o código do primeiro erro
+     */
+    public CodigoValidacao validarLancamento(Lancamento l) {
+        return prepararLancamento(l).codigo();
+    }
+
+    /** Lançamento validado: a ação que o aplica, ou o código do erro. */
+    private record Preparo(CodigoValidacao codigo, Runnable aplicacao) {
+        static Preparo falha(CodigoValidacao codigo) {
+            return new Preparo(codigo, null);
         }
-        if (v <= 0) {
-            throw new ValorDeveSerPositivoException();
+    }
+
+    /**
+     * Valida um lançamento do lote e prepara a ação que o aplica, sem alterar o estado do sistema.
+     *
+     * @param l lançamento a validar
+     * @return a ação que aplica o lançamento ao empregado/membro alvo, ou o código do erro
+     */
+    private Preparo prepararLancamento(Lancamento l) {
+        switch (l.getTipo()) {
+            case CARTAO: {
+                Empregado e = localizarEmpregado(l.getAlvo());
+                CodigoValidacao codigo = validarEmpregado(l.getAlvo(), e);
+                if (codigo.isOk() && !(e instanceof Horista)) codigo = CodigoValidacao.EMPREGADO_NAO_EH_HORISTA;
+                if (codigo.isOk()) codigo = validarCartao(l.getData(), l.getValor());
+                if (!codigo.isOk()) return Preparo.falha(codigo);
+                Horista h = (Horista) e;
+                CartaoDePonto c = new CartaoDePonto(parseDateBR(l.getData()), ConversorEntrada.decimal(l.getValor()));
+                return new Preparo(codigo, () -> {
+                    contagem.remover(h);
+                    h.addCartaoDePonto(c);
+                    contagem.adicionar(h);
+                });
+            }
+            case VENDA: {
+                Empregado e = localizarEmpregado(l.getAlvo());
+                CodigoValidacao codigo = validarEmpregado(l.getAlvo(), e);
+                if (codigo.isOk() && !(e instanceof Comissionado)) codigo = CodigoValidacao.EMPREGADO_NAO_EH_COMISSIONADO;
+                if (codigo.isOk()) codigo = validarDataEValor(l.getData(), l.getValor());
+                if (!codigo.isOk()) return Preparo.falha(codigo);
+                Comissionado c = (Comissionado) e;
+                ResultadoDeVenda v = new ResultadoDeVenda(parseDateBR(l.getData()), ConversorEntrada.decimal(l.getValor()));
+                return new Preparo(codigo, () -> {
+                    c.addVenda(v);
+                    contagem.vendas++;
+                });
+            }
+            case TAXA_SERVICO: {
+                String membro = l.getAlvo();
+                if (membro == null || membro.trim().isEmpty()) return Preparo.falha(CodigoValidacao.IDENTIFICACAO_MEMBRO_NULA);
+                MembroSindicato m = localizarMembro(membro);
+                if (m == null) return Preparo.falha(CodigoValidacao.MEMBRO_NAO_EXISTE);
+                CodigoValidacao codigo = validarDataEValor(l.getData(), l.getValor());
+                if (!codigo.isOk()) return Preparo.falha(codigo);
+                TaxaServico t = new TaxaServico(parseDateBR(l.getData()), ConversorEntrada.decimal(l.getValor()));
+                return new Preparo(codigo, () -> {
+                    m.addTaxa(t);
+                    contagem.taxas++;
+                });
+            }
+            default:
+                throw new IllegalArgumentException("Tipo de lancamento desconhecido: " + l.getTipo());
         }
+    }
+    /**
+     * Importa empregados de um arquivo CSV com uma única entrada no histórico.
+     *
+     * <p>O formato das colunas e as regras de validação estão descritos em {@link ImportadorEmpregados}.
+     * O arquivo é lido em blocos; cada bloco é validado em paralelo, os IDs são atribuídos na ordem do
+     * arquivo e, ao final, todos os empregados aceitos são adicionados após um único checkpoint.</p>
+     *
+     * <ul>
+     *   <li><b>Atômico</b> ({@code parcial = false}): a primeira linha inválida interrompe a importação com a
+     *       exceção que {@code criarEmpregado}/{@code alteraEmpregado} lançaria, e nada é adicionado;</li>
+     *   <li><b>Parcial</b> ({@code parcial = true}): as linhas inválidas são registradas no relatório e as
+     *       demais são importadas.</li>
+     * </ul>
+     *
+     * @param arquivo caminho do CSV
+     * @param parcial se {@code true}, importa as linhas válidas e reporta as inválidas
+     * @return relatório com a quantidade importada, a faixa de IDs e as falhas por linha
+     * @throws Exception se o arquivo não puder ser lido ou, no modo atômico, se alguma linha for inválida
+     */
+    public RelatorioImportacao importarEmpregados(java.nio.file.Path arquivo, boolean parcial) throws Exception {
+        return new ImportadorEmpregados(this, parcial).importar(arquivo);
+    }
+
+    /**
+     * Ingere um arquivo de cartões de ponto ({@code id;data;horas}) ou de vendas ({@code id;data;valor})
+     * com uma única entrada no histórico.
+     *
+     * <p>O arquivo é lido, validado e aplicado em estágios sobrepostos, sem busca linear por linha nem
+     * checkpoint por linha; os detalhes estão em {@link IngestorLancamentos}. As regras de validação (e as
+     * mensagens) são as de {@link #lancaCartao(String, String, String)} e
+     * {@link #lancaVenda(String, String, String)}.</p>
+     *
+     * <ul>
+     *   <li><b>Atômico</b> ({@code parcial = false}): a primeira linha inválida interrompe a ingestão com a
+     *       exceção correspondente, e o estado anterior é restaurado;</li>
+     *   <li><b>Parcial</b> ({@code parcial = true}): as linhas inválidas são registradas no relatório
+     *       (número, motivo e texto) e as demais são aplicadas.</li>
+     * </ul>
+     *
+     * @param arquivo caminho do arquivo
+     * @param tipo {@link Lancamento.Tipo#CARTAO} ou {@link Lancamento.Tipo#VENDA}
+     * @param parcial se {@code true}, aplica as linhas válidas e reporta as inválidas
+     * @param progresso notificado após cada bloco aplicado (pode ser {@code null})
+     * @return relatório com as linhas lidas, os lançamentos aplicados e as falhas
+     * @throws Exception se o arquivo não puder ser lido ou, no modo atômico, se alguma linha for inválida
+     */
+    public RelatorioIngestao ingerirLancamentos(java.nio.file.Path arquivo, Lancamento.Tipo tipo, boolean parcial,
+                                                RelatorioIngestao.Progresso progresso) throws Exception {
+        return new IngestorLancamentos(this, tipo, parcial, progresso).ingerir(arquivo);
+    }
 
-        TaxaServico taxa = new TaxaServico(dt, v);
-        alvo.getSindicato().addTaxa(taxa);
+    /**
+     * Cria o checkpoint de uma operação em lote que aplica as alterações aos poucos.
+     */
+    void checkpointDeLote() {
+        checkpoint();
+    }
 
-        return taxa;
+    /**
+     * Restaura o estado salvo por {@link #checkpointDeLote()} e descarta esse checkpoint.
+     */
+    void reverterCheckpointDeLote() {
+        restore(desempilhar(undoStack));
+    }
+
+    /**
+     * Indica se uma agenda de pagamento está cadastrada.
+     *
+     * @param agenda descrição da agenda
+     * @return {@code true} se a agenda puder ser atribuída a um empregado
+     */
+    boolean isAgendaDisponivel(String agenda) {
+        return agendasDisponiveis.contains(agenda);
     }
+
+    /**
+     * Adiciona empregados já validados e com IDs atribuídos, com um único checkpoint.
+     *
+     * @param novos empregados, em ordem crescente de ID
+     * @param ultimoId maior ID atribuído (novo valor do contador)
+     */
+    void adicionarImportados(java.util.List<Empregado> novos, int ultimoId) {
+        checkpoint();
+        empregados.ensureCapacity(empregados.size() + novos.size());
+        for (Empregado e : novos) {
+            empregados.add(e);
+            contagem.adicionar(e);
+            indiceNomes.adicionar(empregados.size() - 1, e.getName());
+        }
+        this.id = ultimoId;
+    }
+
     /**
      * Converte o empregado para o tipo horista, validando e aplicando o novo salário-hora.
      *
@@ -847,12 +1181,8 @@ public class Sistema
         {
             throw new SalarioNuloException();
         }
-        double v;
-        try
-        {
-            v = Double.parseDouble(salario.replace(",", "."));
-        }
-        catch (NumberFormatException e)
+        double v = ConversorEntrada.decimal(salario);
+        if (Double.isNaN(v))
         {
             throw new SalarioDeveSerNumericoException();
         }
@@ -883,12 +1213,8 @@ public class Sistema
         {
             throw new SalarioNuloException();
         }
-        double v;
-        try
-        {
-            v = Double.parseDouble(salario.replace(",", "."));
-        }
-        catch (NumberFormatException e)
+        double v = ConversorEntrada.decimal(salario);
+        if (Double.isNaN(v))
         {
             throw new SalarioDeveSerNumericoException();
         }
@@ -920,10 +1246,8 @@ public class Sistema
         if (comissao == null || comissao.trim().isEmpty()) {
             throw new ComissaoNulaException();
         }
-        double c;
-        try {
-            c = Double.parseDouble(comissao.replace(",", "."));
-        } catch (NumberFormatException e) {
+        double c = ConversorEntrada.decimal(comissao);
+        if (Double.isNaN(c)) {
             throw new ComissaoDeveSerNumericaException();
         }
         if (c < 0) {
@@ -958,7 +1282,8 @@ public class Sistema
     public void substituirEmpregado(Empregado antigo, Empregado novo) {
         for (int i = 0; i < empregados.size(); i++) {
             if (empregados.get(i).getId().equals(antigo.getId())) {
-                empregados.set(i, novo);
+                contagem.remover(empregados.set(i, novo));
+                contagem.adicionar(novo);
                 break;
             }
         }
@@ -1046,23 +1371,44 @@ public class Sistema
      * @throws Exception se a data for inválida
      */
     public String totalFolha(String data) throws Exception {
-        LocalDate dia;
-        try { dia = parseDateBR(data); } catch (Exception e) { throw new DataInvalidaException(); }
+        LocalDate dia = parseDateBR(data);
+        if (dia == null) throw new DataInvalidaException();
+
+        FolhaSombra sombra = motorSombra == null ? null : FolhaSombra.iniciar(motorSombra, this, "totalFolha", data, dia);
+        long inicio = System.nanoTime();
+        boolean porAgenda = haAgendaCustomizada();
+        BigDecimal totalBruto = porAgenda ? calcularTotalFolhaPorAgenda(dia) : calcularTotalFolhaPadrao(dia, calculoReferencia());
+        if (sombra != null) ultimaComparacaoSombra = sombra.compararTotal(totalBruto, System.nanoTime() - inicio);
 
-        if (haAgendaCustomizada()) {
-            java.math.BigDecimal totalAgenda = calcularTotalFolhaPorAgenda(dia);
-            return totalAgenda.setScale(2, java.math.RoundingMode.HALF_UP)
+        if (porAgenda) {
+            return totalBruto.setScale(2, java.math.RoundingMode.HALF_UP)
                     .toPlainString()
                     .replace('.', ',');
         }
+        return String.format(java.util.Locale.FRANCE, "%.2f", totalBruto);
+    }
+
+    /**
+     * Calcula o total bruto da folha de uma data, como {@link #totalFolha(String)}, com os brutos dos
+     * horistas dados por {@code calculo} quando não há agendas personalizadas.
+     *
+     * @param dia data de referência
+     * @param calculo cálculo das horas e brutos dos horistas
+     * @return total bruto, sem arredondamento final
+     */
+    BigDecimal calcularTotalFolha(LocalDate dia, CalculoHoristas calculo) {
+        return haAgendaCustomizada() ? calcularTotalFolhaPorAgenda(dia) : calcularTotalFolhaPadrao(dia, calculo);
+    }
 
+    /** Total bruto da folha pelas agendas padrão de cada tipo. */
+    private BigDecimal calcularTotalFolhaPadrao(LocalDate dia, CalculoHoristas calculo) {
         BigDecimal totalBruto = BigDecimal.ZERO;
 
         if (isFriday(dia)) {
             LocalDate ini = weeklyStart(dia);
             for (Empregado emp : this.empregados) {
                 if (!"horista".equals(emp.getTipo())) continue;
-                BigDecimal bruto = calcularBrutoHorista((Horista) emp, ini, dia);
+                BigDecimal bruto = calculo.bruto((Horista) emp, ini, dia);
                 totalBruto = totalBruto.add(bruto.setScale(2, java.math.RoundingMode.HALF_UP));
             }
         }
@@ -1091,7 +1437,7 @@ public class Sistema
             }
         }
 
-        return String.format(java.util.Locale.FRANCE, "%.2f", totalBruto);
+        return totalBruto;
     }
 
     /**
@@ -1101,260 +1447,372 @@ public class Sistema
      * @param saida caminho/arquivo de saída a ser escrito (não nulo/vazio)
      * @throws Exception se a saída for inválida; se a data for inválida; ou se ocorrer erro de escrita
      */
-    private static final String HEADER_SEP = "====================================";
-    private static final String FOOTER_SEP  = "===============================================================================================================================";
-
-    private static final String SECTION_SEP = "===============================================================================================================================";
-    private static final String SECTION_HORISTAS = "===================== HORISTAS ================================================================================================";
-    private static final String SECTION_COMISSIONADOS = "===================== COMISSIONADOS ===========================================================================================";
-    private static final String SECTION_ASSALARIADOS = "===================== ASSALARIADOS ============================================================================================";
-
     public void rodaFolha(String data, String saida) throws Exception {
+        FolhaEvento folha = new FolhaEvento();
+        folha.begin();
         if (saida == null || saida.trim().isEmpty()) throw new ArquivoDeSaidaInvalidoException();
 
-        LocalDate dia;
-        try { dia = parseDateBR(data); } catch (Exception e) { throw new DataInvalidaException(); }
+        LocalDate dia = parseDateBR(data);
+        if (dia == null) throw new DataInvalidaException();
 
-        // estruturas de linha
-        class LH { String nome, metodo; BigDecimal hN=BigDecimal.ZERO,hX=BigDecimal.ZERO,br=BigDecimal.ZERO,ds=BigDecimal.ZERO,liq=BigDecimal.ZERO; }
-        class LC { String nome, metodo; BigDecimal fixo=BigDecimal.ZERO,vendas=BigDecimal.ZERO,com=BigDecimal.ZERO,br=BigDecimal.ZERO,ds=BigDecimal.ZERO,liq=BigDecimal.ZERO; }
-        class LA { String nome, metodo; BigDecimal br=BigDecimal.ZERO,ds=BigDecimal.ZERO,liq=BigDecimal.ZERO; }
+        FolhaSombra sombra = motorSombra == null ? null : FolhaSombra.iniciar(motorSombra, this, "rodaFolha", data, dia);
+        long inicio = System.nanoTime();
+        FolhaCalculada calculada = calcularFolha(dia, data, calculoReferencia());
+        long nanosReferencia = System.nanoTime() - inicio;
 
-        java.util.List<LH> hor = new java.util.ArrayList<>();
-        java.util.List<LC> com = new java.util.ArrayList<>();
-        java.util.List<LA> ass = new java.util.ArrayList<>();
+        int bytes = gravarFolha(calculada, data, saida);
+        if (sombra != null) ultimaComparacaoSombra = sombra.compararFolha(calculada, nanosReferencia);
 
-        BigDecimal totalBrutoGeral = BigDecimal.ZERO;
+        atualizarPosPagamento(dia, data);
 
-        // ================= HORISTAS (sexta) =================
-        BigDecimal tHn=BigDecimal.ZERO, tHx=BigDecimal.ZERO, tHbr=BigDecimal.ZERO, tHds=BigDecimal.ZERO, tHliq=BigDecimal.ZERO;
-        if (isFriday(dia)) {
-            LocalDate ini = weeklyStart(dia);
-            for (Empregado e : this.empregados) {
-                if (!"horista".equals(e.getTipo())) continue;
-                Horista h = (Horista) e;
+        folha.end();
+        if (folha.shouldCommit()) {
+            folha.data = data;
+            folha.saida = saida;
+            folha.empregados = this.empregados.size();
+            folha.pagos = calculada.getPagos();
+            folha.bytes = bytes;
+            folha.commit();
+        }
+    }
 
-                BigDecimal n = BigDecimal.ZERO, x = BigDecimal.ZERO;
-                for (CartaoDePonto c : h.getListaCartoes()) {
-                    LocalDate d = c.getData();
-                    if (!d.isBefore(ini) && !d.isAfter(dia)) {
-                        double horas = c.getHoras();
-                        n = n.add(BigDecimal.valueOf(Math.min(8.0, horas)));
-                        x = x.add(BigDecimal.valueOf(Math.max(0.0, horas - 8.0)));
-                    }
-                }
-                BigDecimal salH = BigDecimal.valueOf(h.getSalarioHora());
-                BigDecimal bruto = n.multiply(salH).add(x.multiply(salH.multiply(BigDecimal.valueOf(1.5))));
-                BigDecimal descontos = BigDecimal.ZERO;
+    /**
+     * Grava o arquivo de uma folha já calculada, como {@link #rodaFolha(String, String)}, sem tocar no
+     * estado. Usado quando a folha é calculada sobre uma cópia do estado e o pagamento é registrado
+     * depois ({@link #pagarFolha(String)}).
+     *
+     * @param calculada folha calculada ({@link #calcularFolha(String)})
+     * @param data data de referência, para os eventos das fases
+     * @param saida caminho/arquivo de saída
+     * @return tamanho do arquivo, em bytes
+     * @throws ErroAoEscreverArquivoDeSaidaException se ocorrer erro de escrita
+     */
+    public static int gravarFolha(FolhaCalculada calculada, String data, String saida)
+            throws ErroAoEscreverArquivoDeSaidaException {
+        int pagos = calculada.getPagos();
+        FaseFolhaEvento formatacao = FaseFolhaEvento.iniciar(data, "folha", "formatacao");
+        byte[] conteudo = calculada.formatar().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        formatacao.concluir(pagos, conteudo.length);
+
+        FaseFolhaEvento escrita = FaseFolhaEvento.iniciar(data, "folha", "escrita");
+        java.nio.file.Path path = java.nio.file.Paths.get(saida);
+        try {
+            java.nio.file.Files.write(path, conteudo);
+        } catch (java.io.IOException e) {
+            throw new ErroAoEscreverArquivoDeSaidaException(e);
+        }
+        escrita.concluir(pagos, conteudo.length);
+        return conteudo.length;
+    }
 
-                if (e.isSindicalizado()) {
-                    MembroSindicato s = e.getSindicato();
+    /**
+     * Calcula a folha de uma data sem gravar o arquivo nem atualizar o estado dos empregados: as linhas
+     * que {@link #rodaFolha(String, String)} gravaria. Usado quando a folha é montada a partir de várias
+     * partes (ex.: as partições de uma {@code FacadeParticionada}), seguida de {@link #pagarFolha(String)}.
+     *
+     * @param data data de referência no formato {@code d/M/uuuu}
+     * @return linhas e totais da folha
+     * @throws Exception se a data for inválida
+     */
+    public FolhaCalculada calcularFolha(String data) throws Exception {
+        LocalDate dia = parseDateBR(data);
+        if (dia == null) throw new DataInvalidaException();
+        return calcularFolha(dia, data, calculoReferencia());
+    }
 
-                    if (bruto.compareTo(BigDecimal.ZERO) > 0) {
-                        LocalDate ultimoPago = findUltimoDiaComPagamentoHorista((Horista) e, dia.minusDays(1));
+    /**
+     * Registra o pagamento da folha de uma data, como {@link #rodaFolha(String, String)} faz depois de
+     * gravar o arquivo.
+     *
+     * @param data data de referência no formato {@code d/M/uuuu}
+     * @throws Exception se a data for inválida
+     */
+    public void pagarFolha(String data) throws Exception {
+        LocalDate dia = parseDateBR(data);
+        if (dia == null) throw new DataInvalidaException();
+        atualizarPosPagamento(dia, data);
+    }
 
-                        LocalDate inicioTaxa;
-                        if (ultimoPago != null) {
-                            inicioTaxa = ultimoPago.plusDays(1);
-                        } else {
-                            inicioTaxa = weeklyStart(dia);
-                        }
+    /**
+     * Calcula o total bruto da folha de uma data, sem o arredondamento final de {@link #totalFolha(String)}:
+     * totais de partes do quadro de empregados podem ser somados sem perda. Como {@code totalFolha} escolhe
+     * o cálculo pelas agendas de todo o quadro ({@link #haAgendaCustomizada()}), a escolha é de quem chama,
+     * para que todas as partes usem o mesmo.
+     *
+     * @param data data de referência no formato {@code d/M/uuuu}
+     * @param porAgenda se {@code true}, calcula pela agenda de cada empregado; senão, pelas agendas padrão
+     * @return total bruto
+     * @throws Exception se a data for inválida
+     */
+    public BigDecimal calcularTotalFolha(String data, boolean porAgenda) throws Exception {
+        LocalDate dia = parseDateBR(data);
+        if (dia == null) throw new DataInvalidaException();
+        return porAgenda ? calcularTotalFolhaPorAgenda(dia) : calcularTotalFolhaPadrao(dia, calculoReferencia());
+    }
 
-                        long diasParaCobrar = java.time.temporal.ChronoUnit.DAYS.between(inicioTaxa, dia) + 1;
-                        if (diasParaCobrar < 0) diasParaCobrar = 0;
+    private void atualizarPosPagamento(LocalDate dia, String data) {
+        FaseFolhaEvento atualizacao = FaseFolhaEvento.iniciar(data, "folha", "atualizacao");
+        for (Empregado emp : this.empregados) {
+            atualizarEstadoPosPagamento(emp, dia);
+        }
+        atualizacao.concluir(this.empregados.size(), 0);
+    }
+    /**
+     * Horas e brutos dos horistas usados pela folha. A referência percorre os cartões de cada horista
+     * ({@link #calculoReferencia()}); um {@link MotorFolha} alternativo pode calculá-los de outra forma
+     * e reaproveitar o restante da folha.
+     */
+    interface CalculoHoristas {
+        /**
+         * Soma as horas normais e extras de cada horista no período, como {@code BigDecimal.valueOf} de
+         * {@code min(8.0, horas)} e {@code max(0.0, horas - 8.0)} por cartão.
+         */
+        void somarHoras(java.util.List<Horista> horistas, LocalDate ini, LocalDate fim,
+                        BigDecimal[] normais, BigDecimal[] extras);
+
+        /** Bruto do horista no período, somado por cartão (como {@code calcularBrutoHorista}). */
+        BigDecimal bruto(Horista h, LocalDate ini, LocalDate fim);
+
+        /** Última sexta, até {@code antesDe}, com bruto semanal positivo (como {@code findUltimoDiaComPagamentoHorista}). */
+        LocalDate ultimaSextaPaga(Horista h, LocalDate antesDe);
+    }
 
-                        BigDecimal taxa = BigDecimal.valueOf(s.getTaxaSindical());
-                        descontos = descontos.add(taxa.multiply(BigDecimal.valueOf(diasParaCobrar)));
-                        for (TaxaServico t : s.getTotalTaxas()) {
-                            LocalDate d = t.getData();
-                            if (!d.isBefore(ini) && !d.isAfter(dia)) {
-                                descontos = descontos.add(BigDecimal.valueOf(t.getValor()));
-                            }
+    /** @return o cálculo de horistas sobre os cartões de cada objeto, usado por {@link #rodaFolha} */
+    CalculoHoristas calculoReferencia() {
+        return new CalculoHoristas() {
+            @Override
+            public void somarHoras(java.util.List<Horista> horistas, LocalDate ini, LocalDate fim,
+                                   BigDecimal[] normais, BigDecimal[] extras) {
+                for (int i = 0; i < horistas.size(); i++) {
+                    BigDecimal n = BigDecimal.ZERO, x = BigDecimal.ZERO;
+                    for (CartaoDePonto c : horistas.get(i).getListaCartoes()) {
+                        LocalDate d = c.getData();
+                        if (!d.isBefore(ini) && !d.isAfter(fim)) {
+                            double horas = c.getHoras();
+                            n = n.add(BigDecimal.valueOf(Math.min(8.0, horas)));
+                            x = x.add(BigDecimal.valueOf(Math.max(0.0, horas - 8.0)));
                         }
-                    } else {
-                        descontos = BigDecimal.ZERO;
                     }
+                    normais[i] = n;
+                    extras[i] = x;
                 }
+            }
+
+            @Override
+            public BigDecimal bruto(Horista h, LocalDate ini, LocalDate fim) {
+                return calcularBrutoHorista(h, ini, fim);
+            }
 
-                BigDecimal liquido = bruto.subtract(descontos);
-                if (liquido.signum() < 0) liquido = BigDecimal.ZERO;
-
-                LH l = new LH();
-                l.nome = e.getName();
-                l.metodo = getMetodoPagamentoString(e);
-                l.hN = n;
-                l.hX = x;
-                l.br = bruto.setScale(2, java.math.RoundingMode.HALF_UP);
-                l.ds = descontos.setScale(2, java.math.RoundingMode.HALF_UP);
-                l.liq = liquido.setScale(2, java.math.RoundingMode.HALF_UP);
-                hor.add(l);
-
-                tHn=tHn.add(n); tHx=tHx.add(x); tHbr=tHbr.add(l.br); tHds=tHds.add(l.ds); tHliq=tHliq.add(l.liq);
-                totalBrutoGeral = totalBrutoGeral.add(l.br);
+            @Override
+            public LocalDate ultimaSextaPaga(Horista h, LocalDate antesDe) {
+                return findUltimoDiaComPagamentoHorista(h, antesDe);
             }
-            hor.sort(java.util.Comparator.comparing(a -> a.nome));
+        };
+    }
+
+    /**
+     * Calcula as linhas da folha de uma data, sem formatá-las nem alterar o estado.
+     *
+     * @param dia data da folha
+     * @param data data como informada, para os eventos JFR
+     * @param calculo cálculo das horas e brutos dos horistas
+     * @return as linhas de cada seção, ordenadas por nome
+     */
+    FolhaCalculada calcularFolha(LocalDate dia, String data, CalculoHoristas calculo) {
+        java.util.List<FolhaCalculada.Linha> hor = isFriday(dia) ? calcularHoristas(dia, data, calculo) : java.util.List.of();
+        java.util.List<FolhaCalculada.Linha> com = isBiweeklyPayday(dia) ? calcularComissionados(dia, data) : java.util.List.of();
+        java.util.List<FolhaCalculada.Linha> ass = isLastWorkingDayOfMonth(dia) ? calcularAssalariados(dia, data) : java.util.List.of();
+        return new FolhaCalculada(dia, hor, com, ass);
+    }
+
+    /** Linhas dos horistas numa sexta-feira: semana de sábado a sexta. */
+    private java.util.List<FolhaCalculada.Linha> calcularHoristas(LocalDate dia, String data, CalculoHoristas calculo) {
+        LocalDate ini = weeklyStart(dia);
+        FaseFolhaEvento fase = FaseFolhaEvento.iniciar(data, "horistas", "selecao");
+        java.util.List<Horista> selecionados = new java.util.ArrayList<>();
+        for (Empregado e : this.empregados) {
+            if ("horista".equals(e.getTipo())) selecionados.add((Horista) e);
         }
+        int k = selecionados.size();
+        fase.concluir(k, 0);
 
-        // ============== COMISSIONADOS (quinzenal) ===========
-        BigDecimal tCf=BigDecimal.ZERO,tCv=BigDecimal.ZERO,tCcom=BigDecimal.ZERO,tCbr=BigDecimal.ZERO,tCds=BigDecimal.ZERO,tCliq=BigDecimal.ZERO;
-        if (isBiweeklyPayday(dia)) {
-            LocalDate ini = biweeklyStart(dia);
-            for (Empregado e : this.empregados) {
-                if (!"comissionado".equals(e.getTipo())) continue;
-                Comissionado c = (Comissionado) e;
+        fase = FaseFolhaEvento.iniciar(data, "horistas", "bruto");
+        BigDecimal[] normais = new BigDecimal[k], extras = new BigDecimal[k], brutos = new BigDecimal[k];
+        calculo.somarHoras(selecionados, ini, dia, normais, extras);
+        for (int i = 0; i < k; i++) {
+            BigDecimal salH = BigDecimal.valueOf(selecionados.get(i).getSalarioHora());
+            brutos[i] = normais[i].multiply(salH).add(extras[i].multiply(salH.multiply(BigDecimal.valueOf(1.5))));
+        }
+        fase.concluir(k, 0);
 
-                BigDecimal fixo = BigDecimal.valueOf(c.getSalarioMensal())
-                        .multiply(BigDecimal.valueOf(12)).divide(BigDecimal.valueOf(26), 2, java.math.RoundingMode.FLOOR);
+        fase = FaseFolhaEvento.iniciar(data, "horistas", "descontos");
+        java.util.List<FolhaCalculada.Linha> hor = new java.util.ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            Horista e = selecionados.get(i);
+            BigDecimal n = normais[i], x = extras[i], bruto = brutos[i];
+            BigDecimal descontos = BigDecimal.ZERO;
 
-                BigDecimal vendas = BigDecimal.ZERO;
-                for (ResultadoDeVenda v : c.getListaVendas()) {
-                    LocalDate d = v.getDate();
-                    if (!d.isBefore(ini) && !d.isAfter(dia)) vendas = vendas.add(BigDecimal.valueOf(v.getValor()));
-                }
-                BigDecimal comissao = vendas.multiply(BigDecimal.valueOf(c.getComissao()))
-                        .setScale(2, java.math.RoundingMode.FLOOR);
+            if (e.isSindicalizado()) {
+                MembroSindicato s = e.getSindicato();
 
-                BigDecimal bruto = fixo.add(comissao);
-                BigDecimal descontos = BigDecimal.ZERO;
+                if (bruto.compareTo(BigDecimal.ZERO) > 0) {
+                    LocalDate ultimoPago = calculo.ultimaSextaPaga(e, dia.minusDays(1));
 
-                if (e.isSindicalizado()) {
-                    long dias = java.time.temporal.ChronoUnit.DAYS.between(ini, dia) + 1;
-                    BigDecimal taxa = BigDecimal.valueOf(e.getSindicato().getTaxaSindical());
-                    descontos = descontos.add(taxa.multiply(BigDecimal.valueOf(dias)));
-                    for (TaxaServico t : e.getSindicato().getTotalTaxas()) {
-                        LocalDate d = t.getData();
-                        if (!d.isBefore(ini) && !d.isAfter(dia)) descontos = descontos.add(BigDecimal.valueOf(t.getValor()));
+                    LocalDate inicioTaxa;
+                    if (ultimoPago != null) {
+                        inicioTaxa = ultimoPago.plusDays(1);
+                    } else {
+                        inicioTaxa = weeklyStart(dia);
                     }
-                    descontos = descontos.setScale(2, java.math.RoundingMode.HALF_UP);
-                }
 
-                BigDecimal liquido = bruto.subtract(descontos);
-                if (liquido.signum() < 0) liquido = BigDecimal.ZERO;
-
-                LC l = new LC();
-                l.nome = e.getName();
-                l.metodo = getMetodoPagamentoString(e);
-                l.fixo = fixo;
-                l.vendas = vendas.setScale(2, java.math.RoundingMode.HALF_UP);
-                l.com = comissao;
-                l.br = bruto.setScale(2, java.math.RoundingMode.HALF_UP);
-                l.ds = descontos.setScale(2, java.math.RoundingMode.HALF_UP);
-                l.liq = liquido.setScale(2, java.math.RoundingMode.HALF_UP);
-                com.add(l);
-
-                tCf=tCf.add(l.fixo); tCv=tCv.add(l.vendas); tCcom=tCcom.add(l.com);
-                tCbr=tCbr.add(l.br); tCds=tCds.add(l.ds); tCliq=tCliq.add(l.liq);
-                totalBrutoGeral = totalBrutoGeral.add(l.br);
-            }
-            com.sort(java.util.Comparator.comparing(a -> a.nome));
-        }
+                    long diasParaCobrar = java.time.temporal.ChronoUnit.DAYS.between(inicioTaxa, dia) + 1;
+                    if (diasParaCobrar < 0) diasParaCobrar = 0;
 
-        // ================= ASSALARIADOS (mês) ===============
-        BigDecimal tAbr=BigDecimal.ZERO,tAds=BigDecimal.ZERO,tAliq=BigDecimal.ZERO;
-        if (isLastWorkingDayOfMonth(dia)) {
-            LocalDate ini = dia.withDayOfMonth(1);
-            for (Empregado e : this.empregados) {
-                if (!"assalariado".equals(e.getTipo())) continue;
-                Assalariado a = (Assalariado) e;
-
-                BigDecimal bruto = BigDecimal.valueOf(a.getSalarioMensal());
-                BigDecimal descontos = BigDecimal.ZERO;
-
-                if (e.isSindicalizado()) {
-                    int diasMes = dia.lengthOfMonth();
-                    BigDecimal taxa = BigDecimal.valueOf(e.getSindicato().getTaxaSindical());
-                    descontos = descontos.add(taxa.multiply(BigDecimal.valueOf(diasMes)));
-                    for (TaxaServico t : e.getSindicato().getTotalTaxas()) {
+                    BigDecimal taxa = BigDecimal.valueOf(s.getTaxaSindical());
+                    descontos = descontos.add(taxa.multiply(BigDecimal.valueOf(diasParaCobrar)));
+                    for (TaxaServico t : s.getTotalTaxas()) {
                         LocalDate d = t.getData();
-                        if (!d.isBefore(ini) && !d.isAfter(dia)) descontos = descontos.add(BigDecimal.valueOf(t.getValor()));
+                        if (!d.isBefore(ini) && !d.isAfter(dia)) {
+                            descontos = descontos.add(BigDecimal.valueOf(t.getValor()));
+                        }
                     }
-                    descontos = descontos.setScale(2, java.math.RoundingMode.HALF_UP);
                 }
+            }
+
+            BigDecimal liquido = bruto.subtract(descontos);
+            if (liquido.signum() < 0) liquido = BigDecimal.ZERO;
 
-                BigDecimal liquido = bruto.subtract(descontos);
-                if (liquido.signum() < 0) liquido = BigDecimal.ZERO;
+            hor.add(new FolhaCalculada.Linha(e.getId(), e.getName(), getMetodoPagamentoString(e), n, x,
+                    BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                    bruto.setScale(2, java.math.RoundingMode.HALF_UP),
+                    descontos.setScale(2, java.math.RoundingMode.HALF_UP),
+                    liquido.setScale(2, java.math.RoundingMode.HALF_UP)));
+        }
+        fase.concluir(k, 0);
 
-                LA l = new LA();
-                l.nome = e.getName();
-                l.metodo = getMetodoPagamentoString(e);
-                l.br = bruto.setScale(2, java.math.RoundingMode.HALF_UP);
-                l.ds = descontos.setScale(2, java.math.RoundingMode.HALF_UP);
-                l.liq = liquido.setScale(2, java.math.RoundingMode.HALF_UP);
-                ass.add(l);
+        fase = FaseFolhaEvento.iniciar(data, "horistas", "ordenacao");
+        hor.sort(java.util.Comparator.comparing(FolhaCalculada.Linha::nome));
+        fase.concluir(k, 0);
+        return hor;
+    }
 
-                tAbr=tAbr.add(l.br); tAds=tAds.add(l.ds); tAliq=tAliq.add(l.liq);
-                totalBrutoGeral = totalBrutoGeral.add(l.br);
+    /** Linhas dos comissionados numa sexta quinzenal: 14 dias terminando na data. */
+    private java.util.List<FolhaCalculada.Linha> calcularComissionados(LocalDate dia, String data) {
+        LocalDate ini = biweeklyStart(dia);
+        FaseFolhaEvento fase = FaseFolhaEvento.iniciar(data, "comissionados", "selecao");
+        java.util.List<Comissionado> selecionados = new java.util.ArrayList<>();
+        for (Empregado e : this.empregados) {
+            if ("comissionado".equals(e.getTipo())) selecionados.add((Comissionado) e);
+        }
+        int k = selecionados.size();
+        fase.concluir(k, 0);
+
+        fase = FaseFolhaEvento.iniciar(data, "comissionados", "bruto");
+        BigDecimal[] fixos = new BigDecimal[k], totaisVendas = new BigDecimal[k], comissoes = new BigDecimal[k];
+        for (int i = 0; i < k; i++) {
+            Comissionado c = selecionados.get(i);
+            fixos[i] = BigDecimal.valueOf(c.getSalarioMensal())
+                    .multiply(BigDecimal.valueOf(12)).divide(BigDecimal.valueOf(26), 2, java.math.RoundingMode.FLOOR);
+
+            BigDecimal vendas = BigDecimal.ZERO;
+            for (ResultadoDeVenda v : c.getListaVendas()) {
+                LocalDate d = v.getDate();
+                if (!d.isBefore(ini) && !d.isAfter(dia)) vendas = vendas.add(BigDecimal.valueOf(v.getValor()));
+            }
+            totaisVendas[i] = vendas;
+            comissoes[i] = vendas.multiply(BigDecimal.valueOf(c.getComissao()))
+                    .setScale(2, java.math.RoundingMode.FLOOR);
+        }
+        fase.concluir(k, 0);
+
+        fase = FaseFolhaEvento.iniciar(data, "comissionados", "descontos");
+        java.util.List<FolhaCalculada.Linha> com = new java.util.ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            Comissionado e = selecionados.get(i);
+            BigDecimal fixo = fixos[i], vendas = totaisVendas[i], comissao = comissoes[i];
+            BigDecimal bruto = fixo.add(comissao);
+            BigDecimal descontos = BigDecimal.ZERO;
+
+            if (e.isSindicalizado()) {
+                long dias = java.time.temporal.ChronoUnit.DAYS.between(ini, dia) + 1;
+                BigDecimal taxa = BigDecimal.valueOf(e.getSindicato().getTaxaSindical());
+                descontos = descontos.add(taxa.multiply(BigDecimal.valueOf(dias)));
+                for (TaxaServico t : e.getSindicato().getTotalTaxas()) {
+                    LocalDate d = t.getData();
+                    if (!d.isBefore(ini) && !d.isAfter(dia)) descontos = descontos.add(BigDecimal.valueOf(t.getValor()));
+                }
+                descontos = descontos.setScale(2, java.math.RoundingMode.HALF_UP);
             }
-            ass.sort(java.util.Comparator.comparing(a -> a.nome));
-        }
-
-        // ================== Monta arquivo ===================
-        String ln = System.lineSeparator();
-        StringBuilder sb = new StringBuilder();
-        sb.append("FOLHA DE PAGAMENTO DO DIA ").append(dia.toString()).append(ln);
-        sb.append(HEADER_SEP).append(ln);
-        sb.append(ln);
-
-        sb.append(SECTION_SEP).append(ln);
-        sb.append(SECTION_HORISTAS).append(ln);
-        sb.append(SECTION_SEP).append(ln);
-        sb.append("Nome                                 Horas Extra Salario Bruto Descontos Salario Liquido Metodo").append(ln);
-        sb.append("==================================== ===== ===== ============= ========= =============== ======================================").append(ln);
-        for (LH r : hor) {
-            sb.append(String.format(java.util.Locale.FRANCE,
-                    "%-36s %5.0f %5.0f %13.2f %9.2f %15.2f %s",
-                    r.nome, r.hN, r.hX, r.br, r.ds, r.liq, r.metodo)).append(ln);
-        }
-        sb.append(ln);
-        sb.append(String.format(java.util.Locale.FRANCE,
-                "TOTAL HORISTAS %27.0f %5.0f %13.2f %9.2f %15.2f",
-                tHn, tHx, tHbr, tHds, tHliq)).append(ln);
-        sb.append(ln);
-
-        sb.append(SECTION_SEP).append(ln);
-        sb.append(SECTION_ASSALARIADOS).append(ln);
-        sb.append(SECTION_SEP).append(ln);
-        sb.append("Nome                                             Salario Bruto Descontos Salario Liquido Metodo").append(ln);
-        sb.append("================================================ ============= ========= =============== ======================================").append(ln);
-        for (LA r : ass) {
-            sb.append(String.format(java.util.Locale.FRANCE,
-                    "%-48s %13.2f %9.2f %15.2f %s",
-                    r.nome, r.br, r.ds, r.liq, r.metodo)).append(ln);
-        }
-        sb.append(ln);
-        sb.append(String.format(java.util.Locale.FRANCE,
-                "TOTAL ASSALARIADOS %43.2f %9.2f %15.2f",
-                tAbr, tAds, tAliq)).append(ln);
-        sb.append(ln);
-
-        sb.append(SECTION_SEP).append(ln);
-        sb.append(SECTION_COMISSIONADOS).append(ln);
-        sb.append(SECTION_SEP).append(ln);
-        sb.append("Nome                  Fixo     Vendas   Comissao Salario Bruto Descontos Salario Liquido Metodo").append(ln);
-        sb.append("===================== ======== ======== ======== ============= ========= =============== ======================================").append(ln);
-        for (LC r : com) {
-            sb.append(String.format(java.util.Locale.FRANCE,
-                    "%-21s %8.2f %8.2f %8.2f %13.2f %9.2f %15.2f %s",
-                    r.nome, r.fixo, r.vendas, r.com, r.br, r.ds, r.liq, r.metodo)).append(ln);
-        }
-        sb.append(ln);
-        sb.append(String.format(java.util.Locale.FRANCE,
-                "TOTAL COMISSIONADOS %10.2f %8.2f %8.2f %13.2f %9.2f %15.2f",
-                tCf, tCv, tCcom, tCbr, tCds, tCliq)).append(ln);
-        sb.append(ln);
-
-        sb.append("TOTAL FOLHA: ").append(String.format(java.util.Locale.FRANCE, "%.2f", totalBrutoGeral)).append(ln);
 
-        java.nio.file.Path path = java.nio.file.Paths.get(saida);
-        try {
-            java.nio.file.Files.write(path, sb.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8));
-        } catch (java.io.IOException e) {
-            throw new ErroAoEscreverArquivoDeSaidaException(e);
+            BigDecimal liquido = bruto.subtract(descontos);
+            if (liquido.signum() < 0) liquido = BigDecimal.ZERO;
+
+            com.add(new FolhaCalculada.Linha(e.getId(), e.getName(), getMetodoPagamentoString(e),
+                    BigDecimal.ZERO, BigDecimal.ZERO,
+                    fixo, vendas.setScale(2, java.math.RoundingMode.HALF_UP), comissao,
+                    bruto.setScale(2, java.math.RoundingMode.HALF_UP),
+                    descontos.setScale(2, java.math.RoundingMode.HALF_UP),
+                    liquido.setScale(2, java.math.RoundingMode.HALF_UP)));
         }
-        for (Empregado emp : this.empregados) {
-            atualizarEstadoPosPagamento(emp, dia);
+        fase.concluir(k, 0);
+
+        fase = FaseFolhaEvento.iniciar(data, "comissionados", "ordenacao");
+        com.sort(java.util.Comparator.comparing(FolhaCalculada.Linha::nome));
+        fase.concluir(k, 0);
+        return com;
+    }
+
+    /** Linhas dos assalariados no último dia útil do mês. */
+    private java.util.List<FolhaCalculada.Linha> calcularAssalariados(LocalDate dia, String data) {
+        LocalDate ini = dia.withDayOfMonth(1);
+        FaseFolhaEvento fase = FaseFolhaEvento.iniciar(data, "assalariados", "selecao");
+        java.util.List<Assalariado> selecionados = new java.util.ArrayList<>();
+        for (Empregado e : this.empregados) {
+            if ("assalariado".equals(e.getTipo())) selecionados.add((Assalariado) e);
+        }
+        int k = selecionados.size();
+        fase.concluir(k, 0);
+
+        fase = FaseFolhaEvento.iniciar(data, "assalariados", "bruto");
+        BigDecimal[] brutos = new BigDecimal[k];
+        for (int i = 0; i < k; i++) brutos[i] = BigDecimal.valueOf(selecionados.get(i).getSalarioMensal());
+        fase.concluir(k, 0);
+
+        fase = FaseFolhaEvento.iniciar(data, "assalariados", "descontos");
+        java.util.List<FolhaCalculada.Linha> ass = new java.util.ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            Assalariado e = selecionados.get(i);
+            BigDecimal bruto = brutos[i];
+            BigDecimal descontos = BigDecimal.ZERO;
+
+            if (e.isSindicalizado()) {
+                int diasMes = dia.lengthOfMonth();
+                BigDecimal taxa = BigDecimal.valueOf(e.getSindicato().getTaxaSindical());
+                descontos = descontos.add(taxa.multiply(BigDecimal.valueOf(diasMes)));
+                for (TaxaServico t : e.getSindicato().getTotalTaxas()) {
+                    LocalDate d = t.getData();
+                    if (!d.isBefore(ini) && !d.isAfter(dia)) descontos = descontos.add(BigDecimal.valueOf(t.getValor()));
+                }
+                descontos = descontos.setScale(2, java.math.RoundingMode.HALF_UP);
+            }
+
+            BigDecimal liquido = bruto.subtract(descontos);
+            if (liquido.signum() < 0) liquido = BigDecimal.ZERO;
+
+            ass.add(new FolhaCalculada.Linha(e.getId(), e.getName(), getMetodoPagamentoString(e),
+                    BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                    bruto.setScale(2, java.math.RoundingMode.HALF_UP),
+                    descontos.setScale(2, java.math.RoundingMode.HALF_UP),
+                    liquido.setScale(2, java.math.RoundingMode.HALF_UP)));
         }
+        fase.concluir(k, 0);
+
+        fase = FaseFolhaEvento.iniciar(data, "assalariados", "ordenacao");
+        ass.sort(java.util.Comparator.comparing(FolhaCalculada.Linha::nome));
+        fase.concluir(k, 0);
+        return ass;
     }
+
     /**
      * Gera a representação textual do método de pagamento para exibição em relatórios.
      *
@@ -1389,6 +1847,14 @@ public class Sistema
      */
     public int getId() { return id; }
 
+    /**
+     * Define o último ID emitido: o próximo empregado criado recebe {@code ultimoId + 1}. Usado quando
+     * os IDs são atribuídos fora deste sistema (ex.: pelo coordenador de uma {@code FacadeParticionada}).
+     *
+     * @param ultimoId novo valor do contador de IDs
+     */
+    public void setId(int ultimoId) { this.id = ultimoId; }
+
     /**
      * Verifica se a data informada é uma sexta-feira.
      *
@@ -1414,17 +1880,13 @@ public class Sistema
             throw new EmpregadoNaoEhHoristaException();
         }
 
-        LocalDate ini;
-        try {
-            ini = parseDateBR(dataInicial);
-        } catch (Exception e) {
+        LocalDate ini = parseDateBR(dataInicial);
+        if (ini == null) {
             throw new DataInicialInvalidaException();
         }
 
-        LocalDate fim;
-        try {
-            fim = parseDateBR(dataFinal);
-        } catch (Exception e) {
+        LocalDate fim = parseDateBR(dataFinal);
+        if (fim == null) {
             throw new DataFinalInvalidaException();
         }
 
@@ -1458,17 +1920,13 @@ public class Sistema
             throw new EmpregadoNaoEhHoristaException();
         }
 
-        LocalDate ini;
-        try {
-            ini = parseDateBR(dataInicial);
-        } catch (Exception e) {
+        LocalDate ini = parseDateBR(dataInicial);
+        if (ini == null) {
             throw new DataInicialInvalidaException();
         }
 
-        LocalDate fim;
-        try {
-            fim = parseDateBR(dataFinal);
-        } catch (Exception e) {
+        LocalDate fim = parseDateBR(dataFinal);
+        if (fim == null) {
             throw new DataFinalInvalidaException();
         }
 
@@ -1503,17 +1961,13 @@ public class Sistema
             throw new EmpregadoNaoEhHoristaException();
         }
 
-        LocalDate ini;
-        try {
-            ini = parseDateBR(dataInicial);
-        } catch (Exception e) {
+        LocalDate ini = parseDateBR(dataInicial);
+        if (ini == null) {
             throw new DataInicialInvalidaException();
         }
 
-        LocalDate fim;
-        try {
-            fim = parseDateBR(dataFinal);
-        } catch (Exception e) {
+        LocalDate fim = parseDateBR(dataFinal);
+        if (fim == null) {
             throw new DataFinalInvalidaException();
         }
 
@@ -1840,13 +2294,66 @@ public class Sistema
     public ArrayList<Empregado> getEmpregados() {
         return this.empregados;
     }
+    /**
+     * Copia os cartões de ponto de todos os horistas para um {@link CartoesColunares}, que passa a
+     * responder consultas de horas por período sem percorrer objetos.
+     *
+     * <p>A cópia não acompanha alterações feitas depois no sistema.</p>
+     *
+     * @return os cartões em colunas, com um índice por horista na ordem do cadastro
+     * @throws IllegalArgumentException se algum cartão tiver horas com mais de duas casas decimais
+     */
+    public CartoesColunares exportarCartoes() {
+        CartoesColunares.Construtor construtor = new CartoesColunares.Construtor();
+        for (Empregado e : this.empregados) {
+            if (!(e instanceof Horista h)) continue;
+            int indice = construtor.empregado(Integer.parseInt(h.getId()));
+            for (CartaoDePonto c : h.getListaCartoes()) {
+                construtor.adicionar(indice, c.getData().toEpochDay(), c.getHoras());
+            }
+        }
+        return construtor.construir();
+    }
+    /**
+     * Cria uma cópia profunda e independente do estado de negócio atual.
+     *
+     * <p>A cópia inclui empregados (com cartões, vendas e dados sindicais), contador de IDs,
+     * agendas disponíveis e o índice de nomes já construído. O histórico de undo/redo não é copiado.
+     * Como nenhuma operação de consulta altera o {@code Sistema}, uma cópia que não recebe mais
+     * escritas pode ser lida por várias threads simultaneamente.</p>
+     *
+     * @return nova instância com o mesmo estado de negócio
+     */
+    public Sistema copia() {
+        Sistema c = new Sistema();
+        c.empregados.ensureCapacity(this.empregados.size());
+        for (Empregado e : this.empregados) {
+            c.empregados.add(e.clone());
+        }
+        c.id = this.id;
+        c.contagem = this.contagem.copia();
+        c.encerrado = this.encerrado;
+        c.agendasDisponiveis.clear();
+        c.agendasDisponiveis.addAll(this.agendasDisponiveis);
+        c.indiceNomes.reconstruir(c.empregados);
+        return c;
+    }
     /**
      * Retorna a lista interna de empregados.
      *
      * @return lista mutável de empregados
      */
     public SistemaMemento save() {
-        return new SistemaMemento(this.empregados, this.id);
+        SnapshotEvento evento = new SnapshotEvento();
+        evento.begin();
+        SistemaMemento memento = new SistemaMemento(this.empregados, this.id, this.contagem);
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.operacao = "salvar";
+            evento.empregados = this.empregados.size();
+            evento.commit();
+        }
+        return memento;
     }
     /**
      * Restaura o estado do sistema a partir de um {@link SistemaMemento}.
@@ -1854,8 +2361,18 @@ public class Sistema
      * @param memento memento previamente obtido por {@link #save()}
      */
     public void restore(SistemaMemento memento) {
+        SnapshotEvento evento = new SnapshotEvento();
+        evento.begin();
         this.empregados = new ArrayList<>(memento.getEmpregadosState());
         this.id = memento.getIdState();
+        this.contagem = memento.getContagemState();
+        indiceNomes.reconstruir(this.empregados);
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.operacao = "restaurar";
+            evento.empregados = this.empregados.size();
+            evento.commit();
+        }
     }
     /**
      * Remove todos os empregados e reinicia o contador de IDs para zero.
@@ -1863,6 +2380,8 @@ public class Sistema
     public void zerarDadosInternos() {
         checkpoint();
         this.empregados.clear();
+        this.contagem.limpar();
+        indiceNomes.reconstruir(this.empregados);
         this.id = 0;
         this.agendasDisponiveis.clear();
         this.agendasDisponiveis.addAll(
@@ -1901,8 +2420,8 @@ public class Sistema
      * e esvazia {@code redoStack}.</p>
      */
     private void checkpoint() {
-        undoStack.push(save());
-        redoStack.clear();
+        empilhar(undoStack, save());
+        limparRedo();
     }
 
     /**
@@ -1922,9 +2441,8 @@ public class Sistema
         if (undoStack.isEmpty()) {
             throw new NaoHaComandoDesfazer();
         }
-        redoStack.push(save());
-        SistemaMemento prev = undoStack.pop();
-        restore(prev);
+        empilhar(redoStack, save());
+        restore(desempilhar(undoStack));
     }
 
     /**
@@ -1947,9 +2465,159 @@ public class Sistema
         if (redoStack.isEmpty()) {
             throw new NaoHaComandoRefazer();
         }
-        undoStack.push(save());
-        SistemaMemento next = redoStack.pop();
-        restore(next);
+        empilhar(undoStack, save());
+        restore(desempilhar(redoStack));
+    }
+
+    /**
+     * Descarta os snapshots de undo/redo guardados pelo sistema, mantendo o estado atual.
+     *
+     * <p>Usado por quem aplica lançamentos de forma contínua e não pode permitir que eles sejam
+     * desfeitos (ex.: {@link wepayu.command.CaixaDeEntrada}), o que também evita que o histórico cresça
+     * sem limite.</p>
+     */
+    public void limparHistorico() {
+        undoStack.clear();
+        redoStack.clear();
+        bytesHistorico = 0;
+    }
+
+    private void empilhar(java.util.ArrayDeque<SistemaMemento> pilha, SistemaMemento memento) {
+        pilha.push(memento);
+        bytesHistorico += memento.getBytesEstimados();
+    }
+
+    private SistemaMemento desempilhar(java.util.ArrayDeque<SistemaMemento> pilha) {
+        SistemaMemento memento = pilha.pop();
+        bytesHistorico -= memento.getBytesEstimados();
+        return memento;
+    }
+
+    private void limparRedo() {
+        for (SistemaMemento m : redoStack) bytesHistorico -= m.getBytesEstimados();
+        redoStack.clear();
+    }
+
+    /**
+     * Retorna a quantidade de empregados, por tipo, e de lançamentos do estado atual.
+     *
+     * <p>A contagem é mantida a cada alteração; obtê-la não percorre os empregados.</p>
+     *
+     * @return cópia da contagem atual
+     */
+    public ContagemEstado getContagem() {
+        return contagem.copia();
+    }
+
+    /**
+     * Contagem do estado atual, para quem altera empregados fora desta classe
+     * (ex.: {@link IngestorLancamentos}).
+     */
+    ContagemEstado contagem() {
+        return contagem;
+    }
+
+    /**
+     * Estima a memória ocupada pelo estado atual e pelos snapshots de undo/redo deste sistema.
+     *
+     * <p>O cálculo é O(1): usa a {@link ContagemEstado} mantida a cada alteração e o tamanho estimado de
+     * cada snapshot, somado quando ele é empilhado. O histórico de comandos de uma
+     * {@link wepayu.command.Facade} é informado por {@link wepayu.command.Facade#getPegadaMemoria()}.</p>
+     *
+     * @return estimativa em bytes, por componente
+     */
+    public PegadaMemoria getPegadaMemoria() {
+        return new PegadaMemoria(contagem.copia(), bytesHistorico, 0);
+    }
+
+    /**
+     * Define o orçamento de memória usado para admitir importações de empregados e ingestões de
+     * lançamentos.
+     *
+     * <p>Antes de aplicar cada bloco, {@link #importarEmpregados} e {@link #ingerirLancamentos} projetam
+     * a {@link PegadaMemoria} (estado, histórico e o snapshot que a operação cria) com o que o bloco
+     * acrescenta; se a projeção passar do orçamento, a operação é interrompida com
+     * {@link OrcamentoDeMemoriaExcedidoException} e o estado anterior é mantido, mesmo no modo parcial.</p>
+     *
+     * @param bytes orçamento em bytes; {@code 0} desliga a verificação (padrão)
+     */
+    public void setOrcamentoMemoria(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Orcamento de memoria nao pode ser negativo.");
+        this.orcamentoMemoria = bytes;
+    }
+
+    /** @return orçamento de memória em bytes, ou {@code 0} se não houver */
+    public long getOrcamentoMemoria() {
+        return orcamentoMemoria;
+    }
+
+    /**
+     * Verifica se o estado atual, acrescido de {@code acrescimo}, cabe no orçamento de memória.
+     *
+     * @param acrescimo empregados e lançamentos que a operação vai acrescentar
+     * @param comCheckpoint se a operação ainda vai criar o snapshot do estado atual
+     * @throws OrcamentoDeMemoriaExcedidoException se a projeção passar do orçamento
+     */
+    void admitir(ContagemEstado acrescimo, boolean comCheckpoint) throws OrcamentoDeMemoriaExcedidoException {
+        if (orcamentoMemoria == 0) return;
+        ContagemEstado projetada = contagem.copia();
+        projetada.somar(acrescimo);
+        long bytes = PegadaMemoria.estimarEstado(projetada) + bytesHistorico
+                + (comCheckpoint ? PegadaMemoria.estimarCopia(contagem) : 0);
+        if (bytes > orcamentoMemoria) throw new OrcamentoDeMemoriaExcedidoException(bytes, orcamentoMemoria);
+    }
+
+    /**
+     * Liga o modo sombra da folha: a cada {@link #rodaFolha(String, String)} e {@link #totalFolha(String)},
+     * {@code motor} calcula a mesma folha sobre uma cópia do estado ({@link #copia()}), em paralelo, e o
+     * resultado é comparado com o da implementação de referência, que continua sendo o único a produzir o
+     * arquivo e o valor devolvidos.
+     *
+     * <p>A cópia é tirada na thread chamadora, antes do cálculo de referência; o motor, a comparação e o
+     * log ({@link System.Logger} {@code wepayu.folha.sombra}) rodam em uma thread própria. As divergências
+     * são registradas em {@code WARNING}, com as duas linhas completas, e cada execução gera um resumo com
+     * o tempo de cada motor e a razão entre eles. Falhas do motor alternativo só são registradas.</p>
+     *
+     * <p>O motor inicial é o da propriedade {@code wepayu.folha.sombra} ({@code colunar}, {@code referencia}
+     * ou o nome de uma classe que implemente {@link MotorFolha}); sem ela, o modo sombra fica desligado.</p>
+     *
+     * @param motor motor a comparar, ou {@code null} para desligar
+     */
+    public void setMotorSombra(MotorFolha motor) {
+        this.motorSombra = motor;
+    }
+
+    /** @return motor do modo sombra, ou {@code null} se desligado */
+    public MotorFolha getMotorSombra() {
+        return motorSombra;
+    }
+
+    /**
+     * Retorna o resultado da última comparação do modo sombra, esperando que ela termine.
+     *
+     * @return a comparação, ou {@code null} se nenhuma folha foi calculada com o modo sombra ligado
+     * @throws InterruptedException se a espera for interrompida
+     */
+    public ComparacaoFolha getUltimaComparacaoSombra() throws InterruptedException {
+        if (ultimaComparacaoSombra == null) return null;
+        try {
+            return ultimaComparacaoSombra.get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Restaura o motor do modo sombra e reconstrói a contagem e o tamanho do histórico de sistemas
+     * gravados antes de existirem.
+     */
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (contagem == null) contagem = ContagemEstado.de(empregados);
+        motorSombra = FolhaSombra.MOTOR_PADRAO;
+        bytesHistorico = 0;
+        for (SistemaMemento m : undoStack) bytesHistorico += m.getBytesEstimados();
+        for (SistemaMemento m : redoStack) bytesHistorico += m.getBytesEstimados();
     }
     /**
      * Avalia se um empregado deve ser pago na data informada segundo sua agenda.
@@ -2210,7 +2878,7 @@ public class Sistema
      *
      * @return {@code true} se houver alguma agenda customizada; {@code false} caso contrário
      */
-    private boolean haAgendaCustomizada() {
+    public boolean haAgendaCustomizada() {
         for (Empregado e : this.empregados) {
             String ag = e.getAgendaPagamento();
             if (ag != null && !ag.equals(agendaDefault(e.getTipo()))) {
@@ -0,0 +1,27 @@
+package wepayu.services;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR da cópia do estado para o histórico ({@link Sistema#save()}, usado pelos checkpoints e
+ * pelos comandos com snapshot) e da sua restauração ({@link Sistema#restore(wepayu.command.SistemaMemento)},
+ * usada por undo e redo).
+ */
+@Name("wepayu.Snapshot")
+@Label("Snapshot do sistema")
+@Category({"WePayU", "Historico"})
+@Description("Cópia (salvar) ou restauração (restaurar) do estado do sistema para undo/redo")
+@StackTrace(false)
+final class SnapshotEvento extends Event {
+
+    @Label("Operação")
+    String operacao;
+
+    @Label("Empregados")
+    int empregados;
+}
@@ -0,0 +1,86 @@
+package wepayu.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+import wepayu.services.KernelFolha;
+
+/**
+ * {@link KernelFolha} com a Vector API: calcula horas normais, extras e bruto de vários cartões por
+ * instrução, com a largura preferida da máquina.
+ *
+ * <p>
+ * As operações por raia são as mesmas da implementação escalar, na mesma ordem e sem fusão de
+ * multiplicação e soma, então cada {@code double} é idêntico bit a bit. Os valores exatos em unidades de
+ * {@code 10^-5} são somados em acumuladores {@code long} vetoriais; as raias restantes, raras, são somadas como
+ * {@code BigDecimal} uma a uma. A cauda do bloco usa a implementação escalar.
+ * </p>
+ *
+ * <p>Compile e execute com {@code --add-modules jdk.incubator.vector}.</p>
+ */
+public final class KernelFolhaVetorial extends KernelFolha {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS =
+            VectorSpecies.of(long.class, DOUBLES.vectorShape());
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    @Override
+    public void acumular(int[] centesimos, int de, int ate, double salarioHora, Totais totais) {
+        int passo = DOUBLES.length();
+        int limite = de + INTS.loopBound(Math.max(0, ate - de));
+        LongVector normais = LongVector.zero(LONGS);
+        LongVector extras = LongVector.zero(LONGS);
+        LongVector bruto = LongVector.zero(LONGS);
+        for (int i = de; i < limite; i += passo) {
+            DoubleVector horas = ((DoubleVector) IntVector.fromArray(INTS, centesimos, i)
+                    .convertShape(VectorOperators.I2D, DOUBLES, 0)).div(100.0);
+            DoubleVector n = horas.min(8.0);
+            DoubleVector x = horas.sub(8.0).max(0.0);
+            DoubleVector valorDia = n.mul(salarioHora).add(x.mul(salarioHora).mul(1.5));
+
+            normais = somar(normais, n, totais, 0);
+            extras = somar(extras, x, totais, 1);
+            bruto = somar(bruto, valorDia, totais, 2);
+        }
+        totais.adicionarUnidades(normais.reduceLanes(VectorOperators.ADD),
+                extras.reduceLanes(VectorOperators.ADD), bruto.reduceLanes(VectorOperators.ADD));
+        KernelFolha.escalar().acumular(centesimos, limite, ate, salarioHora, totais);
+    }
+
+    /**
+     * Soma ao acumulador as raias exatas em unidades de {@code 10^-5} e entrega as demais a {@code totais}.
+     *
+     * @param coluna 0 (normais), 1 (extras) ou 2 (bruto)
+     */
+    private static LongVector somar(LongVector acumulador, DoubleVector v, Totais totais, int coluna) {
+        DoubleVector t = v.mul(FATOR).add(0.5);
+        LongVector c = (LongVector) t.convertShape(VectorOperators.D2L, LONGS, 0);
+        DoubleVector volta = ((DoubleVector) c.convertShape(VectorOperators.L2D, DOUBLES, 0)).div(FATOR);
+        VectorMask<Double> exatas = volta.eq(v)
+                .and(t.lt(LIMITE_EXATO))
+                .and(v.compare(VectorOperators.GE, 0.0));
+        if (!exatas.allTrue()) {
+            for (int k = 0; k < v.length(); k++) {
+                if (exatas.laneIsSet(k)) continue;
+                double valor = v.lane(k);
+                switch (coluna) {
+                    case 0 -> totais.adicionarNormais(valor);
+                    case 1 -> totais.adicionarExtras(valor);
+                    default -> totais.adicionarBruto(valor);
+                }
+            }
+        }
+        return acumulador.add(c, exatas.cast(LONGS));
+    }
+
+    @Override
+    public String getNome() {
+        return "vetorial (" + DOUBLES.length() + " raias)";
+    }
+}